@@ -27,5 +27,6 @@ public class Loggers
     public static final Logger SERVICES_LOGGER = LoggerFactory.getLogger("io.zeebe.broker.services");
     public static final Logger SYSTEM_LOGGER = LoggerFactory.getLogger("io.zeebe.broker.system");
     public static final Logger TRANSPORT_LOGGER = LoggerFactory.getLogger("io.zeebe.broker.transport");
+    public static final Logger WORKFLOW_LOGGER = LoggerFactory.getLogger("io.zeebe.broker.workflow");
 
 }
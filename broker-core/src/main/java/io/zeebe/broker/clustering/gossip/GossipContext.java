@@ -19,6 +19,7 @@ package io.zeebe.broker.clustering.gossip;
 
 import io.zeebe.broker.clustering.gossip.config.GossipConfiguration;
 import io.zeebe.broker.clustering.gossip.data.Peer;
+import io.zeebe.broker.clustering.gossip.data.PeerChangeBuffer;
 import io.zeebe.broker.clustering.gossip.data.PeerList;
 import io.zeebe.broker.clustering.gossip.data.PeerSelector;
 import io.zeebe.transport.BufferingServerTransport;
@@ -30,6 +31,7 @@ public class GossipContext
 
     private Peer localPeer;
     private PeerList peers;
+    private PeerChangeBuffer peerChanges;
 
     protected ClientTransport clientTransport;
     protected BufferingServerTransport serverTransport;
@@ -86,6 +88,16 @@ public class GossipContext
         this.peers = peers;
     }
 
+    public PeerChangeBuffer getPeerChanges()
+    {
+        return peerChanges;
+    }
+
+    public void setPeerChanges(PeerChangeBuffer peerChanges)
+    {
+        this.peerChanges = peerChanges;
+    }
+
     public PeerSelector getPeerSelector()
     {
         return peerSelector;
@@ -33,6 +33,15 @@ public class GossipConfiguration extends DirectoryConfiguration
     public int disseminationInterval = 1;
     public int disseminationTimeout = 10;
 
+    /**
+     * Dissemination rounds send only the recently changed peers, every n-th
+     * round sends all peers instead. Each change is sent in
+     * (retransmit multiplier * log2(number of peers)) rounds.
+     */
+    public int disseminationChangeBufferCapacity = 64;
+    public int disseminationRetransmitMultiplier = 3;
+    public int disseminationFullSyncInterval = 10;
+
     public int failureDetectionCapacity = 8;
     public int failureDetectionProbeCapacity = 3;
     public int failureDetectorTimeout = 15;
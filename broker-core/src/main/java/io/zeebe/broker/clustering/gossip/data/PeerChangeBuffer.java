@@ -0,0 +1,166 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.clustering.gossip.data;
+
+/**
+ * <p>Buffers the recently changed peers, so that a dissemination round only
+ * has to send the changes instead of the whole list of peers.</p>
+ *
+ * <p>Each change is piggybacked on a limited number of dissemination rounds
+ * (the retransmit multiplier times the logarithm of the cluster size) and
+ * is dropped afterwards. Since the changes are only spread on a best-effort basis,
+ * every n-th round is a full sync which sends all peers. A full sync is also
+ * requested if the buffer overflowed.</p>
+ */
+public class PeerChangeBuffer implements PeerListListener
+{
+    protected final PeerList peers;
+
+    protected final int capacity;
+    protected final int retransmitMultiplier;
+    protected final int fullSyncInterval;
+
+    protected PeerList changes;
+    protected int[] remainingTransmissions;
+
+    protected PeerList pendingChanges;
+    protected int[] pendingRemainingTransmissions;
+
+    protected boolean overflowed;
+    protected long rounds;
+
+    public PeerChangeBuffer(final PeerList peers, final int capacity, final int retransmitMultiplier, final int fullSyncInterval)
+    {
+        this.peers = peers;
+        this.capacity = capacity;
+        this.retransmitMultiplier = retransmitMultiplier;
+        this.fullSyncInterval = fullSyncInterval;
+
+        this.changes = new PeerList(capacity);
+        this.remainingTransmissions = new int[capacity];
+
+        this.pendingChanges = new PeerList(capacity);
+        this.pendingRemainingTransmissions = new int[capacity];
+    }
+
+    @Override
+    public void onPeerJoin(final Peer peer)
+    {
+        onPeerChange(peer);
+    }
+
+    @Override
+    public void onPeerChange(final Peer peer)
+    {
+        final int idx = changes.find(peer);
+
+        if (idx >= 0)
+        {
+            changes.set(idx, peer);
+            remainingTransmissions[idx] = transmissionLimit();
+        }
+        else if (changes.size() < capacity)
+        {
+            final int insertIdx = ~idx;
+            System.arraycopy(remainingTransmissions, insertIdx, remainingTransmissions, insertIdx + 1, changes.size() - insertIdx);
+
+            changes.add(insertIdx, peer);
+            remainingTransmissions[insertIdx] = transmissionLimit();
+        }
+        else
+        {
+            overflowed = true;
+        }
+    }
+
+    /**
+     * Copies the buffered changes into the passed list and consumes one
+     * transmission of each change.
+     *
+     * @param dst the list to copy the changes into, in ascending order.
+     * @return false if a full sync has to be sent instead of the changes
+     */
+    public boolean poll(final PeerList dst)
+    {
+        dst.clear();
+
+        final boolean fullSync = overflowed || (fullSyncInterval > 0 && rounds % fullSyncInterval == 0);
+        rounds += 1;
+
+        if (fullSync)
+        {
+            overflowed = false;
+            return false;
+        }
+
+        pendingChanges.clear();
+        int pending = 0;
+        int idx = 0;
+
+        final PeerListIterator iterator = changes.iterator();
+        while (iterator.hasNext())
+        {
+            final Peer change = iterator.next();
+
+            dst.append(change);
+
+            final int remaining = remainingTransmissions[idx] - 1;
+            if (remaining > 0)
+            {
+                pendingChanges.append(change);
+                pendingRemainingTransmissions[pending] = remaining;
+                pending += 1;
+            }
+
+            idx += 1;
+        }
+
+        final PeerList tmpChanges = changes;
+        changes = pendingChanges;
+        pendingChanges = tmpChanges;
+
+        final int[] tmpRemainingTransmissions = remainingTransmissions;
+        remainingTransmissions = pendingRemainingTransmissions;
+        pendingRemainingTransmissions = tmpRemainingTransmissions;
+
+        return true;
+    }
+
+    /**
+     * @return the number of rounds a change is piggybacked, which grows
+     *         logarithmically with the number of known peers
+     */
+    protected int transmissionLimit()
+    {
+        final int clusterSize = Math.max(peers.size(), 1);
+        final int log = 32 - Integer.numberOfLeadingZeros(clusterSize);
+        return Math.max(retransmitMultiplier * log, 1);
+    }
+
+    public int size()
+    {
+        return changes.size();
+    }
+
+    public void close()
+    {
+        changes.close();
+        pendingChanges.close();
+    }
+
+}
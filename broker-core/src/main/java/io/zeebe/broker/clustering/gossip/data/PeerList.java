@@ -62,6 +62,7 @@ public class PeerList implements Iterable<Peer>, CloseableSilently
     protected final UnsafeBuffer tmpPeerBufferView = new UnsafeBuffer(0, 0);
 
     protected final Peer shuffledPeer = new Peer();
+    protected final Peer changedPeer = new Peer();
     protected final Random shuffleRandom = new Random();
 
     protected final List<PeerListListener> listeners = new CopyOnWriteArrayList<>();
@@ -189,6 +190,44 @@ public class PeerList implements Iterable<Peer>, CloseableSilently
 
     }
 
+    /**
+     * Merge the passed updates into this list of peers. In contrast to
+     * {@link #merge(Iterator, PeerList)}, the updates are expected to contain
+     * only the peers which recently changed, so that peers which are not
+     * contained by the updates are not added to the passed list {@code diff}.
+     *
+     * If the passed updates contains outdated information to a peer, then
+     * the updated information are added to the passed list {@code diff}.
+     *
+     * @param updates to merge, in ascending order.
+     * @param diff to collect the peers for which this list contains newer information.
+     */
+    public void mergeChanges(final Iterator<Peer> updates, final PeerList diff)
+    {
+        while (updates.hasNext())
+        {
+            final Peer thatPeer = updates.next();
+            final int idx = find(thatPeer);
+
+            if (idx < 0)
+            {
+                if (thatPeer.state() == ALIVE)
+                {
+                    add(~idx, thatPeer);
+                }
+            }
+            else
+            {
+                get(idx, changedPeer);
+
+                if (mergePeer(changedPeer, thatPeer, idx) && diff != null)
+                {
+                    diff.append(changedPeer);
+                }
+            }
+        }
+    }
+
     protected boolean mergePeer(final Peer thisPeer, final Peer thatPeer, final int idx)
     {
         final Heartbeat thisHeartbeat = thisPeer.heartbeat();
@@ -272,6 +311,11 @@ public class PeerList implements Iterable<Peer>, CloseableSilently
     {
         src.write(tmpPeerBuffer, 0);
         underlyingList.set(idx, tmpPeerBuffer, 0, src.getLength());
+
+        for (int i = 0; i < listeners.size(); i++)
+        {
+            listeners.get(i).onPeerChange(src);
+        }
     }
 
     public void add(final int idx, final Peer peer)
@@ -20,4 +20,9 @@ package io.zeebe.broker.clustering.gossip.data;
 public interface PeerListListener
 {
     void onPeerJoin(Peer peer);
+
+    default void onPeerChange(Peer peer)
+    {
+        // ignore by default
+    }
 }
@@ -53,6 +53,21 @@ public class GossipRequest implements BufferReader, BufferWriter
         return this;
     }
 
+    /**
+     * @return true if the request contains all peers known by the sender,
+     *         false if it contains only the recently changed peers
+     */
+    public boolean isFull()
+    {
+        return gossipReader.isFull();
+    }
+
+    public GossipRequest full(final boolean full)
+    {
+        gossipWriter.full(full);
+        return this;
+    }
+
     @Override
     public int getLength()
     {
@@ -79,7 +94,7 @@ public class GossipRequest implements BufferReader, BufferWriter
         headerDecoder.wrap(buffer, offset);
         offset += headerDecoder.encodedLength();
         length -= headerDecoder.encodedLength();
-        gossipReader.wrap(buffer, offset, length);
+        gossipReader.wrap(buffer, offset, length, headerDecoder.blockLength(), headerDecoder.version());
     }
 
 }
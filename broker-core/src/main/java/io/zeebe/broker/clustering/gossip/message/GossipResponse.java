@@ -79,7 +79,7 @@ public class GossipResponse implements BufferReader, BufferWriter
         headerDecoder.wrap(buffer, offset);
         offset += headerDecoder.encodedLength();
         length -= headerDecoder.encodedLength();
-        gossipReader.wrap(buffer, offset, length);
+        gossipReader.wrap(buffer, offset, length, headerDecoder.blockLength(), headerDecoder.version());
     }
 
 }
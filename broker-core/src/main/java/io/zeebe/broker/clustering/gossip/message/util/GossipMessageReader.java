@@ -24,6 +24,7 @@ import org.agrona.MutableDirectBuffer;
 
 import io.zeebe.broker.clustering.gossip.data.Peer;
 import io.zeebe.broker.clustering.gossip.data.RaftMembershipList;
+import io.zeebe.clustering.gossip.BooleanType;
 import io.zeebe.clustering.gossip.GossipDecoder;
 import io.zeebe.clustering.gossip.GossipDecoder.PeersDecoder;
 import io.zeebe.clustering.gossip.GossipDecoder.PeersDecoder.EndpointsDecoder;
@@ -39,13 +40,35 @@ public class GossipMessageReader implements BufferReader, Iterator<Peer>
 
     private final Peer currentPeer = new Peer();
 
+    private int actingVersion;
+
     @Override
     public void wrap(final DirectBuffer values, final int offset, final int length)
     {
-        bodyDecoder.wrap(values, offset, GossipDecoder.BLOCK_LENGTH, GossipDecoder.SCHEMA_VERSION);
+        wrap(values, offset, length, GossipDecoder.BLOCK_LENGTH, GossipDecoder.SCHEMA_VERSION);
+    }
+
+    /**
+     * Wraps a message with the block length and the version of its header, so
+     * that a message of an older schema version is read correctly.
+     */
+    public void wrap(final DirectBuffer values, final int offset, final int length, final int actingBlockLength, final int actingVersion)
+    {
+        this.actingVersion = actingVersion;
+
+        bodyDecoder.wrap(values, offset, actingBlockLength, actingVersion);
         iterator = bodyDecoder.peers().iterator();
     }
 
+    /**
+     * @return true if the message contains all peers known by the sender. A
+     *         message of an older version has no flag and is always full.
+     */
+    public boolean isFull()
+    {
+        return actingVersion < GossipDecoder.fullSinceVersion() || bodyDecoder.full() == BooleanType.TRUE;
+    }
+
     @Override
     public boolean hasNext()
     {
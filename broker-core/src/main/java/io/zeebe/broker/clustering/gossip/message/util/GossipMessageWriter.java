@@ -29,6 +29,7 @@ import io.zeebe.broker.clustering.gossip.data.Peer;
 import io.zeebe.broker.clustering.gossip.data.PeerList;
 import io.zeebe.broker.clustering.gossip.data.RaftMembership;
 import io.zeebe.broker.clustering.gossip.data.RaftMembershipList;
+import io.zeebe.clustering.gossip.BooleanType;
 import io.zeebe.clustering.gossip.EndpointType;
 import io.zeebe.clustering.gossip.GossipDecoder.PeersDecoder;
 import io.zeebe.clustering.gossip.GossipDecoder.PeersDecoder.EndpointsDecoder;
@@ -43,6 +44,7 @@ import io.zeebe.util.buffer.BufferWriter;
 public class GossipMessageWriter implements BufferWriter
 {
     protected PeerList peers;
+    protected boolean full = true;
 
     protected final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
     protected final GossipEncoder bodyEncoder = new GossipEncoder();
@@ -53,6 +55,12 @@ public class GossipMessageWriter implements BufferWriter
         return this;
     }
 
+    public GossipMessageWriter full(final boolean full)
+    {
+        this.full = full;
+        return this;
+    }
+
     @Override
     public int getLength()
     {
@@ -90,7 +98,9 @@ public class GossipMessageWriter implements BufferWriter
     @Override
     public void write(MutableDirectBuffer buffer, int offset)
     {
-        final PeersEncoder encoder = bodyEncoder.wrap(buffer, offset).peersCount(peers.size());
+        final PeersEncoder encoder = bodyEncoder.wrap(buffer, offset)
+            .full(full ? BooleanType.TRUE : BooleanType.FALSE)
+            .peersCount(peers.size());
 
         final Iterator<Peer> iterator = peers.iterator();
         while (iterator.hasNext())
@@ -22,6 +22,7 @@ import static io.zeebe.clustering.gossip.PeerState.ALIVE;
 import io.zeebe.broker.clustering.gossip.GossipContext;
 import io.zeebe.broker.clustering.gossip.config.GossipConfiguration;
 import io.zeebe.broker.clustering.gossip.data.Peer;
+import io.zeebe.broker.clustering.gossip.data.PeerChangeBuffer;
 import io.zeebe.broker.clustering.gossip.data.PeerList;
 import io.zeebe.broker.clustering.gossip.data.PeerSelector;
 import io.zeebe.broker.clustering.gossip.message.GossipRequest;
@@ -153,6 +154,8 @@ public class Dissemination
     {
         final Peer peer;
         final PeerList peers;
+        final PeerChangeBuffer peerChanges;
+        final PeerList changedPeers;
         final GossipRequest request;
         final GossipResponse response;
         final RequestResponseController requestController;
@@ -166,6 +169,7 @@ public class Dissemination
 
             this.peer = new Peer();
             this.peers = gossipContext.getPeers();
+            this.peerChanges = gossipContext.getPeerChanges();
             this.peerSelector = gossipContext.getPeerSelector();
 
             this.exclusions = new Peer[1];
@@ -175,6 +179,7 @@ public class Dissemination
             this.response = new GossipResponse();
 
             final GossipConfiguration config = gossipContext.getConfig();
+            this.changedPeers = new PeerList(config.disseminationChangeBufferCapacity);
             this.requestController = new RequestResponseController(gossipContext.getClientTransport(), config.disseminationTimeout);
 
             this.failureDetectors = failureDetectors;
@@ -213,10 +218,18 @@ public class Dissemination
         {
             final GossipRequest request = context.request;
             final PeerList peers = context.peers;
+            final PeerList changedPeers = context.changedPeers;
             final RequestResponseController requestController = context.requestController;
             final Peer peer = context.peer;
 
-            request.peers(peers);
+            if (context.peerChanges.poll(changedPeers))
+            {
+                request.peers(changedPeers).full(false);
+            }
+            else
+            {
+                request.peers(peers).full(true);
+            }
 
             final SocketAddress endpoint = peer.managementEndpoint();
             requestController.open(endpoint, request, context.response);
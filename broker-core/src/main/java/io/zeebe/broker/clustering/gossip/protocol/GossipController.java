@@ -325,7 +325,14 @@ public class GossipController
         gossipRequest.wrap(buffer, offset, length);
 
         diff.clear();
-        peers.merge(gossipRequest.peers(), diff);
+        if (gossipRequest.isFull())
+        {
+            peers.merge(gossipRequest.peers(), diff);
+        }
+        else
+        {
+            peers.mergeChanges(gossipRequest.peers(), diff);
+        }
 
         final int idx = peers.find(localPeer);
         if (idx > 0)
@@ -20,6 +20,7 @@ package io.zeebe.broker.clustering.gossip.service;
 import io.zeebe.broker.clustering.gossip.GossipContext;
 import io.zeebe.broker.clustering.gossip.config.GossipConfiguration;
 import io.zeebe.broker.clustering.gossip.data.Peer;
+import io.zeebe.broker.clustering.gossip.data.PeerChangeBuffer;
 import io.zeebe.broker.clustering.gossip.data.PeerList;
 import io.zeebe.broker.clustering.gossip.data.PeerSelector;
 import io.zeebe.servicecontainer.Injector;
@@ -40,6 +41,7 @@ public class GossipContextService implements Service<GossipContext>
     private final GossipConfiguration config;
 
     private GossipContext context;
+    private PeerChangeBuffer peerChanges;
 
     public GossipContextService(final GossipConfiguration config)
     {
@@ -56,9 +58,16 @@ public class GossipContextService implements Service<GossipContext>
         final Peer localPeer = localPeerInjector.getValue();
         final PeerSelector peerSelector = peerSelectorInjector.getValue();
 
+        peerChanges = new PeerChangeBuffer(peers,
+                config.disseminationChangeBufferCapacity,
+                config.disseminationRetransmitMultiplier,
+                config.disseminationFullSyncInterval);
+        peers.registerListener(peerChanges);
+
         context = new GossipContext();
         context.setLocalPeer(localPeer);
         context.setPeers(peers);
+        context.setPeerChanges(peerChanges);
         context.setConfig(config);
         context.setClientTransport(clientTransport);
         context.setServerTransport(serverTransport);
@@ -68,6 +77,8 @@ public class GossipContextService implements Service<GossipContext>
     @Override
     public void stop(ServiceStopContext stopContext)
     {
+        context.getPeers().removeListener(peerChanges);
+        peerChanges.close();
     }
 
     @Override
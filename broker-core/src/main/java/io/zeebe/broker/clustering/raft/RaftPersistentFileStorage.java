@@ -20,11 +20,13 @@ package io.zeebe.broker.clustering.raft;
 import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 
 import java.io.*;
+import java.nio.MappedByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.CRC32;
 
 import io.zeebe.logstreams.log.LogStream;
 import io.zeebe.raft.RaftPersistentStorage;
@@ -32,11 +34,40 @@ import io.zeebe.transport.SocketAddress;
 import io.zeebe.util.LangUtil;
 import io.zeebe.util.StreamUtil;
 import org.agrona.DirectBuffer;
+import org.agrona.IoUtil;
 import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 
+/**
+ * Stores the raft configuration of a partition in a memory-mapped file with
+ * two slots. A save writes the configuration into the slot which does not
+ * contain the latest configuration and forces it to disk, so that a torn
+ * write never destroys the previous configuration. On load, the valid slot
+ * with the highest sequence number is used.
+ *
+ * <p>File layout:
+ * <pre>
+ * header: magic (int), slot capacity (int)
+ * slot 0: sequence (long), length (int), checksum (int), configuration
+ * slot 1: sequence (long), length (int), checksum (int), configuration
+ * </pre>
+ *
+ * A file which contains only the configuration (written by older versions)
+ * is converted on the first save.
+ */
 public class RaftPersistentFileStorage implements RaftPersistentStorage
 {
+    private static final int MAGIC = 0x4D52425A;
+    private static final int INITIAL_SLOT_CAPACITY = 4 * 1024;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int SLOT_CAPACITY_OFFSET = 4;
+    private static final int HEADER_LENGTH = 8;
+
+    private static final int SLOT_SEQUENCE_OFFSET = 0;
+    private static final int SLOT_LENGTH_OFFSET = 8;
+    private static final int SLOT_CHECKSUM_OFFSET = 12;
+    private static final int SLOT_HEADER_LENGTH = 16;
 
     private final RaftConfiguration configuration = new RaftConfiguration();
 
@@ -50,6 +81,13 @@ public class RaftPersistentFileStorage implements RaftPersistentStorage
 
     private final MutableDirectBuffer readBuffer = new UnsafeBuffer(0, 0);
 
+    private final CRC32 checksum = new CRC32();
+
+    private MappedByteBuffer mappedFile;
+    private final MutableDirectBuffer mappedBuffer = new UnsafeBuffer(0, 0);
+    private int slotCapacity;
+    private long sequence;
+
     private final SocketAddress votedFor = new SocketAddress();
     private LogStream logStream;
 
@@ -148,10 +186,10 @@ public class RaftPersistentFileStorage implements RaftPersistentStorage
     {
         if (file.exists())
         {
-            final long length = file.length();
+            final int length = (int) file.length();
             if (length > readBuffer.capacity())
             {
-                allocateReadBuffer((int) length);
+                allocateReadBuffer(length);
             }
 
             try (InputStream is = new FileInputStream(file))
@@ -163,7 +201,31 @@ public class RaftPersistentFileStorage implements RaftPersistentStorage
                 LangUtil.rethrowUnchecked(e);
             }
 
-            configuration.wrap(readBuffer);
+            if (length >= HEADER_LENGTH && readBuffer.getInt(MAGIC_OFFSET) == MAGIC)
+            {
+                slotCapacity = readBuffer.getInt(SLOT_CAPACITY_OFFSET);
+
+                // an incomplete file is replaced on the next save
+                if (length >= HEADER_LENGTH + 2 * slotCapacity)
+                {
+                    final int slot = findLatestSlot(readBuffer);
+                    if (slot >= 0)
+                    {
+                        final int slotOffset = slotOffset(slot);
+                        final int configurationLength = readBuffer.getInt(slotOffset + SLOT_LENGTH_OFFSET);
+
+                        sequence = readBuffer.getLong(slotOffset + SLOT_SEQUENCE_OFFSET);
+                        configuration.wrap(readBuffer, slotOffset + SLOT_HEADER_LENGTH, configurationLength);
+                    }
+
+                    mapFile();
+                }
+            }
+            else
+            {
+                // written by an older version - contains only the configuration
+                configuration.wrap(readBuffer, 0, length);
+            }
         }
     }
 
@@ -178,10 +240,44 @@ public class RaftPersistentFileStorage implements RaftPersistentStorage
 
         configuration.write(writeBuffer, 0);
 
+        if (mappedFile == null || SLOT_HEADER_LENGTH + length > slotCapacity)
+        {
+            createFile(length);
+        }
+        else if (!isSaved(length))
+        {
+            writeSlot(mappedBuffer, length);
+            mappedFile.force();
+        }
+
+        return this;
+    }
+
+    /**
+     * Creates the file with the given configuration length in a temporary
+     * file and replaces the existing file atomically.
+     */
+    private void createFile(final int length)
+    {
+        int capacity = INITIAL_SLOT_CAPACITY;
+        while (SLOT_HEADER_LENGTH + length > capacity)
+        {
+            capacity *= 2;
+        }
+        slotCapacity = capacity;
+
+        final MutableDirectBuffer fileBuffer = new UnsafeBuffer(new byte[HEADER_LENGTH + 2 * slotCapacity]);
+        fileBuffer.putInt(MAGIC_OFFSET, MAGIC);
+        fileBuffer.putInt(SLOT_CAPACITY_OFFSET, slotCapacity);
+
+        writeSlot(fileBuffer, length);
+
+        unmapFile();
+
         try (FileOutputStream os = new FileOutputStream(tmpFile))
         {
-            os.write(writeBuffer.byteArray(), 0, length);
-            os.flush();
+            os.write(fileBuffer.byteArray());
+            os.getFD().sync();
         }
         catch (final IOException e)
         {
@@ -197,7 +293,99 @@ public class RaftPersistentFileStorage implements RaftPersistentStorage
             LangUtil.rethrowUnchecked(e);
         }
 
-        return this;
+        mapFile();
+    }
+
+    private void writeSlot(final MutableDirectBuffer buffer, final int length)
+    {
+        sequence += 1;
+
+        final int slotOffset = slotOffset((int) (sequence & 1));
+
+        buffer.putBytes(slotOffset + SLOT_HEADER_LENGTH, writeBuffer, 0, length);
+        buffer.putInt(slotOffset + SLOT_LENGTH_OFFSET, length);
+        buffer.putInt(slotOffset + SLOT_CHECKSUM_OFFSET, checksum(writeBuffer, 0, length));
+        buffer.putLong(slotOffset + SLOT_SEQUENCE_OFFSET, sequence);
+    }
+
+    /**
+     * @return true, if the latest slot contains the configuration of the write buffer
+     */
+    private boolean isSaved(final int length)
+    {
+        final int slotOffset = slotOffset((int) (sequence & 1));
+
+        if (mappedBuffer.getInt(slotOffset + SLOT_LENGTH_OFFSET) != length)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++)
+        {
+            if (mappedBuffer.getByte(slotOffset + SLOT_HEADER_LENGTH + i) != writeBuffer.getByte(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the slot with the highest sequence and a valid checksum, or -1 if no slot is valid
+     */
+    private int findLatestSlot(final DirectBuffer buffer)
+    {
+        int latestSlot = -1;
+        long latestSequence = 0;
+
+        for (int slot = 0; slot < 2; slot++)
+        {
+            final int slotOffset = slotOffset(slot);
+            final long slotSequence = buffer.getLong(slotOffset + SLOT_SEQUENCE_OFFSET);
+            final int length = buffer.getInt(slotOffset + SLOT_LENGTH_OFFSET);
+
+            final boolean isValid = slotSequence > latestSequence
+                    && length > 0
+                    && SLOT_HEADER_LENGTH + length <= slotCapacity
+                    && buffer.getInt(slotOffset + SLOT_CHECKSUM_OFFSET) == checksum(buffer, slotOffset + SLOT_HEADER_LENGTH, length);
+
+            if (isValid)
+            {
+                latestSlot = slot;
+                latestSequence = slotSequence;
+            }
+        }
+
+        return latestSlot;
+    }
+
+    private int checksum(final DirectBuffer buffer, final int offset, final int length)
+    {
+        checksum.reset();
+        checksum.update(buffer.byteArray(), offset, length);
+
+        return (int) checksum.getValue();
+    }
+
+    private int slotOffset(final int slot)
+    {
+        return HEADER_LENGTH + slot * slotCapacity;
+    }
+
+    private void mapFile()
+    {
+        mappedFile = IoUtil.mapExistingFile(file, "raft configuration");
+        mappedBuffer.wrap(mappedFile);
+    }
+
+    private void unmapFile()
+    {
+        if (mappedFile != null)
+        {
+            IoUtil.unmap(mappedFile);
+            mappedFile = null;
+            mappedBuffer.wrap(0, 0);
+        }
     }
 
     private void allocateWriteBuffer(final int capacity)
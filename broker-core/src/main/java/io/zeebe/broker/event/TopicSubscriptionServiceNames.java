@@ -31,6 +31,11 @@ public class TopicSubscriptionServiceNames
         return ServiceName.newServiceName(String.format("log.%s.subscription.push.%s", logStreamName, subscriptionName), StreamProcessorController.class);
     }
 
+    public static ServiceName<StreamProcessorController> subscriptionPushMultiplexerServiceName(String logStreamName)
+    {
+        return ServiceName.newServiceName(String.format("log.%s.subscription.multiplexer", logStreamName), StreamProcessorController.class);
+    }
+
     public static ServiceName<StreamProcessorController> subscriptionManagementServiceName(String logStreamName)
     {
         return ServiceName.newServiceName(String.format("log.%s.subscription.management", logStreamName), StreamProcessorController.class);
@@ -21,6 +21,18 @@ import io.zeebe.broker.system.DirectoryConfiguration;
 
 public class SubscriptionCfg extends DirectoryConfiguration
 {
+    /**
+     * The maximum time in milliseconds a topic subscription acknowledgement is kept in memory
+     * before it is written to the log.
+     */
+    public int ackFlushInterval = 1000;
+
+    /**
+     * The number of acknowledgements of a topic subscription after which the latest one is
+     * written to the log, even if the flush interval has not elapsed.
+     */
+    public int ackFlushThreshold = 100;
+
     @Override
     protected String componentDirectoryName()
     {
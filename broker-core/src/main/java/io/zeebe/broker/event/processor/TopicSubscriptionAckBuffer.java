@@ -0,0 +1,104 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.event.processor;
+
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.broadcast.RecordDescriptor;
+import org.agrona.concurrent.ringbuffer.OneToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBufferDescriptor;
+
+/**
+ * Hands topic subscription acknowledgements from the client api message handler to the
+ * subscription management processor of a partition, without appending them to the log.
+ * Acknowledgements are offered by one thread at a time (the client api message handler).
+ */
+public class TopicSubscriptionAckBuffer
+{
+    protected static final int MSG_TYPE = 1;
+
+    protected static final int ACK_POSITION_OFFSET = 0;
+    protected static final int NAME_OFFSET = ACK_POSITION_OFFSET + BitUtil.SIZE_OF_LONG;
+
+    protected final int maxNameLength;
+    protected final OneToOneRingBuffer ringBuffer;
+    protected final UnsafeBuffer writeBuffer;
+    protected final AckHandler ackHandler = new AckHandler();
+
+    public TopicSubscriptionAckBuffer(int capacity, int maxNameLength)
+    {
+        this.maxNameLength = maxNameLength;
+
+        final int recordLength = RecordDescriptor.HEADER_LENGTH + NAME_OFFSET + maxNameLength;
+        final int bufferCapacity = BitUtil.findNextPositivePowerOfTwo(capacity * recordLength) + RingBufferDescriptor.TRAILER_LENGTH;
+
+        this.ringBuffer = new OneToOneRingBuffer(new UnsafeBuffer(new byte[bufferCapacity]));
+        this.writeBuffer = new UnsafeBuffer(new byte[NAME_OFFSET + maxNameLength]);
+    }
+
+    /**
+     * @return true if the name can be offered to this buffer
+     */
+    public boolean accepts(DirectBuffer name)
+    {
+        return name.capacity() <= maxNameLength;
+    }
+
+    /**
+     * @return false if the buffer is full and the acknowledgement should be retried
+     */
+    public boolean offer(DirectBuffer name, long ackPosition)
+    {
+        final int nameLength = name.capacity();
+
+        writeBuffer.putLong(ACK_POSITION_OFFSET, ackPosition);
+        writeBuffer.putBytes(NAME_OFFSET, name, 0, nameLength);
+
+        return ringBuffer.write(MSG_TYPE, writeBuffer, 0, NAME_OFFSET + nameLength);
+    }
+
+    public int drain(AckConsumer consumer)
+    {
+        ackHandler.consumer = consumer;
+        return ringBuffer.read(ackHandler);
+    }
+
+    @FunctionalInterface
+    public interface AckConsumer
+    {
+        void onAck(DirectBuffer subscriptionName, long ackPosition);
+    }
+
+    protected static class AckHandler implements MessageHandler
+    {
+        protected final UnsafeBuffer name = new UnsafeBuffer(0, 0);
+        protected AckConsumer consumer;
+
+        @Override
+        public void onMessage(int msgTypeId, MutableDirectBuffer buffer, int index, int length)
+        {
+            final long ackPosition = buffer.getLong(index + ACK_POSITION_OFFSET);
+            name.wrap(buffer, index + NAME_OFFSET, length - NAME_OFFSET);
+
+            consumer.onAck(name, ackPosition);
+        }
+    }
+}
@@ -19,12 +19,17 @@ package io.zeebe.broker.event.processor;
 
 import static io.zeebe.broker.logstreams.LogStreamServiceNames.SNAPSHOT_STORAGE_SERVICE;
 import static io.zeebe.broker.system.SystemServiceNames.ACTOR_SCHEDULER_SERVICE;
+import static io.zeebe.broker.system.SystemServiceNames.COUNTERS_MANAGER_SERVICE;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 import io.zeebe.broker.event.TopicSubscriptionServiceNames;
+import io.zeebe.broker.logstreams.processor.EventStateFilter;
 import io.zeebe.broker.logstreams.processor.MetadataFilter;
 import io.zeebe.broker.logstreams.processor.StreamProcessorIds;
 import io.zeebe.broker.logstreams.processor.StreamProcessorService;
@@ -48,12 +53,21 @@ import io.zeebe.protocol.impl.BrokerEventMetadata;
 import io.zeebe.servicecontainer.ServiceName;
 import io.zeebe.servicecontainer.ServiceStartContext;
 import io.zeebe.util.DeferredCommandContext;
+import io.zeebe.util.time.ClockUtil;
 import org.agrona.DirectBuffer;
 
 public class TopicSubscriptionManagementProcessor implements StreamProcessor
 {
 
     protected static final int MAXIMUM_SUBSCRIPTION_NAME_LENGTH = 32;
+    protected static final int ACK_BUFFER_CAPACITY = 1024;
+
+    protected static final EnumSet<TopicSubscriptionState> PROCESSED_SUBSCRIPTION_STATES = EnumSet.of(
+            TopicSubscriptionState.ACKNOWLEDGE);
+
+    protected static final EnumSet<TopicSubscriberState> PROCESSED_SUBSCRIBER_STATES = EnumSet.of(
+            TopicSubscriberState.SUBSCRIBE,
+            TopicSubscriberState.SUBSCRIBED);
 
     protected final SnapshotSupport snapshotResource;
 
@@ -68,8 +82,18 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
     protected final CommandResponseWriter responseWriter;
     protected final Supplier<SubscribedEventWriter> eventWriterFactory;
     protected final ServiceStartContext serviceContext;
+    protected final TopicSubscriptionPushMultiplexer pushMultiplexer;
     protected final Bytes2LongZbMap ackMap;
 
+    protected final TopicSubscriptionAckBuffer ackBuffer = new TopicSubscriptionAckBuffer(ACK_BUFFER_CAPACITY, MAXIMUM_SUBSCRIPTION_NAME_LENGTH);
+    protected final TopicSubscriptionAckBuffer.AckConsumer ackConsumer = this::onBufferedAck;
+    protected LogStreamWriter ackWriter;
+    protected final BrokerEventMetadata ackMetadata = new BrokerEventMetadata();
+    protected final TopicSubscriptionEvent ackEvent = new TopicSubscriptionEvent();
+    protected final long ackFlushInterval;
+    protected final int ackFlushThreshold;
+    protected long nextAckFlush;
+
     protected DeferredCommandContext cmdContext;
 
     protected final AckProcessor ackProcessor = new AckProcessor();
@@ -79,6 +103,8 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
     protected final BrokerEventMetadata metadata = new BrokerEventMetadata();
     protected final TopicSubscriptionEvent subscriptionEvent = new TopicSubscriptionEvent();
     protected final TopicSubscriberEvent subscriberEvent = new TopicSubscriberEvent();
+    protected final EventStateFilter subscriptionStateFilter = new EventStateFilter(PROCESSED_SUBSCRIPTION_STATES);
+    protected final EventStateFilter subscriberStateFilter = new EventStateFilter(PROCESSED_SUBSCRIBER_STATES);
     protected LoggedEvent currentEvent;
 
     public TopicSubscriptionManagementProcessor(
@@ -86,15 +112,20 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
             CommandResponseWriter responseWriter,
             ErrorResponseWriter errorWriter,
             Supplier<SubscribedEventWriter> eventWriterFactory,
-            ServiceStartContext serviceContext)
+            ServiceStartContext serviceContext,
+            TopicSubscriptionPushMultiplexer pushMultiplexer,
+            SubscriptionCfg config)
     {
         this.streamServiceName = streamServiceName;
         this.responseWriter = responseWriter;
         this.errorWriter = errorWriter;
         this.eventWriterFactory = eventWriterFactory;
         this.serviceContext = serviceContext;
+        this.pushMultiplexer = pushMultiplexer;
+        this.ackFlushInterval = config.ackFlushInterval;
+        this.ackFlushThreshold = config.ackFlushThreshold;
         this.ackMap = new Bytes2LongZbMap(MAXIMUM_SUBSCRIPTION_NAME_LENGTH);
-        this.snapshotResource = new ZbMapSnapshotSupport<>(ackMap);
+        this.snapshotResource = new AckFlushingSnapshotSupport(new ZbMapSnapshotSupport<>(ackMap));
     }
 
     @Override
@@ -107,6 +138,9 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
         this.logStreamPartitionId = sourceStream.getPartitionId();
 
         targetStream = context.getTargetStream();
+        ackWriter = context.getLogStreamWriter();
+
+        nextAckFlush = ClockUtil.getCurrentTimeInMillis() + ackFlushInterval;
     }
 
     @Override
@@ -126,6 +160,102 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
         return targetStream;
     }
 
+    public TopicSubscriptionAckBuffer getAckBuffer()
+    {
+        return ackBuffer;
+    }
+
+    @Override
+    public boolean isSuspended()
+    {
+        // called on every cycle of the controller, so acknowledgements are handled even if no event is processed
+        if (targetStream != null)
+        {
+            ackBuffer.drain(ackConsumer);
+
+            final long now = ClockUtil.getCurrentTimeInMillis();
+            if (now >= nextAckFlush)
+            {
+                flushAcks();
+                nextAckFlush = now + ackFlushInterval;
+            }
+        }
+
+        return false;
+    }
+
+    protected void onBufferedAck(DirectBuffer subscriptionName, long ackPosition)
+    {
+        final TopicSubscriptionPushProcessor processor = subscriptionRegistry.getProcessorByName(subscriptionName);
+
+        if (processor != null)
+        {
+            // the push processor can continue right away, the ack is written to the log later
+            processor.onAck(ackPosition);
+
+            final int unflushedAcks = processor.recordUnflushedAck(ackPosition);
+            if (unflushedAcks >= ackFlushThreshold)
+            {
+                flushAck(processor);
+            }
+        }
+        else
+        {
+            // no open subscription to keep the ack with
+            writeAck(subscriptionName, ackPosition);
+        }
+    }
+
+    protected void flushAcks()
+    {
+        final Iterator<TopicSubscriptionPushProcessor> subscriptionsIt = subscriptionRegistry.iterateSubscriptions();
+
+        while (subscriptionsIt.hasNext())
+        {
+            final TopicSubscriptionPushProcessor processor = subscriptionsIt.next();
+            if (processor.hasUnflushedAck())
+            {
+                flushAck(processor);
+            }
+        }
+    }
+
+    protected void flushAck(TopicSubscriptionPushProcessor processor)
+    {
+        // if the ack can not be written now, it is retried on the next flush
+        if (writeAck(processor.getName(), processor.getUnflushedAckPosition()))
+        {
+            processor.onAckFlushed();
+        }
+    }
+
+    /**
+     * Appends an acknowledgement to the log. It becomes the durable resume position of the subscription
+     * when it is processed by the {@link AckProcessor}.
+     */
+    protected boolean writeAck(DirectBuffer subscriptionName, long ackPosition)
+    {
+        ackEvent.reset();
+        ackEvent.setState(TopicSubscriptionState.ACKNOWLEDGE)
+            .setName(subscriptionName, 0, subscriptionName.capacity())
+            .setAckPosition(ackPosition);
+
+        ackMetadata.reset();
+        ackMetadata.protocolVersion(Protocol.PROTOCOL_VERSION)
+            .eventType(EventType.SUBSCRIPTION_EVENT)
+            .requestStreamId(-1)
+            .requestId(-1)
+            .raftTermId(targetStream.getTerm());
+
+        final long position = ackWriter
+            .positionAsKey()
+            .metadataWriter(ackMetadata)
+            .valueWriter(ackEvent)
+            .tryWrite();
+
+        return position >= 0;
+    }
+
     @Override
     public EventProcessor onEvent(LoggedEvent event)
     {
@@ -150,6 +280,11 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
 
     protected EventProcessor onSubscriberEvent(LoggedEvent event)
     {
+        if (!subscriberStateFilter.applies(event))
+        {
+            return null;
+        }
+
         subscriberEvent.reset();
         subscriberEvent.wrap(event.getValueBuffer(), event.getValueOffset(), event.getValueLength());
 
@@ -170,6 +305,11 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
 
     protected EventProcessor onSubscriptionEvent(LoggedEvent event)
     {
+        if (!subscriptionStateFilter.applies(event))
+        {
+            return null;
+        }
+
         subscriptionEvent.reset();
         subscriptionEvent.wrap(event.getValueBuffer(), event.getValueOffset(), event.getValueLength());
 
@@ -208,6 +348,17 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
 
     protected CompletableFuture<Void> closePushProcessor(TopicSubscriptionPushProcessor processor)
     {
+        // a client acknowledges before it closes the subscription, so the ack may not be drained yet
+        ackBuffer.drain(ackConsumer);
+
+        if (processor.hasUnflushedAck())
+        {
+            flushAck(processor);
+        }
+
+        // the multiplexer drops the subscription when it is disabled
+        processor.disable();
+
         final ServiceName<StreamProcessorController> subscriptionProcessorName =
                 TopicSubscriptionServiceNames.subscriptionPushServiceName(streamServiceName.getName(), processor.getNameAsString());
 
@@ -249,7 +400,8 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
                 resumePosition,
                 subscriptionName,
                 prefetchCapacity,
-                eventWriterFactory.get());
+                eventWriterFactory.get(),
+                pushMultiplexer);
 
         final ServiceName<StreamProcessorController> serviceName = TopicSubscriptionServiceNames.subscriptionPushServiceName(streamServiceName.getName(), processor.getNameAsString());
 
@@ -265,6 +417,7 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
             .dependency(streamServiceName, streamProcessorService.getTargetStreamInjector())
             .dependency(SNAPSHOT_STORAGE_SERVICE, streamProcessorService.getSnapshotStorageInjector())
             .dependency(ACTOR_SCHEDULER_SERVICE, streamProcessorService.getActorSchedulerInjector())
+            .dependency(COUNTERS_MANAGER_SERVICE, streamProcessorService.getCountersInjector())
             .install()
             .thenApply((v) -> processor);
     }
@@ -308,6 +461,45 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
     }
 
 
+    /**
+     * Writes the acknowledgements kept in memory to the log before the snapshot of the ack map
+     * is taken. The written acks are processed after the snapshot position, so that the
+     * subscriptions resume from them if the broker restarts from this snapshot.
+     */
+    protected class AckFlushingSnapshotSupport implements SnapshotSupport
+    {
+        protected final SnapshotSupport ackMapSnapshot;
+
+        public AckFlushingSnapshotSupport(SnapshotSupport ackMapSnapshot)
+        {
+            this.ackMapSnapshot = ackMapSnapshot;
+        }
+
+        @Override
+        public void writeSnapshot(OutputStream outputStream) throws Exception
+        {
+            if (targetStream != null)
+            {
+                ackBuffer.drain(ackConsumer);
+                flushAcks();
+            }
+
+            ackMapSnapshot.writeSnapshot(outputStream);
+        }
+
+        @Override
+        public void recoverFromSnapshot(InputStream inputStream) throws Exception
+        {
+            ackMapSnapshot.recoverFromSnapshot(inputStream);
+        }
+
+        @Override
+        public void reset()
+        {
+            ackMapSnapshot.reset();
+        }
+    }
+
     protected class AckProcessor implements EventProcessor
     {
         @Override
@@ -332,15 +524,16 @@ public class TopicSubscriptionManagementProcessor implements StreamProcessor
         @Override
         public boolean executeSideEffects()
         {
-            final TopicSubscriptionPushProcessor subscriptionProcessor = subscriptionRegistry.getProcessorByName(subscriptionEvent.getName());
-
-            if (subscriptionProcessor != null)
-            {
-                subscriptionProcessor.onAck(subscriptionEvent.getAckPosition());
-            }
-
             if (metadata.getRequestId() >= 0)
             {
+                // acks written by the management processor itself were handed to the push processor on receipt
+                final TopicSubscriptionPushProcessor subscriptionProcessor = subscriptionRegistry.getProcessorByName(subscriptionEvent.getName());
+
+                if (subscriptionProcessor != null)
+                {
+                    subscriptionProcessor.onAck(subscriptionEvent.getAckPosition());
+                }
+
                 return responseWriter
                         .topicName(logStreamTopicName)
                         .partitionId(logStreamPartitionId)
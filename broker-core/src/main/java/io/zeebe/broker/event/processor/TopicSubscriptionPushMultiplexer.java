@@ -0,0 +1,228 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.event.processor;
+
+import io.zeebe.broker.logstreams.processor.NoopSnapshotSupport;
+import io.zeebe.logstreams.log.LogStreamReader;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.logstreams.processor.EventProcessor;
+import io.zeebe.logstreams.processor.StreamProcessor;
+import io.zeebe.logstreams.processor.StreamProcessorContext;
+import io.zeebe.logstreams.spi.SnapshotSupport;
+import io.zeebe.protocol.impl.BrokerEventMetadata;
+import io.zeebe.util.DeferredCommandContext;
+
+/**
+ * Pushes the events of a partition to all topic subscriptions that have caught up with the head of the log.
+ * The log is read and the metadata of an event is decoded once, regardless of the number of subscriptions.
+ * <p>
+ * A subscription starts on its own cursor (see {@link TopicSubscriptionPushProcessor}) and is attached
+ * to the multiplexer when it reaches the multiplexer's position. If the prefetch window of an attached
+ * subscription is exhausted, the subscription is detached and continues on its own cursor, so that a slow
+ * subscriber does not hold back the others.
+ */
+public class TopicSubscriptionPushMultiplexer implements StreamProcessor, EventProcessor
+{
+    protected static final int INITIAL_CAPACITY = 16;
+
+    protected final SnapshotSupport snapshotSupport = new NoopSnapshotSupport();
+    protected final BrokerEventMetadata metadata = new BrokerEventMetadata();
+
+    /*
+     * attached subscriptions and the position of the next event each of them expects;
+     * index i of both arrays belongs to the same subscription
+     */
+    protected TopicSubscriptionPushProcessor[] subscriptions = new TopicSubscriptionPushProcessor[INITIAL_CAPACITY];
+    protected long[] nextPositions = new long[INITIAL_CAPACITY];
+    protected int subscriptionCount = 0;
+
+    protected LoggedEvent event;
+    protected int pushIndex;
+
+    protected volatile long lastPosition = -1L;
+    protected volatile DeferredCommandContext cmdContext;
+
+    @Override
+    public void onOpen(StreamProcessorContext context)
+    {
+        final LogStreamReader logReader = context.getSourceLogStreamReader();
+
+        logReader.seekToLastEvent();
+
+        if (logReader.hasNext())
+        {
+            logReader.next();
+            lastPosition = logReader.getPosition();
+        }
+
+        cmdContext = context.getStreamProcessorCmdQueue();
+    }
+
+    @Override
+    public void onClose()
+    {
+        cmdContext = null;
+
+        for (int i = 0; i < subscriptionCount; i++)
+        {
+            subscriptions[i] = null;
+        }
+        subscriptionCount = 0;
+    }
+
+    @Override
+    public SnapshotSupport getStateResource()
+    {
+        return snapshotSupport;
+    }
+
+    @Override
+    public EventProcessor onEvent(LoggedEvent event)
+    {
+        lastPosition = event.getPosition();
+
+        if (subscriptionCount > 0)
+        {
+            this.event = event;
+            this.pushIndex = 0;
+
+            metadata.reset();
+            event.readMetadata(metadata);
+
+            return this;
+        }
+        else
+        {
+            return null;
+        }
+    }
+
+    @Override
+    public void processEvent()
+    {
+    }
+
+    @Override
+    public boolean executeSideEffects()
+    {
+        final long position = event.getPosition();
+
+        // continues with the first subscription that has not received the event yet, if this is a retry
+        while (pushIndex < subscriptionCount)
+        {
+            final TopicSubscriptionPushProcessor subscription = subscriptions[pushIndex];
+
+            if (!subscription.isEnabled())
+            {
+                // subscription has been closed
+                remove(pushIndex);
+            }
+            else if (position < nextPositions[pushIndex])
+            {
+                pushIndex++;
+            }
+            else if (!subscription.hasPushCapacity())
+            {
+                remove(pushIndex);
+                subscription.onDetached(position);
+            }
+            else if (subscription.push(event, metadata))
+            {
+                pushIndex++;
+            }
+            else
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the position of the last event the multiplexer has read
+     */
+    public long getLastPosition()
+    {
+        return lastPosition;
+    }
+
+    /**
+     * Attaches the subscription if the multiplexer has not read past the given position yet. Otherwise,
+     * the subscription is rejected and has to continue on its own cursor.
+     *
+     * @param nextPosition the position of the next event the subscription expects
+     */
+    public void attachAsync(TopicSubscriptionPushProcessor subscription, long nextPosition)
+    {
+        final DeferredCommandContext cmdContext = this.cmdContext;
+
+        if (cmdContext == null)
+        {
+            subscription.onAttachRejected();
+            return;
+        }
+
+        cmdContext.runAsync(() ->
+        {
+            if (subscription.isEnabled() && nextPosition > lastPosition)
+            {
+                add(subscription, nextPosition);
+                subscription.onAttached();
+            }
+            else
+            {
+                subscription.onAttachRejected();
+            }
+        });
+    }
+
+    protected void add(TopicSubscriptionPushProcessor subscription, long nextPosition)
+    {
+        if (subscriptionCount == subscriptions.length)
+        {
+            final int newCapacity = subscriptions.length * 2;
+
+            final TopicSubscriptionPushProcessor[] newSubscriptions = new TopicSubscriptionPushProcessor[newCapacity];
+            System.arraycopy(subscriptions, 0, newSubscriptions, 0, subscriptionCount);
+            subscriptions = newSubscriptions;
+
+            final long[] newNextPositions = new long[newCapacity];
+            System.arraycopy(nextPositions, 0, newNextPositions, 0, subscriptionCount);
+            nextPositions = newNextPositions;
+        }
+
+        subscriptions[subscriptionCount] = subscription;
+        nextPositions[subscriptionCount] = nextPosition;
+        subscriptionCount++;
+    }
+
+    protected void remove(int index)
+    {
+        // keep the order so that a retry of the current event continues at the right index
+        final int tail = subscriptionCount - index - 1;
+        if (tail > 0)
+        {
+            System.arraycopy(subscriptions, index + 1, subscriptions, index, tail);
+            System.arraycopy(nextPositions, index + 1, nextPositions, index, tail);
+        }
+
+        subscriptionCount--;
+        subscriptions[subscriptionCount] = null;
+    }
+}
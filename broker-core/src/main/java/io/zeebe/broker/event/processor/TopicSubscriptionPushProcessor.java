@@ -38,8 +38,17 @@ import io.zeebe.protocol.clientapi.EventType;
 import io.zeebe.protocol.clientapi.SubscriptionType;
 import io.zeebe.util.collection.LongRingBuffer;
 
+/**
+ * Pushes the events of a partition to one topic subscription. The processor reads the log with its own cursor
+ * until it has caught up with the {@link TopicSubscriptionPushMultiplexer} of the partition. Then it hands the
+ * subscription over to the multiplexer and stays suspended until the multiplexer detaches the subscription again.
+ */
 public class TopicSubscriptionPushProcessor implements StreamProcessor, EventProcessor
 {
+    protected static final int CURSOR_OWN = 0;
+    protected static final int CURSOR_ATTACHING = 1;
+    protected static final int CURSOR_ATTACHED = 2;
+    protected static final int CURSOR_RESUMING = 3;
 
     protected final BrokerEventMetadata metadata = new BrokerEventMetadata();
 
@@ -55,20 +64,31 @@ public class TopicSubscriptionPushProcessor implements StreamProcessor, EventPro
 
     protected final SnapshotSupport snapshotSupport = new NoopSnapshotSupport();
     protected final SubscribedEventWriter channelWriter;
+    protected final TopicSubscriptionPushMultiplexer multiplexer;
+    protected LogStreamReader logReader;
 
     protected LongRingBuffer pendingEvents;
     protected LongRingBuffer pendingAcks;
     protected AtomicBoolean enabled;
 
+    protected volatile int cursorState = CURSOR_OWN;
+    protected long resumePosition;
+
+    // the latest acknowledgement which is not written to the log yet; managed by the management processor
+    protected long unflushedAckPosition = -1L;
+    protected int unflushedAckCount = 0;
+
     public TopicSubscriptionPushProcessor(
             int clientStreamId,
             long subscriberKey,
             long startPosition,
             DirectBuffer name,
             int prefetchCapacity,
-            SubscribedEventWriter channelWriter)
+            SubscribedEventWriter channelWriter,
+            TopicSubscriptionPushMultiplexer multiplexer)
     {
         this.channelWriter = channelWriter;
+        this.multiplexer = multiplexer;
         this.clientStreamId = clientStreamId;
         this.subscriberKey = subscriberKey;
         this.startPosition = startPosition;
@@ -86,8 +106,7 @@ public class TopicSubscriptionPushProcessor implements StreamProcessor, EventPro
     @Override
     public void onOpen(StreamProcessorContext context)
     {
-
-        final LogStreamReader logReader = context.getSourceLogStreamReader();
+        logReader = context.getSourceLogStreamReader();
 
         final LogStream sourceStream = context.getSourceStream();
         this.logStreamTopicName = sourceStream.getTopicName();
@@ -146,6 +165,29 @@ public class TopicSubscriptionPushProcessor implements StreamProcessor, EventPro
     {
         event.readMetadata(metadata);
 
+        final boolean success = push(event, metadata);
+
+        if (success && multiplexer != null)
+        {
+            final long position = event.getPosition();
+
+            if (position >= multiplexer.getLastPosition() && hasPushCapacity())
+            {
+                // caught up with the shared cursor
+                cursorState = CURSOR_ATTACHING;
+                multiplexer.attachAsync(this, position + 1);
+            }
+        }
+
+        return success;
+    }
+
+    /**
+     * Writes the event to the subscriber. Called by this processor or by the multiplexer, depending on
+     * which one currently owns the subscription.
+     */
+    public boolean push(LoggedEvent event, BrokerEventMetadata metadata)
+    {
         final boolean success = channelWriter
             .topicName(logStreamTopicName)
             .partitionId(logStreamPartitionId)
@@ -169,6 +211,23 @@ public class TopicSubscriptionPushProcessor implements StreamProcessor, EventPro
         return success;
     }
 
+    /**
+     * @return true if the prefetch window of the subscriber has space for another event
+     */
+    public boolean hasPushCapacity()
+    {
+        if (recordsPendingEvents())
+        {
+            // first, process any ACKs if there are any pending
+            pendingAcks.consume((ackedPosition) -> pendingEvents.consumeAscendingUntilInclusive(ackedPosition));
+            return !pendingEvents.isSaturated();
+        }
+        else
+        {
+            return true;
+        }
+    }
+
     @Override
     public boolean isSuspended()
     {
@@ -177,16 +236,38 @@ public class TopicSubscriptionPushProcessor implements StreamProcessor, EventPro
             return true;
         }
 
-        if (recordsPendingEvents())
+        final int cursorState = this.cursorState;
+
+        if (cursorState == CURSOR_ATTACHING || cursorState == CURSOR_ATTACHED)
         {
-            // first, process any ACKs if there are any pending
-            pendingAcks.consume((ackedPosition) -> pendingEvents.consumeAscendingUntilInclusive(ackedPosition));
-            return pendingEvents.isSaturated();
+            return true;
         }
-        else
+        else if (cursorState == CURSOR_RESUMING)
         {
-            return false;
+            logReader.seek(resumePosition);
+            this.cursorState = CURSOR_OWN;
         }
+
+        return !hasPushCapacity();
+    }
+
+    protected void onAttached()
+    {
+        cursorState = CURSOR_ATTACHED;
+    }
+
+    protected void onAttachRejected()
+    {
+        cursorState = CURSOR_OWN;
+    }
+
+    /**
+     * @param position the position of the first event which is not pushed by the multiplexer
+     */
+    protected void onDetached(long position)
+    {
+        resumePosition = position;
+        cursorState = CURSOR_RESUMING;
     }
 
     public int getChannelId()
@@ -217,6 +298,32 @@ public class TopicSubscriptionPushProcessor implements StreamProcessor, EventPro
         }
     }
 
+    /**
+     * Records an acknowledgement which is kept in memory until it is written to the log.
+     *
+     * @return the number of acknowledgements since the last one written to the log
+     */
+    public int recordUnflushedAck(long ackPosition)
+    {
+        unflushedAckPosition = Math.max(unflushedAckPosition, ackPosition);
+        return ++unflushedAckCount;
+    }
+
+    public boolean hasUnflushedAck()
+    {
+        return unflushedAckCount > 0;
+    }
+
+    public long getUnflushedAckPosition()
+    {
+        return unflushedAckPosition;
+    }
+
+    public void onAckFlushed()
+    {
+        unflushedAckCount = 0;
+    }
+
     /**
      * @return true if this subscription requires throttling
      */
@@ -254,4 +361,14 @@ public class TopicSubscriptionPushProcessor implements StreamProcessor, EventPro
     {
         this.enabled.set(true);
     }
+
+    public void disable()
+    {
+        this.enabled.set(false);
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled.get();
+    }
 }
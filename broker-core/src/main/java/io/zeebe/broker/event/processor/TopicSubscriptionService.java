@@ -19,6 +19,7 @@ package io.zeebe.broker.event.processor;
 
 import static io.zeebe.broker.logstreams.LogStreamServiceNames.SNAPSHOT_STORAGE_SERVICE;
 import static io.zeebe.broker.system.SystemServiceNames.ACTOR_SCHEDULER_SERVICE;
+import static io.zeebe.broker.system.SystemServiceNames.COUNTERS_MANAGER_SERVICE;
 import static io.zeebe.util.buffer.BufferUtil.bufferAsString;
 
 import java.util.HashMap;
@@ -34,6 +35,7 @@ import io.zeebe.broker.logstreams.processor.MetadataFilter;
 import io.zeebe.broker.logstreams.processor.StreamProcessorIds;
 import io.zeebe.broker.logstreams.processor.StreamProcessorService;
 import io.zeebe.broker.system.ConfigurationManager;
+import io.zeebe.broker.transport.clientapi.ClientApiMessageHandler;
 import io.zeebe.broker.transport.clientapi.CommandResponseWriter;
 import io.zeebe.broker.transport.clientapi.ErrorResponseWriter;
 import io.zeebe.broker.transport.clientapi.SubscribedEventWriter;
@@ -59,12 +61,14 @@ public class TopicSubscriptionService implements Service<TopicSubscriptionServic
 {
     protected final Injector<ActorScheduler> actorSchedulerInjector = new Injector<>();
     protected final Injector<ServerTransport> clientApiTransportInjector = new Injector<>();
+    protected final Injector<ClientApiMessageHandler> clientApiMessageHandlerInjector = new Injector<>();
     protected final SubscriptionCfg config;
 
     protected ActorScheduler actorScheduler;
     protected ServiceStartContext serviceContext;
     protected Map<DirectBuffer, Int2ObjectHashMap<TopicSubscriptionManagementProcessor>> managersByLog = new HashMap<>();
     protected ServerOutput serverOutput;
+    protected ClientApiMessageHandler clientApiMessageHandler;
 
     protected ActorReference actorRef;
 
@@ -97,6 +101,11 @@ public class TopicSubscriptionService implements Service<TopicSubscriptionServic
         return clientApiTransportInjector;
     }
 
+    public Injector<ClientApiMessageHandler> getClientApiMessageHandlerInjector()
+    {
+        return clientApiMessageHandlerInjector;
+    }
+
     public ServiceGroupReference<LogStream> getLogStreamsGroupReference()
     {
         return logStreamsGroupReference;
@@ -107,6 +116,7 @@ public class TopicSubscriptionService implements Service<TopicSubscriptionServic
     {
         final ServerTransport transport = clientApiTransportInjector.getValue();
         this.serverOutput = transport.getOutput();
+        this.clientApiMessageHandler = clientApiMessageHandlerInjector.getValue();
 
         actorScheduler = actorSchedulerInjector.getValue();
         asyncContext = new DeferredCommandContext();
@@ -128,25 +138,41 @@ public class TopicSubscriptionService implements Service<TopicSubscriptionServic
     {
         asyncContext.runAsync(() ->
         {
+            final TopicSubscriptionPushMultiplexer pushMultiplexer = new TopicSubscriptionPushMultiplexer();
+
             final TopicSubscriptionManagementProcessor ackProcessor = new TopicSubscriptionManagementProcessor(
                 logStreamServiceName,
                 new CommandResponseWriter(serverOutput),
                 new ErrorResponseWriter(serverOutput),
                 () -> new SubscribedEventWriter(serverOutput),
-                serviceContext
+                serviceContext,
+                pushMultiplexer,
+                config
                 );
 
             createStreamProcessorService(
                     logStreamServiceName,
-                    TopicSubscriptionServiceNames.subscriptionManagementServiceName(logStream.getLogName()),
-                    StreamProcessorIds.TOPIC_SUBSCRIPTION_MANAGEMENT_PROCESSOR_ID,
-                    ackProcessor,
-                    TopicSubscriptionManagementProcessor.filter())
+                    TopicSubscriptionServiceNames.subscriptionPushMultiplexerServiceName(logStream.getLogName()),
+                    StreamProcessorIds.TOPIC_SUBSCRIPTION_PUSH_MULTIPLEXER_ID,
+                    pushMultiplexer,
+                    TopicSubscriptionPushProcessor.eventFilter(),
+                    true)
+                .thenCompose((v) ->
+                    createStreamProcessorService(
+                        logStreamServiceName,
+                        TopicSubscriptionServiceNames.subscriptionManagementServiceName(logStream.getLogName()),
+                        StreamProcessorIds.TOPIC_SUBSCRIPTION_MANAGEMENT_PROCESSOR_ID,
+                        ackProcessor,
+                        TopicSubscriptionManagementProcessor.filter(),
+                        false))
                 .thenAccept((v) ->
+                {
                     managersByLog
                         .computeIfAbsent(logStream.getTopicName(), k -> new Int2ObjectHashMap<>())
-                        .put(logStream.getPartitionId(), ackProcessor)
-                );
+                        .put(logStream.getPartitionId(), ackProcessor);
+
+                    clientApiMessageHandler.addTopicSubscriptionAckBuffer(logStream, ackProcessor.getAckBuffer());
+                });
         });
     }
 
@@ -155,19 +181,22 @@ public class TopicSubscriptionService implements Service<TopicSubscriptionServic
             ServiceName<StreamProcessorController> processorName,
             int processorId,
             StreamProcessor streamProcessor,
-            MetadataFilter eventFilter)
+            MetadataFilter eventFilter,
+            boolean readOnly)
     {
         final StreamProcessorService streamProcessorService = new StreamProcessorService(
                 processorName.getName(),
                 processorId,
                 streamProcessor)
-            .eventFilter(eventFilter);
+            .eventFilter(eventFilter)
+            .readOnly(readOnly);
 
         return serviceContext.createService(processorName, streamProcessorService)
             .dependency(logStreamName, streamProcessorService.getSourceStreamInjector())
             .dependency(logStreamName, streamProcessorService.getTargetStreamInjector())
             .dependency(SNAPSHOT_STORAGE_SERVICE, streamProcessorService.getSnapshotStorageInjector())
             .dependency(ACTOR_SCHEDULER_SERVICE, streamProcessorService.getActorSchedulerInjector())
+            .dependency(COUNTERS_MANAGER_SERVICE, streamProcessorService.getCountersInjector())
             .install();
     }
 
@@ -179,6 +208,8 @@ public class TopicSubscriptionService implements Service<TopicSubscriptionServic
             final DirectBuffer topicName = logStream.getTopicName();
             final int partitionId = logStream.getPartitionId();
 
+            clientApiMessageHandler.removeTopicSubscriptionAckBuffer(logStream);
+
             final Int2ObjectHashMap<TopicSubscriptionManagementProcessor> managersByPartition = managersByLog.get(topicName);
 
             if (managersByPartition != null)
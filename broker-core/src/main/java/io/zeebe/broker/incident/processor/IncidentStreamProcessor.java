@@ -21,10 +21,13 @@ import io.zeebe.broker.incident.data.ErrorType;
 import io.zeebe.broker.incident.data.IncidentEvent;
 import io.zeebe.broker.incident.data.IncidentState;
 import io.zeebe.broker.incident.index.IncidentMap;
+import io.zeebe.broker.logstreams.processor.EventStateFilter;
 import io.zeebe.broker.logstreams.processor.MetadataFilter;
 import io.zeebe.broker.task.data.TaskEvent;
 import io.zeebe.broker.task.data.TaskHeaders;
+import io.zeebe.broker.task.data.TaskState;
 import io.zeebe.broker.workflow.data.WorkflowInstanceEvent;
+import io.zeebe.broker.workflow.data.WorkflowInstanceState;
 import io.zeebe.logstreams.log.*;
 import io.zeebe.logstreams.processor.EventProcessor;
 import io.zeebe.logstreams.processor.StreamProcessor;
@@ -74,14 +77,32 @@ public class IncidentStreamProcessor implements StreamProcessor
     private final WorkflowInstanceEvent workflowInstanceEvent = new WorkflowInstanceEvent();
     private final TaskEvent taskEvent = new TaskEvent();
 
+    private final EventStateFilter workflowInstanceStateFilter = new EventStateFilter(
+            WorkflowInstanceState.PAYLOAD_UPDATED,
+            WorkflowInstanceState.ACTIVITY_ACTIVATED,
+            WorkflowInstanceState.ACTIVITY_COMPLETED,
+            WorkflowInstanceState.ACTIVITY_TERMINATED);
+
+    private final EventStateFilter taskStateFilter = new EventStateFilter(
+            TaskState.FAILED,
+            TaskState.RETRIES_UPDATED,
+            TaskState.CANCELED);
+
     private long eventKey;
     private long eventPosition;
 
-    private LogStreamReader logStreamReader;
+    private final LogStreamReader logStreamReader;
     private LogStream targetStream;
 
     public IncidentStreamProcessor()
     {
+        this(new BufferedLogStreamReader());
+    }
+
+    public IncidentStreamProcessor(LogStreamReader logStreamReader)
+    {
+        this.logStreamReader = logStreamReader;
+
         this.activityInstanceMap = new Long2LongZbMap();
         this.failedTaskMap = new Long2LongZbMap();
         this.incidentMap = new IncidentMap();
@@ -101,7 +122,7 @@ public class IncidentStreamProcessor implements StreamProcessor
     @Override
     public void onOpen(StreamProcessorContext context)
     {
-        logStreamReader = new BufferedLogStreamReader(context.getSourceStream());
+        logStreamReader.wrap(context.getSourceStream());
 
         targetStream = context.getTargetStream();
     }
@@ -182,6 +203,11 @@ public class IncidentStreamProcessor implements StreamProcessor
 
     private EventProcessor onWorkflowInstanceEvent(LoggedEvent event)
     {
+        if (!workflowInstanceStateFilter.applies(event))
+        {
+            return null;
+        }
+
         workflowInstanceEvent.reset();
         event.readValue(workflowInstanceEvent);
 
@@ -204,6 +230,11 @@ public class IncidentStreamProcessor implements StreamProcessor
 
     private EventProcessor onTaskEvent(LoggedEvent event)
     {
+        if (!taskStateFilter.applies(event))
+        {
+            return null;
+        }
+
         taskEvent.reset();
         event.readValue(taskEvent);
 
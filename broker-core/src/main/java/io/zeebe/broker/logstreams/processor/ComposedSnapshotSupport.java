@@ -0,0 +1,322 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+
+import io.zeebe.logstreams.spi.SnapshotSupport;
+
+/**
+ * Writes the snapshots of multiple resources into one snapshot. The snapshot
+ * starts with a format header. Each part is streamed in length-prefixed
+ * chunks and terminated by an empty chunk, so that a part is written without
+ * knowing its size and can be recovered independently of the number of bytes
+ * the other parts consume.
+ * <p>
+ * A snapshot without header was written by a single processor before it was
+ * composed with others. It is recovered into the first part; the other parts
+ * are reset and rebuild their state from the events after the snapshot.
+ */
+public class ComposedSnapshotSupport implements SnapshotSupport
+{
+    public static final int FORMAT_MAGIC = 0x5A434D50;
+    public static final int FORMAT_VERSION = 1;
+
+    protected static final int CHUNK_SIZE = 16 * 1024;
+
+    private final SnapshotSupport[] parts;
+
+    private final ChunkedOutputStream partOutputStream = new ChunkedOutputStream(CHUNK_SIZE);
+    private final ChunkedInputStream partInputStream = new ChunkedInputStream();
+
+    public ComposedSnapshotSupport(SnapshotSupport... parts)
+    {
+        this.parts = parts;
+    }
+
+    @Override
+    public void writeSnapshot(OutputStream outputStream) throws Exception
+    {
+        final DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+
+        dataOutputStream.writeInt(FORMAT_MAGIC);
+        dataOutputStream.writeInt(FORMAT_VERSION);
+
+        for (int i = 0; i < parts.length; i++)
+        {
+            partOutputStream.wrap(dataOutputStream);
+
+            parts[i].writeSnapshot(partOutputStream);
+
+            partOutputStream.finish();
+        }
+
+        dataOutputStream.flush();
+    }
+
+    @Override
+    public void recoverFromSnapshot(InputStream inputStream) throws Exception
+    {
+        final DataInputStream dataInputStream = new DataInputStream(inputStream);
+
+        final int header = dataInputStream.readInt();
+
+        if (header == FORMAT_MAGIC)
+        {
+            final int version = dataInputStream.readInt();
+            if (version != FORMAT_VERSION)
+            {
+                throw new IllegalStateException(String.format("Unsupported version '%d' of composed snapshot. Expected version '%d'.", version, FORMAT_VERSION));
+            }
+
+            recoverParts(dataInputStream);
+        }
+        else
+        {
+            recoverUncomposedSnapshot(dataInputStream, header);
+        }
+    }
+
+    protected void recoverParts(DataInputStream dataInputStream) throws Exception
+    {
+        for (int i = 0; i < parts.length; i++)
+        {
+            partInputStream.wrap(dataInputStream);
+
+            parts[i].recoverFromSnapshot(partInputStream);
+
+            // skip the bytes which are not read by the part
+            partInputStream.skipRemaining();
+        }
+    }
+
+    protected void recoverUncomposedSnapshot(DataInputStream dataInputStream, int header) throws Exception
+    {
+        // the header is the beginning of the snapshot of the first part
+        final byte[] headerBytes = new byte[] {
+            (byte) (header >>> 24),
+            (byte) (header >>> 16),
+            (byte) (header >>> 8),
+            (byte) header
+        };
+
+        parts[0].recoverFromSnapshot(new SequenceInputStream(new ByteArrayInputStream(headerBytes), dataInputStream));
+
+        for (int i = 1; i < parts.length; i++)
+        {
+            parts[i].reset();
+        }
+    }
+
+    @Override
+    public void reset()
+    {
+        for (int i = 0; i < parts.length; i++)
+        {
+            parts[i].reset();
+        }
+    }
+
+    protected static void skipFully(DataInputStream inputStream, int length) throws IOException
+    {
+        int remaining = length;
+
+        while (remaining > 0)
+        {
+            final int skipped = inputStream.skipBytes(remaining);
+            if (skipped > 0)
+            {
+                remaining -= skipped;
+            }
+            else
+            {
+                // throws an exception at the end of the stream
+                inputStream.readUnsignedByte();
+                remaining -= 1;
+            }
+        }
+    }
+
+    /**
+     * Buffers the written bytes and writes them as chunks with a length
+     * prefix. Does not close the underlying stream.
+     */
+    static class ChunkedOutputStream extends OutputStream
+    {
+        private final byte[] chunk;
+        private int chunkLength;
+
+        private DataOutputStream outputStream;
+
+        ChunkedOutputStream(int chunkSize)
+        {
+            this.chunk = new byte[chunkSize];
+        }
+
+        public void wrap(DataOutputStream outputStream)
+        {
+            this.outputStream = outputStream;
+            this.chunkLength = 0;
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            if (chunkLength == chunk.length)
+            {
+                writeChunk();
+            }
+
+            chunk[chunkLength++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            int written = 0;
+
+            while (written < len)
+            {
+                if (chunkLength == chunk.length)
+                {
+                    writeChunk();
+                }
+
+                final int length = Math.min(len - written, chunk.length - chunkLength);
+                System.arraycopy(b, off + written, chunk, chunkLength, length);
+
+                chunkLength += length;
+                written += length;
+            }
+        }
+
+        /**
+         * Writes the buffered bytes and the terminating empty chunk.
+         */
+        public void finish() throws IOException
+        {
+            if (chunkLength > 0)
+            {
+                writeChunk();
+            }
+
+            outputStream.writeInt(0);
+        }
+
+        private void writeChunk() throws IOException
+        {
+            outputStream.writeInt(chunkLength);
+            outputStream.write(chunk, 0, chunkLength);
+
+            chunkLength = 0;
+        }
+
+        @Override
+        public void close()
+        {
+            // the underlying stream contains the following parts
+        }
+    }
+
+    /**
+     * Reads the chunks of one part until the terminating empty chunk.
+     */
+    static class ChunkedInputStream extends InputStream
+    {
+        private DataInputStream inputStream;
+
+        private int remainingChunkLength;
+        private boolean isFinished;
+
+        public void wrap(DataInputStream inputStream)
+        {
+            this.inputStream = inputStream;
+            this.remainingChunkLength = 0;
+            this.isFinished = false;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            if (!hasRemaining())
+            {
+                return -1;
+            }
+
+            remainingChunkLength -= 1;
+            return inputStream.readUnsignedByte();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            else if (!hasRemaining())
+            {
+                return -1;
+            }
+
+            final int length = Math.min(len, remainingChunkLength);
+            inputStream.readFully(b, off, length);
+
+            remainingChunkLength -= length;
+            return length;
+        }
+
+        @Override
+        public int available()
+        {
+            return remainingChunkLength;
+        }
+
+        public void skipRemaining() throws IOException
+        {
+            while (hasRemaining())
+            {
+                skipFully(inputStream, remainingChunkLength);
+                remainingChunkLength = 0;
+            }
+        }
+
+        private boolean hasRemaining() throws IOException
+        {
+            if (remainingChunkLength == 0 && !isFinished)
+            {
+                remainingChunkLength = inputStream.readInt();
+                isFinished = remainingChunkLength == 0;
+            }
+
+            return remainingChunkLength > 0;
+        }
+
+        @Override
+        public void close()
+        {
+            // the underlying stream contains the following parts
+        }
+    }
+}
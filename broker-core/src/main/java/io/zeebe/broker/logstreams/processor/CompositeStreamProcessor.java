@@ -0,0 +1,275 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.zeebe.logstreams.log.LogStreamWriter;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.logstreams.processor.EventProcessor;
+import io.zeebe.logstreams.processor.StreamProcessor;
+import io.zeebe.logstreams.processor.StreamProcessorContext;
+import io.zeebe.logstreams.spi.SnapshotSupport;
+import io.zeebe.protocol.impl.BrokerEventMetadata;
+import io.zeebe.util.actor.Actor;
+
+/**
+ * Runs multiple stream processors of the same log stream in one read pass.
+ * Each event is read and its metadata is decoded once and then offered to
+ * every processor whose filter applies, instead of reading the log once per
+ * processor.
+ *
+ * <p>The processors share the position of the composite. A suspended
+ * processor suspends all others, so only processors which keep up with each
+ * other should be composed (e.g. not topic subscriptions with a prefetch
+ * window). The state of the processors is written into one snapshot.
+ */
+public class CompositeStreamProcessor implements StreamProcessor, EventProcessor
+{
+    protected final BrokerEventMetadata metadata = new BrokerEventMetadata();
+
+    protected final List<Member> members = new ArrayList<>();
+
+    protected SnapshotSupport snapshotSupport;
+
+    protected int sideEffectsIndex;
+    protected int writeIndex;
+    protected long writtenEventPosition;
+
+    /**
+     * Adds a processor which is invoked for the events the given filter applies to.
+     * Must be called before the composite is opened.
+     */
+    public CompositeStreamProcessor processor(StreamProcessor streamProcessor, MetadataFilter eventFilter)
+    {
+        members.add(new Member(streamProcessor, eventFilter));
+        return this;
+    }
+
+    /**
+     * @return a filter which applies to the events of any of the processors
+     */
+    public MetadataFilter eventFilter()
+    {
+        return (m) ->
+        {
+            for (int i = 0; i < members.size(); i++)
+            {
+                if (members.get(i).eventFilter.applies(m))
+                {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    @Override
+    public SnapshotSupport getStateResource()
+    {
+        if (snapshotSupport == null)
+        {
+            final SnapshotSupport[] parts = new SnapshotSupport[members.size()];
+            for (int i = 0; i < parts.length; i++)
+            {
+                parts[i] = members.get(i).streamProcessor.getStateResource();
+            }
+
+            snapshotSupport = new ComposedSnapshotSupport(parts);
+        }
+        return snapshotSupport;
+    }
+
+    @Override
+    public void onOpen(StreamProcessorContext context)
+    {
+        for (int i = 0; i < members.size(); i++)
+        {
+            members.get(i).streamProcessor.onOpen(context);
+        }
+    }
+
+    @Override
+    public void onClose()
+    {
+        for (int i = 0; i < members.size(); i++)
+        {
+            members.get(i).streamProcessor.onClose();
+        }
+    }
+
+    @Override
+    public int getPriority(long now)
+    {
+        for (int i = 0; i < members.size(); i++)
+        {
+            if (members.get(i).streamProcessor.getPriority(now) == Actor.PRIORITY_HIGH)
+            {
+                return Actor.PRIORITY_HIGH;
+            }
+        }
+        return Actor.PRIORITY_LOW;
+    }
+
+    @Override
+    public boolean isSuspended()
+    {
+        for (int i = 0; i < members.size(); i++)
+        {
+            if (members.get(i).streamProcessor.isSuspended())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public EventProcessor onEvent(LoggedEvent event)
+    {
+        metadata.reset();
+        event.readMetadata(metadata);
+
+        boolean hasEventProcessor = false;
+
+        for (int i = 0; i < members.size(); i++)
+        {
+            final Member member = members.get(i);
+
+            member.eventProcessor = null;
+            member.isOfferedEvent = member.eventFilter.applies(metadata);
+
+            if (member.isOfferedEvent)
+            {
+                member.eventProcessor = member.streamProcessor.onEvent(event);
+                hasEventProcessor |= member.eventProcessor != null;
+            }
+        }
+
+        if (hasEventProcessor)
+        {
+            sideEffectsIndex = 0;
+            writeIndex = 0;
+            writtenEventPosition = 0;
+
+            return this;
+        }
+        else
+        {
+            return null;
+        }
+    }
+
+    @Override
+    public void afterEvent()
+    {
+        for (int i = 0; i < members.size(); i++)
+        {
+            final Member member = members.get(i);
+
+            if (member.isOfferedEvent)
+            {
+                member.streamProcessor.afterEvent();
+                member.isOfferedEvent = false;
+            }
+        }
+    }
+
+    @Override
+    public void processEvent()
+    {
+        for (int i = 0; i < members.size(); i++)
+        {
+            final EventProcessor eventProcessor = members.get(i).eventProcessor;
+
+            if (eventProcessor != null)
+            {
+                eventProcessor.processEvent();
+            }
+        }
+    }
+
+    @Override
+    public boolean executeSideEffects()
+    {
+        // the controller retries until all side effects are executed - don't execute them twice
+        for (; sideEffectsIndex < members.size(); sideEffectsIndex++)
+        {
+            final EventProcessor eventProcessor = members.get(sideEffectsIndex).eventProcessor;
+
+            if (eventProcessor != null && !eventProcessor.executeSideEffects())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public long writeEvent(LogStreamWriter writer)
+    {
+        // the controller retries until all events are written - don't write them twice
+        for (; writeIndex < members.size(); writeIndex++)
+        {
+            final EventProcessor eventProcessor = members.get(writeIndex).eventProcessor;
+
+            if (eventProcessor != null)
+            {
+                final long position = eventProcessor.writeEvent(writer);
+
+                if (position < 0)
+                {
+                    return position;
+                }
+
+                writtenEventPosition = Math.max(writtenEventPosition, position);
+            }
+        }
+        return writtenEventPosition;
+    }
+
+    @Override
+    public void updateState()
+    {
+        for (int i = 0; i < members.size(); i++)
+        {
+            final EventProcessor eventProcessor = members.get(i).eventProcessor;
+
+            if (eventProcessor != null)
+            {
+                eventProcessor.updateState();
+            }
+        }
+    }
+
+    protected static class Member
+    {
+        protected final StreamProcessor streamProcessor;
+        protected final MetadataFilter eventFilter;
+
+        protected EventProcessor eventProcessor;
+        protected boolean isOfferedEvent;
+
+        Member(StreamProcessor streamProcessor, MetadataFilter eventFilter)
+        {
+            this.streamProcessor = streamProcessor;
+            this.eventFilter = eventFilter;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+
+import java.util.Collection;
+
+import org.agrona.DirectBuffer;
+
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.msgpack.spec.MsgPackReader;
+
+/**
+ * Checks the state of an encoded event against a set of states without
+ * decoding the other properties of the event. Allows a {@link io.zeebe.logstreams.processor.StreamProcessor}
+ * to skip events which it ignores before it reads the complete value.
+ *
+ * <p>An event without a state property is accepted, so that the processor can
+ * decide on the decoded value.
+ */
+public class EventStateFilter
+{
+    private static final DirectBuffer STATE_PROPERTY = wrapString("state");
+
+    private final MsgPackReader msgPackReader = new MsgPackReader();
+    private final DirectBuffer[] states;
+
+    public EventStateFilter(Enum<?>... states)
+    {
+        this.states = new DirectBuffer[states.length];
+
+        for (int i = 0; i < states.length; i++)
+        {
+            this.states[i] = wrapString(states[i].name());
+        }
+    }
+
+    public EventStateFilter(Collection<? extends Enum<?>> states)
+    {
+        this(states.toArray(new Enum<?>[states.size()]));
+    }
+
+    public boolean applies(LoggedEvent event)
+    {
+        return applies(event.getValueBuffer(), event.getValueOffset(), event.getValueLength());
+    }
+
+    public boolean applies(DirectBuffer buffer, int offset, int length)
+    {
+        msgPackReader.wrap(buffer, offset, length);
+
+        final int propertyCount = msgPackReader.readMapHeader();
+
+        for (int i = 0; i < propertyCount; i++)
+        {
+            final int keyLength = msgPackReader.readStringLength();
+            final int keyOffset = msgPackReader.getOffset();
+            msgPackReader.skipBytes(keyLength);
+
+            if (equals(buffer, offset + keyOffset, keyLength, STATE_PROPERTY))
+            {
+                final int stateLength = msgPackReader.readStringLength();
+                final int stateOffset = msgPackReader.getOffset();
+
+                return containsState(buffer, offset + stateOffset, stateLength);
+            }
+            else
+            {
+                msgPackReader.skipValue();
+            }
+        }
+
+        return true;
+    }
+
+    private boolean containsState(DirectBuffer buffer, int offset, int length)
+    {
+        for (int i = 0; i < states.length; i++)
+        {
+            if (equals(buffer, offset, length, states[i]))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean equals(DirectBuffer buffer, int offset, int length, DirectBuffer other)
+    {
+        if (length != other.capacity())
+        {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++)
+        {
+            if (buffer.getByte(offset + i) != other.getByte(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
+
+import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.logstreams.log.LogStreamWriter;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.logstreams.processor.EventProcessor;
+import io.zeebe.logstreams.processor.StreamProcessor;
+import io.zeebe.logstreams.processor.StreamProcessorContext;
+import io.zeebe.logstreams.spi.SnapshotSupport;
+import io.zeebe.util.time.ClockUtil;
+
+/**
+ * Decorates a stream processor and records the number of processed and
+ * written events, the time spent in each processing step and the position
+ * of the last processed event in the counters file.
+ *
+ * <p>The time counters sum up the nanoseconds of all invocations, so that the
+ * average latency of a step is the time counter divided by the event counter.
+ * The backlog of the processor is the commit position of the log stream minus
+ * the last processed position, both are exported as counters.</p>
+ *
+ * <p>The latency from the commit of an event to its processing is recorded in a
+ * {@link LatencyHistogram}. The log entries carry no timestamp, so the processor
+ * remembers when it observed the commit position advance and takes this time
+ * as the commit time of the events up to that position. The latency can be
+ * overestimated by the time between two controller cycles.</p>
+ */
+public class InstrumentedStreamProcessor implements StreamProcessor, EventProcessor
+{
+    public static final String COUNTER_LABEL_PREFIX = "stream-processor.";
+
+    protected static final int COMMIT_MARK_CAPACITY = 64;
+
+    protected final StreamProcessor streamProcessor;
+
+    protected final AtomicCounter processedEventsCounter;
+    protected final AtomicCounter writtenEventsCounter;
+    protected final AtomicCounter processTimeCounter;
+    protected final AtomicCounter sideEffectsTimeCounter;
+    protected final AtomicCounter writeTimeCounter;
+    protected final AtomicCounter updateStateTimeCounter;
+    protected final AtomicCounter lastProcessedPositionCounter;
+    protected final AtomicCounter commitPositionCounter;
+    protected final LatencyHistogram processingLatency;
+
+    // ring of observed commit positions and the time they were observed, in ascending order
+    protected final long[] commitMarkPositions = new long[COMMIT_MARK_CAPACITY];
+    protected final long[] commitMarkTimes = new long[COMMIT_MARK_CAPACITY];
+    protected int commitMarkHead = 0;
+    protected int commitMarkCount = 0;
+    protected long lastCommitPosition = -1L;
+
+    protected LogStream sourceStream;
+
+    protected EventProcessor eventProcessor;
+    protected long eventPosition;
+
+    public InstrumentedStreamProcessor(StreamProcessor streamProcessor, String name, CountersManager countersManager)
+    {
+        this.streamProcessor = streamProcessor;
+
+        final String labelPrefix = COUNTER_LABEL_PREFIX + name;
+        this.processedEventsCounter = countersManager.newCounter(labelPrefix + ".events-processed");
+        this.writtenEventsCounter = countersManager.newCounter(labelPrefix + ".events-written");
+        this.processTimeCounter = countersManager.newCounter(labelPrefix + ".process-event-ns");
+        this.sideEffectsTimeCounter = countersManager.newCounter(labelPrefix + ".side-effects-ns");
+        this.writeTimeCounter = countersManager.newCounter(labelPrefix + ".write-event-ns");
+        this.updateStateTimeCounter = countersManager.newCounter(labelPrefix + ".update-state-ns");
+        this.lastProcessedPositionCounter = countersManager.newCounter(labelPrefix + ".last-processed-position");
+        this.commitPositionCounter = countersManager.newCounter(labelPrefix + ".commit-position");
+        this.processingLatency = new LatencyHistogram(labelPrefix + ".commit-to-processed-latency", countersManager);
+    }
+
+    public StreamProcessor getStreamProcessor()
+    {
+        return streamProcessor;
+    }
+
+    @Override
+    public SnapshotSupport getStateResource()
+    {
+        return streamProcessor.getStateResource();
+    }
+
+    @Override
+    public void onOpen(StreamProcessorContext context)
+    {
+        sourceStream = context.getSourceStream();
+
+        streamProcessor.onOpen(context);
+    }
+
+    @Override
+    public void onClose()
+    {
+        streamProcessor.onClose();
+    }
+
+    @Override
+    public int getPriority(long now)
+    {
+        return streamProcessor.getPriority(now);
+    }
+
+    @Override
+    public boolean isSuspended()
+    {
+        observeCommitPosition();
+
+        return streamProcessor.isSuspended();
+    }
+
+    @Override
+    public EventProcessor onEvent(LoggedEvent event)
+    {
+        observeCommitPosition();
+
+        eventProcessor = streamProcessor.onEvent(event);
+
+        if (eventProcessor != null)
+        {
+            eventPosition = event.getPosition();
+            return this;
+        }
+        else
+        {
+            return null;
+        }
+    }
+
+    @Override
+    public void afterEvent()
+    {
+        streamProcessor.afterEvent();
+    }
+
+    @Override
+    public void processEvent()
+    {
+        final long start = System.nanoTime();
+
+        eventProcessor.processEvent();
+
+        processTimeCounter.add(System.nanoTime() - start);
+    }
+
+    @Override
+    public boolean executeSideEffects()
+    {
+        final long start = System.nanoTime();
+
+        final boolean success = eventProcessor.executeSideEffects();
+
+        sideEffectsTimeCounter.add(System.nanoTime() - start);
+
+        return success;
+    }
+
+    @Override
+    public long writeEvent(LogStreamWriter writer)
+    {
+        final long start = System.nanoTime();
+
+        final long position = eventProcessor.writeEvent(writer);
+
+        writeTimeCounter.add(System.nanoTime() - start);
+
+        if (position > 0)
+        {
+            writtenEventsCounter.increment();
+        }
+
+        return position;
+    }
+
+    @Override
+    public void updateState()
+    {
+        final long start = System.nanoTime();
+
+        eventProcessor.updateState();
+
+        updateStateTimeCounter.add(System.nanoTime() - start);
+
+        processedEventsCounter.increment();
+        lastProcessedPositionCounter.set(eventPosition);
+
+        recordProcessingLatency(eventPosition);
+    }
+
+    protected void observeCommitPosition()
+    {
+        if (sourceStream != null)
+        {
+            final long commitPosition = sourceStream.getCommitPosition();
+
+            if (commitPosition > lastCommitPosition)
+            {
+                lastCommitPosition = commitPosition;
+                commitPositionCounter.set(commitPosition);
+
+                addCommitMark(commitPosition, ClockUtil.getCurrentTimeInMillis());
+            }
+        }
+    }
+
+    protected void addCommitMark(long position, long time)
+    {
+        if (commitMarkCount < COMMIT_MARK_CAPACITY)
+        {
+            final int index = (commitMarkHead + commitMarkCount) % COMMIT_MARK_CAPACITY;
+            commitMarkPositions[index] = position;
+            commitMarkTimes[index] = time;
+
+            commitMarkCount += 1;
+        }
+        else
+        {
+            // extend the newest mark instead, so that the latency is rather overestimated than lost
+            final int index = (commitMarkHead + commitMarkCount - 1) % COMMIT_MARK_CAPACITY;
+            commitMarkPositions[index] = position;
+        }
+    }
+
+    protected void recordProcessingLatency(long position)
+    {
+        // the events are processed in order, so the marks of lower positions are not needed anymore
+        while (commitMarkCount > 0 && commitMarkPositions[commitMarkHead] < position)
+        {
+            commitMarkHead = (commitMarkHead + 1) % COMMIT_MARK_CAPACITY;
+            commitMarkCount -= 1;
+        }
+
+        if (commitMarkCount > 0)
+        {
+            processingLatency.record(ClockUtil.getCurrentTimeInMillis() - commitMarkTimes[commitMarkHead]);
+        }
+    }
+
+    public void close()
+    {
+        processedEventsCounter.close();
+        writtenEventsCounter.close();
+        processTimeCounter.close();
+        sideEffectsTimeCounter.close();
+        writeTimeCounter.close();
+        updateStateTimeCounter.close();
+        lastProcessedPositionCounter.close();
+        commitPositionCounter.close();
+        processingLatency.close();
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
+
+/**
+ * Records latencies in milliseconds as a histogram in the counters file.
+ *
+ * <p>The buckets have exponential bounds: bucket <code>i</code> counts the latencies
+ * below <code>2^i</code> milliseconds which are not counted by a lower bucket. The
+ * last bucket counts all latencies of at least <code>2^(BUCKET_COUNT - 2)</code> milliseconds.</p>
+ */
+public class LatencyHistogram
+{
+    public static final int BUCKET_COUNT = 16;
+
+    protected final AtomicCounter[] buckets = new AtomicCounter[BUCKET_COUNT];
+
+    public LatencyHistogram(String labelPrefix, CountersManager countersManager)
+    {
+        for (int i = 0; i < BUCKET_COUNT - 1; i++)
+        {
+            buckets[i] = countersManager.newCounter(labelPrefix + ".lt-" + (1L << i) + "ms");
+        }
+
+        buckets[BUCKET_COUNT - 1] = countersManager.newCounter(labelPrefix + ".ge-" + (1L << (BUCKET_COUNT - 2)) + "ms");
+    }
+
+    public void record(long latencyMillis)
+    {
+        buckets[bucketIndex(latencyMillis)].increment();
+    }
+
+    public long getCount(int bucket)
+    {
+        return buckets[bucket].get();
+    }
+
+    public void close()
+    {
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            buckets[i].close();
+        }
+    }
+
+    protected static int bucketIndex(long latencyMillis)
+    {
+        if (latencyMillis <= 0)
+        {
+            return 0;
+        }
+        else
+        {
+            final int bucket = Long.SIZE - Long.numberOfLeadingZeros(latencyMillis);
+            return Math.min(bucket, BUCKET_COUNT - 1);
+        }
+    }
+}
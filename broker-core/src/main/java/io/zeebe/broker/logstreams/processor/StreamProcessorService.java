@@ -17,6 +17,7 @@
  */
 package io.zeebe.broker.logstreams.processor;
 
+import io.zeebe.broker.services.Counters;
 import io.zeebe.protocol.Protocol;
 import io.zeebe.protocol.impl.BrokerEventMetadata;
 import io.zeebe.logstreams.LogStreams;
@@ -34,6 +35,7 @@ public class StreamProcessorService implements Service<StreamProcessorController
     private final Injector<LogStream> targetStreamInjector = new Injector<>();
     private final Injector<SnapshotStorage> snapshotStorageInjector = new Injector<>();
     private final Injector<ActorScheduler> actorSchedulerInjector = new Injector<>();
+    private final Injector<Counters> countersInjector = new Injector<>();
 
     private final String name;
     private final int id;
@@ -59,6 +61,7 @@ public class StreamProcessorService implements Service<StreamProcessorController
     protected SnapshotPositionProvider snapshotPositionProvider;
 
     private StreamProcessorController streamProcessorController;
+    private InstrumentedStreamProcessor instrumentedStreamProcessor;
 
     public StreamProcessorService(String name, int id, StreamProcessor streamProcessor)
     {
@@ -125,7 +128,16 @@ public class StreamProcessorService implements Service<StreamProcessorController
             errorHandler = new DefaultStreamProcessorErrorHandler();
         }
 
-        streamProcessorController = LogStreams.createStreamProcessor(name, id, streamProcessor)
+        StreamProcessor processor = streamProcessor;
+
+        final Counters counters = countersInjector.getValue();
+        if (counters != null)
+        {
+            instrumentedStreamProcessor = new InstrumentedStreamProcessor(streamProcessor, name, counters.getCountersManager());
+            processor = instrumentedStreamProcessor;
+        }
+
+        streamProcessorController = LogStreams.createStreamProcessor(name, id, processor)
             .sourceStream(sourceStream)
             .targetStream(targetStream)
             .snapshotStorage(snapshotStorage)
@@ -149,7 +161,13 @@ public class StreamProcessorService implements Service<StreamProcessorController
     @Override
     public void stop(ServiceStopContext ctx)
     {
-        ctx.async(streamProcessorController.closeAsync());
+        ctx.async(streamProcessorController.closeAsync().whenComplete((v, t) ->
+        {
+            if (instrumentedStreamProcessor != null)
+            {
+                instrumentedStreamProcessor.close();
+            }
+        }));
     }
 
     public Injector<SnapshotStorage> getSnapshotStorageInjector()
@@ -162,6 +180,14 @@ public class StreamProcessorService implements Service<StreamProcessorController
         return actorSchedulerInjector;
     }
 
+    /**
+     * Optional. If injected, the processing of the events is recorded in the counters file.
+     */
+    public Injector<Counters> getCountersInjector()
+    {
+        return countersInjector;
+    }
+
     public Injector<LogStream> getSourceStreamInjector()
     {
         return sourceStreamInjector;
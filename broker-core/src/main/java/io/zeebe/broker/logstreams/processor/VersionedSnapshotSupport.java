@@ -0,0 +1,100 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import io.zeebe.logstreams.spi.SnapshotSupport;
+
+/**
+ * Prefixes the snapshot of a resource with a format version. A snapshot is
+ * only recovered if it was written with the same version, so that a changed
+ * layout of the resource's state is not misread.
+ * <p>
+ * A snapshot which was written before the resource was versioned has no
+ * header and is rejected as well.
+ */
+public class VersionedSnapshotSupport implements SnapshotSupport
+{
+    public static final int FORMAT_MAGIC = 0x5A565350;
+
+    private final String name;
+    private final int version;
+    private final SnapshotSupport delegate;
+
+    public VersionedSnapshotSupport(String name, int version, SnapshotSupport delegate)
+    {
+        this.name = name;
+        this.version = version;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void writeSnapshot(OutputStream outputStream) throws Exception
+    {
+        final DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+
+        dataOutputStream.writeInt(FORMAT_MAGIC);
+        dataOutputStream.writeInt(version);
+        dataOutputStream.flush();
+
+        delegate.writeSnapshot(outputStream);
+    }
+
+    @Override
+    public void recoverFromSnapshot(InputStream inputStream) throws Exception
+    {
+        final DataInputStream dataInputStream = new DataInputStream(inputStream);
+
+        int header = 0;
+        int snapshotVersion = -1;
+
+        try
+        {
+            header = dataInputStream.readInt();
+            snapshotVersion = dataInputStream.readInt();
+        }
+        catch (EOFException e)
+        {
+            // handled as a snapshot without header
+        }
+
+        if (header != FORMAT_MAGIC)
+        {
+            throw new IllegalStateException(String.format("Cannot recover snapshot of %s: the snapshot has no version and was written with an older layout. " +
+                    "Expected version '%d'. Delete the snapshot to rebuild the state from the log.", name, version));
+        }
+        else if (snapshotVersion != version)
+        {
+            throw new IllegalStateException(String.format("Cannot recover snapshot of %s: unsupported version '%d'. " +
+                    "Expected version '%d'. Delete the snapshot to rebuild the state from the log.", name, snapshotVersion, version));
+        }
+
+        delegate.recoverFromSnapshot(inputStream);
+    }
+
+    @Override
+    public void reset()
+    {
+        delegate.reset();
+    }
+}
@@ -18,13 +18,12 @@
 package io.zeebe.broker.system.executor;
 
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 import io.zeebe.broker.Loggers;
+import org.agrona.BitUtil;
 import org.agrona.concurrent.ManyToOneConcurrentArrayQueue;
 
 import io.zeebe.util.actor.Actor;
@@ -33,13 +32,43 @@ import io.zeebe.util.actor.ActorScheduler;
 import io.zeebe.util.time.ClockUtil;
 import org.slf4j.Logger;
 
+/**
+ * Executes the scheduled commands on a hashed timing wheel.
+ *
+ * <p>
+ * The wheel has a slot for each millisecond, modulo the number of slots. A
+ * command is added to the slot of its due date, so that a duty cycle only
+ * visits the slots of the elapsed milliseconds instead of all scheduled
+ * commands. A slot can contain commands which are due in a later round of the
+ * wheel. They are kept until their due date is reached.
+ *
+ * <p>
+ * Adding and removing a command from a slot is O(1). A cancelled command is
+ * removed when its slot is visited the next time.
+ */
 public class ScheduledExecutorImpl implements Actor, ScheduledExecutor
 {
     public static final Logger LOG = Loggers.SYSTEM_LOGGER;
 
     protected static final String NAME = "scheduled-executor";
 
-    protected final List<ScheduledCommandImpl> scheduledCommands = new ArrayList<>();
+    public static final int DEFAULT_WHEEL_SIZE = 4096;
+
+    protected static final int COMMAND_QUEUE_CAPACITY = 1024;
+
+    // the scheduled commands of each slot as doubly linked list
+    protected final ScheduledCommandImpl[] wheel;
+    protected final int wheelMask;
+
+    // the time in millis of the last visited slot
+    protected long currentTime;
+
+    // the commands which are due in the current duty cycle, linked by the next pointer
+    protected ScheduledCommandImpl dueCommandsHead;
+    protected ScheduledCommandImpl dueCommandsTail;
+
+    protected final ManyToOneConcurrentArrayQueue<ScheduledCommandImpl> newCommandQueue = new ManyToOneConcurrentArrayQueue<>(COMMAND_QUEUE_CAPACITY);
+    protected final Consumer<ScheduledCommandImpl> newCommandConsumer = this::add;
 
     protected final ManyToOneConcurrentArrayQueue<Runnable> cmdQueue = new ManyToOneConcurrentArrayQueue<>(100);
     protected final Consumer<Runnable> cmdConsumer = Runnable::run;
@@ -50,7 +79,26 @@ public class ScheduledExecutorImpl implements Actor, ScheduledExecutor
 
     public ScheduledExecutorImpl(ActorScheduler actorScheduler)
     {
+        this(actorScheduler, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * @param wheelSize
+     *            the number of slots of the timing wheel, must be a power of
+     *            two
+     */
+    public ScheduledExecutorImpl(ActorScheduler actorScheduler, int wheelSize)
+    {
+        if (!BitUtil.isPowerOfTwo(wheelSize))
+        {
+            throw new IllegalArgumentException("wheel size must be a power of two: " + wheelSize);
+        }
+
         this.actorScheduler = actorScheduler;
+
+        this.wheel = new ScheduledCommandImpl[wheelSize];
+        this.wheelMask = wheelSize - 1;
+        this.currentTime = ClockUtil.getCurrentTimeInMillis();
     }
 
     @Override
@@ -59,7 +107,7 @@ public class ScheduledExecutorImpl implements Actor, ScheduledExecutor
         final long dueDate = ClockUtil.getCurrentTimeInMillis() + delay.toMillis();
         final ScheduledCommandImpl scheduledCommand = new ScheduledCommandImpl(command, dueDate);
 
-        cmdQueue.add(() -> scheduledCommands.add(scheduledCommand));
+        newCommandQueue.add(scheduledCommand);
 
         return scheduledCommand;
     }
@@ -70,7 +118,7 @@ public class ScheduledExecutorImpl implements Actor, ScheduledExecutor
         final long dueDate = ClockUtil.getCurrentTimeInMillis();
         final ScheduledCommandImpl scheduledCommand = new ScheduledCommandImpl(command, dueDate, period.toMillis());
 
-        cmdQueue.add(() -> scheduledCommands.add(scheduledCommand));
+        newCommandQueue.add(scheduledCommand);
 
         return scheduledCommand;
     }
@@ -81,7 +129,7 @@ public class ScheduledExecutorImpl implements Actor, ScheduledExecutor
         final long dueDate = ClockUtil.getCurrentTimeInMillis() + initialDelay.toMillis();
         final ScheduledCommandImpl scheduledCommand = new ScheduledCommandImpl(command, dueDate, period.toMillis());
 
-        cmdQueue.add(() -> scheduledCommands.add(scheduledCommand));
+        newCommandQueue.add(scheduledCommand);
 
         return scheduledCommand;
     }
@@ -93,38 +141,152 @@ public class ScheduledExecutorImpl implements Actor, ScheduledExecutor
 
         workCount += cmdQueue.drain(cmdConsumer);
 
-        final long now = ClockUtil.getCurrentTimeInMillis();
+        if (isRunning.get())
+        {
+            final long now = ClockUtil.getCurrentTimeInMillis();
+
+            if (now < currentTime)
+            {
+                // the clock was set back - the slots are visited again when the time elapses
+                currentTime = now;
+            }
 
-        int i = 0;
+            workCount += newCommandQueue.drain(newCommandConsumer);
 
-        while (i < scheduledCommands.size() && isRunning.get())
+            advance(now);
+
+            workCount += executeDueCommands();
+        }
+
+        return workCount;
+    }
+
+    protected void advance(long now)
+    {
+        final long elapsedTime = now - currentTime;
+        // if more time elapsed than a round of the wheel then each slot is visited once
+        final int slotCount = (int) Math.min(elapsedTime, wheel.length);
+
+        for (int i = 1; i <= slotCount; i++)
         {
-            final ScheduledCommandImpl scheduledCommand = scheduledCommands.get(i);
+            final int slot = (int) ((currentTime + i) & wheelMask);
 
-            if (scheduledCommand.getDueDate() <= now)
-            {
-                workCount += 1;
+            ScheduledCommandImpl scheduledCommand = wheel[slot];
 
-                final boolean reSchedule = executeCommand(scheduledCommand);
+            while (scheduledCommand != null)
+            {
+                final ScheduledCommandImpl nextCommand = scheduledCommand.next;
 
-                if (reSchedule)
+                if (scheduledCommand.isCancelled())
                 {
-                    i += 1;
+                    remove(slot, scheduledCommand);
                 }
-                else
+                else if (scheduledCommand.getDueDate() <= now)
                 {
-                    scheduledCommands.remove(i);
+                    remove(slot, scheduledCommand);
+                    appendDueCommand(scheduledCommand);
                 }
+
+                scheduledCommand = nextCommand;
             }
-            else
+        }
+
+        currentTime = now;
+    }
+
+    protected int executeDueCommands()
+    {
+        int workCount = 0;
+
+        ScheduledCommandImpl scheduledCommand = dueCommandsHead;
+
+        dueCommandsHead = null;
+        dueCommandsTail = null;
+
+        while (scheduledCommand != null)
+        {
+            final ScheduledCommandImpl nextCommand = scheduledCommand.next;
+            scheduledCommand.next = null;
+
+            workCount += 1;
+
+            final boolean reSchedule = executeCommand(scheduledCommand);
+
+            if (reSchedule)
             {
-                i++;
+                // is not executed again in this duty cycle since its due date is after the current time
+                add(scheduledCommand);
             }
+
+            scheduledCommand = nextCommand;
         }
 
         return workCount;
     }
 
+    protected void add(ScheduledCommandImpl scheduledCommand)
+    {
+        final long dueDate = scheduledCommand.getDueDate();
+
+        if (dueDate <= currentTime)
+        {
+            appendDueCommand(scheduledCommand);
+        }
+        else
+        {
+            final int slot = (int) (dueDate & wheelMask);
+
+            final ScheduledCommandImpl head = wheel[slot];
+
+            scheduledCommand.previous = null;
+            scheduledCommand.next = head;
+
+            if (head != null)
+            {
+                head.previous = scheduledCommand;
+            }
+            wheel[slot] = scheduledCommand;
+        }
+    }
+
+    protected void remove(int slot, ScheduledCommandImpl scheduledCommand)
+    {
+        final ScheduledCommandImpl previous = scheduledCommand.previous;
+        final ScheduledCommandImpl next = scheduledCommand.next;
+
+        if (previous != null)
+        {
+            previous.next = next;
+        }
+        else
+        {
+            wheel[slot] = next;
+        }
+
+        if (next != null)
+        {
+            next.previous = previous;
+        }
+
+        scheduledCommand.previous = null;
+        scheduledCommand.next = null;
+    }
+
+    protected void appendDueCommand(ScheduledCommandImpl scheduledCommand)
+    {
+        scheduledCommand.next = null;
+
+        if (dueCommandsTail != null)
+        {
+            dueCommandsTail.next = scheduledCommand;
+        }
+        else
+        {
+            dueCommandsHead = scheduledCommand;
+        }
+        dueCommandsTail = scheduledCommand;
+    }
+
     protected boolean executeCommand(final ScheduledCommandImpl scheduledCommand)
     {
         boolean reSchedule = false;
@@ -139,7 +301,7 @@ public class ScheduledExecutorImpl implements Actor, ScheduledExecutor
                 if (period >= 0)
                 {
                     final long nextDueDate = ClockUtil.getCurrentTimeInMillis() + period;
-                    scheduledCommand.setDueDateInMillis(nextDueDate);
+                    scheduledCommand.setDueDateInMillis(Math.max(nextDueDate, currentTime + 1));
 
                     reSchedule = true;
                 }
@@ -206,7 +368,11 @@ public class ScheduledExecutorImpl implements Actor, ScheduledExecutor
 
         protected long dueDateInMillis;
 
-        protected boolean isCancelled = false;
+        protected volatile boolean isCancelled = false;
+
+        // links in the slot of the timing wheel or in the list of due commands
+        protected ScheduledCommandImpl previous;
+        protected ScheduledCommandImpl next;
 
         ScheduledCommandImpl(Runnable command, long dueDateInMillis)
         {
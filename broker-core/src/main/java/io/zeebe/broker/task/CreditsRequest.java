@@ -20,7 +20,7 @@ package io.zeebe.broker.task;
 import org.agrona.BitUtil;
 import org.agrona.DirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
-import org.agrona.concurrent.ringbuffer.OneToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBuffer;
 
 import io.zeebe.util.collection.CompactList;
 import io.zeebe.util.buffer.BufferReader;
@@ -78,7 +78,7 @@ public class CreditsRequest implements BufferReader
      * @param ringBuffer
      * @return true if success
      */
-    public boolean writeTo(OneToOneRingBuffer ringBuffer)
+    public boolean writeTo(RingBuffer ringBuffer)
     {
         return ringBuffer.write(TYPE, content, 0, LENGTH);
     }
@@ -24,25 +24,30 @@ import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.MessageHandler;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.agrona.concurrent.broadcast.RecordDescriptor;
-import org.agrona.concurrent.ringbuffer.OneToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.ManyToOneRingBuffer;
 import org.agrona.concurrent.ringbuffer.RingBufferDescriptor;
 
+/**
+ * Credits can be offered concurrently, e.g. by the control message handler, the client api
+ * message handler (one-way credits messages) and the task instance stream processor
+ * (credits returned on failed tasks), so the buffer accepts multiple producers.
+ */
 public class CreditsRequestBuffer
 {
     protected final int capacityUpperBound;
-    protected final OneToOneRingBuffer ringBuffer;
+    protected final ManyToOneRingBuffer ringBuffer;
     protected final RequestHandler requestHandler;
 
     public CreditsRequestBuffer(int capacityLowerBound, Consumer<CreditsRequest> requestConsumer)
     {
         final int bufferCapacity = requiredBufferCapacityForNumRequests(capacityLowerBound, CreditsRequest.LENGTH);
 
-        // note: this is only an upper bound, because OneToOneRingBuffer alings the messages to a certain length
+        // note: this is only an upper bound, because the ring buffer aligns the messages to a certain length
         // which we do not include in this calculation to avoid relying on agrona-internal concepts
         this.capacityUpperBound = numRequestsFittingInto(bufferCapacity, CreditsRequest.LENGTH);
 
         final UnsafeBuffer rawBuffer = new UnsafeBuffer(new byte[bufferCapacity]);
-        this.ringBuffer = new OneToOneRingBuffer(rawBuffer);
+        this.ringBuffer = new ManyToOneRingBuffer(rawBuffer);
         this.requestHandler = new RequestHandler(requestConsumer);
     }
 
@@ -41,12 +41,14 @@ public class TaskQueueComponent implements Component
         serviceContainer.createService(TASK_QUEUE_SUBSCRIPTION_MANAGER, taskSubscriptionManagerService)
             .dependency(ACTOR_SCHEDULER_SERVICE, taskSubscriptionManagerService.getActorSchedulerInjector())
             .dependency(TransportServiceNames.serverTransport(TransportServiceNames.CLIENT_API_SERVER_NAME), taskSubscriptionManagerService.getClientApiTransportInjector())
+            .dependency(TransportServiceNames.CLIENT_API_MESSAGE_HANDLER, taskSubscriptionManagerService.getClientApiMessageHandlerInjector())
             .groupReference(LOG_STREAM_SERVICE_GROUP, taskSubscriptionManagerService.getLogStreamsGroupReference())
             .install();
 
         final TaskQueueManagerService taskQueueManagerService = new TaskQueueManagerService();
         serviceContainer.createService(TASK_QUEUE_MANAGER, taskQueueManagerService)
             .dependency(TransportServiceNames.serverTransport(CLIENT_API_SERVER_NAME), taskQueueManagerService.getClientApiTransportInjector())
+            .dependency(TransportServiceNames.CLIENT_API_MESSAGE_HANDLER, taskQueueManagerService.getClientApiMessageHandlerInjector())
             .dependency(EXECUTOR_SERVICE, taskQueueManagerService.getExecutorInjector())
             .dependency(TASK_QUEUE_SUBSCRIPTION_MANAGER, taskQueueManagerService.getTaskSubscriptionManagerInjector())
             .dependency(ACTOR_SCHEDULER_SERVICE, taskQueueManagerService.getActorSchedulerInjector())
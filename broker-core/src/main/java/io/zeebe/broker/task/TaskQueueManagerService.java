@@ -19,20 +19,21 @@ package io.zeebe.broker.task;
 
 import static io.zeebe.broker.logstreams.LogStreamServiceNames.SNAPSHOT_STORAGE_SERVICE;
 import static io.zeebe.broker.logstreams.LogStreamServiceNames.logStreamServiceName;
-import static io.zeebe.broker.logstreams.processor.StreamProcessorIds.TASK_EXPIRE_LOCK_STREAM_PROCESSOR_ID;
 import static io.zeebe.broker.logstreams.processor.StreamProcessorIds.TASK_QUEUE_STREAM_PROCESSOR_ID;
 import static io.zeebe.broker.system.SystemServiceNames.ACTOR_SCHEDULER_SERVICE;
+import static io.zeebe.broker.system.SystemServiceNames.COUNTERS_MANAGER_SERVICE;
 import static io.zeebe.broker.task.TaskQueueServiceNames.TASK_QUEUE_STREAM_PROCESSOR_SERVICE_GROUP_NAME;
-import static io.zeebe.broker.task.TaskQueueServiceNames.taskQueueExpireLockStreamProcessorServiceName;
 import static io.zeebe.broker.task.TaskQueueServiceNames.taskQueueInstanceStreamProcessorServiceName;
 
 import java.time.Duration;
 
+import io.zeebe.broker.logstreams.processor.CompositeStreamProcessor;
 import io.zeebe.broker.logstreams.processor.StreamProcessorService;
 import io.zeebe.broker.system.executor.ScheduledCommand;
 import io.zeebe.broker.system.executor.ScheduledExecutor;
 import io.zeebe.broker.task.processor.TaskExpireLockStreamProcessor;
 import io.zeebe.broker.task.processor.TaskInstanceStreamProcessor;
+import io.zeebe.broker.transport.clientapi.ClientApiMessageHandler;
 import io.zeebe.broker.transport.clientapi.CommandResponseWriter;
 import io.zeebe.broker.transport.clientapi.SubscribedEventWriter;
 import io.zeebe.logstreams.log.LogStream;
@@ -55,6 +56,7 @@ public class TaskQueueManagerService implements Service<TaskQueueManager>, TaskQ
     public static final int LOCK_EXPIRATION_INTERVAL = 30; // in seconds
 
     protected final Injector<ServerTransport> clientApiTransportInjector = new Injector<>();
+    protected final Injector<ClientApiMessageHandler> clientApiMessageHandlerInjector = new Injector<>();
     protected final Injector<ScheduledExecutor> executorInjector = new Injector<>();
     protected final Injector<TaskSubscriptionManager> taskSubscriptionManagerInjector = new Injector<>();
     protected final Injector<ActorScheduler> actorSchedulerInjector = new Injector<>();
@@ -82,53 +84,42 @@ public class TaskQueueManagerService implements Service<TaskQueueManager>, TaskQ
         final String streamProcessorName = streamProcessorServiceName.getName();
 
         final ServerTransport serverTransport = clientApiTransportInjector.getValue();
+        final ClientApiMessageHandler clientApiMessageHandler = clientApiMessageHandlerInjector.getValue();
 
-        final CommandResponseWriter responseWriter = new CommandResponseWriter(serverTransport.getOutput());
+        final CommandResponseWriter responseWriter = new CommandResponseWriter(serverTransport.getOutput(), clientApiMessageHandler.getBatchResponseCollector());
         final SubscribedEventWriter subscribedEventWriter = new SubscribedEventWriter(serverTransport.getOutput());
         final ServiceName<LogStream> logStreamServiceName = logStreamServiceName(logName);
         final TaskSubscriptionManager taskSubscriptionManager = taskSubscriptionManagerInjector.getValue();
 
+        final ScheduledExecutor executor = executorInjector.getValue();
+
         final TaskInstanceStreamProcessor taskInstanceStreamProcessor = new TaskInstanceStreamProcessor(responseWriter, subscribedEventWriter, taskSubscriptionManager);
-        final StreamProcessorService taskInstanceStreamProcessorService = new StreamProcessorService(
+        final TaskExpireLockStreamProcessor expireLockStreamProcessor = new TaskExpireLockStreamProcessor();
+
+        // both processors handle task events - read them in one pass;
+        // the task instance processor comes first so that its snapshots written before the composition are recovered
+        final CompositeStreamProcessor streamProcessor = new CompositeStreamProcessor()
+                .processor(taskInstanceStreamProcessor, TaskInstanceStreamProcessor.eventFilter())
+                .processor(expireLockStreamProcessor, TaskExpireLockStreamProcessor.eventFilter());
+
+        final StreamProcessorService streamProcessorService = new StreamProcessorService(
                 streamProcessorName,
                 TASK_QUEUE_STREAM_PROCESSOR_ID,
-                taskInstanceStreamProcessor)
-                .eventFilter(TaskInstanceStreamProcessor.eventFilter());
+                streamProcessor)
+                .eventFilter(streamProcessor.eventFilter());
 
-        serviceContext.createService(streamProcessorServiceName, taskInstanceStreamProcessorService)
+        serviceContext.createService(streamProcessorServiceName, streamProcessorService)
               .group(TASK_QUEUE_STREAM_PROCESSOR_SERVICE_GROUP_NAME)
-              .dependency(logStreamServiceName, taskInstanceStreamProcessorService.getSourceStreamInjector())
-              .dependency(logStreamServiceName, taskInstanceStreamProcessorService.getTargetStreamInjector())
-              .dependency(SNAPSHOT_STORAGE_SERVICE, taskInstanceStreamProcessorService.getSnapshotStorageInjector())
-              .dependency(ACTOR_SCHEDULER_SERVICE, taskInstanceStreamProcessorService.getActorSchedulerInjector())
-              .install();
-
-        startExpireLockService(logName, logStreamServiceName);
-    }
-
-    protected void startExpireLockService(String logStreamName, ServiceName<LogStream> logStreamServiceName)
-    {
-        final ScheduledExecutor executor = executorInjector.getValue();
-
-        final ServiceName<StreamProcessorController> expireLockStreamProcessorServiceName = taskQueueExpireLockStreamProcessorServiceName(logStreamName);
-        final TaskExpireLockStreamProcessor expireLockStreamProcessor = new TaskExpireLockStreamProcessor();
-
-        final StreamProcessorService expireLockStreamProcessorService = new StreamProcessorService(
-                expireLockStreamProcessorServiceName.getName(),
-                TASK_EXPIRE_LOCK_STREAM_PROCESSOR_ID,
-                expireLockStreamProcessor)
-                .eventFilter(TaskExpireLockStreamProcessor.eventFilter());
-
-        serviceContext.createService(expireLockStreamProcessorServiceName, expireLockStreamProcessorService)
-            .dependency(logStreamServiceName, expireLockStreamProcessorService.getSourceStreamInjector())
-            .dependency(logStreamServiceName, expireLockStreamProcessorService.getTargetStreamInjector())
-            .dependency(SNAPSHOT_STORAGE_SERVICE, expireLockStreamProcessorService.getSnapshotStorageInjector())
-            .dependency(ACTOR_SCHEDULER_SERVICE, expireLockStreamProcessorService.getActorSchedulerInjector())
-            .install()
-            .thenRun(() ->
-            {
-                scheduledCheckExpirationCmd = executor.scheduleAtFixedRate(expireLockStreamProcessor::checkLockExpirationAsync, Duration.ofSeconds(LOCK_EXPIRATION_INTERVAL));
-            });
+              .dependency(logStreamServiceName, streamProcessorService.getSourceStreamInjector())
+              .dependency(logStreamServiceName, streamProcessorService.getTargetStreamInjector())
+              .dependency(SNAPSHOT_STORAGE_SERVICE, streamProcessorService.getSnapshotStorageInjector())
+              .dependency(ACTOR_SCHEDULER_SERVICE, streamProcessorService.getActorSchedulerInjector())
+              .dependency(COUNTERS_MANAGER_SERVICE, streamProcessorService.getCountersInjector())
+              .install()
+              .thenRun(() ->
+              {
+                  scheduledCheckExpirationCmd = executor.scheduleAtFixedRate(expireLockStreamProcessor::checkLockExpirationAsync, Duration.ofSeconds(LOCK_EXPIRATION_INTERVAL));
+              });
     }
 
     @Override
@@ -167,6 +158,11 @@ public class TaskQueueManagerService implements Service<TaskQueueManager>, TaskQ
         return clientApiTransportInjector;
     }
 
+    public Injector<ClientApiMessageHandler> getClientApiMessageHandlerInjector()
+    {
+        return clientApiMessageHandlerInjector;
+    }
+
     public Injector<ScheduledExecutor> getExecutorInjector()
     {
         return executorInjector;
@@ -32,13 +32,8 @@ public class TaskQueueServiceNames
         return ServiceName.newServiceName(String.format("taskqueue.%s.processor.instance", taskQueueName), StreamProcessorController.class);
     }
 
-    public static ServiceName<StreamProcessorController> taskQueueLockStreamProcessorServiceName(String taskQueueName, String taskType)
+    public static ServiceName<StreamProcessorController> taskQueueLockStreamProcessorServiceName(String taskQueueName)
     {
-        return ServiceName.newServiceName(String.format("taskqueue.%s.processor.lock.%s", taskQueueName, taskType), StreamProcessorController.class);
-    }
-
-    public static ServiceName<StreamProcessorController> taskQueueExpireLockStreamProcessorServiceName(String taskQueueName)
-    {
-        return ServiceName.newServiceName(String.format("taskqueue.%s.processor.expire.lock", taskQueueName), StreamProcessorController.class);
+        return ServiceName.newServiceName(String.format("taskqueue.%s.processor.lock", taskQueueName), StreamProcessorController.class);
     }
 }
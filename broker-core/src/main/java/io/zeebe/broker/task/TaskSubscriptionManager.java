@@ -20,16 +20,16 @@ package io.zeebe.broker.task;
 import static io.zeebe.broker.logstreams.LogStreamServiceNames.SNAPSHOT_STORAGE_SERVICE;
 import static io.zeebe.broker.logstreams.processor.StreamProcessorIds.TASK_LOCK_STREAM_PROCESSOR_ID;
 import static io.zeebe.broker.system.SystemServiceNames.ACTOR_SCHEDULER_SERVICE;
+import static io.zeebe.broker.system.SystemServiceNames.COUNTERS_MANAGER_SERVICE;
 import static io.zeebe.broker.task.TaskQueueServiceNames.taskQueueLockStreamProcessorServiceName;
 import static io.zeebe.util.EnsureUtil.ensureNotNull;
 import static io.zeebe.util.buffer.BufferUtil.bufferAsString;
-import static io.zeebe.util.buffer.BufferUtil.cloneBuffer;
 
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
-import java.util.function.Function;
+import java.util.function.Supplier;
 
 import io.zeebe.broker.logstreams.processor.StreamProcessorService;
 import io.zeebe.broker.task.processor.LockTaskStreamProcessor;
@@ -44,7 +44,6 @@ import io.zeebe.transport.TransportListener;
 import io.zeebe.util.DeferredCommandContext;
 import io.zeebe.util.actor.Actor;
 import io.zeebe.util.allocation.HeapBufferAllocator;
-import io.zeebe.util.buffer.BufferUtil;
 import org.agrona.DirectBuffer;
 import org.agrona.collections.Int2ObjectHashMap;
 import org.agrona.collections.Long2ObjectHashMap;
@@ -55,7 +54,7 @@ public class TaskSubscriptionManager implements Actor, TransportListener
     public static final int NUM_CONCURRENT_REQUESTS = 1_024;
 
     protected final ServiceStartContext serviceContext;
-    protected final Function<DirectBuffer, LockTaskStreamProcessor> streamProcessorSupplier;
+    protected final Supplier<LockTaskStreamProcessor> streamProcessorSupplier;
 
     protected final Map<DirectBuffer, Int2ObjectHashMap<LogStreamBucket>> logStreamBuckets = new HashMap<>();
     protected final Long2ObjectHashMap<LockTaskStreamProcessor> streamProcessorBySubscriptionId = new Long2ObjectHashMap<>();
@@ -64,7 +63,7 @@ public class TaskSubscriptionManager implements Actor, TransportListener
 
     /*
      * For credits handling, we use two datastructures here:
-     *   * a one-to-one thread-safe ring buffer for ingestion of requests
+     *   * a many-to-one thread-safe ring buffer for ingestion of requests
      *   * a non-thread-safe list for requests that could not be successfully dispatched to the corresponding stream processor
      *
      * Note: we could also use a single data structure, if the thread-safe buffer allowed us to decide in the consuming
@@ -83,12 +82,12 @@ public class TaskSubscriptionManager implements Actor, TransportListener
 
     public TaskSubscriptionManager(ServiceStartContext serviceContext)
     {
-        this(serviceContext, taskType -> new LockTaskStreamProcessor(taskType));
+        this(serviceContext, LockTaskStreamProcessor::new);
     }
 
     public TaskSubscriptionManager(
             ServiceStartContext serviceContext,
-            Function<DirectBuffer, LockTaskStreamProcessor> streamProcessorBuilder)
+            Supplier<LockTaskStreamProcessor> streamProcessorBuilder)
     {
         this.serviceContext = serviceContext;
         this.streamProcessorSupplier = streamProcessorBuilder;
@@ -155,59 +154,71 @@ public class TaskSubscriptionManager implements Actor, TransportListener
             final long subscriptionId = nextSubscriptionId++;
             subscription.setSubscriberKey(subscriptionId);
 
-            final LockTaskStreamProcessor streamProcessor = logStreamBucket.getStreamProcessorByTaskType(taskType);
-            if (streamProcessor != null)
+            // one stream processor locks the tasks of all types of the partition
+            CompletableFuture<LockTaskStreamProcessor> streamProcessorFuture = logStreamBucket.getStreamProcessor();
+            if (streamProcessorFuture == null)
             {
-                streamProcessorBySubscriptionId.put(subscriptionId, streamProcessor);
-
-                streamProcessor
-                    .addSubscription(subscription)
-                    .handle((r, t) -> t == null ? future.complete(null) : future.completeExceptionally(t));
+                streamProcessorFuture = createStreamProcessorService(logStreamBucket);
             }
-            else
-            {
-                createStreamProcessorService(logStreamBucket, taskType)
-                    .thenCompose(processor ->
-                    {
-                        streamProcessorBySubscriptionId.put(subscriptionId, processor);
 
-                        logStreamBucket.addStreamProcessor(processor);
+            streamProcessorFuture
+                .thenCompose(processor ->
+                {
+                    streamProcessorBySubscriptionId.put(subscriptionId, processor);
 
-                        return processor.addSubscription(subscription);
-                    })
-                    .handle((r, t) -> t == null ? future.complete(null) : future.completeExceptionally(t));
-            }
+                    return processor.addSubscription(subscription);
+                })
+                .handle((r, t) -> t == null ? future.complete(null) : future.completeExceptionally(t));
         });
     }
 
-    protected CompletableFuture<LockTaskStreamProcessor> createStreamProcessorService(final LogStreamBucket logStreamBucket, final DirectBuffer taskType)
+    protected CompletableFuture<LockTaskStreamProcessor> createStreamProcessorService(final LogStreamBucket logStreamBucket)
     {
         final CompletableFuture<LockTaskStreamProcessor> future = new CompletableFuture<>();
 
         final ServiceName<LogStream> logStreamServiceName = logStreamBucket.getLogServiceName();
 
         final String logName = logStreamBucket.getLogStream().getLogName();
-        final ServiceName<StreamProcessorController> streamProcessorServiceName = taskQueueLockStreamProcessorServiceName(logName, bufferAsString(taskType));
+        final ServiceName<StreamProcessorController> streamProcessorServiceName = taskQueueLockStreamProcessorServiceName(logName);
         final String streamProcessorName = streamProcessorServiceName.getName();
 
-        // need to copy the type buffer because it is not durable
-        final DirectBuffer newTaskTypeBuffer = cloneBuffer(taskType);
-
-        final LockTaskStreamProcessor streamProcessor = streamProcessorSupplier.apply(newTaskTypeBuffer);
+        final LockTaskStreamProcessor streamProcessor = streamProcessorSupplier.get();
         final StreamProcessorService streamProcessorService = new StreamProcessorService(
                 streamProcessorName,
                 TASK_LOCK_STREAM_PROCESSOR_ID,
                 streamProcessor)
             .eventFilter(LockTaskStreamProcessor.eventFilter())
-            .reprocessingEventFilter(LockTaskStreamProcessor.reprocessingEventFilter(newTaskTypeBuffer));
+            .reprocessingEventFilter(streamProcessor.reprocessingEventFilter());
+
+        logStreamBucket.setStreamProcessor(future);
 
         serviceContext.createService(streamProcessorServiceName, streamProcessorService)
             .dependency(logStreamServiceName, streamProcessorService.getSourceStreamInjector())
             .dependency(logStreamServiceName, streamProcessorService.getTargetStreamInjector())
             .dependency(SNAPSHOT_STORAGE_SERVICE, streamProcessorService.getSnapshotStorageInjector())
             .dependency(ACTOR_SCHEDULER_SERVICE, streamProcessorService.getActorSchedulerInjector())
+            .dependency(COUNTERS_MANAGER_SERVICE, streamProcessorService.getCountersInjector())
             .install()
-            .handle((r, t) -> t == null ? future.complete(streamProcessor) : future.completeExceptionally(t));
+            .handle((r, t) ->
+            {
+                // continue on the manager's thread which owns the log stream buckets
+                asyncContext.runAsync(() ->
+                {
+                    if (t != null)
+                    {
+                        if (logStreamBucket.getStreamProcessor() == future)
+                        {
+                            logStreamBucket.setStreamProcessor(null);
+                        }
+                        future.completeExceptionally(t);
+                    }
+                    else
+                    {
+                        future.complete(streamProcessor);
+                    }
+                });
+                return null;
+            });
 
         return future;
     }
@@ -235,11 +246,10 @@ public class TaskSubscriptionManager implements Actor, TransportListener
     {
         final LogStreamBucket logStreamBucket = getLogStreamBucket(streamProcessor.getLogStreamTopicName(), streamProcessor.getLogStreamPartitionId());
 
-        logStreamBucket.removeStreamProcessor(streamProcessor);
+        logStreamBucket.setStreamProcessor(null);
 
         final String logName = logStreamBucket.getLogStream().getLogName();
-        final String taskType = bufferAsString(streamProcessor.getSubscriptedTaskType());
-        final ServiceName<StreamProcessorController> streamProcessorServiceName = taskQueueLockStreamProcessorServiceName(logName, taskType);
+        final ServiceName<StreamProcessorController> streamProcessorServiceName = taskQueueLockStreamProcessorServiceName(logName);
 
         return serviceContext.removeService(streamProcessorServiceName);
     }
@@ -348,13 +358,18 @@ public class TaskSubscriptionManager implements Actor, TransportListener
     {
         asyncContext.runAsync(() ->
         {
-            final Iterator<LockTaskStreamProcessor> processorIt = streamProcessorBySubscriptionId.values().iterator();
-            while (processorIt.hasNext())
+            for (Int2ObjectHashMap<LogStreamBucket> partitions : logStreamBuckets.values())
             {
-                final LockTaskStreamProcessor processor = processorIt.next();
-                processor
-                    .onClientChannelCloseAsync(channelId)
-                    .thenCompose(hasSubscriptions -> !hasSubscriptions ? removeStreamProcessorService(processor) : CompletableFuture.completedFuture(null));
+                for (LogStreamBucket logStreamBucket : partitions.values())
+                {
+                    final CompletableFuture<LockTaskStreamProcessor> streamProcessorFuture = logStreamBucket.getStreamProcessor();
+                    if (streamProcessorFuture != null)
+                    {
+                        streamProcessorFuture.thenCompose(processor -> processor
+                            .onClientChannelCloseAsync(channelId)
+                            .thenCompose(hasSubscriptions -> !hasSubscriptions ? removeStreamProcessorService(processor) : CompletableFuture.completedFuture(null)));
+                    }
+                }
             }
         });
     }
@@ -381,7 +396,7 @@ public class TaskSubscriptionManager implements Actor, TransportListener
         protected final LogStream logStream;
         protected final ServiceName<LogStream> logStreamServiceName;
 
-        protected List<LockTaskStreamProcessor> streamProcessors = new ArrayList<>();
+        protected CompletableFuture<LockTaskStreamProcessor> streamProcessor;
 
         LogStreamBucket(LogStream logStream, ServiceName<LogStream> logStreamServiceName)
         {
@@ -399,36 +414,14 @@ public class TaskSubscriptionManager implements Actor, TransportListener
             return logStreamServiceName;
         }
 
-        public LockTaskStreamProcessor getStreamProcessorByTaskType(DirectBuffer taskType)
-        {
-            LockTaskStreamProcessor streamProcessorForType = null;
-
-            final int size = streamProcessors.size();
-            int current = 0;
-
-            while (current < size && streamProcessorForType == null)
-            {
-                final LockTaskStreamProcessor streamProcessor = streamProcessors.get(current);
-
-                if (BufferUtil.equals(taskType, streamProcessor.getSubscriptedTaskType()))
-                {
-                    streamProcessorForType = streamProcessor;
-                }
-
-                current += 1;
-            }
-
-            return streamProcessorForType;
-        }
-
-        public void addStreamProcessor(LockTaskStreamProcessor streamProcessor)
+        public CompletableFuture<LockTaskStreamProcessor> getStreamProcessor()
         {
-            streamProcessors.add(streamProcessor);
+            return streamProcessor;
         }
 
-        public void removeStreamProcessor(LockTaskStreamProcessor streamProcessor)
+        public void setStreamProcessor(CompletableFuture<LockTaskStreamProcessor> streamProcessor)
         {
-            streamProcessors.remove(streamProcessor);
+            this.streamProcessor = streamProcessor;
         }
     }
 
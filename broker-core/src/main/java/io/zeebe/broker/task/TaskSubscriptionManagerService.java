@@ -19,6 +19,7 @@ package io.zeebe.broker.task;
 
 import java.util.concurrent.CompletableFuture;
 
+import io.zeebe.broker.transport.clientapi.ClientApiMessageHandler;
 import io.zeebe.logstreams.log.LogStream;
 import io.zeebe.servicecontainer.Injector;
 import io.zeebe.servicecontainer.Service;
@@ -33,6 +34,7 @@ public class TaskSubscriptionManagerService implements Service<TaskSubscriptionM
 {
     protected final Injector<ActorScheduler> actorSchedulerInjector = new Injector<>();
     protected final Injector<ServerTransport> transportInjector = new Injector<>();
+    protected final Injector<ClientApiMessageHandler> clientApiMessageHandlerInjector = new Injector<>();
 
     protected TaskSubscriptionManager service;
     protected ActorReference actorRef;
@@ -52,11 +54,15 @@ public class TaskSubscriptionManagerService implements Service<TaskSubscriptionM
         final ServerTransport clientApiTransport = transportInjector.getValue();
         final CompletableFuture<Void> transportRegistration = clientApiTransport.registerChannelListener(service);
         startContext.async(transportRegistration);
+
+        // the message handler receives one-way credits messages of the clients
+        clientApiMessageHandlerInjector.getValue().setTaskSubscriptionManager(service);
     }
 
     @Override
     public void stop(ServiceStopContext stopContext)
     {
+        clientApiMessageHandlerInjector.getValue().setTaskSubscriptionManager(null);
         actorRef.close();
     }
 
@@ -81,4 +87,9 @@ public class TaskSubscriptionManagerService implements Service<TaskSubscriptionM
         return transportInjector;
     }
 
+    public Injector<ClientApiMessageHandler> getClientApiMessageHandlerInjector()
+    {
+        return clientApiMessageHandlerInjector;
+    }
+
 }
@@ -0,0 +1,236 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.task.map;
+
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+
+import java.nio.ByteOrder;
+
+import io.zeebe.logstreams.snapshot.ComposedZbMapSnapshot;
+import io.zeebe.logstreams.snapshot.ZbMapSnapshotSupport;
+import io.zeebe.logstreams.spi.SnapshotSupport;
+import io.zeebe.map.Long2BytesZbMap;
+import io.zeebe.map.Long2LongZbMap;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Index of the locked tasks, ordered by lock expiration time.
+ * <p>
+ * Maps <b>task key</b> to
+ *
+ * <li> locked event position
+ * <li> lock time
+ * <li> previous / next task key in the same expiration bucket
+ *
+ * <p>
+ * and <b>expiration bucket</b> (lock time / {@link #BUCKET_DURATION}) to the first
+ * task key of the bucket. Each bucket is a doubly linked list, so that adding
+ * and removing a task is O(1). A sweep only visits the buckets between the
+ * previous sweep and now, so its cost depends on the number of expired locks
+ * instead of the number of locked tasks.
+ */
+public class TaskLockExpirationIndex
+{
+    public static final long BUCKET_DURATION = 1000L;
+
+    private static final int EVENT_POSITION_OFFSET = 0;
+    private static final int LOCK_TIME_OFFSET = EVENT_POSITION_OFFSET + SIZE_OF_LONG;
+    private static final int PREVIOUS_OFFSET = LOCK_TIME_OFFSET + SIZE_OF_LONG;
+    private static final int NEXT_OFFSET = PREVIOUS_OFFSET + SIZE_OF_LONG;
+
+    private static final int INDEX_VALUE_SIZE = 4 * SIZE_OF_LONG;
+
+    private static final long NO_ENTRY = -1L;
+
+    /**
+     * key in the bucket map which holds the lowest bucket that may contain a task;
+     * does not collide with a bucket since lock times are not negative
+     */
+    private static final long SWEEP_CURSOR_KEY = -1L;
+
+    private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private final byte[] rawBuffer = new byte[INDEX_VALUE_SIZE];
+    private final UnsafeBuffer buffer = new UnsafeBuffer(rawBuffer);
+
+    private final byte[] rawNeighbourBuffer = new byte[INDEX_VALUE_SIZE];
+    private final UnsafeBuffer neighbourBuffer = new UnsafeBuffer(rawNeighbourBuffer);
+
+    private final Long2BytesZbMap taskMap;
+    private final Long2LongZbMap bucketMap;
+    private final SnapshotSupport snapshotSupport;
+
+    public TaskLockExpirationIndex()
+    {
+        this.taskMap = new Long2BytesZbMap(INDEX_VALUE_SIZE);
+        this.bucketMap = new Long2LongZbMap();
+
+        this.snapshotSupport = new ComposedZbMapSnapshot(
+            new ZbMapSnapshotSupport<>(taskMap),
+            new ZbMapSnapshotSupport<>(bucketMap));
+    }
+
+    public SnapshotSupport getSnapshotSupport()
+    {
+        return snapshotSupport;
+    }
+
+    public void add(long taskKey, long eventPosition, long lockTime)
+    {
+        remove(taskKey);
+
+        final long bucket = bucketOf(lockTime);
+        final long head = bucketMap.get(bucket, NO_ENTRY);
+
+        buffer.putLong(EVENT_POSITION_OFFSET, eventPosition, BYTE_ORDER);
+        buffer.putLong(LOCK_TIME_OFFSET, lockTime, BYTE_ORDER);
+        buffer.putLong(PREVIOUS_OFFSET, NO_ENTRY, BYTE_ORDER);
+        buffer.putLong(NEXT_OFFSET, head, BYTE_ORDER);
+        taskMap.put(taskKey, rawBuffer);
+
+        if (head != NO_ENTRY)
+        {
+            updateLink(head, PREVIOUS_OFFSET, taskKey);
+        }
+        bucketMap.put(bucket, taskKey);
+
+        final long sweepCursor = bucketMap.get(SWEEP_CURSOR_KEY, NO_ENTRY);
+        if (sweepCursor == NO_ENTRY || bucket < sweepCursor)
+        {
+            bucketMap.put(SWEEP_CURSOR_KEY, bucket);
+        }
+    }
+
+    public boolean remove(long taskKey)
+    {
+        final boolean isIndexed = taskMap.get(taskKey, rawBuffer);
+
+        if (isIndexed)
+        {
+            final long bucket = bucketOf(buffer.getLong(LOCK_TIME_OFFSET, BYTE_ORDER));
+            final long previous = buffer.getLong(PREVIOUS_OFFSET, BYTE_ORDER);
+            final long next = buffer.getLong(NEXT_OFFSET, BYTE_ORDER);
+
+            if (previous != NO_ENTRY)
+            {
+                updateLink(previous, NEXT_OFFSET, next);
+            }
+            else if (next != NO_ENTRY)
+            {
+                bucketMap.put(bucket, next);
+            }
+            else
+            {
+                bucketMap.remove(bucket, NO_ENTRY);
+            }
+
+            if (next != NO_ENTRY)
+            {
+                updateLink(next, PREVIOUS_OFFSET, previous);
+            }
+
+            taskMap.remove(taskKey, rawBuffer);
+        }
+
+        return isIndexed;
+    }
+
+    /**
+     * Invokes the handler for each task whose lock time is not after the given
+     * time and removes the task from the index if the handler returns <code>true</code>.
+     * Stops if the handler returns <code>false</code> (e.g. on back pressure),
+     * so that the remaining tasks are handled on the next sweep.
+     *
+     * @return the number of removed tasks
+     */
+    public int sweep(long currentTime, ExpiredLockHandler handler)
+    {
+        final long sweepCursor = bucketMap.get(SWEEP_CURSOR_KEY, NO_ENTRY);
+        final long currentBucket = bucketOf(currentTime);
+
+        if (sweepCursor == NO_ENTRY || sweepCursor > currentBucket)
+        {
+            return 0;
+        }
+
+        int expiredLocks = 0;
+
+        for (long bucket = sweepCursor; bucket <= currentBucket; bucket++)
+        {
+            long taskKey = bucketMap.get(bucket, NO_ENTRY);
+
+            while (taskKey != NO_ENTRY)
+            {
+                taskMap.get(taskKey, rawBuffer);
+
+                final long next = buffer.getLong(NEXT_OFFSET, BYTE_ORDER);
+                final long lockTime = buffer.getLong(LOCK_TIME_OFFSET, BYTE_ORDER);
+
+                if (lockTime <= currentTime)
+                {
+                    final long eventPosition = buffer.getLong(EVENT_POSITION_OFFSET, BYTE_ORDER);
+
+                    if (handler.onLockExpired(taskKey, eventPosition))
+                    {
+                        remove(taskKey);
+                        expiredLocks += 1;
+                    }
+                    else
+                    {
+                        bucketMap.put(SWEEP_CURSOR_KEY, bucket);
+                        return expiredLocks;
+                    }
+                }
+
+                taskKey = next;
+            }
+        }
+
+        // the current bucket may still contain tasks which expire later
+        bucketMap.put(SWEEP_CURSOR_KEY, currentBucket);
+
+        return expiredLocks;
+    }
+
+    private void updateLink(long taskKey, int linkOffset, long linkedTaskKey)
+    {
+        taskMap.get(taskKey, rawNeighbourBuffer);
+        neighbourBuffer.putLong(linkOffset, linkedTaskKey, BYTE_ORDER);
+        taskMap.put(taskKey, rawNeighbourBuffer);
+    }
+
+    private static long bucketOf(long lockTime)
+    {
+        return Math.max(0L, lockTime) / BUCKET_DURATION;
+    }
+
+    public void close()
+    {
+        taskMap.close();
+        bucketMap.close();
+    }
+
+    @FunctionalInterface
+    public interface ExpiredLockHandler
+    {
+        /**
+         * @return <code>true</code> if the lock expiration was handled
+         */
+        boolean onLockExpired(long taskKey, long lockedEventPosition);
+    }
+}
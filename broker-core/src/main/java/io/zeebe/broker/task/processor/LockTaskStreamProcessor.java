@@ -21,13 +21,19 @@ import static io.zeebe.protocol.clientapi.EventType.TASK_EVENT;
 import static io.zeebe.util.EnsureUtil.ensureGreaterThan;
 import static io.zeebe.util.EnsureUtil.ensureLessThanOrEqual;
 import static io.zeebe.util.EnsureUtil.ensureNotNull;
+import static io.zeebe.util.buffer.BufferUtil.cloneBuffer;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import org.agrona.DirectBuffer;
 import org.agrona.collections.Long2ObjectHashMap;
 
+import io.zeebe.broker.logstreams.processor.EventStateFilter;
 import io.zeebe.broker.logstreams.processor.MetadataFilter;
 import io.zeebe.broker.logstreams.processor.NoopSnapshotSupport;
 import io.zeebe.broker.task.CreditsRequest;
@@ -36,6 +42,7 @@ import io.zeebe.broker.task.TaskSubscriptionManager;
 import io.zeebe.broker.task.data.TaskEvent;
 import io.zeebe.broker.task.data.TaskState;
 import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.logstreams.log.LogStreamReader;
 import io.zeebe.logstreams.log.LogStreamWriter;
 import io.zeebe.logstreams.log.LoggedEvent;
 import io.zeebe.logstreams.processor.EventFilter;
@@ -50,41 +57,85 @@ import io.zeebe.util.DeferredCommandContext;
 import io.zeebe.util.buffer.BufferUtil;
 import io.zeebe.util.time.ClockUtil;
 
+/**
+ * Locks the tasks of a partition for the task subscriptions of all task types.
+ * <p>
+ * A task is locked when it is read if a subscription of its type has credits.
+ * Otherwise, it is remembered as pending for its type and locked as soon as
+ * credits for the type are available, so that a type without credits does not
+ * hold back the tasks of other types. Only the types which have a
+ * subscription are tracked.
+ * <p>
+ * The pending tasks are not part of the snapshot. When a type gets its first
+ * subscription, or when more tasks are pending than a group can queue, the
+ * tasks of the type are found by reading the log sequentially in a command of
+ * the processor (see {@link TaskTypeGroup}). Pending tasks are locked by the
+ * same command, using the copy of the event in the queue.
+ */
 public class LockTaskStreamProcessor implements StreamProcessor, EventProcessor
 {
+    protected static final int MAX_PENDING_TASKS_PER_CYCLE = 32;
+    protected static final int MAX_RESCANNED_EVENTS_PER_CYCLE = 1024;
+
+    /**
+     * States of a task which can be locked if the task has retries left.
+     */
+    protected static final EnumSet<TaskState> LOCKABLE_STATES = EnumSet.of(
+            TaskState.CREATED,
+            TaskState.LOCK_EXPIRED,
+            TaskState.FAILED,
+            TaskState.RETRIES_UPDATED);
+
+    /**
+     * States of a task which remove it from the pending tasks.
+     */
+    protected static final EnumSet<TaskState> LOCKED_OR_CANCELED_STATES = EnumSet.of(
+            TaskState.LOCK,
+            TaskState.LOCKED,
+            TaskState.CANCELED);
+
+    protected static final EnumSet<TaskState> PROCESSED_STATES = EnumSet.copyOf(LOCKABLE_STATES);
+
+    static
+    {
+        PROCESSED_STATES.addAll(LOCKED_OR_CANCELED_STATES);
+    }
+
     protected final BrokerEventMetadata targetEventMetadata = new BrokerEventMetadata();
 
     protected final NoopSnapshotSupport noopSnapshotSupport = new NoopSnapshotSupport();
     protected DeferredCommandContext cmdQueue;
     protected CreditsRequestBuffer creditsBuffer = new CreditsRequestBuffer(TaskSubscriptionManager.NUM_CONCURRENT_REQUESTS, this::increaseSubscriptionCredits);
 
-    protected final Long2ObjectHashMap<TaskSubscription> subscriptionsById = new Long2ObjectHashMap<>();
-    protected Iterator<TaskSubscription> subscriptionIterator;
+    protected final EventProcessor addPendingTaskProcessor = new AddPendingTaskProcessor();
+    protected final EventProcessor removePendingTaskProcessor = new RemovePendingTaskProcessor();
+
+    protected final LockPendingTasksCmd lockPendingTasksCmd = new LockPendingTasksCmd();
+    protected boolean isLockPendingTasksScheduled = false;
 
-    protected final DirectBuffer subscriptedTaskType;
+    protected final Map<DirectBuffer, TaskTypeGroup> groupsByTaskType = new HashMap<>();
+    protected final List<TaskTypeGroup> groups = new ArrayList<>();
+    protected final Long2ObjectHashMap<TaskTypeGroup> groupsBySubscriptionId = new Long2ObjectHashMap<>();
 
     protected DirectBuffer logStreamTopicName;
     protected int logStreamPartitionId;
+    protected int streamProcessorId;
 
     protected LogStream targetStream;
+    protected LogStreamReader targetLogStreamReader;
+    protected LogStreamWriter targetLogStreamWriter;
 
     protected int availableSubscriptionCredits = 0;
 
     protected final TaskEvent taskEvent = new TaskEvent();
+    protected final EventStateFilter stateFilter = new EventStateFilter(PROCESSED_STATES);
     protected long eventKey = 0;
+    protected long eventPosition = 0;
+    protected TaskTypeGroup eventGroup;
 
     protected boolean hasLockedTask;
     protected TaskSubscription lockSubscription;
 
-    // activate the processor while adding the first subscription
-    protected boolean isSuspended = true;
-
-    public LockTaskStreamProcessor(DirectBuffer taskType)
-    {
-        this.subscriptedTaskType = taskType;
-        this.subscriptionIterator = subscriptionsById.values().iterator();
-    }
-
     @Override
     public SnapshotSupport getStateResource()
     {
@@ -97,12 +148,8 @@ public class LockTaskStreamProcessor implements StreamProcessor, EventProcessor
     {
         creditsBuffer.handleRequests();
 
-        return isSuspended;
-    }
-
-    public DirectBuffer getSubscriptedTaskType()
-    {
-        return subscriptedTaskType;
+        // activate the processor while adding the first subscription
+        return availableSubscriptionCredits <= 0;
     }
 
     public DirectBuffer getLogStreamTopicName()
@@ -118,6 +165,7 @@ public class LockTaskStreamProcessor implements StreamProcessor, EventProcessor
     @Override
     public void onOpen(StreamProcessorContext context)
     {
+        streamProcessorId = context.getId();
         cmdQueue = context.getStreamProcessorCmdQueue();
 
         final LogStream sourceStream = context.getSourceStream();
@@ -125,6 +173,8 @@ public class LockTaskStreamProcessor implements StreamProcessor, EventProcessor
         logStreamPartitionId = sourceStream.getPartitionId();
 
         targetStream = context.getTargetStream();
+        targetLogStreamReader = context.getTargetLogStreamReader();
+        targetLogStreamWriter = context.getLogStreamWriter();
     }
 
     public CompletableFuture<Void> addSubscription(TaskSubscription subscription)
@@ -137,19 +187,21 @@ public class LockTaskStreamProcessor implements StreamProcessor, EventProcessor
         ensureGreaterThan("lock duration", subscription.getLockDuration(), 0);
         ensureGreaterThan("subscription credits", subscription.getCredits(), 0);
 
-        if (!BufferUtil.equals(subscription.getLockTaskType(), subscriptedTaskType))
-        {
-            final String errorMessage = String.format("Subscription task type is not equal to '%s'.", BufferUtil.bufferAsString(subscriptedTaskType));
-            throw new RuntimeException(errorMessage);
-        }
-
         return cmdQueue.runAsync(future ->
         {
-            subscriptionsById.put(subscription.getSubscriberKey(), subscription);
+            TaskTypeGroup group = groupsByTaskType.get(subscription.getLockTaskType());
+            if (group == null)
+            {
+                group = createGroup(subscription.getLockTaskType());
+            }
+
+            group.addSubscription(subscription);
+            groupsBySubscriptionId.put(subscription.getSubscriberKey(), group);
 
             availableSubscriptionCredits += subscription.getCredits();
 
-            isSuspended = false;
+            // lock the pending tasks and start the rescan of a new type right away
+            lockPendingTasksCmd.run();
 
             future.complete(null);
         });
@@ -159,50 +211,62 @@ public class LockTaskStreamProcessor implements StreamProcessor, EventProcessor
     {
         return cmdQueue.runAsync(future ->
         {
-            final TaskSubscription subscription = subscriptionsById.remove(subscriptionId);
-            final boolean hasSubscriptions = onRemove(subscription);
+            onRemove(subscriptionId);
 
-            future.complete(hasSubscriptions);
+            future.complete(hasSubscriptions());
         });
     }
 
-    protected boolean onRemove(TaskSubscription subscription)
+    protected void onRemove(long subscriptionId)
     {
-        if (subscription != null)
-        {
-            availableSubscriptionCredits -= subscription.getCredits();
-        }
+        final TaskTypeGroup group = groupsBySubscriptionId.remove(subscriptionId);
 
-        final boolean hasSubscriptions = subscriptionsById.size() > 0;
-        if (!hasSubscriptions)
+        if (group != null)
         {
-            isSuspended = true;
+            final TaskSubscription subscription = group.removeSubscription(subscriptionId);
+            if (subscription != null)
+            {
+                availableSubscriptionCredits -= subscription.getCredits();
+            }
+
+            if (!group.hasSubscriptions())
+            {
+                removeGroup(group);
+            }
         }
+    }
 
-        return hasSubscriptions;
+    protected boolean hasSubscriptions()
+    {
+        return !groupsBySubscriptionId.isEmpty();
     }
 
     public CompletableFuture<Boolean> onClientChannelCloseAsync(int channelId)
     {
         return cmdQueue.runAsync(future ->
         {
-            final Iterator<TaskSubscription> subscriptionIt = subscriptionsById.values().iterator();
-
-            boolean hasSubscriptions = true;
-            while (subscriptionIt.hasNext())
+            for (int i = groups.size() - 1; i >= 0; i--)
             {
-                final TaskSubscription subscription = subscriptionIt.next();
-                if (subscription.getStreamId() == channelId)
+                final TaskTypeGroup group = groups.get(i);
+
+                group.removeSubscriptionsOfChannel(channelId, this::onChannelSubscriptionRemoved);
+
+                if (!group.hasSubscriptions())
                 {
-                    subscriptionIt.remove();
-                    hasSubscriptions = onRemove(subscription);
+                    removeGroup(group);
                 }
             }
 
-            future.complete(hasSubscriptions);
+            future.complete(hasSubscriptions());
         });
     }
 
+    protected void onChannelSubscriptionRemoved(TaskSubscription subscription)
+    {
+        groupsBySubscriptionId.remove(subscription.getSubscriberKey());
+        availableSubscriptionCredits -= subscription.getCredits();
+    }
+
     public boolean increaseSubscriptionCreditsAsync(CreditsRequest request)
     {
         return this.creditsBuffer.offerRequest(request);
@@ -212,44 +276,50 @@ public class LockTaskStreamProcessor implements StreamProcessor, EventProcessor
     {
         final long subscriberKey = request.getSubscriberKey();
         final int credits = request.getCredits();
-        final TaskSubscription subscription = subscriptionsById.get(subscriberKey);
+        final TaskTypeGroup group = groupsBySubscriptionId.get(subscriberKey);
 
-        if (subscription != null)
+        if (group != null && group.increaseCredits(subscriberKey, credits))
         {
             availableSubscriptionCredits += credits;
-            subscription.setCredits(subscription.getCredits() + credits);
 
-            isSuspended = false;
+            if (group.hasPendingWork())
+            {
+                scheduleLockPendingTasks();
+            }
         }
     }
 
-    protected TaskSubscription getNextAvailableSubscription()
+    protected TaskTypeGroup createGroup(DirectBuffer taskType)
     {
-        TaskSubscription nextSubscription = null;
+        // need to copy the type buffer because it is not durable
+        final TaskTypeGroup group = new TaskTypeGroup(cloneBuffer(taskType));
 
-        if (availableSubscriptionCredits > 0)
-        {
-            final int subscriptionSize = subscriptionsById.size();
-            int seenSubscriptions = 0;
+        // find the tasks of the type which are written before the subscription is added
+        group.startRescan(TaskTypeGroup.RESCAN_FROM_FIRST_EVENT);
 
-            while (seenSubscriptions < subscriptionSize && nextSubscription == null)
-            {
-                if (!subscriptionIterator.hasNext())
-                {
-                    // assuming that it just reset the existing iterator internally
-                    subscriptionIterator = subscriptionsById.values().iterator();
-                }
+        groupsByTaskType.put(group.getTaskType(), group);
+        groups.add(group);
 
-                final TaskSubscription subscription = subscriptionIterator.next();
-                if (subscription.getCredits() > 0)
-                {
-                    nextSubscription = subscription;
-                }
+        return group;
+    }
 
-                seenSubscriptions += 1;
-            }
+    protected void removeGroup(TaskTypeGroup group)
+    {
+        // the pending tasks are found again by a rescan if the type gets a new subscription
+        group.clearPendingTasks();
+
+        groupsByTaskType.remove(group.getTaskType());
+        groups.remove(group);
+    }
+
+    protected void scheduleLockPendingTasks()
+    {
+        if (!isLockPendingTasksScheduled)
+        {
+            isLockPendingTasksScheduled = true;
+
+            cmdQueue.runAsync(lockPendingTasksCmd);
         }
-        return nextSubscription;
     }
 
     public static MetadataFilter eventFilter()
@@ -257,69 +327,98 @@ public class LockTaskStreamProcessor implements StreamProcessor, EventProcessor
         return m -> m.getEventType() == EventType.TASK_EVENT;
     }
 
-    public static final EventFilter reprocessingEventFilter(final DirectBuffer taskType)
+    /**
+     * Reprocesses only the events of the task types which have a
+     * subscription. Since the subscriptions are added after the processor is
+     * opened, the pending tasks are not restored on reprocessing but found by
+     * the rescan of the type.
+     */
+    public EventFilter reprocessingEventFilter()
     {
-        final TaskEvent taskEvent = new TaskEvent();
+        final TaskEvent reprocessingTaskEvent = new TaskEvent();
 
         return event ->
         {
-            taskEvent.reset();
-            event.readValue(taskEvent);
+            reprocessingTaskEvent.reset();
+            event.readValue(reprocessingTaskEvent);
 
-            return BufferUtil.equals(taskEvent.getType(), taskType);
+            return groupsByTaskType.containsKey(reprocessingTaskEvent.getType());
         };
     }
 
     @Override
     public EventProcessor onEvent(LoggedEvent event)
     {
+        if (!stateFilter.applies(event))
+        {
+            return null;
+        }
+
         eventKey = event.getKey();
+        eventPosition = event.getPosition();
 
         taskEvent.reset();
         event.readValue(taskEvent);
 
         EventProcessor eventProcessor = null;
 
-        if (BufferUtil.equals(taskEvent.getType(), subscriptedTaskType))
+        eventGroup = groupsByTaskType.get(taskEvent.getType());
+
+        if (eventGroup != null && eventGroup.isTracking(eventPosition))
         {
-            switch (taskEvent.getState())
+            if (isLockable(taskEvent))
             {
-                case CREATED:
-                case LOCK_EXPIRED:
-                case FAILED:
-                case RETRIES_UPDATED:
+                if (eventGroup.getAvailableCredits() > 0 && !eventGroup.hasPendingTasks())
+                {
                     eventProcessor = this;
-                    break;
-
-                default:
-                    break;
+                }
+                else
+                {
+                    eventProcessor = addPendingTaskProcessor;
+                }
+            }
+            else if (isLockedOrCanceled(taskEvent) && eventGroup.hasPendingTasks())
+            {
+                eventProcessor = removePendingTaskProcessor;
             }
         }
         return eventProcessor;
     }
 
+    protected static boolean isLockable(TaskEvent event)
+    {
+        return LOCKABLE_STATES.contains(event.getState()) && event.getRetries() > 0;
+    }
+
+    protected static boolean isLockedOrCanceled(TaskEvent event)
+    {
+        return LOCKED_OR_CANCELED_STATES.contains(event.getState());
+    }
+
     @Override
     public void processEvent()
     {
         hasLockedTask = false;
 
-        if (taskEvent.getRetries() > 0)
+        lockSubscription = eventGroup.getNextAvailableSubscription();
+        if (lockSubscription != null)
         {
-            lockSubscription = getNextAvailableSubscription();
-            if (lockSubscription != null)
-            {
-                final long lockTimeout = ClockUtil.getCurrentTimeInMillis() + lockSubscription.getLockDuration();
+            lockTask(taskEvent, lockSubscription);
 
-                taskEvent
-                    .setState(TaskState.LOCK)
-                    .setLockTime(lockTimeout)
-                    .setLockOwner(lockSubscription.getLockOwner());
-
-                hasLockedTask = true;
-            }
+            hasLockedTask = true;
         }
     }
 
+    protected void lockTask(TaskEvent event, TaskSubscription subscription)
+    {
+        final long lockTimeout = ClockUtil.getCurrentTimeInMillis() + subscription.getLockDuration();
+
+        event
+            .setState(TaskState.LOCK)
+            .setLockTime(lockTimeout)
+            .setLockOwner(subscription.getLockOwner());
+    }
+
     @Override
     public long writeEvent(LogStreamWriter writer)
     {
@@ -327,38 +426,227 @@ public class LockTaskStreamProcessor implements StreamProcessor, EventProcessor
 
         if (hasLockedTask)
         {
-            targetEventMetadata.reset();
-
-            targetEventMetadata
-                .requestStreamId(lockSubscription.getStreamId())
-                .subscriberKey(lockSubscription.getSubscriberKey())
-                .protocolVersion(Protocol.PROTOCOL_VERSION)
-                .raftTermId(targetStream.getTerm())
-                .eventType(TASK_EVENT);
-
-            position = writer.key(eventKey)
-                    .metadataWriter(targetEventMetadata)
-                    .valueWriter(taskEvent)
-                    .tryWrite();
+            position = writeLockEvent(writer, eventKey, taskEvent, lockSubscription);
         }
         return position;
     }
 
+    protected long writeLockEvent(LogStreamWriter writer, long taskKey, TaskEvent event, TaskSubscription subscription)
+    {
+        targetEventMetadata.reset();
+
+        targetEventMetadata
+            .requestStreamId(subscription.getStreamId())
+            .subscriberKey(subscription.getSubscriberKey())
+            .protocolVersion(Protocol.PROTOCOL_VERSION)
+            .raftTermId(targetStream.getTerm())
+            .eventType(TASK_EVENT);
+
+        return writer.key(taskKey)
+                .metadataWriter(targetEventMetadata)
+                .valueWriter(event)
+                .tryWrite();
+    }
+
     @Override
     public void updateState()
     {
         if (hasLockedTask)
         {
-            final int credits = lockSubscription.getCredits();
-            lockSubscription.setCredits(credits - 1);
+            eventGroup.decrementCredits(lockSubscription);
 
             availableSubscriptionCredits -= 1;
+        }
+    }
+
+    class AddPendingTaskProcessor implements EventProcessor
+    {
+        @Override
+        public void processEvent()
+        {
+            // the task is locked when the subscriptions of its type have credits
+        }
+
+        @Override
+        public void updateState()
+        {
+            if (!eventGroup.addPendingTask(eventKey, eventPosition, taskEvent))
+            {
+                // the queue is full - find this and the following tasks of the type by a rescan
+                eventGroup.startRescan(eventPosition);
+            }
+
+            if (eventGroup.hasPendingWork())
+            {
+                scheduleLockPendingTasks();
+            }
+        }
+    }
+
+    class RemovePendingTaskProcessor implements EventProcessor
+    {
+        @Override
+        public void processEvent()
+        {
+            // the task is locked or canceled
+        }
+
+        @Override
+        public void updateState()
+        {
+            eventGroup.removePendingTask(eventKey);
+        }
+    }
+
+    /**
+     * Continues the rescans of the task types and locks the pending tasks of
+     * the types which have credits. The LOCK events are written
+     * directly, like the lock expiration does, since they are not caused by
+     * the current event.
+     */
+    class LockPendingTasksCmd implements Runnable
+    {
+        protected final TaskEvent pendingTaskEvent = new TaskEvent();
+        protected final BrokerEventMetadata rescanEventMetadata = new BrokerEventMetadata();
+        protected final EventStateFilter rescanStateFilter = new EventStateFilter(PROCESSED_STATES);
+
+        @Override
+        public void run()
+        {
+            isLockPendingTasksScheduled = false;
+
+            int lockedTasks = 0;
+            int rescannedEvents = 0;
+            boolean hasPendingWork = false;
+
+            for (int i = 0; i < groups.size(); i++)
+            {
+                final TaskTypeGroup group = groups.get(i);
 
-            if (availableSubscriptionCredits <= 0)
+                if (group.isRescanning() && rescannedEvents < MAX_RESCANNED_EVENTS_PER_CYCLE)
+                {
+                    rescannedEvents += rescan(group, MAX_RESCANNED_EVENTS_PER_CYCLE - rescannedEvents);
+                }
+
+                if (lockedTasks < MAX_PENDING_TASKS_PER_CYCLE)
+                {
+                    lockedTasks += lockPendingTasks(group, MAX_PENDING_TASKS_PER_CYCLE - lockedTasks);
+                }
+
+                hasPendingWork |= group.hasPendingWork();
+            }
+
+            if (hasPendingWork)
             {
-                isSuspended = true;
+                scheduleLockPendingTasks();
             }
         }
+
+        protected int lockPendingTasks(TaskTypeGroup group, int maxTasks)
+        {
+            int lockedTasks = 0;
+
+            while (group.getAvailableCredits() > 0 && lockedTasks < maxTasks)
+            {
+                final long taskKey = group.peekPendingTask();
+                if (taskKey == TaskTypeGroup.NO_PENDING_TASK)
+                {
+                    break;
+                }
+
+                pendingTaskEvent.reset();
+                group.readPendingTask(pendingTaskEvent);
+
+                final TaskSubscription subscription = group.getNextAvailableSubscription();
+                lockTask(pendingTaskEvent, subscription);
+
+                final long position = writeLockEvent(targetLogStreamWriter
+                        .producerId(streamProcessorId)
+                        .sourceEvent(logStreamTopicName, logStreamPartitionId, group.getPendingTaskPosition()),
+                        taskKey,
+                        pendingTaskEvent,
+                        subscription);
+
+                if (position >= 0)
+                {
+                    group.pollPendingTask();
+                    group.decrementCredits(subscription);
+                    availableSubscriptionCredits -= 1;
+
+                    lockedTasks += 1;
+                }
+                else
+                {
+                    // try again in the next cycle
+                    break;
+                }
+            }
+
+            return lockedTasks;
+        }
+
+        /**
+         * Reads the log from the rescan position of the group and queues the
+         * lockable tasks of its type, until the queue is full or the log is
+         * read completely.
+         */
+        protected int rescan(TaskTypeGroup group, int maxEvents)
+        {
+            final long rescanPosition = group.getRescanPosition();
+            if (rescanPosition == TaskTypeGroup.RESCAN_FROM_FIRST_EVENT)
+            {
+                targetLogStreamReader.seekToFirstEvent();
+            }
+            else
+            {
+                targetLogStreamReader.seek(rescanPosition);
+            }
+
+            long scannedPosition = -1L;
+            int readEvents = 0;
+
+            while (targetLogStreamReader.hasNext())
+            {
+                final LoggedEvent event = targetLogStreamReader.next();
+                final long position = event.getPosition();
+
+                if (readEvents >= maxEvents || group.isPendingQueueFull())
+                {
+                    // continue with this event in the next cycle
+                    group.continueRescan(position, scannedPosition);
+                    return readEvents;
+                }
+
+                rescanEventMetadata.reset();
+                event.readMetadata(rescanEventMetadata);
+
+                if (rescanEventMetadata.getEventType() == TASK_EVENT && rescanStateFilter.applies(event))
+                {
+                    pendingTaskEvent.reset();
+                    event.readValue(pendingTaskEvent);
+
+                    if (BufferUtil.equals(pendingTaskEvent.getType(), group.getTaskType()))
+                    {
+                        if (isLockable(pendingTaskEvent))
+                        {
+                            group.addPendingTask(event.getKey(), position, pendingTaskEvent);
+                        }
+                        else if (isLockedOrCanceled(pendingTaskEvent))
+                        {
+                            group.removePendingTask(event.getKey());
+                        }
+                    }
+                }
+
+                scannedPosition = position;
+                readEvents += 1;
+            }
+
+            // the following events are handled when they are processed
+            group.finishRescan(scannedPosition);
+
+            return readEvents;
+        }
     }
 
 }
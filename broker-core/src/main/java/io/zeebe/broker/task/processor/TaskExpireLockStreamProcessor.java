@@ -18,17 +18,15 @@
 package io.zeebe.broker.task.processor;
 
 import static io.zeebe.protocol.clientapi.EventType.TASK_EVENT;
-import static org.agrona.BitUtil.SIZE_OF_INT;
-
-import java.util.HashMap;
-import java.util.Iterator;
 
 import io.zeebe.protocol.Protocol;
 import org.agrona.DirectBuffer;
 
 import io.zeebe.protocol.impl.BrokerEventMetadata;
+import io.zeebe.broker.logstreams.processor.EventStateFilter;
 import io.zeebe.broker.logstreams.processor.MetadataFilter;
 import io.zeebe.broker.task.data.TaskEvent;
+import io.zeebe.broker.task.map.TaskLockExpirationIndex;
 import io.zeebe.broker.task.data.TaskState;
 import io.zeebe.logstreams.log.LogStream;
 import io.zeebe.logstreams.log.LogStreamReader;
@@ -37,7 +35,6 @@ import io.zeebe.logstreams.log.LoggedEvent;
 import io.zeebe.logstreams.processor.EventProcessor;
 import io.zeebe.logstreams.processor.StreamProcessor;
 import io.zeebe.logstreams.processor.StreamProcessorContext;
-import io.zeebe.logstreams.snapshot.SerializableWrapper;
 import io.zeebe.logstreams.spi.SnapshotSupport;
 import io.zeebe.protocol.clientapi.EventType;
 import io.zeebe.util.DeferredCommandContext;
@@ -45,17 +42,13 @@ import io.zeebe.util.time.ClockUtil;
 
 public class TaskExpireLockStreamProcessor implements StreamProcessor
 {
-    protected static final int INDEX_VALUE_LENGTH = SIZE_OF_INT + SIZE_OF_INT;
-
     protected final EventProcessor lockedEventProcessor = new LockedEventProcessor();
     protected final EventProcessor unlockEventProcessor = new UnlockEventProcessor();
     protected final EventProcessor expireLockEventProcessor = new ExpireLockEventProcessor();
 
     protected final Runnable checkLockExpirationCmd = new CheckLockExpirationCmd();
 
-    // TODO #161 - replace the map by a more efficient one
-    protected HashMap<Long, ExpirationTimeBucket> index = new HashMap<>();
-    protected SerializableWrapper<HashMap<Long, ExpirationTimeBucket>> indexSnapshot = new SerializableWrapper<>(index);
+    protected final TaskLockExpirationIndex index = new TaskLockExpirationIndex();
 
     protected DeferredCommandContext cmdQueue;
 
@@ -69,6 +62,12 @@ public class TaskExpireLockStreamProcessor implements StreamProcessor
 
     protected final BrokerEventMetadata targetEventMetadata = new BrokerEventMetadata();
     protected final TaskEvent taskEvent = new TaskEvent();
+    protected final EventStateFilter stateFilter = new EventStateFilter(
+            TaskState.LOCKED,
+            TaskState.EXPIRE_LOCK,
+            TaskState.LOCK_EXPIRED,
+            TaskState.COMPLETED,
+            TaskState.FAILED);
     protected long eventKey = 0;
     protected long eventPosition = 0;
 
@@ -77,7 +76,7 @@ public class TaskExpireLockStreamProcessor implements StreamProcessor
     @Override
     public SnapshotSupport getStateResource()
     {
-        return indexSnapshot;
+        return index.getSnapshotSupport();
     }
 
     @Override
@@ -91,9 +90,12 @@ public class TaskExpireLockStreamProcessor implements StreamProcessor
         targetStream = context.getTargetStream();
         targetLogStreamTopicName = targetStream.getTopicName();
         targetLogStreamPartitionId = targetStream.getPartitionId();
+    }
 
-        // restore map from snapshot
-        index = indexSnapshot.getObject();
+    @Override
+    public void onClose()
+    {
+        index.close();
     }
 
     public static MetadataFilter eventFilter()
@@ -104,6 +106,11 @@ public class TaskExpireLockStreamProcessor implements StreamProcessor
     @Override
     public EventProcessor onEvent(LoggedEvent event)
     {
+        if (!stateFilter.applies(event))
+        {
+            return null;
+        }
+
         eventKey = event.getKey();
         eventPosition = event.getPosition();
 
@@ -144,8 +151,7 @@ public class TaskExpireLockStreamProcessor implements StreamProcessor
         @Override
         public void updateState()
         {
-            final ExpirationTimeBucket expirationTimeBucket = new ExpirationTimeBucket(eventPosition, taskEvent.getLockTime());
-            index.put(eventKey, expirationTimeBucket);
+            index.add(eventKey, eventPosition, taskEvent.getLockTime());
         }
 
     }
@@ -190,36 +196,19 @@ public class TaskExpireLockStreamProcessor implements StreamProcessor
         cmdQueue.runAsync(checkLockExpirationCmd);
     }
 
-    class CheckLockExpirationCmd implements Runnable
+    class CheckLockExpirationCmd implements Runnable, TaskLockExpirationIndex.ExpiredLockHandler
     {
         @Override
         public void run()
         {
-            if (index.size() > 0)
-            {
-                final Iterator<Long> eventKeyIt = index.keySet().iterator();
-
-                while (eventKeyIt.hasNext())
-                {
-                    final long eventKey = eventKeyIt.next();
-                    final ExpirationTimeBucket expirationTimeBucket = index.get(eventKey);
-
-                    final long eventPosition = expirationTimeBucket.getEventPosition();
-                    final long lockExpirationTime = expirationTimeBucket.getExpirationTime();
-
-                    if (lockExpired(lockExpirationTime))
-                    {
-                        final LoggedEvent taskLockedEvent = findEvent(eventPosition);
-                        writeLockExpireEvent(eventKey, taskLockedEvent);
-                        eventKeyIt.remove();
-                    }
-                }
-            }
+            index.sweep(ClockUtil.getCurrentTimeInMillis(), this);
         }
 
-        protected boolean lockExpired(long lockExpirationTime)
+        @Override
+        public boolean onLockExpired(long taskKey, long lockedEventPosition)
         {
-            return lockExpirationTime <= ClockUtil.getCurrentTimeInMillis();
+            final LoggedEvent taskLockedEvent = findEvent(lockedEventPosition);
+            return writeLockExpireEvent(taskKey, taskLockedEvent);
         }
 
         protected LoggedEvent findEvent(long position)
@@ -236,7 +225,7 @@ public class TaskExpireLockStreamProcessor implements StreamProcessor
             }
         }
 
-        protected void writeLockExpireEvent(long eventKey, final LoggedEvent lockedEvent)
+        protected boolean writeLockExpireEvent(long eventKey, final LoggedEvent lockedEvent)
         {
             taskEvent.reset();
             lockedEvent.readValue(taskEvent);
@@ -260,6 +249,11 @@ public class TaskExpireLockStreamProcessor implements StreamProcessor
             if (position >= 0)
             {
                 lastWrittenEventPosition = position;
+                return true;
+            }
+            else
+            {
+                return false;
             }
         }
     }
@@ -0,0 +1,426 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.task.processor;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.collections.Long2ObjectHashMap;
+
+import io.zeebe.broker.task.data.TaskEvent;
+
+/**
+ * The subscriptions of a {@link LockTaskStreamProcessor} for one task type,
+ * and the tasks of this type which could not be locked when they were read
+ * because the subscriptions had no credits.
+ * <p>
+ * Pending tasks are kept in insertion order, together with a copy of their
+ * event value, so that they can be locked without reading the log again. A
+ * task can be removed in O(1); its slot stays in the queue and is skipped
+ * when it reaches the head.
+ * <p>
+ * The queue holds at most {@link #MAX_PENDING_TASKS} tasks. When the group is
+ * created, or if the queue is full, the group rescans the log from the rescan
+ * position to find the tasks which are not queued. The events up to the
+ * scanned position are handled by the rescan and ignored on processing.
+ */
+public class TaskTypeGroup
+{
+    protected static final long NO_PENDING_TASK = -1L;
+
+    protected static final int MAX_PENDING_TASKS = 128;
+
+    protected static final long NO_RESCAN = -1L;
+    protected static final long RESCAN_FROM_FIRST_EVENT = -2L;
+
+    protected final DirectBuffer taskType;
+
+    protected final Long2ObjectHashMap<TaskSubscription> subscriptionsById = new Long2ObjectHashMap<>();
+    protected Iterator<TaskSubscription> subscriptionIterator;
+
+    protected int availableCredits = 0;
+
+    /**
+     * task key -> slot of the task in the queue
+     */
+    protected final Long2LongHashMap pendingTaskSlots = new Long2LongHashMap(NO_PENDING_TASK);
+
+    protected final long[] pendingTaskKeys = new long[MAX_PENDING_TASKS];
+    protected final long[] pendingTaskPositions = new long[MAX_PENDING_TASKS];
+    protected final int[] pendingTaskLengths = new int[MAX_PENDING_TASKS];
+    protected final ExpandableArrayBuffer[] pendingTaskValues = new ExpandableArrayBuffer[MAX_PENDING_TASKS];
+    protected int pendingHead = 0;
+    protected int pendingSize = 0;
+
+    protected long rescanPosition = NO_RESCAN;
+    protected long scannedPosition = -1L;
+
+    public TaskTypeGroup(DirectBuffer taskType)
+    {
+        this.taskType = taskType;
+        this.subscriptionIterator = subscriptionsById.values().iterator();
+    }
+    public DirectBuffer getTaskType()
+    {
+        return taskType;
+    }
+
+    public void addSubscription(TaskSubscription subscription)
+    {
+        subscriptionsById.put(subscription.getSubscriberKey(), subscription);
+        availableCredits += subscription.getCredits();
+    }
+
+    public TaskSubscription removeSubscription(long subscriberKey)
+    {
+        final TaskSubscription subscription = subscriptionsById.remove(subscriberKey);
+
+        if (subscription != null)
+        {
+            availableCredits -= subscription.getCredits();
+        }
+
+        return subscription;
+    }
+
+    public void removeSubscriptionsOfChannel(int channelId, Consumer<TaskSubscription> onRemove)
+    {
+        final Iterator<TaskSubscription> subscriptionIt = subscriptionsById.values().iterator();
+
+        while (subscriptionIt.hasNext())
+        {
+            final TaskSubscription subscription = subscriptionIt.next();
+            if (subscription.getStreamId() == channelId)
+            {
+                subscriptionIt.remove();
+                availableCredits -= subscription.getCredits();
+
+                onRemove.accept(subscription);
+            }
+        }
+    }
+
+    public boolean hasSubscriptions()
+    {
+        return !subscriptionsById.isEmpty();
+    }
+
+    public int getAvailableCredits()
+    {
+        return availableCredits;
+    }
+
+    public boolean increaseCredits(long subscriberKey, int credits)
+    {
+        final TaskSubscription subscription = subscriptionsById.get(subscriberKey);
+
+        if (subscription != null)
+        {
+            subscription.setCredits(subscription.getCredits() + credits);
+            availableCredits += credits;
+        }
+
+        return subscription != null;
+    }
+
+    public void decrementCredits(TaskSubscription subscription)
+    {
+        subscription.setCredits(subscription.getCredits() - 1);
+        availableCredits -= 1;
+    }
+
+    public TaskSubscription getNextAvailableSubscription()
+    {
+        TaskSubscription nextSubscription = null;
+
+        if (availableCredits > 0)
+        {
+            final int subscriptionSize = subscriptionsById.size();
+            int seenSubscriptions = 0;
+
+            while (seenSubscriptions < subscriptionSize && nextSubscription == null)
+            {
+                if (!subscriptionIterator.hasNext())
+                {
+                    // assuming that it just reset the existing iterator internally
+                    subscriptionIterator = subscriptionsById.values().iterator();
+                }
+
+                final TaskSubscription subscription = subscriptionIterator.next();
+                if (subscription.getCredits() > 0)
+                {
+                    nextSubscription = subscription;
+                }
+
+                seenSubscriptions += 1;
+            }
+        }
+        return nextSubscription;
+    }
+
+    public boolean hasPendingTasks()
+    {
+        return !pendingTaskSlots.isEmpty();
+    }
+
+    public boolean isPendingQueueFull()
+    {
+        return pendingSize == MAX_PENDING_TASKS && !compactPendingQueue();
+    }
+
+    /**
+     * Adds the task to the end of the queue. If the task is already pending,
+     * its queued event is replaced in place.
+     *
+     * @return <code>false</code> if the queue is full and the task is not added
+     */
+    public boolean addPendingTask(long taskKey, long position, TaskEvent event)
+    {
+        final long pendingSlot = pendingTaskSlots.get(taskKey);
+        if (pendingSlot != NO_PENDING_TASK)
+        {
+            writePendingTask((int) pendingSlot, taskKey, position, event);
+            return true;
+        }
+
+        if (isPendingQueueFull())
+        {
+            return false;
+        }
+
+        final int slot = (pendingHead + pendingSize) % MAX_PENDING_TASKS;
+        writePendingTask(slot, taskKey, position, event);
+        pendingTaskSlots.put(taskKey, slot);
+
+        pendingSize += 1;
+
+        return true;
+    }
+
+    private void writePendingTask(int slot, long taskKey, long position, TaskEvent event)
+    {
+        final int length = event.getLength();
+
+        ExpandableArrayBuffer value = pendingTaskValues[slot];
+        if (value == null)
+        {
+            value = new ExpandableArrayBuffer(length);
+            pendingTaskValues[slot] = value;
+        }
+
+        value.checkLimit(length);
+        event.write(value, 0);
+
+        pendingTaskKeys[slot] = taskKey;
+        pendingTaskPositions[slot] = position;
+        pendingTaskLengths[slot] = length;
+    }
+
+    public void removePendingTask(long taskKey)
+    {
+        final long slot = pendingTaskSlots.remove(taskKey);
+
+        if (slot != NO_PENDING_TASK)
+        {
+            pendingTaskKeys[(int) slot] = NO_PENDING_TASK;
+        }
+
+        if (pendingTaskSlots.isEmpty())
+        {
+            // drop the slots of removed tasks
+            pendingHead = 0;
+            pendingSize = 0;
+        }
+    }
+
+    public void clearPendingTasks()
+    {
+        pendingTaskSlots.clear();
+        pendingHead = 0;
+        pendingSize = 0;
+    }
+
+    /**
+     * @return the key of the oldest pending task or {@link #NO_PENDING_TASK}
+     */
+    public long peekPendingTask()
+    {
+        while (pendingSize > 0)
+        {
+            final long taskKey = pendingTaskKeys[pendingHead];
+
+            if (taskKey != NO_PENDING_TASK)
+            {
+                return taskKey;
+            }
+            else
+            {
+                pollPendingQueue();
+            }
+        }
+
+        return NO_PENDING_TASK;
+    }
+
+    /**
+     * @return the position of the event which made the task returned by
+     *         {@link #peekPendingTask()} lockable
+     */
+    public long getPendingTaskPosition()
+    {
+        return pendingTaskPositions[pendingHead];
+    }
+
+    /**
+     * Reads the cached event of the task returned by {@link #peekPendingTask()}.
+     * The event is valid until the task is removed.
+     */
+    public void readPendingTask(TaskEvent event)
+    {
+        event.wrap(pendingTaskValues[pendingHead], 0, pendingTaskLengths[pendingHead]);
+    }
+
+    /**
+     * Removes the task returned by {@link #peekPendingTask()}.
+     */
+    public void pollPendingTask()
+    {
+        final long taskKey = pendingTaskKeys[pendingHead];
+
+        pollPendingQueue();
+        removePendingTask(taskKey);
+    }
+
+    private void pollPendingQueue()
+    {
+        pendingHead = (pendingHead + 1) % MAX_PENDING_TASKS;
+        pendingSize -= 1;
+    }
+
+    /**
+     * Moves the queued tasks in front of the slots of removed tasks.
+     *
+     * @return <code>true</code> if slots are freed
+     */
+    private boolean compactPendingQueue()
+    {
+        int newSize = 0;
+
+        for (int i = 0; i < pendingSize; i++)
+        {
+            final int slot = (pendingHead + i) % MAX_PENDING_TASKS;
+            final long taskKey = pendingTaskKeys[slot];
+
+            if (taskKey != NO_PENDING_TASK)
+            {
+                final int newSlot = (pendingHead + newSize) % MAX_PENDING_TASKS;
+
+                if (newSlot != slot)
+                {
+                    // swap the value buffers to keep them allocated
+                    final ExpandableArrayBuffer value = pendingTaskValues[newSlot];
+                    pendingTaskValues[newSlot] = pendingTaskValues[slot];
+                    pendingTaskValues[slot] = value;
+
+                    pendingTaskKeys[newSlot] = taskKey;
+                    pendingTaskPositions[newSlot] = pendingTaskPositions[slot];
+                    pendingTaskLengths[newSlot] = pendingTaskLengths[slot];
+                    pendingTaskKeys[slot] = NO_PENDING_TASK;
+
+                    pendingTaskSlots.put(taskKey, newSlot);
+                }
+
+                newSize += 1;
+            }
+        }
+
+        final boolean compacted = newSize < pendingSize;
+        pendingSize = newSize;
+
+        return compacted;
+    }
+
+    public boolean isRescanning()
+    {
+        return rescanPosition != NO_RESCAN;
+    }
+
+    /**
+     * @return the position to continue the rescan from, or
+     *         {@link #RESCAN_FROM_FIRST_EVENT}
+     */
+    public long getRescanPosition()
+    {
+        return rescanPosition;
+    }
+
+    /**
+     * Starts to rescan the log from the given position, if the group is not
+     * already rescanning from an earlier position.
+     */
+    public void startRescan(long position)
+    {
+        if (!isRescanning())
+        {
+            rescanPosition = position;
+        }
+    }
+
+    /**
+     * @param position the position of the next event to read
+     * @param scannedPosition the position of the last event read by the
+     *            rescan, or a negative value if no event is read
+     */
+    public void continueRescan(long position, long scannedPosition)
+    {
+        this.rescanPosition = position;
+        this.scannedPosition = Math.max(this.scannedPosition, scannedPosition);
+    }
+
+    /**
+     * @param scannedPosition the position of the last event read by the
+     *            rescan, or a negative value if no event is read
+     */
+    public void finishRescan(long scannedPosition)
+    {
+        this.rescanPosition = NO_RESCAN;
+        this.scannedPosition = Math.max(this.scannedPosition, scannedPosition);
+    }
+
+    /**
+     * @return <code>true</code> if the group handles the task event at the
+     *         given position when it is processed, <code>false</code> if the
+     *         rescan handles it
+     */
+    public boolean isTracking(long position)
+    {
+        return !isRescanning() && position > scannedPosition;
+    }
+
+    /**
+     * @return <code>true</code> if pending tasks can be locked or the rescan
+     *         can continue
+     */
+    public boolean hasPendingWork()
+    {
+        return (availableCredits > 0 && hasPendingTasks()) || (isRescanning() && !isPendingQueueFull());
+    }
+}
@@ -21,6 +21,7 @@ import static io.zeebe.protocol.clientapi.ExecuteCommandRequestDecoder.topicName
 import static io.zeebe.util.buffer.BufferUtil.bufferAsString;
 
 import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Consumer;
@@ -31,33 +32,40 @@ import org.agrona.collections.Int2ObjectHashMap;
 import org.agrona.concurrent.ManyToOneConcurrentArrayQueue;
 import org.agrona.concurrent.UnsafeBuffer;
 
-import io.zeebe.broker.event.processor.TopicSubscriberEvent;
+import io.zeebe.broker.Loggers;
+import io.zeebe.broker.event.processor.TopicSubscriptionAckBuffer;
 import io.zeebe.broker.event.processor.TopicSubscriptionEvent;
-import io.zeebe.broker.task.data.TaskEvent;
+import io.zeebe.broker.event.processor.TopicSubscriptionState;
+import io.zeebe.broker.task.CreditsRequest;
+import io.zeebe.broker.task.TaskSubscriptionManager;
 import io.zeebe.broker.transport.controlmessage.ControlMessageRequestHeaderDescriptor;
-import io.zeebe.broker.workflow.data.DeploymentEvent;
-import io.zeebe.broker.workflow.data.WorkflowInstanceEvent;
 import io.zeebe.dispatcher.ClaimedFragment;
 import io.zeebe.dispatcher.Dispatcher;
 import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.logstreams.log.LogStreamBatchWriter;
+import io.zeebe.logstreams.log.LogStreamBatchWriter.LogEntryBuilder;
+import io.zeebe.logstreams.log.LogStreamBatchWriterImpl;
 import io.zeebe.logstreams.log.LogStreamWriter;
 import io.zeebe.logstreams.log.LogStreamWriterImpl;
-import io.zeebe.msgpack.UnpackedObject;
 import io.zeebe.protocol.Protocol;
 import io.zeebe.protocol.clientapi.ControlMessageRequestDecoder;
 import io.zeebe.protocol.clientapi.ErrorCode;
 import io.zeebe.protocol.clientapi.EventType;
 import io.zeebe.protocol.clientapi.ExecuteCommandRequestDecoder;
 import io.zeebe.protocol.clientapi.MessageHeaderDecoder;
+import io.zeebe.protocol.clientapi.batch.ExecuteCommandBatchDescriptor;
+import io.zeebe.protocol.clientapi.subscription.TaskSubscriptionCreditsDescriptor;
 import io.zeebe.protocol.impl.BrokerEventMetadata;
 import io.zeebe.transport.RemoteAddress;
 import io.zeebe.transport.ServerMessageHandler;
 import io.zeebe.transport.ServerOutput;
 import io.zeebe.transport.ServerRequestHandler;
+import org.slf4j.Logger;
 
 
 public class ClientApiMessageHandler implements ServerMessageHandler, ServerRequestHandler
 {
+    public static final Logger LOG = Loggers.TRANSPORT_LOGGER;
 
     protected final MessageHeaderDecoder messageHeaderDecoder = new MessageHeaderDecoder();
     protected final ExecuteCommandRequestDecoder executeCommandRequestDecoder = new ExecuteCommandRequestDecoder();
@@ -76,7 +84,38 @@ public class ClientApiMessageHandler implements ServerMessageHandler, ServerRequ
     protected final Dispatcher controlMessageDispatcher;
     protected final ClaimedFragment claimedControlMessageFragment = new ClaimedFragment();
 
-    protected final EnumMap<EventType, UnpackedObject> eventsByType = new EnumMap<>(EventType.class);
+    protected final EnumMap<EventType, CommandSchema> schemasByType = new EnumMap<>(EventType.class);
+    protected final CommandValidator commandValidator = new CommandValidator();
+
+    protected final ExecuteCommandBatchDescriptor batchDescriptor = new ExecuteCommandBatchDescriptor();
+    protected final MessageHeaderDecoder batchedCommandHeaderDecoder = new MessageHeaderDecoder();
+    protected final BrokerEventMetadata batchEventMetadata = new BrokerEventMetadata();
+    protected final LogStreamBatchWriter logStreamBatchWriter = new LogStreamBatchWriterImpl();
+    protected final CommandBatchResponseCollector batchResponseCollector = new CommandBatchResponseCollector();
+
+    /**
+     * Event types whose commands are answered through the {@link CommandResponseWriter}
+     * of a stream processor which knows the {@link #batchResponseCollector}.
+     */
+    protected static final EnumSet<EventType> BATCHABLE_EVENT_TYPES = EnumSet.of(
+            EventType.TASK_EVENT,
+            EventType.WORKFLOW_INSTANCE_EVENT,
+            EventType.DEPLOYMENT_EVENT);
+
+    protected final Map<LogStream, TopicSubscriptionAckBuffer> ackBuffersByStream = new HashMap<>();
+    protected final TopicSubscriptionEvent subscriptionEvent = new TopicSubscriptionEvent();
+    protected final CommandResponseWriter commandResponseWriter = new CommandResponseWriter();
+
+    protected final CreditsRequest creditsRequest = new CreditsRequest();
+    protected volatile TaskSubscriptionManager taskSubscriptionManager;
+
+    // the decoded command
+    protected long commandKey;
+    protected EventType commandEventType;
+    protected int commandOffset;
+    protected int commandLength;
+    protected ErrorCode commandErrorCode;
+    protected String commandErrorMessage;
 
     public ClientApiMessageHandler(final Dispatcher controlMessageDispatcher)
     {
@@ -87,11 +126,11 @@ public class ClientApiMessageHandler implements ServerMessageHandler, ServerRequ
 
     private void initEventTypeMap()
     {
-        eventsByType.put(EventType.DEPLOYMENT_EVENT, new DeploymentEvent());
-        eventsByType.put(EventType.TASK_EVENT, new TaskEvent());
-        eventsByType.put(EventType.WORKFLOW_INSTANCE_EVENT, new WorkflowInstanceEvent());
-        eventsByType.put(EventType.SUBSCRIBER_EVENT, new TopicSubscriberEvent());
-        eventsByType.put(EventType.SUBSCRIPTION_EVENT, new TopicSubscriptionEvent());
+        schemasByType.put(EventType.DEPLOYMENT_EVENT, CommandSchemas.DEPLOYMENT_EVENT);
+        schemasByType.put(EventType.TASK_EVENT, CommandSchemas.TASK_EVENT);
+        schemasByType.put(EventType.WORKFLOW_INSTANCE_EVENT, CommandSchemas.WORKFLOW_INSTANCE_EVENT);
+        schemasByType.put(EventType.SUBSCRIBER_EVENT, CommandSchemas.SUBSCRIBER_EVENT);
+        schemasByType.put(EventType.SUBSCRIPTION_EVENT, CommandSchemas.SUBSCRIPTION_EVENT);
     }
 
     private boolean handleExecuteCommandRequest(
@@ -103,95 +142,293 @@ public class ClientApiMessageHandler implements ServerMessageHandler, ServerRequ
             final int messageOffset,
             final int messageLength)
     {
-        executeCommandRequestDecoder.wrap(buffer, messageOffset + messageHeaderDecoder.encodedLength(), messageHeaderDecoder.blockLength(), messageHeaderDecoder.version());
-
-        final int topicNameOffset = executeCommandRequestDecoder.limit() + topicNameHeaderLength();
-        final int topicNameLength = executeCommandRequestDecoder.topicNameLength();
-        topicName.wrap(buffer, topicNameOffset, topicNameLength);
-        executeCommandRequestDecoder.limit(topicNameOffset + topicNameLength);
-
-        final int partitionId = executeCommandRequestDecoder.partitionId();
-        final long key = executeCommandRequestDecoder.key();
-
-        final LogStream logStream = getLogStream(topicName, partitionId);
+        final LogStream logStream = decodeCommand(buffer, messageOffset + messageHeaderDecoder.encodedLength(), messageHeaderDecoder.blockLength(), messageHeaderDecoder.version(), true);
 
         if (logStream == null)
         {
             return errorResponseWriter
-                .errorCode(ErrorCode.TOPIC_NOT_FOUND)
-                .errorMessage("Cannot execute command. Topic with name '%s' and partition id '%d' not found", bufferAsString(topicName), partitionId)
+                .errorCode(commandErrorCode)
+                .errorMessage(commandErrorMessage)
                 .failedRequest(buffer, messageOffset, messageLength)
                 .tryWriteResponseOrLogFailure(output, requestAddress.getStreamId(), requestId);
         }
 
-        final EventType eventType = executeCommandRequestDecoder.eventType();
-        final UnpackedObject event = eventsByType.get(eventType);
+        if (commandEventType == EventType.SUBSCRIPTION_EVENT)
+        {
+            final TopicSubscriptionAckBuffer ackBuffer = ackBuffersByStream.get(logStream);
 
-        if (event == null)
+            if (ackBuffer != null && isBufferableAck(ackBuffer, buffer))
+            {
+                return handleTopicSubscriptionAck(output, requestAddress, requestId, logStream, ackBuffer);
+            }
+        }
+
+        eventMetadata.eventType(commandEventType);
+        eventMetadata.raftTermId(logStream.getTerm());
+
+        logStreamWriter.wrap(logStream);
+
+        if (commandKey != ExecuteCommandRequestDecoder.keyNullValue())
         {
-            return errorResponseWriter
-                    .errorCode(ErrorCode.MESSAGE_NOT_SUPPORTED)
-                    .errorMessage("Cannot execute command. Invalid event type '%s'.", eventType.name())
-                    .failedRequest(buffer, messageOffset, messageLength)
-                    .tryWriteResponseOrLogFailure(output, requestAddress.getStreamId(), requestId);
+            logStreamWriter.key(commandKey);
+        }
+        else
+        {
+            logStreamWriter.positionAsKey();
         }
 
-        final int eventOffset = executeCommandRequestDecoder.limit() + ExecuteCommandRequestDecoder.commandHeaderLength();
-        final int eventLength = executeCommandRequestDecoder.commandLength();
+        final long eventPosition = logStreamWriter
+                .metadataWriter(eventMetadata)
+                .value(buffer, commandOffset, commandLength)
+                .tryWrite();
 
-        event.reset();
+        return eventPosition >= 0;
+    }
 
-        try
+    private boolean isBufferableAck(final TopicSubscriptionAckBuffer ackBuffer, final DirectBuffer buffer)
+    {
+        subscriptionEvent.reset();
+        subscriptionEvent.wrap(buffer, commandOffset, commandLength);
+
+        return subscriptionEvent.getState() == TopicSubscriptionState.ACKNOWLEDGE &&
+                ackBuffer.accepts(subscriptionEvent.getName());
+    }
+
+    /**
+     * Hands the acknowledgement to the subscription management processor instead of appending it to the log.
+     * The processor coalesces the acknowledgements of a subscription and writes the latest one to the log from
+     * time to time, so a subscription resumes at the last written acknowledgement after a restart (at-least-once).
+     */
+    private boolean handleTopicSubscriptionAck(
+            final ServerOutput output,
+            final RemoteAddress requestAddress,
+            final long requestId,
+            final LogStream logStream,
+            final TopicSubscriptionAckBuffer ackBuffer)
+    {
+        final boolean isOffered = ackBuffer.offer(subscriptionEvent.getName(), subscriptionEvent.getAckPosition());
+
+        if (!isOffered)
         {
-            // verify that the event / command is valid
-            event.wrap(buffer, eventOffset, eventLength);
+            return false;
         }
-        catch (Throwable t)
+
+        subscriptionEvent.setState(TopicSubscriptionState.ACKNOWLEDGED);
+
+        // if the response can not be written, the request is retried; offering the ack twice does no harm
+        return commandResponseWriter
+            .topicName(logStream.getTopicName())
+            .partitionId(logStream.getPartitionId())
+            .eventWriter(subscriptionEvent)
+            .tryWriteResponse(output, requestAddress.getStreamId(), requestId);
+    }
+
+    private boolean handleExecuteCommandBatchRequest(
+            final ServerOutput output,
+            final RemoteAddress requestAddress,
+            final long requestId,
+            final DirectBuffer buffer,
+            final int messageOffset,
+            final int messageLength)
+    {
+        final int messageLimit = messageOffset + messageLength;
+        final int protocolVersion = messageHeaderDecoder.version();
+
+        int offset = messageOffset + messageHeaderDecoder.encodedLength();
+
+        final int commandCount = batchDescriptor.wrap(buffer, offset).commandCount();
+        offset += ExecuteCommandBatchDescriptor.headerLength();
+
+        if (commandCount <= 0 || commandCount > ExecuteCommandBatchDescriptor.MAX_COMMAND_COUNT)
         {
             return errorResponseWriter
+                .errorCode(ErrorCode.INVALID_MESSAGE)
+                .errorMessage("Cannot execute command batch. Expected between 1 and %d commands but got %d.", ExecuteCommandBatchDescriptor.MAX_COMMAND_COUNT, commandCount)
+                .failedRequest(buffer, messageOffset, messageLength)
+                .tryWriteResponseOrLogFailure(output, requestAddress.getStreamId(), requestId);
+        }
+
+        // validate all commands before writing any of them
+        LogStream logStream = null;
+        final int commandsOffset = offset;
+
+        for (int i = 0; i < commandCount; i++)
+        {
+            final LogStream commandLogStream = decodeBatchedCommand(buffer, offset, messageLimit, true);
+
+            if (commandLogStream == null)
+            {
+                return errorResponseWriter
+                    .errorCode(commandErrorCode)
+                    .errorMessage("Cannot execute command batch. Command %d is invalid: %s", i, commandErrorMessage)
+                    .failedRequest(buffer, messageOffset, messageLength)
+                    .tryWriteResponseOrLogFailure(output, requestAddress.getStreamId(), requestId);
+            }
+            else if (!BATCHABLE_EVENT_TYPES.contains(commandEventType))
+            {
+                return errorResponseWriter
+                    .errorCode(ErrorCode.MESSAGE_NOT_SUPPORTED)
+                    .errorMessage("Cannot execute command batch. Command %d has event type '%s' which can not be batched.", i, commandEventType.name())
+                    .failedRequest(buffer, messageOffset, messageLength)
+                    .tryWriteResponseOrLogFailure(output, requestAddress.getStreamId(), requestId);
+            }
+            else if (logStream != null && logStream != commandLogStream)
+            {
+                return errorResponseWriter
                     .errorCode(ErrorCode.INVALID_MESSAGE)
-                    .errorMessage("Cannot deserialize command: '%s'.", concatErrorMessages(t))
+                    .errorMessage("Cannot execute command batch. All commands must have the same topic and partition.")
                     .failedRequest(buffer, messageOffset, messageLength)
                     .tryWriteResponseOrLogFailure(output, requestAddress.getStreamId(), requestId);
+            }
+
+            logStream = commandLogStream;
+            offset += ExecuteCommandBatchDescriptor.framedCommandLength(ExecuteCommandBatchDescriptor.commandLength(buffer, offset));
         }
 
-        eventMetadata.eventType(eventType);
-        eventMetadata.raftTermId(logStream.getTerm());
+        final long batchId = batchResponseCollector.open(output, requestAddress.getStreamId(), requestId, commandCount);
 
-        logStreamWriter.wrap(logStream);
+        if (batchId < 0)
+        {
+            // all slots are taken by batches which wait for their responses, the request is retried
+            return false;
+        }
+
+        // each command is answered like a single command, the responses are collected to one batch response
+        logStreamBatchWriter.wrap(logStream);
 
-        if (key != ExecuteCommandRequestDecoder.keyNullValue())
+        offset = commandsOffset;
+
+        for (int i = 0; i < commandCount; i++)
         {
-            logStreamWriter.key(key);
+            decodeBatchedCommand(buffer, offset, messageLimit, false);
+
+            batchEventMetadata.reset();
+            batchEventMetadata
+                .protocolVersion(protocolVersion)
+                .eventType(commandEventType)
+                .raftTermId(logStream.getTerm())
+                .requestStreamId(requestAddress.getStreamId())
+                .requestId(ExecuteCommandBatchDescriptor.batchedRequestId(batchId, i));
+
+            final LogEntryBuilder logEntryBuilder = logStreamBatchWriter.event();
+
+            if (commandKey != ExecuteCommandRequestDecoder.keyNullValue())
+            {
+                logEntryBuilder.key(commandKey);
+            }
+            else
+            {
+                logEntryBuilder.positionAsKey();
+            }
+
+            logEntryBuilder
+                .metadataWriter(batchEventMetadata)
+                .value(buffer, commandOffset, commandLength)
+                .done();
+
+            offset += ExecuteCommandBatchDescriptor.framedCommandLength(ExecuteCommandBatchDescriptor.commandLength(buffer, offset));
         }
-        else
+
+        final long position = logStreamBatchWriter.tryWrite();
+
+        if (position < 0)
         {
-            logStreamWriter.positionAsKey();
+            // nothing is written, the request is retried
+            batchResponseCollector.release(batchId);
+            return false;
         }
 
-        final long eventPosition = logStreamWriter
-                .metadataWriter(eventMetadata)
-                .value(buffer, eventOffset, eventLength)
-                .tryWrite();
+        return true;
+    }
 
-        return eventPosition >= 0;
+    /**
+     * Decodes a command of a batch request, which is framed by its length and
+     * starts with its own message header.
+     */
+    private LogStream decodeBatchedCommand(final DirectBuffer buffer, final int offset, final int messageLimit, final boolean validate)
+    {
+        final int commandMessageOffset = offset + ExecuteCommandBatchDescriptor.commandHeaderLength();
+
+        if (commandMessageOffset > messageLimit ||
+                ExecuteCommandBatchDescriptor.commandLength(buffer, offset) < MessageHeaderDecoder.ENCODED_LENGTH ||
+                commandMessageOffset + ExecuteCommandBatchDescriptor.commandLength(buffer, offset) > messageLimit)
+        {
+            commandErrorCode = ErrorCode.INVALID_MESSAGE;
+            commandErrorMessage = "Command exceeds the batch request.";
+            return null;
+        }
+
+        batchedCommandHeaderDecoder.wrap(buffer, commandMessageOffset);
+
+        if (batchedCommandHeaderDecoder.templateId() != ExecuteCommandRequestDecoder.TEMPLATE_ID)
+        {
+            commandErrorCode = ErrorCode.MESSAGE_NOT_SUPPORTED;
+            commandErrorMessage = String.format("Template id '%d' is not an execute command request.", batchedCommandHeaderDecoder.templateId());
+            return null;
+        }
+
+        return decodeCommand(
+                buffer,
+                commandMessageOffset + batchedCommandHeaderDecoder.encodedLength(),
+                batchedCommandHeaderDecoder.blockLength(),
+                batchedCommandHeaderDecoder.version(),
+                validate);
     }
 
-    private String concatErrorMessages(Throwable t)
+    /**
+     * Decodes an execute command request and looks up its log stream.
+     *
+     * @return the log stream of the command, or null if the command is invalid.
+     *         The reason is available as {@link #commandErrorCode} and {@link #commandErrorMessage}.
+     */
+    private LogStream decodeCommand(
+            final DirectBuffer buffer,
+            final int offset,
+            final int blockLength,
+            final int version,
+            final boolean validate)
     {
-        final StringBuilder sb = new StringBuilder();
+        executeCommandRequestDecoder.wrap(buffer, offset, blockLength, version);
+
+        final int topicNameOffset = executeCommandRequestDecoder.limit() + topicNameHeaderLength();
+        final int topicNameLength = executeCommandRequestDecoder.topicNameLength();
+        topicName.wrap(buffer, topicNameOffset, topicNameLength);
+        executeCommandRequestDecoder.limit(topicNameOffset + topicNameLength);
+
+        final int partitionId = executeCommandRequestDecoder.partitionId();
+        commandKey = executeCommandRequestDecoder.key();
+
+        final LogStream logStream = getLogStream(topicName, partitionId);
+
+        if (logStream == null)
+        {
+            commandErrorCode = ErrorCode.TOPIC_NOT_FOUND;
+            commandErrorMessage = String.format("Cannot execute command. Topic with name '%s' and partition id '%d' not found", bufferAsString(topicName), partitionId);
+            return null;
+        }
 
-        sb.append(t.getMessage());
+        commandEventType = executeCommandRequestDecoder.eventType();
+        final CommandSchema schema = schemasByType.get(commandEventType);
 
-        while (t.getCause() != null)
+        if (schema == null)
         {
-            t = t.getCause();
+            commandErrorCode = ErrorCode.MESSAGE_NOT_SUPPORTED;
+            commandErrorMessage = String.format("Cannot execute command. Invalid event type '%s'.", commandEventType.name());
+            return null;
+        }
 
-            sb.append("; ");
-            sb.append(t.getMessage());
+        commandOffset = executeCommandRequestDecoder.limit() + ExecuteCommandRequestDecoder.commandHeaderLength();
+        commandLength = executeCommandRequestDecoder.commandLength();
+
+        // verify that the command is valid without decoding it
+        if (validate && !commandValidator.validate(schema, buffer, commandOffset, commandLength))
+        {
+            commandErrorCode = ErrorCode.INVALID_MESSAGE;
+            commandErrorMessage = "Cannot deserialize command: '" + commandValidator.getErrorMessage() + "'.";
+            return null;
         }
 
-        return sb.toString();
+        return logStream;
     }
 
     private LogStream getLogStream(final DirectBuffer topicName, final int partitionId)
@@ -273,6 +510,16 @@ public class ClientApiMessageHandler implements ServerMessageHandler, ServerRequ
         });
     }
 
+    public void addTopicSubscriptionAckBuffer(final LogStream logStream, final TopicSubscriptionAckBuffer ackBuffer)
+    {
+        cmdQueue.add(() -> ackBuffersByStream.put(logStream, ackBuffer));
+    }
+
+    public void removeTopicSubscriptionAckBuffer(final LogStream logStream)
+    {
+        cmdQueue.add(() -> ackBuffersByStream.remove(logStream));
+    }
+
     @Override
     public boolean onRequest(ServerOutput output, RemoteAddress remoteAddress, DirectBuffer buffer, int offset,
             int length, long requestId)
@@ -314,6 +561,17 @@ public class ClientApiMessageHandler implements ServerMessageHandler, ServerRequ
                         length);
                 break;
 
+            case ExecuteCommandBatchDescriptor.REQUEST_TEMPLATE_ID:
+
+                isHandled = handleExecuteCommandBatchRequest(
+                        output,
+                        remoteAddress,
+                        requestId,
+                        buffer,
+                        offset,
+                        length);
+                break;
+
             case ControlMessageRequestDecoder.TEMPLATE_ID:
                 isHandled = handleControlMessageRequest(eventMetadata, buffer, offset, length);
                 break;
@@ -334,8 +592,58 @@ public class ClientApiMessageHandler implements ServerMessageHandler, ServerRequ
     public boolean onMessage(ServerOutput output, RemoteAddress remoteAddress, DirectBuffer buffer, int offset,
             int length)
     {
-        // ignore; currently no incoming single-message client interactions
-        return true;
+        if (length < messageHeaderDecoder.encodedLength())
+        {
+            // ignore; not a message of the client api
+            return true;
+        }
+
+        messageHeaderDecoder.wrap(buffer, offset);
+
+        final boolean isTaskSubscriptionCredits = messageHeaderDecoder.schemaId() == TaskSubscriptionCreditsDescriptor.SCHEMA_ID &&
+                messageHeaderDecoder.templateId() == TaskSubscriptionCreditsDescriptor.TEMPLATE_ID &&
+                length >= messageHeaderDecoder.encodedLength() + TaskSubscriptionCreditsDescriptor.LENGTH;
+
+        if (isTaskSubscriptionCredits)
+        {
+            return handleTaskSubscriptionCredits(buffer, offset + messageHeaderDecoder.encodedLength());
+        }
+        else
+        {
+            // ignore; no other single-message client interactions
+            return true;
+        }
+    }
+
+    /**
+     * Hands the credits directly to the task subscription manager, bypassing the control message handlers.
+     *
+     * @return false, if the credits can not be accepted at the moment and the message should be retried
+     */
+    private boolean handleTaskSubscriptionCredits(DirectBuffer buffer, int offset)
+    {
+        final TaskSubscriptionManager manager = taskSubscriptionManager;
+        final int credits = TaskSubscriptionCreditsDescriptor.credits(buffer, offset);
+
+        if (manager == null || credits <= 0)
+        {
+            return true;
+        }
+
+        creditsRequest.setSubscriberKey(TaskSubscriptionCreditsDescriptor.subscriberKey(buffer, offset));
+        creditsRequest.setCredits(credits);
+
+        return manager.increaseSubscriptionCreditsAsync(creditsRequest);
+    }
+
+    public CommandBatchResponseCollector getBatchResponseCollector()
+    {
+        return batchResponseCollector;
+    }
+
+    public void setTaskSubscriptionManager(TaskSubscriptionManager taskSubscriptionManager)
+    {
+        this.taskSubscriptionManager = taskSubscriptionManager;
     }
 
     private void drainCommandQueue()
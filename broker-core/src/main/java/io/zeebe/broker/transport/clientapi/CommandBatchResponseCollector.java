@@ -0,0 +1,272 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.transport.clientapi;
+
+import static io.zeebe.protocol.clientapi.batch.ExecuteCommandBatchDescriptor.*;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.agrona.BitUtil;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.zeebe.protocol.Protocol;
+import io.zeebe.protocol.clientapi.ExecuteCommandResponseEncoder;
+import io.zeebe.protocol.clientapi.MessageHeaderEncoder;
+import io.zeebe.transport.ServerOutput;
+import io.zeebe.transport.ServerResponse;
+import io.zeebe.util.buffer.BufferWriter;
+import io.zeebe.util.time.ClockUtil;
+
+/**
+ * Collects the responses to the commands of batch requests and sends one
+ * response per batch when all of its commands are answered. The stream
+ * processors answer a batched command like a single command; the
+ * {@link CommandResponseWriter} hands the response to the collector if the
+ * request id is a batched one.
+ * <p>
+ * The number of batches which wait for their responses is limited by the
+ * number of slots. A batch which is not answered within the timeout (e.g.
+ * because the broker lost the leadership) gives up its slot and the client
+ * request times out.
+ */
+public class CommandBatchResponseCollector
+{
+    public static final int DEFAULT_SLOT_COUNT = 64;
+    public static final long DEFAULT_TIMEOUT = Duration.ofSeconds(30).toMillis();
+
+    protected final BatchSlot[] slots;
+    protected final int slotMask;
+    protected final long timeout;
+
+    // only accessed by the client api message handler
+    protected long nextBatchId = 0;
+
+    public CommandBatchResponseCollector()
+    {
+        this(DEFAULT_SLOT_COUNT, DEFAULT_TIMEOUT);
+    }
+
+    public CommandBatchResponseCollector(int slotCount, long timeout)
+    {
+        if (!BitUtil.isPowerOfTwo(slotCount))
+        {
+            throw new IllegalArgumentException("Slot count must be a power of two");
+        }
+
+        this.slots = new BatchSlot[slotCount];
+        this.slotMask = slotCount - 1;
+        this.timeout = timeout;
+
+        for (int i = 0; i < slotCount; i++)
+        {
+            slots[i] = new BatchSlot();
+        }
+    }
+
+    /**
+     * Reserves a slot for the responses of a batch.
+     *
+     * @return the id of the batch, or -1 if no slot is free
+     */
+    public long open(ServerOutput output, int remoteStreamId, long requestId, int commandCount)
+    {
+        final long now = ClockUtil.getCurrentTimeInMillis();
+
+        for (int i = 0; i < slots.length; i++)
+        {
+            final long batchId = nextBatchId++;
+            final BatchSlot slot = slots[(int) (batchId & slotMask)];
+
+            if (slot.tryOpen(batchId, output, remoteStreamId, requestId, commandCount, now + timeout, now))
+            {
+                return batchId;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Gives up the slot of a batch whose commands are not written.
+     */
+    public void release(long batchId)
+    {
+        slots[(int) (batchId & slotMask)].release(batchId);
+    }
+
+    /**
+     * Adds the response to a batched command. Responses to unknown or timed out
+     * batches and further responses to an already answered command are dropped.
+     *
+     * @return false, if the response of the batch can not be sent at the moment
+     *         and the result should be added again
+     */
+    public boolean addResult(long batchedRequestId, long key, long position, BufferWriter eventWriter)
+    {
+        final long batchId = batchId(batchedRequestId);
+        final BatchSlot slot = slots[(int) (batchId & slotMask)];
+
+        return slot.addResult(batchId, commandIndex(batchedRequestId), key, position, eventWriter);
+    }
+
+    /**
+     * The responses of one batch. Results are appended in the order they arrive
+     * and written in the order of the commands.
+     */
+    static class BatchSlot implements BufferWriter
+    {
+        protected static final int INITIAL_RESULTS_CAPACITY = 4 * 1024;
+
+        protected final MessageHeaderEncoder messageHeaderEncoder = new MessageHeaderEncoder();
+        protected final ServerResponse response = new ServerResponse();
+
+        protected final UnsafeBuffer results = new UnsafeBuffer(new byte[INITIAL_RESULTS_CAPACITY]);
+        protected final int[] resultOffsets = new int[MAX_COMMAND_COUNT];
+        protected int resultsLength;
+
+        protected long batchId = -1;
+        protected ServerOutput output;
+        protected int remoteStreamId;
+        protected long requestId;
+        protected int commandCount;
+        protected int pendingResults;
+        protected long deadline;
+
+        synchronized boolean tryOpen(long batchId, ServerOutput output, int remoteStreamId, long requestId, int commandCount, long deadline, long now)
+        {
+            if (this.batchId >= 0 && now < this.deadline)
+            {
+                return false;
+            }
+
+            this.batchId = batchId;
+            this.output = output;
+            this.remoteStreamId = remoteStreamId;
+            this.requestId = requestId;
+            this.commandCount = commandCount;
+            this.pendingResults = commandCount;
+            this.deadline = deadline;
+            this.resultsLength = 0;
+
+            Arrays.fill(resultOffsets, 0, commandCount, -1);
+
+            return true;
+        }
+
+        synchronized void release(long batchId)
+        {
+            if (this.batchId == batchId)
+            {
+                reset();
+            }
+        }
+
+        synchronized boolean addResult(long batchId, int commandIndex, long key, long position, BufferWriter eventWriter)
+        {
+            if (this.batchId != batchId || commandIndex >= commandCount)
+            {
+                // nobody waits for the response anymore
+                return true;
+            }
+
+            if (resultOffsets[commandIndex] < 0)
+            {
+                final int eventLength = eventWriter.getLength();
+                ensureCapacity(resultsLength + framedResultLength(eventLength));
+
+                results.putLong(resultsLength + RESULT_KEY_OFFSET, key, Protocol.ENDIANNESS);
+                results.putLong(resultsLength + RESULT_POSITION_OFFSET, position, Protocol.ENDIANNESS);
+                results.putInt(resultsLength + RESULT_EVENT_LENGTH_OFFSET, eventLength, Protocol.ENDIANNESS);
+                eventWriter.write(results, resultEventOffset(resultsLength));
+
+                resultOffsets[commandIndex] = resultsLength;
+                resultsLength += framedResultLength(eventLength);
+                pendingResults -= 1;
+            }
+
+            if (pendingResults > 0)
+            {
+                return true;
+            }
+
+            response.reset()
+                .remoteStreamId(remoteStreamId)
+                .requestId(requestId)
+                .writer(this);
+
+            final boolean isSent = output.sendResponse(response);
+
+            if (isSent)
+            {
+                reset();
+            }
+
+            return isSent;
+        }
+
+        protected void ensureCapacity(int capacity)
+        {
+            if (results.capacity() < capacity)
+            {
+                final byte[] newResults = new byte[Math.max(capacity, results.capacity() * 2)];
+                results.getBytes(0, newResults, 0, resultsLength);
+                results.wrap(newResults);
+            }
+        }
+
+        protected void reset()
+        {
+            batchId = -1;
+            output = null;
+        }
+
+        @Override
+        public int getLength()
+        {
+            return MessageHeaderEncoder.ENCODED_LENGTH + RESPONSE_HEADER_LENGTH + resultsLength;
+        }
+
+        @Override
+        public void write(MutableDirectBuffer buffer, int offset)
+        {
+            messageHeaderEncoder
+                .wrap(buffer, offset)
+                .blockLength(RESPONSE_HEADER_LENGTH)
+                .templateId(RESPONSE_TEMPLATE_ID)
+                .schemaId(ExecuteCommandResponseEncoder.SCHEMA_ID)
+                .version(ExecuteCommandResponseEncoder.SCHEMA_VERSION);
+
+            offset += messageHeaderEncoder.encodedLength();
+
+            buffer.putInt(offset + RESPONSE_COMMAND_COUNT_OFFSET, commandCount, Protocol.ENDIANNESS);
+            offset += RESPONSE_HEADER_LENGTH;
+
+            for (int i = 0; i < commandCount; i++)
+            {
+                final int resultOffset = resultOffsets[i];
+                final int resultLength = framedResultLength(resultEventLength(results, resultOffset));
+
+                buffer.putBytes(offset, results, resultOffset, resultLength);
+                offset += resultLength;
+            }
+        }
+    }
+
+}
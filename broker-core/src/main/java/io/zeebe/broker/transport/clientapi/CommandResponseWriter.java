@@ -19,6 +19,7 @@ package io.zeebe.broker.transport.clientapi;
 
 import static io.zeebe.protocol.clientapi.ExecuteCommandResponseEncoder.*;
 import static io.zeebe.protocol.clientapi.SubscribedEventEncoder.positionNullValue;
+import static io.zeebe.protocol.clientapi.batch.ExecuteCommandBatchDescriptor.isBatchedRequestId;
 
 import java.util.Objects;
 
@@ -45,10 +46,25 @@ public class CommandResponseWriter implements BufferWriter
     protected BufferWriter eventWriter;
     protected final ServerResponse response = new ServerResponse();
     protected final ServerOutput output;
+    protected final CommandBatchResponseCollector batchResponseCollector;
+
+    public CommandResponseWriter()
+    {
+        this(null);
+    }
 
     public CommandResponseWriter(final ServerOutput output)
+    {
+        this(output, null);
+    }
+
+    /**
+     * @param batchResponseCollector collects the responses to commands of batch requests
+     */
+    public CommandResponseWriter(final ServerOutput output, final CommandBatchResponseCollector batchResponseCollector)
     {
         this.output = output;
+        this.batchResponseCollector = batchResponseCollector;
     }
 
     public CommandResponseWriter topicName(final DirectBuffer topicName)
@@ -82,11 +98,21 @@ public class CommandResponseWriter implements BufferWriter
     }
 
     public boolean tryWriteResponse(int remoteStreamId, long requestId)
+    {
+        return tryWriteResponse(output, remoteStreamId, requestId);
+    }
+
+    public boolean tryWriteResponse(ServerOutput output, int remoteStreamId, long requestId)
     {
         Objects.requireNonNull(eventWriter);
 
         try
         {
+            if (batchResponseCollector != null && isBatchedRequestId(requestId))
+            {
+                return batchResponseCollector.addResult(requestId, key, position, eventWriter);
+            }
+
             response.reset()
                 .remoteStreamId(remoteStreamId)
                 .requestId(requestId)
@@ -0,0 +1,191 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.transport.clientapi;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.agrona.DirectBuffer;
+
+import io.zeebe.util.buffer.BufferUtil;
+
+/**
+ * Describes the properties of a command, so that a {@link CommandValidator} can
+ * check an encoded command without decoding it into an event object. A property
+ * without a default value in the event must be declared as required.
+ */
+public class CommandSchema
+{
+    public enum PropertyType
+    {
+        INTEGER,
+        LONG,
+        STRING,
+        BINARY,
+        BOOLEAN,
+        ENUM,
+        OBJECT,
+        ARRAY,
+        PACKED
+    }
+
+    protected static final int MAX_PROPERTIES = Long.SIZE;
+
+    protected final List<Property> properties = new ArrayList<>();
+    protected long requiredProperties = 0L;
+
+    public CommandSchema property(String name, PropertyType type)
+    {
+        return addProperty(new Property(name, type), false);
+    }
+
+    public CommandSchema requiredProperty(String name, PropertyType type)
+    {
+        return addProperty(new Property(name, type), true);
+    }
+
+    public CommandSchema enumProperty(String name, Class<? extends Enum<?>> enumType)
+    {
+        final Property property = new Property(name, PropertyType.ENUM);
+
+        final Enum<?>[] constants = enumType.getEnumConstants();
+        property.enumValues = new DirectBuffer[constants.length];
+        for (int i = 0; i < constants.length; i++)
+        {
+            property.enumValues[i] = wrapString(constants[i].name());
+        }
+
+        return addProperty(property, true);
+    }
+
+    public CommandSchema objectProperty(String name, CommandSchema schema)
+    {
+        final Property property = new Property(name, PropertyType.OBJECT);
+        property.schema = schema;
+
+        return addProperty(property, false);
+    }
+
+    public CommandSchema arrayProperty(String name, CommandSchema elementSchema)
+    {
+        final Property property = new Property(name, PropertyType.ARRAY);
+        property.schema = elementSchema;
+
+        return addProperty(property, false);
+    }
+
+    protected CommandSchema addProperty(Property property, boolean required)
+    {
+        final int index = properties.size();
+        if (index >= MAX_PROPERTIES)
+        {
+            throw new IllegalStateException("Schema can not have more than " + MAX_PROPERTIES + " properties");
+        }
+
+        properties.add(property);
+
+        if (required)
+        {
+            requiredProperties |= 1L << index;
+        }
+
+        return this;
+    }
+
+    /**
+     * @return the index of the property with the given name, or -1 if the property is not declared
+     */
+    public int indexOf(DirectBuffer name)
+    {
+        for (int i = 0; i < properties.size(); i++)
+        {
+            if (BufferUtil.contentsEqual(name, properties.get(i).name))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public Property getProperty(int index)
+    {
+        return properties.get(index);
+    }
+
+    public int getPropertyCount()
+    {
+        return properties.size();
+    }
+
+    /**
+     * @return a bit set of the indexes of the required properties
+     */
+    public long getRequiredProperties()
+    {
+        return requiredProperties;
+    }
+
+    public static class Property
+    {
+        protected final DirectBuffer name;
+        protected final String nameString;
+        protected final PropertyType type;
+
+        protected DirectBuffer[] enumValues;
+        protected CommandSchema schema;
+
+        Property(String name, PropertyType type)
+        {
+            this.name = wrapString(name);
+            this.nameString = name;
+            this.type = type;
+        }
+
+        public String getName()
+        {
+            return nameString;
+        }
+
+        public PropertyType getType()
+        {
+            return type;
+        }
+
+        public boolean isEnumValue(DirectBuffer value)
+        {
+            for (int i = 0; i < enumValues.length; i++)
+            {
+                if (BufferUtil.contentsEqual(value, enumValues[i]))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return the schema of the object or of the array elements
+         */
+        public CommandSchema getSchema()
+        {
+            return schema;
+        }
+    }
+}
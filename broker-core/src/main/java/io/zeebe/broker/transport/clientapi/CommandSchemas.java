@@ -0,0 +1,88 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.transport.clientapi;
+
+import static io.zeebe.broker.transport.clientapi.CommandSchema.PropertyType.*;
+import static io.zeebe.broker.workflow.data.WorkflowInstanceEvent.*;
+
+import io.zeebe.broker.event.processor.TopicSubscriberState;
+import io.zeebe.broker.event.processor.TopicSubscriptionState;
+import io.zeebe.broker.task.data.TaskState;
+import io.zeebe.broker.workflow.data.DeploymentState;
+import io.zeebe.broker.workflow.data.WorkflowInstanceState;
+
+/**
+ * The schemas of the commands which can be executed by a client. Must be kept
+ * in sync with the properties of the corresponding events (e.g. {@link io.zeebe.broker.task.data.TaskEvent}),
+ * which is checked by <code>CommandSchemasTest</code>.
+ */
+public final class CommandSchemas
+{
+    public static final CommandSchema TASK_HEADERS = new CommandSchema()
+        .property(PROP_WORKFLOW_BPMN_PROCESS_ID, STRING)
+        .property("workflowDefinitionVersion", INTEGER)
+        .property(PROP_WORKFLOW_KEY, LONG)
+        .property(PROP_WORKFLOW_INSTANCE_KEY, LONG)
+        .property(PROP_WORKFLOW_ACTIVITY_ID, STRING)
+        .property("activityInstanceKey", LONG);
+
+    public static final CommandSchema TASK_EVENT = new CommandSchema()
+        .enumProperty("state", TaskState.class)
+        .property("lockTime", LONG)
+        .property("lockOwner", STRING)
+        .property("retries", INTEGER)
+        .requiredProperty("type", STRING)
+        .objectProperty("headers", TASK_HEADERS)
+        .property("customHeaders", PACKED)
+        .property("payload", BINARY);
+
+    public static final CommandSchema WORKFLOW_INSTANCE_EVENT = new CommandSchema()
+        .enumProperty(PROP_EVENT_TYPE, WorkflowInstanceState.class)
+        .property(PROP_WORKFLOW_BPMN_PROCESS_ID, STRING)
+        .property(PROP_WORKFLOW_VERSION, INTEGER)
+        .property(PROP_WORKFLOW_KEY, LONG)
+        .property(PROP_WORKFLOW_INSTANCE_KEY, LONG)
+        .property(PROP_WORKFLOW_ACTIVITY_ID, STRING)
+        .property(PROP_WORKFLOW_PAYLOAD, BINARY);
+
+    public static final CommandSchema DEPLOYED_WORKFLOW = new CommandSchema()
+        .requiredProperty(PROP_WORKFLOW_BPMN_PROCESS_ID, STRING)
+        .requiredProperty(PROP_WORKFLOW_VERSION, INTEGER);
+
+    public static final CommandSchema DEPLOYMENT_EVENT = new CommandSchema()
+        .enumProperty(PROP_EVENT_TYPE, DeploymentState.class)
+        .requiredProperty("bpmnXml", BINARY)
+        .arrayProperty("deployedWorkflows", DEPLOYED_WORKFLOW)
+        .property("errorMessage", STRING);
+
+    public static final CommandSchema SUBSCRIBER_EVENT = new CommandSchema()
+        .enumProperty("state", TopicSubscriberState.class)
+        .property("startPosition", LONG)
+        .requiredProperty("name", STRING)
+        .property("prefetchCapacity", INTEGER)
+        .property("forceStart", BOOLEAN);
+
+    public static final CommandSchema SUBSCRIPTION_EVENT = new CommandSchema()
+        .requiredProperty("name", STRING)
+        .enumProperty("state", TopicSubscriptionState.class)
+        .requiredProperty("ackPosition", LONG);
+
+    private CommandSchemas()
+    {
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.transport.clientapi;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.zeebe.broker.transport.clientapi.CommandSchema.Property;
+import io.zeebe.msgpack.spec.MsgPackFormat;
+import io.zeebe.msgpack.spec.MsgPackReader;
+import io.zeebe.msgpack.spec.MsgPackType;
+
+/**
+ * Checks an encoded command against a {@link CommandSchema} in one pass over
+ * the document: the structure, the types of the declared properties, the values
+ * of enum properties and the presence of required properties. Values are
+ * skipped instead of decoded and no objects are created, except for the error
+ * message of an invalid command.
+ */
+public class CommandValidator
+{
+    protected final MsgPackReader reader = new MsgPackReader();
+    protected final UnsafeBuffer view = new UnsafeBuffer(0, 0);
+
+    protected DirectBuffer buffer;
+    protected int offset;
+    protected int length;
+
+    protected String errorMessage;
+
+    /**
+     * @return true, if the command is valid. Otherwise, the reason is available
+     *         as {@link #getErrorMessage()}.
+     */
+    public boolean validate(CommandSchema schema, DirectBuffer buffer, int offset, int length)
+    {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        this.errorMessage = null;
+
+        reader.wrap(buffer, offset, length);
+
+        try
+        {
+            final boolean isValid = validateObject(schema);
+
+            if (isValid && reader.getOffset() > length)
+            {
+                errorMessage = "Could not read command: Unexpected end of command";
+                return false;
+            }
+
+            return isValid;
+        }
+        catch (Exception e)
+        {
+            // the document is malformed, e.g. a value exceeds the command
+            errorMessage = "Could not read command: " + e.getMessage();
+            return false;
+        }
+    }
+
+    public String getErrorMessage()
+    {
+        return errorMessage;
+    }
+
+    protected boolean validateObject(CommandSchema schema)
+    {
+        if (nextType() != MsgPackType.MAP)
+        {
+            errorMessage = "Expected a map but found " + nextType();
+            return false;
+        }
+
+        final int size = reader.readMapHeader();
+        long foundProperties = 0L;
+
+        for (int i = 0; i < size; i++)
+        {
+            if (nextType() != MsgPackType.STRING)
+            {
+                errorMessage = "Expected a property name of type string but found " + nextType();
+                return false;
+            }
+
+            final int nameLength = reader.readStringLength();
+            final int nameOffset = reader.getOffset();
+            reader.skipBytes(nameLength);
+
+            view.wrap(buffer, offset + nameOffset, nameLength);
+            final int index = schema.indexOf(view);
+
+            if (index >= 0)
+            {
+                final Property property = schema.getProperty(index);
+                if (!validateProperty(property))
+                {
+                    errorMessage = "Could not read property '" + property.getName() + "'. " + errorMessage;
+                    return false;
+                }
+
+                foundProperties |= 1L << index;
+            }
+            else
+            {
+                // undeclared properties are kept as they are
+                reader.skipValue();
+            }
+        }
+
+        final long missingProperties = schema.getRequiredProperties() & ~foundProperties;
+        if (missingProperties != 0)
+        {
+            final Property property = schema.getProperty(Long.numberOfTrailingZeros(missingProperties));
+            errorMessage = "Property '" + property.getName() + "' has no valid value";
+            return false;
+        }
+
+        return true;
+    }
+
+    protected boolean validateProperty(Property property)
+    {
+        final MsgPackType type = nextType();
+
+        switch (property.getType())
+        {
+            case INTEGER:
+                if (type != MsgPackType.INTEGER)
+                {
+                    return typeMismatch(MsgPackType.INTEGER, type);
+                }
+
+                final long value = reader.readInteger();
+                if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+                {
+                    errorMessage = "Value " + value + " exceeds the integer range";
+                    return false;
+                }
+                return true;
+
+            case LONG:
+                return skipValueOfType(MsgPackType.INTEGER, type);
+
+            case STRING:
+                return skipValueOfType(MsgPackType.STRING, type);
+
+            case BINARY:
+                return skipValueOfType(MsgPackType.BINARY, type);
+
+            case BOOLEAN:
+                return skipValueOfType(MsgPackType.BOOLEAN, type);
+
+            case ENUM:
+                if (type != MsgPackType.STRING)
+                {
+                    return typeMismatch(MsgPackType.STRING, type);
+                }
+
+                final int valueLength = reader.readStringLength();
+                final int valueOffset = reader.getOffset();
+                reader.skipBytes(valueLength);
+
+                view.wrap(buffer, offset + valueOffset, valueLength);
+                if (!property.isEnumValue(view))
+                {
+                    errorMessage = "Invalid value '" + view.getStringWithoutLengthUtf8(0, valueLength) + "'";
+                    return false;
+                }
+                return true;
+
+            case OBJECT:
+                return validateObject(property.getSchema());
+
+            case ARRAY:
+                if (type != MsgPackType.ARRAY)
+                {
+                    return typeMismatch(MsgPackType.ARRAY, type);
+                }
+
+                final int elements = reader.readArrayHeader();
+                for (int i = 0; i < elements; i++)
+                {
+                    if (!validateObject(property.getSchema()))
+                    {
+                        return false;
+                    }
+                }
+                return true;
+
+            default:
+                // packed values can be of any type
+                reader.skipValue();
+                return true;
+        }
+    }
+
+    protected boolean skipValueOfType(MsgPackType expectedType, MsgPackType type)
+    {
+        if (type != expectedType)
+        {
+            return typeMismatch(expectedType, type);
+        }
+
+        reader.skipValue();
+        return true;
+    }
+
+    protected boolean typeMismatch(MsgPackType expectedType, MsgPackType type)
+    {
+        errorMessage = "Expected a value of type " + expectedType + " but found " + type;
+        return false;
+    }
+
+    protected MsgPackType nextType()
+    {
+        if (reader.getOffset() >= length)
+        {
+            throw new IndexOutOfBoundsException("Unexpected end of command");
+        }
+
+        final byte formatByte = buffer.getByte(offset + reader.getOffset());
+        return MsgPackFormat.valueOf(formatByte).getType();
+    }
+
+}
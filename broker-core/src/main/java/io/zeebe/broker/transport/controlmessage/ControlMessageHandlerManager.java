@@ -19,12 +19,16 @@ package io.zeebe.broker.transport.controlmessage;
 
 import static io.zeebe.broker.services.DispatcherSubscriptionNames.TRANSPORT_CONTROL_MESSAGE_HANDLER_SUBSCRIPTION;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.agrona.DirectBuffer;
+import org.agrona.collections.Int2IntHashMap;
 import org.agrona.collections.Int2ObjectHashMap;
 import org.agrona.concurrent.UnsafeBuffer;
 
@@ -38,7 +42,6 @@ import io.zeebe.protocol.clientapi.ControlMessageType;
 import io.zeebe.protocol.clientapi.ErrorCode;
 import io.zeebe.protocol.clientapi.MessageHeaderDecoder;
 import io.zeebe.transport.ServerOutput;
-import io.zeebe.transport.ServerResponse;
 import io.zeebe.util.actor.Actor;
 import io.zeebe.util.actor.ActorReference;
 import io.zeebe.util.actor.ActorScheduler;
@@ -50,30 +53,46 @@ import io.zeebe.util.state.TransitionState;
 import io.zeebe.util.state.WaitState;
 import io.zeebe.util.time.ClockUtil;
 
+/**
+ * Polls the control message requests and hands them to the handlers. Requests
+ * are handled concurrently, up to a maximum number of outstanding requests.
+ * However,
+ * <ul>
+ * <li>the requests of a client stream are handled in the order they were received, and</li>
+ * <li>a handler handles only one request at a time, since the handlers are not reentrant.</li>
+ * </ul>
+ * The requests of one message type take at most a limited number of the
+ * outstanding request slots. Further requests of this type wait in a bounded
+ * number of overflow slots, so that a burst of requests of one type does not
+ * stop the polling of requests of other types. If the overflow slots are taken,
+ * the manager stops polling until requests complete. Waiting requests fail with
+ * a timeout if they are not handled in time. A handler which does not complete
+ * in time keeps its slot until it completes, but the request is answered with
+ * a timeout.
+ */
 public class ControlMessageHandlerManager implements Actor
 {
     protected static final String NAME = "control.message.handler";
 
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 32;
+
+    /**
+     * the share of the request slots which the requests of one message type can take
+     */
+    protected static final int MAX_SLOTS_PER_TYPE_DIVISOR = 4;
+
     protected static final int TRANSITION_DEFAULT = 0;
     protected static final int TRANSITION_OPEN = 1;
     protected static final int TRANSITION_CLOSE = 2;
-    protected static final int TRANSITION_PROCESS = 3;
-    protected static final int TRANSITION_FAILED = 4;
 
     protected final State<Context> openingState = new OpeningState();
     protected final State<Context> openedState = new OpenedState();
-    protected final State<Context> processingState = new ProcessingState();
-    protected final State<Context> processingFailedState = new ProcessingFailedState();
     protected final State<Context> closedState = new ClosedState();
 
     protected final StateMachineAgent<Context> stateMachineAgent = new StateMachineAgent<>(StateMachine.<Context> builder(s -> new Context(s))
             .initialState(closedState)
             .from(openingState).take(TRANSITION_DEFAULT).to(openedState)
-            .from(openedState).take(TRANSITION_PROCESS).to(processingState)
-            .from(openedState).take(TRANSITION_FAILED).to(processingFailedState)
             .from(openedState).take(TRANSITION_CLOSE).to(closedState)
-            .from(processingState).take(TRANSITION_DEFAULT).to(openedState)
-            .from(processingFailedState).take(TRANSITION_DEFAULT).to(openedState)
             .from(closedState).take(TRANSITION_OPEN).to(openingState)
             .build());
 
@@ -85,16 +104,34 @@ public class ControlMessageHandlerManager implements Actor
     protected final MessageHeaderDecoder messageHeaderDecoder = new MessageHeaderDecoder();
     protected final ControlMessageRequestDecoder requestDecoder = new ControlMessageRequestDecoder();
 
-    protected final UnsafeBuffer requestBuffer = new UnsafeBuffer(new byte[1024 * 32]);
-
     protected final Dispatcher controlMessageDispatcher;
     protected Subscription subscription;
 
     protected final Int2ObjectHashMap<ControlMessageHandler> handlersByTypeId = new Int2ObjectHashMap<>();
 
+    /**
+     * the polled requests in the order they were received, both the ones which
+     * are handled and the ones which wait for their handler or their client stream
+     */
+    protected final List<ControlMessageRequest> requests;
+    protected final Deque<ControlMessageRequest> freeRequests;
+    protected final int maxConcurrentRequests;
+
+    protected final Deque<ControlMessageRequest> freeOverflowRequests;
+    protected final int maxRequestsPerType;
+
+    /**
+     * indexed by the ordinal of the message type
+     */
+    protected final int[] slotsByType = new int[ControlMessageType.values().length];
+    protected final boolean[] isHandlingType = new boolean[ControlMessageType.values().length];
+
+    /**
+     * the client streams of the requests which are visited while handling the requests
+     */
+    protected final Int2IntHashMap visitedRequestStreams = new Int2IntHashMap(-1);
+
     protected final ErrorResponseWriter errorResponseWriter;
-    protected final BrokerEventMetadata eventMetada = new BrokerEventMetadata();
-    protected final ServerResponse response = new ServerResponse();
 
     protected final long requestTimeoutInMillis;
 
@@ -104,10 +141,23 @@ public class ControlMessageHandlerManager implements Actor
             long requestTimeoutInMillis,
             ActorScheduler actorScheduler,
             List<ControlMessageHandler> handlers)
+    {
+        this(output, controlMessageDispatcher, requestTimeoutInMillis, DEFAULT_MAX_CONCURRENT_REQUESTS, actorScheduler, handlers);
+    }
+
+    public ControlMessageHandlerManager(
+            ServerOutput output,
+            Dispatcher controlMessageDispatcher,
+            long requestTimeoutInMillis,
+            int maxConcurrentRequests,
+            ActorScheduler actorScheduler,
+            List<ControlMessageHandler> handlers)
     {
         this.actorScheduler = actorScheduler;
         this.controlMessageDispatcher = controlMessageDispatcher;
         this.requestTimeoutInMillis = requestTimeoutInMillis;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.maxRequestsPerType = Math.max(1, maxConcurrentRequests / MAX_SLOTS_PER_TYPE_DIVISOR);
         this.errorResponseWriter = new ErrorResponseWriter(output);
 
         for (ControlMessageHandler handler : handlers)
@@ -115,6 +165,19 @@ public class ControlMessageHandlerManager implements Actor
             final ControlMessageType messageType = handler.getMessageType();
             handlersByTypeId.put(messageType.value(), handler);
         }
+
+        this.requests = new ArrayList<>(maxConcurrentRequests);
+        this.freeRequests = new ArrayDeque<>(maxConcurrentRequests);
+        for (int i = 0; i < maxConcurrentRequests; i++)
+        {
+            freeRequests.add(new ControlMessageRequest());
+        }
+
+        this.freeOverflowRequests = new ArrayDeque<>(maxConcurrentRequests);
+        for (int i = 0; i < maxConcurrentRequests; i++)
+        {
+            freeOverflowRequests.add(new ControlMessageRequest());
+        }
     }
 
     @Override
@@ -183,9 +246,7 @@ public class ControlMessageHandlerManager implements Actor
 
     public boolean isOpen()
     {
-        return stateMachineAgent.getCurrentState() == openedState
-                || stateMachineAgent.getCurrentState() == processingState
-                || stateMachineAgent.getCurrentState() == processingFailedState;
+        return stateMachineAgent.getCurrentState() == openedState;
     }
 
     public boolean isClosed()
@@ -207,22 +268,21 @@ public class ControlMessageHandlerManager implements Actor
 
     class OpenedState implements State<Context>, FragmentHandler
     {
-        private Context context;
-
         @Override
         public int doWork(Context context) throws Exception
         {
-            this.context = context;
-
             int workCount = 0;
 
-            final int result = subscription.poll(this, 1);
-            if (result > 0)
+            workCount += completeRequests();
+
+            // the type of the next request is unknown, so it must fit into either kind of slot
+            if (!freeRequests.isEmpty() && !freeOverflowRequests.isEmpty())
             {
-                workCount += 1;
-                // the next transition is taken while handle the fragment
+                workCount += subscription.poll(this, 1);
             }
 
+            workCount += handleRequests();
+
             return workCount;
         }
 
@@ -231,83 +291,153 @@ public class ControlMessageHandlerManager implements Actor
         {
             requestHeaderDescriptor.wrap(buffer, offset);
 
-            eventMetada.reset();
-
-            eventMetada
-                .requestId(requestHeaderDescriptor.requestId())
-                .requestStreamId(requestHeaderDescriptor.streamId());
-
             offset += ControlMessageRequestHeaderDescriptor.headerLength();
-
-            messageHeaderDecoder.wrap(requestBuffer, 0);
             offset += messageHeaderDecoder.encodedLength();
 
             requestDecoder.wrap(buffer, offset, requestDecoder.sbeBlockLength(), requestDecoder.sbeSchemaVersion());
 
             final ControlMessageType messageType = requestDecoder.messageType();
-            context.lastRequestMessageType(messageType);
+            final ControlMessageRequest request = takeRequest(messageType);
 
-            ensureBufferCapacity(requestDecoder.dataLength());
-            requestDecoder.getData(requestBuffer, 0, requestDecoder.dataLength());
+            request.metadata.reset();
 
-            final ControlMessageHandler handler = handlersByTypeId.get(messageType.value());
-            if (handler != null)
-            {
-                final CompletableFuture<Void> future = handler.handle(requestBuffer, eventMetada);
-                final long startTime = ClockUtil.getCurrentTimeInMillis();
+            request.metadata
+                .requestId(requestHeaderDescriptor.requestId())
+                .requestStreamId(requestHeaderDescriptor.streamId());
 
-                context.scheduledProcessing(future, startTime);
+            request.messageType = messageType;
+            request.receiveTime = ClockUtil.getCurrentTimeInMillis();
 
-                context.take(TRANSITION_PROCESS);
-            }
-            else
-            {
-                context.take(TRANSITION_FAILED);
-            }
+            request.ensureBufferCapacity(requestDecoder.dataLength());
+            requestDecoder.getData(request.buffer, 0, requestDecoder.dataLength());
+
+            requests.add(request);
 
             return FragmentHandler.CONSUME_FRAGMENT_RESULT;
         }
 
-        protected void ensureBufferCapacity(int length)
+        /**
+         * Takes a request slot if the requests of the given type do not take
+         * their maximum number of slots already. Otherwise, the request waits
+         * in an overflow slot.
+         */
+        protected ControlMessageRequest takeRequest(ControlMessageType messageType)
         {
-            byte[] raw = requestBuffer.byteArray();
+            final ControlMessageRequest request;
 
-            if (length <= raw.length)
+            if (slotsByType[messageType.ordinal()] < maxRequestsPerType)
             {
-                Arrays.fill(raw, (byte) 0);
+                request = freeRequests.poll();
+                slotsByType[messageType.ordinal()] += 1;
             }
             else
             {
-                raw = new byte[length];
+                request = freeOverflowRequests.poll();
+                request.isOverflow = true;
             }
 
-            requestBuffer.wrap(raw, 0, length);
+            return request;
         }
-    }
 
-    class ProcessingState implements WaitState<Context>
-    {
-        @Override
-        public void work(Context context) throws Exception
+        protected int completeRequests()
         {
-            final CompletableFuture<Void> future = context.getProcessingFuture();
-            final long startTime = context.getProcessingStartTime();
+            int completedRequests = 0;
 
-            if (future.isDone())
+            for (int i = 0; i < requests.size(); i++)
             {
-                context.take(TRANSITION_DEFAULT);
+                final ControlMessageRequest request = requests.get(i);
+
+                boolean isCompleted = false;
+
+                if (request.isHandling())
+                {
+                    isCompleted = request.future.isDone();
+
+                    if (!isCompleted && !request.isTimedOut && hasTimeout(request.startTime))
+                    {
+                        // keep the request until the handler completes since the handler is not reentrant
+                        writeTimeoutResponse(request);
+                        request.isTimedOut = true;
+                    }
+                }
+                else if (hasTimeout(request.receiveTime))
+                {
+                    // the request waits too long for its handler or its client stream
+                    writeTimeoutResponse(request);
+                    isCompleted = true;
+                }
+
+                if (isCompleted)
+                {
+                    releaseRequest(i);
+                    i -= 1;
+
+                    completedRequests += 1;
+                }
             }
-            else if (hasTimeout(startTime))
+
+            return completedRequests;
+        }
+
+        protected void writeTimeoutResponse(ControlMessageRequest request)
+        {
+            final boolean success = errorResponseWriter
+                .errorCode(ErrorCode.REQUEST_TIMEOUT)
+                .errorMessage("Timeout while handle control message.")
+                .failedRequest(request.buffer, 0, request.buffer.capacity())
+                .tryWriteResponseOrLogFailure(request.metadata.getRequestStreamId(), request.metadata.getRequestId());
+            // TODO: proper backpressure
+        }
+
+        protected int handleRequests()
+        {
+            int handledRequests = 0;
+
+            visitedRequestStreams.clear();
+
+            for (int i = 0; i < requests.size(); i++)
             {
-                final boolean success = errorResponseWriter
-                    .errorCode(ErrorCode.REQUEST_TIMEOUT)
-                    .errorMessage("Timeout while handle control message.")
-                    .failedRequest(requestBuffer, 0, requestBuffer.capacity())
-                    .tryWriteResponseOrLogFailure(eventMetada.getRequestStreamId(), eventMetada.getRequestId());
-                // TODO: proper backpressure
-
-                context.take(TRANSITION_DEFAULT);
+                final ControlMessageRequest request = requests.get(i);
+
+                final boolean isFirstRequestOfStream = visitedRequestStreams.put(request.metadata.getRequestStreamId(), i) < 0;
+
+                if (!request.isHandling() && isFirstRequestOfStream && !isHandlingType[request.messageType.ordinal()])
+                {
+                    final ControlMessageHandler handler = handlersByTypeId.get(request.messageType.value());
+                    if (handler != null)
+                    {
+                        request.future = handler.handle(request.buffer, request.metadata);
+                        request.startTime = ClockUtil.getCurrentTimeInMillis();
+
+                        isHandlingType[request.messageType.ordinal()] = true;
+                    }
+                    else
+                    {
+                        final boolean success = errorResponseWriter
+                            .errorCode(ErrorCode.MESSAGE_NOT_SUPPORTED)
+                            .errorMessage("Cannot handle control message with type '%s'.", request.messageType.name())
+                            .failedRequest(request.buffer, 0, request.buffer.capacity())
+                            .tryWriteResponseOrLogFailure(request.metadata.getRequestStreamId(), request.metadata.getRequestId());
+                        // TODO: proper backpressure
+
+                        visitedRequestStreams.remove(request.metadata.getRequestStreamId());
+
+                        releaseRequest(i);
+                        i -= 1;
+                    }
+
+                    handledRequests += 1;
+                }
             }
+
+            return handledRequests;
+        }
+
+        protected void releaseRequest(int index)
+        {
+            final ControlMessageRequest request = requests.remove(index);
+
+            freeRequest(request);
         }
 
         protected boolean hasTimeout(long startTime)
@@ -316,20 +446,26 @@ public class ControlMessageHandlerManager implements Actor
         }
     }
 
-    class ProcessingFailedState implements TransitionState<Context>
+    protected void freeRequest(ControlMessageRequest request)
     {
-        @Override
-        public void work(Context context) throws Exception
+        final int messageTypeOrdinal = request.messageType.ordinal();
+
+        if (request.isHandling())
         {
-            final boolean success = errorResponseWriter
-                .errorCode(ErrorCode.MESSAGE_NOT_SUPPORTED)
-                .errorMessage("Cannot handle control message with type '%s'.", context.getLastRequestMessageType().name())
-                .failedRequest(requestBuffer, 0, requestBuffer.capacity())
-                .tryWriteResponseOrLogFailure(eventMetada.getRequestStreamId(), eventMetada.getRequestId());
-            // TODO: proper backpressure
+            isHandlingType[messageTypeOrdinal] = false;
+        }
 
-            context.take(TRANSITION_DEFAULT);
+        if (!request.isOverflow)
+        {
+            slotsByType[messageTypeOrdinal] -= 1;
+            freeRequests.add(request);
         }
+        else
+        {
+            freeOverflowRequests.add(request);
+        }
+
+        request.reset();
     }
 
     class ClosedState implements WaitState<Context>
@@ -339,6 +475,12 @@ public class ControlMessageHandlerManager implements Actor
         {
             if (isRunning.compareAndSet(true, false))
             {
+                for (int i = 0; i < requests.size(); i++)
+                {
+                    freeRequest(requests.get(i));
+                }
+                requests.clear();
+
                 context.completeOpenCloseFuture();
 
                 actorRef.close();
@@ -346,37 +488,57 @@ public class ControlMessageHandlerManager implements Actor
         }
     }
 
-    static class Context extends SimpleStateMachineContext
+    static class ControlMessageRequest
     {
-        private CompletableFuture<Void> openClosefuture;
-        private CompletableFuture<Void> processingFuture;
-        private long processingStartTime = -1;
-        private ControlMessageType lastRequestMessageType;
+        protected final UnsafeBuffer buffer = new UnsafeBuffer(new byte[1024]);
+        protected final BrokerEventMetadata metadata = new BrokerEventMetadata();
 
-        Context(StateMachine<Context> stateMachine)
-        {
-            super(stateMachine);
-        }
+        protected ControlMessageType messageType;
+        protected CompletableFuture<Void> future;
+        protected long receiveTime = -1;
+        protected long startTime = -1;
+        protected boolean isOverflow;
+        protected boolean isTimedOut;
 
-        public void lastRequestMessageType(ControlMessageType messageType)
+        public boolean isHandling()
         {
-            this.lastRequestMessageType = messageType;
+            return future != null;
         }
 
-        public void scheduledProcessing(CompletableFuture<Void> future, long startTime)
+        public void ensureBufferCapacity(int length)
         {
-            this.processingFuture = future;
-            this.processingStartTime = startTime;
+            byte[] raw = buffer.byteArray();
+
+            if (length <= raw.length)
+            {
+                Arrays.fill(raw, (byte) 0);
+            }
+            else
+            {
+                raw = new byte[length];
+            }
+
+            buffer.wrap(raw, 0, length);
         }
 
-        public CompletableFuture<Void> getProcessingFuture()
+        public void reset()
         {
-            return processingFuture;
+            messageType = null;
+            future = null;
+            receiveTime = -1;
+            startTime = -1;
+            isOverflow = false;
+            isTimedOut = false;
         }
+    }
+
+    static class Context extends SimpleStateMachineContext
+    {
+        private CompletableFuture<Void> openClosefuture;
 
-        public long getProcessingStartTime()
+        Context(StateMachine<Context> stateMachine)
         {
-            return processingStartTime;
+            super(stateMachine);
         }
 
         public void setOpenCloseFuture(CompletableFuture<Void> future)
@@ -392,11 +554,5 @@ public class ControlMessageHandlerManager implements Actor
                 openClosefuture = null;
             }
         }
-
-        public ControlMessageType getLastRequestMessageType()
-        {
-            return lastRequestMessageType;
-        }
     }
-
 }
@@ -0,0 +1,285 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.util;
+
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+
+import java.nio.ByteBuffer;
+
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.IoUtil;
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
+
+/**
+ * Cache of buffers by a long key which stores the buffers off-heap. The size
+ * of the cache is limited by a budget in bytes instead of a number of entries.
+ *
+ * <p>
+ * The buffers are appended to a ring of off-heap memory. If there is not
+ * enough free space then the oldest buffers are evicted (FIFO), so that adding
+ * and getting a buffer does not allocate. A buffer which is larger than the
+ * cache is not cached.
+ *
+ * <p>
+ * Layout of an entry (aligned to 8 bytes):
+ *
+ * <pre>
+ * key (long) | length (int) | padding (int) | buffer
+ * </pre>
+ *
+ * An entry with the length -1 marks the unused space at the end of the ring.
+ *
+ * <p>
+ * The cache is not thread-safe.
+ */
+public class OffHeapBufferCache implements AutoCloseable
+{
+    public static final String HIT_COUNTER_SUFFIX = ".hits";
+    public static final String MISS_COUNTER_SUFFIX = ".misses";
+    public static final String EVICTION_COUNTER_SUFFIX = ".evictions";
+
+    protected static final int KEY_OFFSET = 0;
+    protected static final int LENGTH_OFFSET = KEY_OFFSET + SIZE_OF_LONG;
+    protected static final int HEADER_LENGTH = LENGTH_OFFSET + SIZE_OF_INT + SIZE_OF_INT;
+
+    protected static final int ALIGNMENT = SIZE_OF_LONG;
+    protected static final int PADDING_LENGTH = -1;
+
+    protected static final long MISSING_OFFSET = -1L;
+
+    protected final ByteBuffer memory;
+    protected final UnsafeBuffer buffer;
+    protected final int capacity;
+
+    // maps the key to the offset of the entry
+    protected final Long2LongHashMap index = new Long2LongHashMap(MISSING_OFFSET);
+
+    // offset of the oldest entry
+    protected int head;
+    // offset where the next entry is written
+    protected int tail;
+    // bytes used by entries and padding
+    protected int used;
+
+    protected final UnsafeBuffer view = new UnsafeBuffer(0, 0);
+
+    protected final AtomicCounter hitCounter;
+    protected final AtomicCounter missCounter;
+    protected final AtomicCounter evictionCounter;
+
+    /**
+     * @param capacity
+     *            the budget of the cache in bytes
+     * @param countersManager
+     *            to allocate the hit, miss and eviction counters
+     * @param counterLabelPrefix
+     *            the prefix of the counter labels
+     */
+    public OffHeapBufferCache(int capacity, CountersManager countersManager, String counterLabelPrefix)
+    {
+        this.capacity = BitUtil.align(Math.max(capacity, HEADER_LENGTH), ALIGNMENT);
+
+        this.memory = ByteBuffer.allocateDirect(this.capacity);
+        this.buffer = new UnsafeBuffer(memory);
+
+        this.hitCounter = countersManager.newCounter(counterLabelPrefix + HIT_COUNTER_SUFFIX);
+        this.missCounter = countersManager.newCounter(counterLabelPrefix + MISS_COUNTER_SUFFIX);
+        this.evictionCounter = countersManager.newCounter(counterLabelPrefix + EVICTION_COUNTER_SUFFIX);
+    }
+
+    /**
+     * @return the cached buffer, or <code>null</code> if the buffer is not
+     *         cached. The returned buffer is only valid until the cache is
+     *         modified.
+     */
+    public DirectBuffer get(long key)
+    {
+        final long offset = index.get(key);
+
+        DirectBuffer result = null;
+
+        if (offset != MISSING_OFFSET)
+        {
+            final int entryOffset = (int) offset;
+            final int length = buffer.getInt(entryOffset + LENGTH_OFFSET);
+
+            view.wrap(buffer, entryOffset + HEADER_LENGTH, length);
+            result = view;
+
+            hitCounter.increment();
+        }
+        else
+        {
+            missCounter.increment();
+        }
+
+        return result;
+    }
+
+    /**
+     * Adds the buffer to the cache. If the cache contains a buffer with the
+     * same key then it is replaced.
+     *
+     * @return <code>true</code>, if the buffer is cached
+     */
+    public boolean put(long key, DirectBuffer value, int offset, int length)
+    {
+        remove(key);
+
+        final int entryLength = BitUtil.align(HEADER_LENGTH + length, ALIGNMENT);
+
+        boolean isCached = false;
+
+        if (entryLength <= capacity)
+        {
+            final int entryOffset = allocate(entryLength);
+
+            buffer.putLong(entryOffset + KEY_OFFSET, key);
+            buffer.putInt(entryOffset + LENGTH_OFFSET, length);
+            buffer.putBytes(entryOffset + HEADER_LENGTH, value, offset, length);
+
+            index.put(key, entryOffset);
+
+            isCached = true;
+        }
+
+        return isCached;
+    }
+
+    public void remove(long key)
+    {
+        // the space is reclaimed when the entry becomes the oldest one
+        index.remove(key);
+    }
+
+    protected int allocate(int entryLength)
+    {
+        while (true)
+        {
+            if (used == 0)
+            {
+                head = 0;
+                tail = 0;
+            }
+
+            final boolean isWrapped = used > 0 && tail <= head;
+
+            if (!isWrapped)
+            {
+                final int remaining = capacity - tail;
+
+                if (remaining >= entryLength)
+                {
+                    break;
+                }
+
+                // the entry doesn't fit at the end - mark the rest as unused and continue at the beginning
+                if (remaining >= HEADER_LENGTH)
+                {
+                    buffer.putInt(tail + LENGTH_OFFSET, PADDING_LENGTH);
+                }
+                used += remaining;
+                tail = 0;
+            }
+            else if (head - tail >= entryLength)
+            {
+                break;
+            }
+            else
+            {
+                evictOldest();
+            }
+        }
+
+        final int entryOffset = tail;
+
+        tail += entryLength;
+        used += entryLength;
+
+        if (tail == capacity)
+        {
+            tail = 0;
+        }
+
+        return entryOffset;
+    }
+
+    protected void evictOldest()
+    {
+        final int remaining = capacity - head;
+
+        if (remaining < HEADER_LENGTH || buffer.getInt(head + LENGTH_OFFSET) == PADDING_LENGTH)
+        {
+            used -= remaining;
+            head = 0;
+        }
+        else
+        {
+            final long key = buffer.getLong(head + KEY_OFFSET);
+            final int length = buffer.getInt(head + LENGTH_OFFSET);
+
+            // the entry can be removed or replaced already
+            if (index.get(key) == head)
+            {
+                index.remove(key);
+                evictionCounter.increment();
+            }
+
+            final int entryLength = BitUtil.align(HEADER_LENGTH + length, ALIGNMENT);
+
+            used -= entryLength;
+            head += entryLength;
+
+            if (head == capacity)
+            {
+                head = 0;
+            }
+        }
+    }
+
+    public void clear()
+    {
+        index.clear();
+
+        head = 0;
+        tail = 0;
+        used = 0;
+    }
+
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    @Override
+    public void close()
+    {
+        clear();
+
+        hitCounter.close();
+        missCounter.close();
+        evictionCounter.close();
+
+        IoUtil.unmap(memory);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.workflow;
+
+import java.io.File;
+
+import io.zeebe.broker.logstreams.cfg.SnapshotStorageCfg;
+import io.zeebe.broker.services.Counters;
+import io.zeebe.broker.system.ConfigurationManager;
+import io.zeebe.broker.workflow.map.CompiledWorkflowStore;
+import io.zeebe.broker.workflow.map.WorkflowCache;
+import io.zeebe.servicecontainer.Injector;
+import io.zeebe.servicecontainer.Service;
+import io.zeebe.servicecontainer.ServiceStartContext;
+import io.zeebe.servicecontainer.ServiceStopContext;
+
+public class WorkflowCacheService implements Service<WorkflowCache>
+{
+    protected final Injector<Counters> countersInjector = new Injector<>();
+
+    protected static final String COMPILED_WORKFLOWS_DIRECTORY_NAME = "workflows";
+
+    protected final long cacheSize;
+    protected final String compiledWorkflowsDirectory;
+
+    protected WorkflowCache workflowCache;
+
+    public WorkflowCacheService(final ConfigurationManager configurationManager)
+    {
+        final WorkflowCfg workflowCfg = configurationManager.readEntry("workflow", WorkflowCfg.class);
+        cacheSize = workflowCfg.workflowCacheSize;
+
+        // the compiled workflows are stored next to the snapshots
+        final SnapshotStorageCfg snapshotStorageCfg = configurationManager.readEntry("snapshot", SnapshotStorageCfg.class);
+        compiledWorkflowsDirectory = snapshotStorageCfg.directory + File.separator + COMPILED_WORKFLOWS_DIRECTORY_NAME;
+    }
+
+    @Override
+    public void start(ServiceStartContext ctx)
+    {
+        final Counters counters = countersInjector.getValue();
+
+        ctx.run(() ->
+        {
+            final CompiledWorkflowStore compiledWorkflowStore = new CompiledWorkflowStore(compiledWorkflowsDirectory);
+
+            workflowCache = new WorkflowCache(cacheSize, compiledWorkflowStore, counters.getCountersManager());
+        });
+    }
+
+    @Override
+    public void stop(ServiceStopContext ctx)
+    {
+        workflowCache.close();
+    }
+
+    @Override
+    public WorkflowCache get()
+    {
+        return workflowCache;
+    }
+
+    public Injector<Counters> getCountersManagerInjector()
+    {
+        return countersInjector;
+    }
+}
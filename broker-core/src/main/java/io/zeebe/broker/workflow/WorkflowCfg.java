@@ -21,7 +21,13 @@ import io.zeebe.broker.system.ComponentConfiguration;
 
 public class WorkflowCfg extends ComponentConfiguration
 {
-    public int deploymentCacheSize = 32;
+    /**
+     * The budget in bytes of the broker-wide cache of parsed workflows.
+     */
+    public long workflowCacheSize = 32 * 1024 * 1024;
 
-    public int payloadCacheSize = 64;
+    /**
+     * The budget in bytes of the off-heap payload cache of each partition.
+     */
+    public int payloadCacheSize = 4 * 1024 * 1024;
 }
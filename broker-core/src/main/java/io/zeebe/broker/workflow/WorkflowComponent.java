@@ -19,6 +19,8 @@ package io.zeebe.broker.workflow;
 
 import static io.zeebe.broker.logstreams.LogStreamServiceNames.LOG_STREAM_SERVICE_GROUP;
 import static io.zeebe.broker.system.SystemServiceNames.ACTOR_SCHEDULER_SERVICE;
+import static io.zeebe.broker.system.SystemServiceNames.COUNTERS_MANAGER_SERVICE;
+import static io.zeebe.broker.workflow.WorkflowQueueServiceNames.WORKFLOW_CACHE_SERVICE;
 import static io.zeebe.broker.workflow.WorkflowQueueServiceNames.WORKFLOW_QUEUE_MANAGER;
 
 import io.zeebe.broker.system.Component;
@@ -36,9 +38,17 @@ public class WorkflowComponent implements Component
         final ServiceContainer serviceContainer = context.getServiceContainer();
         final ConfigurationManager configurationManager = context.getConfigurationManager();
 
+        final WorkflowCacheService workflowCacheService = new WorkflowCacheService(configurationManager);
+        serviceContainer.createService(WORKFLOW_CACHE_SERVICE, workflowCacheService)
+            .dependency(COUNTERS_MANAGER_SERVICE, workflowCacheService.getCountersManagerInjector())
+            .install();
+
         final WorkflowQueueManagerService workflowQueueManagerService = new WorkflowQueueManagerService(configurationManager);
         serviceContainer.createService(WORKFLOW_QUEUE_MANAGER, workflowQueueManagerService)
             .dependency(TransportServiceNames.serverTransport(TransportServiceNames.CLIENT_API_SERVER_NAME), workflowQueueManagerService.getClientApiTransportInjector())
+            .dependency(TransportServiceNames.CLIENT_API_MESSAGE_HANDLER, workflowQueueManagerService.getClientApiMessageHandlerInjector())
+            .dependency(WORKFLOW_CACHE_SERVICE, workflowQueueManagerService.getWorkflowCacheInjector())
+            .dependency(COUNTERS_MANAGER_SERVICE, workflowQueueManagerService.getCountersInjector())
             .dependency(ACTOR_SCHEDULER_SERVICE, workflowQueueManagerService.getActorSchedulerInjector())
             .groupReference(LOG_STREAM_SERVICE_GROUP, workflowQueueManagerService.getLogStreamsGroupReference())
             .install();
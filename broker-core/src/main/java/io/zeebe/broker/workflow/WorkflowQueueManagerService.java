@@ -21,6 +21,7 @@ import static io.zeebe.broker.logstreams.LogStreamServiceNames.SNAPSHOT_STORAGE_
 import static io.zeebe.broker.logstreams.LogStreamServiceNames.logStreamServiceName;
 import static io.zeebe.broker.logstreams.processor.StreamProcessorIds.INCIDENT_PROCESSOR_ID;
 import static io.zeebe.broker.system.SystemServiceNames.ACTOR_SCHEDULER_SERVICE;
+import static io.zeebe.broker.system.SystemServiceNames.COUNTERS_MANAGER_SERVICE;
 import static io.zeebe.broker.workflow.WorkflowQueueServiceNames.deploymentStreamProcessorServiceName;
 import static io.zeebe.broker.workflow.WorkflowQueueServiceNames.incidentStreamProcessorServiceName;
 import static io.zeebe.broker.workflow.WorkflowQueueServiceNames.workflowInstanceStreamProcessorServiceName;
@@ -29,8 +30,11 @@ import io.zeebe.broker.incident.IncidentStreamProcessorErrorHandler;
 import io.zeebe.broker.incident.processor.IncidentStreamProcessor;
 import io.zeebe.broker.logstreams.processor.StreamProcessorIds;
 import io.zeebe.broker.logstreams.processor.StreamProcessorService;
+import io.zeebe.broker.services.Counters;
 import io.zeebe.broker.system.ConfigurationManager;
+import io.zeebe.broker.transport.clientapi.ClientApiMessageHandler;
 import io.zeebe.broker.transport.clientapi.CommandResponseWriter;
+import io.zeebe.broker.workflow.map.WorkflowCache;
 import io.zeebe.broker.workflow.processor.DeploymentStreamProcessor;
 import io.zeebe.broker.workflow.processor.WorkflowInstanceStreamProcessor;
 import io.zeebe.logstreams.log.LogStream;
@@ -53,7 +57,10 @@ public class WorkflowQueueManagerService implements Service<WorkflowQueueManager
     protected static final String NAME = "workflow.queue.manager";
 
     protected final Injector<ServerTransport> clientApiTransportInjector = new Injector<>();
+    protected final Injector<ClientApiMessageHandler> clientApiMessageHandlerInjector = new Injector<>();
     protected final Injector<ActorScheduler> actorSchedulerInjector = new Injector<>();
+    protected final Injector<WorkflowCache> workflowCacheInjector = new Injector<>();
+    protected final Injector<Counters> countersInjector = new Injector<>();
 
     protected final ServiceGroupReference<LogStream> logStreamsGroupReference = ServiceGroupReference.<LogStream>create()
             .onAdd((name, stream) -> addStream(stream, name))
@@ -86,7 +93,7 @@ public class WorkflowQueueManagerService implements Service<WorkflowQueueManager
         final String streamProcessorName = streamProcessorServiceName.getName();
 
         final ServerTransport transport = clientApiTransportInjector.getValue();
-        final CommandResponseWriter responseWriter = new CommandResponseWriter(transport.getOutput());
+        final CommandResponseWriter responseWriter = new CommandResponseWriter(transport.getOutput(), clientApiMessageHandlerInjector.getValue().getBatchResponseCollector());
         final ServiceName<LogStream> logStreamServiceName = logStreamServiceName(logName);
 
         final DeploymentStreamProcessor deploymentStreamProcessor = new DeploymentStreamProcessor(responseWriter);
@@ -101,6 +108,7 @@ public class WorkflowQueueManagerService implements Service<WorkflowQueueManager
                 .dependency(logStreamServiceName, deploymentStreamProcessorService.getTargetStreamInjector())
                 .dependency(SNAPSHOT_STORAGE_SERVICE, deploymentStreamProcessorService.getSnapshotStorageInjector())
                 .dependency(ACTOR_SCHEDULER_SERVICE, deploymentStreamProcessorService.getActorSchedulerInjector())
+                .dependency(COUNTERS_MANAGER_SERVICE, deploymentStreamProcessorService.getCountersInjector())
                 .install();
     }
 
@@ -110,15 +118,17 @@ public class WorkflowQueueManagerService implements Service<WorkflowQueueManager
         final String streamProcessorName = streamProcessorServiceName.getName();
 
         final ServerTransport transport = clientApiTransportInjector.getValue();
-        final CommandResponseWriter responseWriter = new CommandResponseWriter(transport.getOutput());
+        final CommandResponseWriter responseWriter = new CommandResponseWriter(transport.getOutput(), clientApiMessageHandlerInjector.getValue().getBatchResponseCollector());
         final ServiceName<LogStream> logStreamServiceName = logStreamServiceName(logStream.getLogName());
 
         final IncidentStreamProcessorErrorHandler errorHandler = new IncidentStreamProcessorErrorHandler(logStream);
 
         final WorkflowInstanceStreamProcessor workflowInstanceStreamProcessor = new WorkflowInstanceStreamProcessor(
                 responseWriter,
-                workflowCfg.deploymentCacheSize,
-                workflowCfg.payloadCacheSize);
+                workflowCacheInjector.getValue(),
+                workflowCfg.payloadCacheSize,
+                countersInjector.getValue().getCountersManager(),
+                streamProcessorName);
 
         final StreamProcessorService workflowStreamProcessorService = new StreamProcessorService(
                 streamProcessorName,
@@ -132,6 +142,7 @@ public class WorkflowQueueManagerService implements Service<WorkflowQueueManager
                 .dependency(logStreamServiceName, workflowStreamProcessorService.getTargetStreamInjector())
                 .dependency(SNAPSHOT_STORAGE_SERVICE, workflowStreamProcessorService.getSnapshotStorageInjector())
                 .dependency(ACTOR_SCHEDULER_SERVICE, workflowStreamProcessorService.getActorSchedulerInjector())
+                .dependency(COUNTERS_MANAGER_SERVICE, workflowStreamProcessorService.getCountersInjector())
                 .install();
     }
 
@@ -155,6 +166,7 @@ public class WorkflowQueueManagerService implements Service<WorkflowQueueManager
                 .dependency(logStreamServiceName, incidentStreamProcessorService.getTargetStreamInjector())
                 .dependency(SNAPSHOT_STORAGE_SERVICE, incidentStreamProcessorService.getSnapshotStorageInjector())
                 .dependency(ACTOR_SCHEDULER_SERVICE, incidentStreamProcessorService.getActorSchedulerInjector())
+                .dependency(COUNTERS_MANAGER_SERVICE, incidentStreamProcessorService.getCountersInjector())
                 .install();
     }
 
@@ -188,16 +200,31 @@ public class WorkflowQueueManagerService implements Service<WorkflowQueueManager
         return clientApiTransportInjector;
     }
 
+    public Injector<ClientApiMessageHandler> getClientApiMessageHandlerInjector()
+    {
+        return clientApiMessageHandlerInjector;
+    }
+
     public ServiceGroupReference<LogStream> getLogStreamsGroupReference()
     {
         return logStreamsGroupReference;
     }
 
+    public Injector<Counters> getCountersInjector()
+    {
+        return countersInjector;
+    }
+
     public Injector<ActorScheduler> getActorSchedulerInjector()
     {
         return actorSchedulerInjector;
     }
 
+    public Injector<WorkflowCache> getWorkflowCacheInjector()
+    {
+        return workflowCacheInjector;
+    }
+
     public void addStream(LogStream logStream, ServiceName<LogStream> logStreamServiceName)
     {
         asyncContext.runAsync((r) ->
@@ -17,12 +17,14 @@
  */
 package io.zeebe.broker.workflow;
 
+import io.zeebe.broker.workflow.map.WorkflowCache;
 import io.zeebe.logstreams.processor.StreamProcessorController;
 import io.zeebe.servicecontainer.ServiceName;
 
 public class WorkflowQueueServiceNames
 {
     public static final ServiceName<WorkflowQueueManager> WORKFLOW_QUEUE_MANAGER = ServiceName.newServiceName("workflow.manager", WorkflowQueueManager.class);
+    public static final ServiceName<WorkflowCache> WORKFLOW_CACHE_SERVICE = ServiceName.newServiceName("workflow.cache", WorkflowCache.class);
 
     public static ServiceName<StreamProcessorController> deploymentStreamProcessorServiceName(String queueName)
     {
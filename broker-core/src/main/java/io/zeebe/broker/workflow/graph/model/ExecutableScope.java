@@ -24,6 +24,7 @@ import io.zeebe.util.buffer.BufferUtil;
 public class ExecutableScope extends ExecutableFlowNode
 {
     private ExecutableFlowElement[] flowElements;
+    private FlowElementIndex flowElementIndex;
 
     private ExecutableStartEvent scopeStartEvent;
 
@@ -35,6 +36,7 @@ public class ExecutableScope extends ExecutableFlowNode
     public void setFlowElements(ExecutableFlowElement[] flowElements)
     {
         this.flowElements = flowElements;
+        this.flowElementIndex = new FlowElementIndex(flowElements);
     }
 
     public <T extends ExecutableFlowElement> T getChildById(String id)
@@ -45,17 +47,22 @@ public class ExecutableScope extends ExecutableFlowNode
     @SuppressWarnings("unchecked")
     public <T extends ExecutableFlowElement> T getChildById(DirectBuffer id)
     {
-        for (int i = 0; i < flowElements.length; i++)
-        {
-            final ExecutableFlowElement flowElement = flowElements[i];
+        return (T) flowElementIndex.get(id);
+    }
 
-            if (BufferUtil.equals(id, flowElement.getId()))
-            {
-                return (T) flowElement;
-            }
-        }
+    /**
+     * @return the position of the child in {@link #getFlowElements()} or
+     *         {@link FlowElementIndex#NOT_FOUND}. Stable for a deployed workflow.
+     */
+    public int getChildIndex(DirectBuffer id)
+    {
+        return flowElementIndex.indexOf(id);
+    }
 
-        return null;
+    @SuppressWarnings("unchecked")
+    public <T extends ExecutableFlowElement> T getChildByIndex(int index)
+    {
+        return (T) flowElements[index];
     }
 
     public ExecutableStartEvent getScopeStartEvent()
@@ -0,0 +1,116 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.workflow.graph.model;
+
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+
+import io.zeebe.util.buffer.BufferUtil;
+
+/**
+ * Open-addressing hash index over the ids of the flow elements of a scope.
+ * Built once when the workflow is transformed, lookups do not allocate.
+ */
+public class FlowElementIndex
+{
+    public static final int NOT_FOUND = -1;
+
+    private final ExecutableFlowElement[] elements;
+
+    /**
+     * slot value is the element index + 1, so that 0 marks an empty slot
+     */
+    private final int[] slots;
+    private final int mask;
+
+    public FlowElementIndex(ExecutableFlowElement[] elements)
+    {
+        this.elements = elements;
+
+        // keep the load factor at or below 0.5 to keep probe sequences short
+        final int capacity = BitUtil.findNextPositivePowerOfTwo(Math.max(2, elements.length * 2));
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+
+        for (int i = 0; i < elements.length; i++)
+        {
+            insert(i);
+        }
+    }
+
+    private void insert(int elementIndex)
+    {
+        final DirectBuffer id = elements[elementIndex].getId();
+
+        int slot = hash(id) & mask;
+
+        while (slots[slot] != 0)
+        {
+            if (BufferUtil.equals(id, elements[slots[slot] - 1].getId()))
+            {
+                // ids are unique within a scope; keep the first element
+                return;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        slots[slot] = elementIndex + 1;
+    }
+
+    /**
+     * @return the position of the element with the given id in the scope's
+     *         flow elements or {@link #NOT_FOUND}
+     */
+    public int indexOf(DirectBuffer id)
+    {
+        int slot = hash(id) & mask;
+
+        int entry;
+        while ((entry = slots[slot]) != 0)
+        {
+            if (BufferUtil.equals(id, elements[entry - 1].getId()))
+            {
+                return entry - 1;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return NOT_FOUND;
+    }
+
+    public ExecutableFlowElement get(DirectBuffer id)
+    {
+        final int index = indexOf(id);
+        return index != NOT_FOUND ? elements[index] : null;
+    }
+
+    protected static int hash(DirectBuffer buffer)
+    {
+        final int length = buffer.capacity();
+
+        int hash = 0;
+        for (int i = 0; i < length; i++)
+        {
+            hash = 31 * hash + buffer.getByte(i);
+        }
+
+        return hash ^ (hash >>> 16);
+    }
+}
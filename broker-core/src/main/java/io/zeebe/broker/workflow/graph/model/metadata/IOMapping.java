@@ -29,14 +29,24 @@ public class IOMapping
     private Mapping inputMappings[];
     private Mapping outputMappings[];
 
+    // the source and target query of each mapping, alternating
+    private String inputMappingQueries[];
+    private String outputMappingQueries[];
+
     public Mapping[] getInputMappings()
     {
         return this.inputMappings;
     }
 
-    public void setInputMappings(Mapping[] inputMappings)
+    public String[] getInputMappingQueries()
+    {
+        return inputMappingQueries;
+    }
+
+    public void setInputMappings(Mapping[] inputMappings, String[] inputMappingQueries)
     {
         this.inputMappings = inputMappings;
+        this.inputMappingQueries = inputMappingQueries;
     }
 
     public Mapping[] getOutputMappings()
@@ -44,8 +54,14 @@ public class IOMapping
         return this.outputMappings;
     }
 
-    public void setOutputMappings(Mapping[] outputMappings)
+    public String[] getOutputMappingQueries()
+    {
+        return outputMappingQueries;
+    }
+
+    public void setOutputMappings(Mapping[] outputMappings, String[] outputMappingQueries)
     {
         this.outputMappings = outputMappings;
+        this.outputMappingQueries = outputMappingQueries;
     }
 }
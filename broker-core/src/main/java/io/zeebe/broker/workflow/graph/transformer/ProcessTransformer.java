@@ -20,7 +20,7 @@ package io.zeebe.broker.workflow.graph.transformer;
 import static io.zeebe.util.EnsureUtil.ensureNotNull;
 
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -55,7 +55,8 @@ public class ProcessTransformer implements BpmnElementTransformer<Process, Execu
 
     private void transformChildElements(ExecutableWorkflow executableWorkflow, ExecutableScope scope, final Collection<FlowElement> flowElements)
     {
-        final Map<FlowElement, ExecutableFlowElement> executableFlowElements = new HashMap<>();
+        // keep the document order so that the child indexes are the same whenever the model is transformed
+        final Map<FlowElement, ExecutableFlowElement> executableFlowElements = new LinkedHashMap<>();
 
         for (FlowElement flowElement : flowElements)
         {
@@ -59,65 +59,61 @@ public class IOMappingTransformer
             outputMappingElements = domElement.getChildElementsByNameNs(ZEEBE_NAMESPACE, OUTPUT_MAPPING_ELEMENT);
         }
 
-        ioMapping.setInputMappings(createMappings(inputMappingElements));
-        ioMapping.setOutputMappings(createMappings(outputMappingElements));
+        final String[] inputMappingQueries = getMappingQueries(inputMappingElements);
+        ioMapping.setInputMappings(createMappings(inputMappingQueries), inputMappingQueries);
+
+        final String[] outputMappingQueries = getMappingQueries(outputMappingElements);
+        ioMapping.setOutputMappings(createMappings(outputMappingQueries), outputMappingQueries);
 
         return ioMapping;
     }
 
-    private static Mapping[] createMappings(List<DomElement> mappingElements)
+    /**
+     * @return the source and target query of each mapping, alternating. Empty
+     *         if no mappings are needed.
+     */
+    private static String[] getMappingQueries(List<DomElement> mappingElements)
     {
-        final Mapping mappings[];
-
         if (mappingElements == null || mappingElements.isEmpty())
         {
-            mappings = new Mapping[0];
             // need no mappings
+            return new String[0];
         }
-        else if (mappingElements.size() == 1)
-        {
-            mappings = createNonRootMapping(mappingElements.get(0));
-        }
-        else
-        {
-            mappings = new Mapping[mappingElements.size()];
 
-            for (int i = 0; i < mappingElements.size(); i++)
-            {
-                final DomElement mappingElement = mappingElements.get(i);
-                mappings[i] = createMapping(mappingElement);
-            }
-        }
-        return mappings;
-    }
-
-    private static Mapping[] createNonRootMapping(DomElement mappingElement)
-    {
-        final String sourceMapping = getMappingQuery(mappingElement, MAPPING_ATTRIBUTE_SOURCE);
-        final String targetMapping = getMappingQuery(mappingElement, MAPPING_ATTRIBUTE_TARGET);
+        final String[] queries = new String[2 * mappingElements.size()];
 
-        final Mapping[] mappings;
-        if (sourceMapping.equals(JSON_ROOT_PATH) && targetMapping.equals(JSON_ROOT_PATH))
+        for (int i = 0; i < mappingElements.size(); i++)
         {
-            mappings = new Mapping[0];
+            final DomElement mappingElement = mappingElements.get(i);
+            queries[2 * i] = getMappingQuery(mappingElement, MAPPING_ATTRIBUTE_SOURCE);
+            queries[2 * i + 1] = getMappingQuery(mappingElement, MAPPING_ATTRIBUTE_TARGET);
         }
-        else
+
+        if (mappingElements.size() == 1 && queries[0].equals(JSON_ROOT_PATH) && queries[1].equals(JSON_ROOT_PATH))
         {
-            mappings = new Mapping[]{new Mapping(new JsonPathQueryCompiler().compile(sourceMapping),
-                                                 targetMapping)};
+            // the root mapping is the default
+            return new String[0];
         }
 
-        return mappings;
+        return queries;
     }
 
-    private static Mapping createMapping(DomElement mappingElement)
+    /**
+     * Compiles the mappings of the given source and target queries.
+     *
+     * @param queries
+     *            the source and target query of each mapping, alternating
+     */
+    public static Mapping[] createMappings(String[] queries)
     {
-        final String sourceMapping = getMappingQuery(mappingElement, MAPPING_ATTRIBUTE_SOURCE);
-        final String targetMapping = getMappingQuery(mappingElement, MAPPING_ATTRIBUTE_TARGET);
+        final Mapping mappings[] = new Mapping[queries.length / 2];
 
-        //TODO make json path compiler re-usable!
-        return new Mapping(new JsonPathQueryCompiler().compile(sourceMapping),
-                           targetMapping);
+        for (int i = 0; i < mappings.length; i++)
+        {
+            //TODO make json path compiler re-usable!
+            mappings[i] = new Mapping(new JsonPathQueryCompiler().compile(queries[2 * i]), queries[2 * i + 1]);
+        }
+        return mappings;
     }
 
     private static String getMappingQuery(DomElement mappingElement, String attributeName)
@@ -0,0 +1,418 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.workflow.map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.agrona.BitUtil.SIZE_OF_BYTE;
+import static org.agrona.BitUtil.SIZE_OF_INT;
+
+import java.nio.ByteOrder;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.zeebe.broker.workflow.graph.model.BpmnAspect;
+import io.zeebe.broker.workflow.graph.model.ExecutableEndEvent;
+import io.zeebe.broker.workflow.graph.model.ExecutableFlowElement;
+import io.zeebe.broker.workflow.graph.model.ExecutableFlowNode;
+import io.zeebe.broker.workflow.graph.model.ExecutableScope;
+import io.zeebe.broker.workflow.graph.model.ExecutableSequenceFlow;
+import io.zeebe.broker.workflow.graph.model.ExecutableServiceTask;
+import io.zeebe.broker.workflow.graph.model.ExecutableStartEvent;
+import io.zeebe.broker.workflow.graph.model.ExecutableWorkflow;
+import io.zeebe.broker.workflow.graph.model.metadata.IOMapping;
+import io.zeebe.broker.workflow.graph.model.metadata.TaskMetadata;
+import io.zeebe.broker.workflow.graph.transformer.metadata.IOMappingTransformer;
+
+/**
+ * Encodes a transformed workflow into a compact binary form and decodes it
+ * without parsing the BPMN XML again.
+ *
+ * <p>
+ * The flow elements are written in the order of
+ * {@link ExecutableScope#getFlowElements()} and reference each other by their
+ * index. The headers of all elements are written before their bodies, so that
+ * all elements can be created before they are linked. The JSON path queries of the IO mappings are written as strings and
+ * are compiled again when the workflow is decoded.
+ *
+ * <p>
+ * Layout (little endian):
+ *
+ * <pre>
+ * version | id | name | element count | element headers... | element bodies... | start event index
+ *
+ * element header:
+ *   type | id | name
+ *
+ * element body:
+ *   (flow node: aspect | outgoing indexes | incoming indexes)
+ *   | (sequence flow: source index | target index)
+ *   | (service task: task type | retries | headers | input queries | output queries)
+ * </pre>
+ *
+ * Strings are prefixed by their length, a <code>null</code> string has the
+ * length -1.
+ */
+public class CompiledWorkflowCodec
+{
+    protected static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    protected static final byte TYPE_START_EVENT = 0;
+    protected static final byte TYPE_END_EVENT = 1;
+    protected static final byte TYPE_SERVICE_TASK = 2;
+    protected static final byte TYPE_SEQUENCE_FLOW = 3;
+
+    protected static final BpmnAspect[] ASPECTS = BpmnAspect.values();
+
+    protected MutableDirectBuffer writeBuffer;
+    protected int writeOffset;
+
+    protected DirectBuffer readBuffer;
+    protected int readOffset;
+
+    /**
+     * Writes the workflow into the given buffer which must be able to expand
+     * (e.g. an {@link org.agrona.ExpandableArrayBuffer}).
+     *
+     * @return the length of the encoded workflow
+     */
+    public int encode(ExecutableWorkflow workflow, MutableDirectBuffer buffer, int offset)
+    {
+        writeBuffer = buffer;
+        writeOffset = offset;
+
+        final ExecutableFlowElement[] flowElements = workflow.getFlowElements();
+
+        writeInt(workflow.getVersion());
+        writeString(workflow.getId());
+        writeString(workflow.getName());
+
+        writeInt(flowElements.length);
+        for (ExecutableFlowElement flowElement : flowElements)
+        {
+            writeElementHeader(flowElement);
+        }
+        for (ExecutableFlowElement flowElement : flowElements)
+        {
+            writeElementBody(workflow, flowElement);
+        }
+
+        writeInt(workflow.getChildIndex(workflow.getScopeStartEvent().getId()));
+
+        writeBuffer = null;
+
+        return writeOffset - offset;
+    }
+
+    protected void writeElementHeader(ExecutableFlowElement flowElement)
+    {
+        final byte type;
+        if (flowElement instanceof ExecutableStartEvent)
+        {
+            type = TYPE_START_EVENT;
+        }
+        else if (flowElement instanceof ExecutableEndEvent)
+        {
+            type = TYPE_END_EVENT;
+        }
+        else if (flowElement instanceof ExecutableServiceTask)
+        {
+            type = TYPE_SERVICE_TASK;
+        }
+        else if (flowElement instanceof ExecutableSequenceFlow)
+        {
+            type = TYPE_SEQUENCE_FLOW;
+        }
+        else
+        {
+            throw new RuntimeException("Cannot encode flow element of type " + flowElement.getClass().getName());
+        }
+
+        writeBuffer.putByte(writeOffset, type);
+        writeOffset += SIZE_OF_BYTE;
+
+        writeString(flowElement.getId());
+        writeString(flowElement.getName());
+    }
+
+    protected void writeElementBody(ExecutableWorkflow workflow, ExecutableFlowElement flowElement)
+    {
+        if (flowElement instanceof ExecutableSequenceFlow)
+        {
+            final ExecutableSequenceFlow sequenceFlow = (ExecutableSequenceFlow) flowElement;
+
+            writeInt(workflow.getChildIndex(sequenceFlow.getSourceNode().getId()));
+            writeInt(workflow.getChildIndex(sequenceFlow.getTargetNode().getId()));
+        }
+        else
+        {
+            final ExecutableFlowNode flowNode = (ExecutableFlowNode) flowElement;
+
+            writeBuffer.putByte(writeOffset, (byte) flowNode.getBpmnAspect().ordinal());
+            writeOffset += SIZE_OF_BYTE;
+
+            writeIndexes(workflow, flowNode.getOutgoingSequenceFlows());
+            writeIndexes(workflow, flowNode.getIncomingSequenceFlows());
+        }
+
+        if (flowElement instanceof ExecutableServiceTask)
+        {
+            final ExecutableServiceTask serviceTask = (ExecutableServiceTask) flowElement;
+            final TaskMetadata taskMetadata = serviceTask.getTaskMetadata();
+            final IOMapping ioMapping = serviceTask.getIoMapping();
+
+            writeBytes(taskMetadata.getTaskType());
+            writeInt(taskMetadata.getRetries());
+            writeBytes(taskMetadata.getHeaders());
+
+            writeStrings(ioMapping.getInputMappingQueries());
+            writeStrings(ioMapping.getOutputMappingQueries());
+        }
+    }
+
+    protected void writeIndexes(ExecutableWorkflow workflow, ExecutableSequenceFlow[] sequenceFlows)
+    {
+        writeInt(sequenceFlows.length);
+        for (ExecutableSequenceFlow sequenceFlow : sequenceFlows)
+        {
+            writeInt(workflow.getChildIndex(sequenceFlow.getId()));
+        }
+    }
+
+    protected void writeInt(int value)
+    {
+        writeBuffer.putInt(writeOffset, value, BYTE_ORDER);
+        writeOffset += SIZE_OF_INT;
+    }
+
+    protected void writeBytes(DirectBuffer value)
+    {
+        final int length = value.capacity();
+
+        writeInt(length);
+        writeBuffer.putBytes(writeOffset, value, 0, length);
+        writeOffset += length;
+    }
+
+    protected void writeString(DirectBuffer value)
+    {
+        if (value != null)
+        {
+            writeBytes(value);
+        }
+        else
+        {
+            writeInt(-1);
+        }
+    }
+
+    protected void writeString(String value)
+    {
+        if (value != null)
+        {
+            final byte[] bytes = value.getBytes(UTF_8);
+
+            writeInt(bytes.length);
+            writeBuffer.putBytes(writeOffset, bytes);
+            writeOffset += bytes.length;
+        }
+        else
+        {
+            writeInt(-1);
+        }
+    }
+
+    protected void writeStrings(String[] values)
+    {
+        writeInt(values.length);
+        for (String value : values)
+        {
+            writeString(value);
+        }
+    }
+
+    /**
+     * Reads a workflow which was written by
+     * {@link #encode(ExecutableWorkflow, MutableDirectBuffer, int)}. The
+     * returned workflow does not reference the given buffer.
+     */
+    public ExecutableWorkflow decode(DirectBuffer buffer, int offset)
+    {
+        readBuffer = buffer;
+        readOffset = offset;
+
+        final ExecutableWorkflow workflow = new ExecutableWorkflow();
+
+        workflow.setVersion(readInt());
+        workflow.setId(readString());
+        workflow.setName(readString());
+
+        final int elementCount = readInt();
+        final ExecutableFlowElement[] flowElements = new ExecutableFlowElement[elementCount];
+
+        for (int i = 0; i < elementCount; i++)
+        {
+            final ExecutableFlowElement flowElement = createElement(readBuffer.getByte(readOffset));
+            readOffset += SIZE_OF_BYTE;
+
+            flowElement.setId(readString());
+            flowElement.setName(readString());
+            flowElement.setFlowScope(workflow);
+            flowElement.setWorkflow(workflow);
+
+            workflow.getFlowElementMap().put(flowElement.getId(), flowElement);
+            flowElements[i] = flowElement;
+        }
+
+        workflow.setFlowElements(flowElements);
+
+        for (int i = 0; i < elementCount; i++)
+        {
+            readElementBody(flowElements, flowElements[i]);
+        }
+
+        workflow.setScopeStartEvent((ExecutableStartEvent) flowElements[readInt()]);
+
+        readBuffer = null;
+
+        return workflow;
+    }
+
+    protected ExecutableFlowElement createElement(byte type)
+    {
+        switch (type)
+        {
+            case TYPE_START_EVENT:
+                return new ExecutableStartEvent();
+            case TYPE_END_EVENT:
+                return new ExecutableEndEvent();
+            case TYPE_SERVICE_TASK:
+                return new ExecutableServiceTask();
+            case TYPE_SEQUENCE_FLOW:
+                return new ExecutableSequenceFlow();
+            default:
+                throw new RuntimeException("Cannot decode flow element of type " + type);
+        }
+    }
+
+    protected void readElementBody(ExecutableFlowElement[] flowElements, ExecutableFlowElement flowElement)
+    {
+        if (flowElement instanceof ExecutableSequenceFlow)
+        {
+            final ExecutableSequenceFlow sequenceFlow = (ExecutableSequenceFlow) flowElement;
+
+            sequenceFlow.setSourceNode((ExecutableFlowNode) flowElements[readInt()]);
+            sequenceFlow.setTargetNode((ExecutableFlowNode) flowElements[readInt()]);
+        }
+        else
+        {
+            final ExecutableFlowNode flowNode = (ExecutableFlowNode) flowElement;
+
+            flowNode.setBpmnAspect(ASPECTS[readBuffer.getByte(readOffset)]);
+            readOffset += SIZE_OF_BYTE;
+
+            flowNode.setOutgoingSequenceFlows(readSequenceFlows(flowElements));
+            flowNode.setIncomingSequenceFlows(readSequenceFlows(flowElements));
+        }
+
+        if (flowElement instanceof ExecutableServiceTask)
+        {
+            final ExecutableServiceTask serviceTask = (ExecutableServiceTask) flowElement;
+
+            final TaskMetadata taskMetadata = new TaskMetadata();
+            taskMetadata.setTaskType(readBytes());
+            taskMetadata.setRetries(readInt());
+            taskMetadata.setHeaders(readBytes());
+            serviceTask.setTaskMetadata(taskMetadata);
+
+            final String[] inputMappingQueries = readStrings();
+            final String[] outputMappingQueries = readStrings();
+
+            final IOMapping ioMapping = new IOMapping();
+            ioMapping.setInputMappings(IOMappingTransformer.createMappings(inputMappingQueries), inputMappingQueries);
+            ioMapping.setOutputMappings(IOMappingTransformer.createMappings(outputMappingQueries), outputMappingQueries);
+            serviceTask.setIoMapping(ioMapping);
+        }
+    }
+
+    protected ExecutableSequenceFlow[] readSequenceFlows(ExecutableFlowElement[] flowElements)
+    {
+        final ExecutableSequenceFlow[] sequenceFlows = new ExecutableSequenceFlow[readInt()];
+        for (int i = 0; i < sequenceFlows.length; i++)
+        {
+            sequenceFlows[i] = (ExecutableSequenceFlow) flowElements[readInt()];
+        }
+        return sequenceFlows;
+    }
+
+    protected int readInt()
+    {
+        final int value = readBuffer.getInt(readOffset, BYTE_ORDER);
+        readOffset += SIZE_OF_INT;
+        return value;
+    }
+
+    protected DirectBuffer readBytes()
+    {
+        final int length = readInt();
+        ensureReadable(length);
+
+        final byte[] bytes = new byte[length];
+        readBuffer.getBytes(readOffset, bytes);
+        readOffset += length;
+
+        return length > 0 ? new UnsafeBuffer(bytes) : new UnsafeBuffer(0, 0);
+    }
+
+    protected String readString()
+    {
+        final int length = readInt();
+
+        String value = null;
+        if (length >= 0)
+        {
+            ensureReadable(length);
+
+            final byte[] bytes = new byte[length];
+            readBuffer.getBytes(readOffset, bytes);
+            readOffset += length;
+
+            value = new String(bytes, UTF_8);
+        }
+        return value;
+    }
+
+    protected void ensureReadable(int length)
+    {
+        if (length < 0 || length > readBuffer.capacity() - readOffset)
+        {
+            throw new IndexOutOfBoundsException("Cannot read " + length + " bytes at offset " + readOffset);
+        }
+    }
+
+    protected String[] readStrings()
+    {
+        final String[] values = new String[readInt()];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = readString();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.workflow.map;
+
+import static org.agrona.BitUtil.SIZE_OF_INT;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.IoUtil;
+import org.agrona.LangUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.slf4j.Logger;
+
+import io.zeebe.broker.Loggers;
+import io.zeebe.broker.workflow.graph.model.ExecutableWorkflow;
+
+/**
+ * Stores transformed workflows in their compiled form (see
+ * {@link CompiledWorkflowCodec}) on disk, so that the BPMN XML of a deployed
+ * workflow is only parsed once and not again after a restart of the broker.
+ *
+ * <p>
+ * A compiled workflow is identified by the hash of its BPMN XML and its
+ * version, so it is shared by all partitions and can not be mixed up with a
+ * workflow of a recreated log. The files are memory-mapped when they are
+ * loaded. Since the store is only a cache, a file which can not be read or
+ * written is ignored.
+ *
+ * <p>
+ * The store is used by the stream processors of all partitions, so it is
+ * thread-safe.
+ */
+public class CompiledWorkflowStore
+{
+    public static final Logger LOG = Loggers.WORKFLOW_LOGGER;
+
+    public static final String FILE_EXTENSION = ".workflow";
+
+    protected static final int FORMAT_VERSION = 1;
+
+    // format version | bpmn xml length
+    protected static final int HEADER_LENGTH = 2 * SIZE_OF_INT;
+
+    protected static final String HASH_ALGORITHM = "SHA-256";
+
+    protected final File directory;
+
+    public CompiledWorkflowStore(String directory)
+    {
+        this.directory = new File(directory);
+        this.directory.mkdirs();
+    }
+
+    /**
+     * @return the compiled workflow of the given BPMN XML and version, or
+     *         <code>null</code> if it is not stored
+     */
+    public ExecutableWorkflow load(DirectBuffer bpmnXml, int version)
+    {
+        final File file = getFile(bpmnXml, version);
+
+        ExecutableWorkflow workflow = null;
+
+        if (file.exists())
+        {
+            MappedByteBuffer mappedBuffer = null;
+            try
+            {
+                mappedBuffer = IoUtil.mapExistingFile(file, "compiled workflow");
+
+                final UnsafeBuffer buffer = new UnsafeBuffer(mappedBuffer);
+
+                if (buffer.capacity() > HEADER_LENGTH
+                        && buffer.getInt(0, ByteOrder.LITTLE_ENDIAN) == FORMAT_VERSION
+                        && buffer.getInt(SIZE_OF_INT, ByteOrder.LITTLE_ENDIAN) == bpmnXml.capacity())
+                {
+                    workflow = new CompiledWorkflowCodec().decode(buffer, HEADER_LENGTH);
+                }
+            }
+            catch (Exception e)
+            {
+                // the workflow is transformed and stored again
+                LOG.warn("Failed to load compiled workflow from '{}'", file, e);
+            }
+            finally
+            {
+                if (mappedBuffer != null)
+                {
+                    IoUtil.unmap(mappedBuffer);
+                }
+            }
+
+            if (workflow != null && workflow.getVersion() != version)
+            {
+                workflow = null;
+            }
+        }
+
+        return workflow;
+    }
+
+    /**
+     * Writes the compiled form of the given workflow which is transformed
+     * from the given BPMN XML.
+     */
+    public void store(DirectBuffer bpmnXml, ExecutableWorkflow workflow)
+    {
+        final File file = getFile(bpmnXml, workflow.getVersion());
+
+        final ExpandableArrayBuffer buffer = new ExpandableArrayBuffer();
+        buffer.putInt(0, FORMAT_VERSION, ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(SIZE_OF_INT, bpmnXml.capacity(), ByteOrder.LITTLE_ENDIAN);
+
+        final int length = HEADER_LENGTH + new CompiledWorkflowCodec().encode(workflow, buffer, HEADER_LENGTH);
+
+        File tempFile = null;
+        try
+        {
+            // write to a temporary file first so that a partly written file is never loaded
+            tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+
+            try (FileOutputStream outputStream = new FileOutputStream(tempFile))
+            {
+                outputStream.write(buffer.byteArray(), 0, length);
+            }
+
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e)
+        {
+            LOG.warn("Failed to store compiled workflow in '{}'", file, e);
+
+            if (tempFile != null)
+            {
+                tempFile.delete();
+            }
+        }
+    }
+
+    protected File getFile(DirectBuffer bpmnXml, int version)
+    {
+        final byte[] xml = new byte[bpmnXml.capacity()];
+        bpmnXml.getBytes(0, xml);
+
+        byte[] hash = null;
+        try
+        {
+            hash = MessageDigest.getInstance(HASH_ALGORITHM).digest(xml);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            LangUtil.rethrowUnchecked(e);
+        }
+
+        final String fileName = new String(BitUtil.toHex(hash)) + "-" + version + FILE_EXTENSION;
+
+        return new File(directory, fileName);
+    }
+
+    public File getDirectory()
+    {
+        return directory;
+    }
+}
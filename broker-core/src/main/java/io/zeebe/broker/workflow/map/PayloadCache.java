@@ -17,39 +17,62 @@
  */
 package io.zeebe.broker.workflow.map;
 
+import static io.zeebe.broker.workflow.data.WorkflowInstanceEvent.PROP_WORKFLOW_PAYLOAD;
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.CountersManager;
+
+import io.zeebe.broker.util.OffHeapBufferCache;
 import io.zeebe.broker.workflow.data.WorkflowInstanceEvent;
 import io.zeebe.logstreams.log.LogStreamReader;
 import io.zeebe.logstreams.log.LoggedEvent;
-import io.zeebe.logstreams.snapshot.ZbMapSnapshotSupport;
-import io.zeebe.map.Long2LongZbMap;
-import io.zeebe.util.cache.ExpandableBufferCache;
-import org.agrona.DirectBuffer;
+import io.zeebe.msgpack.spec.MsgPackReader;
 
 /**
- * Cache of workflow instance payload. It contains an LRU cache of the payload
- * and an map which holds the position of the payload events.
+ * Cache of workflow instance payload, identified by the position of the
+ * payload event. The cache is limited by a budget in bytes and stored
+ * off-heap. The position of the current payload event of a workflow instance
+ * is kept in the {@link WorkflowInstanceIndex}.
  *
  * <p>
  * When a payload is requested then the it is returned from the cache. If it is
- * not present in the cache then the payload event is seek in the log stream.
+ * not present in the cache (i.e. it was evicted or the state was recovered from
+ * a snapshot) then the payload event is seek in the log stream. Only the
+ * payload is read from the event, the other properties are skipped.
  */
 public class PayloadCache implements AutoCloseable
 {
-    private final WorkflowInstanceEvent workflowInstanceEvent = new WorkflowInstanceEvent();
+    public static final String COUNTER_LABEL_PREFIX = "workflow.payload-cache.";
+
+    private static final DirectBuffer PAYLOAD_PROPERTY = wrapString(PROP_WORKFLOW_PAYLOAD);
 
-    private final Long2LongZbMap map;
-    private final ZbMapSnapshotSupport<Long2LongZbMap> snapshotSupport;
+    // msgpack bin 8, bin 16 and bin 32 format
+    private static final byte BIN8 = (byte) 0xc4;
+    private static final byte BIN16 = (byte) 0xc5;
+    private static final byte BIN32 = (byte) 0xc6;
 
-    private final ExpandableBufferCache cache;
+    private final OffHeapBufferCache cache;
     private final LogStreamReader logStreamReader;
 
-    public PayloadCache(int cacheSize, LogStreamReader logStreamReader)
+    private final MsgPackReader msgPackReader = new MsgPackReader();
+    private final UnsafeBuffer payloadBuffer = new UnsafeBuffer(0, 0);
+
+    /**
+     * @param cacheSize
+     *            the budget of the cache in bytes
+     * @param logStreamReader
+     *            to read the payload events which are not cached
+     * @param countersManager
+     *            to allocate the hit, miss and eviction counters
+     * @param name
+     *            the name of the cache, e.g. the stream processor name
+     */
+    public PayloadCache(int cacheSize, LogStreamReader logStreamReader, CountersManager countersManager, String name)
     {
-        this.map = new Long2LongZbMap();
-        this.snapshotSupport = new ZbMapSnapshotSupport<>(map);
-
         this.logStreamReader = logStreamReader;
-        this.cache = new ExpandableBufferCache(cacheSize, 1024, this::lookupPayload);
+        this.cache = new OffHeapBufferCache(cacheSize, countersManager, COUNTER_LABEL_PREFIX + name);
     }
 
     private DirectBuffer lookupPayload(long position)
@@ -61,48 +84,119 @@ public class PayloadCache implements AutoCloseable
         {
             final LoggedEvent event = logStreamReader.next();
 
-            workflowInstanceEvent.reset();
-            event.readValue(workflowInstanceEvent);
+            payload = readPayload(event.getValueBuffer(), event.getValueOffset(), event.getValueLength());
 
-            payload = workflowInstanceEvent.getPayload();
+            if (payload != null)
+            {
+                cache.put(position, payload, 0, payload.capacity());
+            }
         }
 
         return payload;
     }
 
-    public DirectBuffer getPayload(long workflowInstanceKey)
+    /**
+     * Finds the payload property of the encoded workflow instance event
+     * without decoding the other properties.
+     */
+    private DirectBuffer readPayload(DirectBuffer buffer, int offset, int length)
     {
         DirectBuffer payload = null;
 
-        final long position = map.get(workflowInstanceKey, -1L);
+        msgPackReader.wrap(buffer, offset, length);
 
-        if (position > 0)
+        final int propertyCount = msgPackReader.readMapHeader();
+
+        for (int i = 0; i < propertyCount && payload == null; i++)
         {
-            payload = cache.get(position);
+            final int keyLength = msgPackReader.readStringLength();
+            final int keyOffset = msgPackReader.getOffset();
+            msgPackReader.skipBytes(keyLength);
+
+            final int valueOffset = msgPackReader.getOffset();
+            msgPackReader.skipValue();
+
+            if (keyLength == PAYLOAD_PROPERTY.capacity()
+                    && equals(buffer, offset + keyOffset, PAYLOAD_PROPERTY))
+            {
+                final int valueLength = msgPackReader.getOffset() - valueOffset;
+                final int headerLength = getBinaryHeaderLength(buffer.getByte(offset + valueOffset));
+
+                payloadBuffer.wrap(buffer, offset + valueOffset + headerLength, valueLength - headerLength);
+                payload = payloadBuffer;
+            }
         }
-        return payload == null ? WorkflowInstanceEvent.NO_PAYLOAD : payload;
+
+        return payload;
     }
 
-    public void addPayload(long workflowInstanceKey, long payloadEventPosition, DirectBuffer payload)
+    private static int getBinaryHeaderLength(byte format)
     {
-        map.put(workflowInstanceKey, payloadEventPosition);
-        cache.put(payloadEventPosition, payload);
+        switch (format)
+        {
+            case BIN8:
+                return 2;
+            case BIN16:
+                return 3;
+            case BIN32:
+                return 5;
+            default:
+                throw new IllegalStateException("Expected payload to be encoded as binary but found format " + format);
+        }
     }
 
-    public void remove(long workflowInstanceKey)
+    private static boolean equals(DirectBuffer buffer, int offset, DirectBuffer other)
     {
-        map.remove(workflowInstanceKey, -1L);
+        for (int i = 0; i < other.capacity(); i++)
+        {
+            if (buffer.getByte(offset + i) != other.getByte(i))
+            {
+                return false;
+            }
+        }
+        return true;
     }
 
-    public ZbMapSnapshotSupport<Long2LongZbMap> getSnapshotSupport()
+    /**
+     * @param position
+     *            the position of the payload event, or a negative value if
+     *            the workflow instance has no payload
+     * @return the payload of the event. The returned buffer is only valid
+     *         until the cache is modified.
+     */
+    public DirectBuffer getPayload(long position)
     {
-        return snapshotSupport;
+        DirectBuffer payload = null;
+
+        if (position > 0)
+        {
+            payload = cache.get(position);
+
+            if (payload == null)
+            {
+                payload = lookupPayload(position);
+            }
+        }
+        return payload == null ? WorkflowInstanceEvent.NO_PAYLOAD : payload;
+    }
+
+    public void addPayload(long position, DirectBuffer payload)
+    {
+        cache.put(position, payload, 0, payload.capacity());
+    }
+
+    public void remove(long position)
+    {
+        if (position > 0)
+        {
+            cache.remove(position);
+        }
     }
 
     @Override
     public void close()
     {
-        map.close();
+        cache.close();
     }
 
 }
@@ -0,0 +1,506 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.workflow.map;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.agrona.DirectBuffer;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
+
+import io.zeebe.broker.workflow.graph.model.ExecutableWorkflow;
+import io.zeebe.broker.workflow.graph.transformer.BpmnTransformer;
+
+/**
+ * Broker-wide cache of transformed workflows which is shared by the workflow
+ * instance stream processors of all partitions.
+ *
+ * <p>
+ * The size of the cache is limited by a budget in bytes. The weight of a
+ * workflow is the length of its BPMN XML. If the budget is exceeded then the
+ * least recently used workflows are evicted. The most recently added workflow
+ * is never evicted, even if it exceeds the budget on its own.
+ *
+ * <p>
+ * A workflow is transformed only once for the same BPMN XML and version, also
+ * if it is deployed on different partitions. The transformed workflows are
+ * shared and must not be modified.
+ *
+ * <p>
+ * If a {@link CompiledWorkflowStore} is given then a workflow which is not
+ * cached is loaded from the store instead of transforming its BPMN XML. A
+ * transformed workflow is written to the store, so that it is only transformed
+ * once, also after a restart.
+ *
+ * <p>
+ * Each partition accesses the cache through its own {@link Partition} since
+ * the workflow keys are only unique per partition. The partitions are
+ * processed by different threads, so the shared cache is synchronized. A
+ * partition looks up its workflows in its own map first, without taking the
+ * lock. The lock is only taken on a miss of this map, on adding a workflow and
+ * on eviction. Getting a cached workflow does not allocate.
+ *
+ * <p>
+ * Since a lookup in the map of a partition does not reorder the shared list of
+ * entries, an entry found this way is only marked as referenced. On eviction,
+ * a referenced entry gets a second chance and is moved to the tail of the list
+ * instead of being evicted. The mark is written without synchronization, so a
+ * lost mark only makes the eviction less precise.
+ */
+public class WorkflowCache
+{
+    public static final String HIT_COUNTER_LABEL = "workflow.cache.hits";
+    public static final String MISS_COUNTER_LABEL = "workflow.cache.misses";
+    public static final String EVICTION_COUNTER_LABEL = "workflow.cache.evictions";
+    public static final String PARSE_TIME_COUNTER_LABEL = "workflow.cache.parse-time-nanos";
+
+    protected final long capacity;
+    protected long size;
+
+    protected final CompiledWorkflowStore compiledWorkflowStore;
+
+    protected final Map<CachedModel, CachedModel> models = new HashMap<>();
+
+    // least recently used entry of all partitions
+    protected Entry head;
+    // most recently used entry of all partitions
+    protected Entry tail;
+
+    protected final AtomicCounter hitCounter;
+    protected final AtomicCounter missCounter;
+    protected final AtomicCounter evictionCounter;
+    protected final AtomicCounter parseTimeCounter;
+
+    /**
+     * @param capacity
+     *            the budget of the cache in bytes
+     * @param countersManager
+     *            to allocate the hit, miss, eviction and parse time counters
+     */
+    public WorkflowCache(long capacity, CountersManager countersManager)
+    {
+        this(capacity, null, countersManager);
+    }
+
+    /**
+     * @param capacity
+     *            the budget of the cache in bytes
+     * @param compiledWorkflowStore
+     *            to load and store the compiled workflows, or
+     *            <code>null</code> if the workflows are always transformed
+     * @param countersManager
+     *            to allocate the hit, miss, eviction and parse time counters
+     */
+    public WorkflowCache(long capacity, CompiledWorkflowStore compiledWorkflowStore, CountersManager countersManager)
+    {
+        this.capacity = capacity;
+        this.compiledWorkflowStore = compiledWorkflowStore;
+
+        this.hitCounter = countersManager.newCounter(HIT_COUNTER_LABEL);
+        this.missCounter = countersManager.newCounter(MISS_COUNTER_LABEL);
+        this.evictionCounter = countersManager.newCounter(EVICTION_COUNTER_LABEL);
+        this.parseTimeCounter = countersManager.newCounter(PARSE_TIME_COUNTER_LABEL);
+    }
+
+    public Partition newPartition()
+    {
+        return new Partition();
+    }
+
+    public synchronized long getSize()
+    {
+        return size;
+    }
+
+    public long getCapacity()
+    {
+        return capacity;
+    }
+
+    public void close()
+    {
+        hitCounter.close();
+        missCounter.close();
+        evictionCounter.close();
+        parseTimeCounter.close();
+    }
+
+    protected synchronized Entry getEntry(Partition partition, long workflowKey)
+    {
+        final Entry entry = partition.entries.get(workflowKey);
+
+        if (entry != null)
+        {
+            moveToTail(entry);
+
+            hitCounter.increment();
+        }
+        else
+        {
+            missCounter.increment();
+        }
+
+        return entry;
+    }
+
+    protected synchronized ExecutableWorkflow getModel(Partition partition, long workflowKey, CachedModel key)
+    {
+        final CachedModel model = models.get(key);
+
+        ExecutableWorkflow workflow = null;
+
+        if (model != null)
+        {
+            addEntry(partition, workflowKey, model);
+            workflow = model.workflow;
+        }
+
+        return workflow;
+    }
+
+    protected synchronized ExecutableWorkflow putModel(Partition partition, long workflowKey, CachedModel newModel, long parseTime)
+    {
+        parseTimeCounter.add(parseTime);
+
+        // the workflow can be transformed by another partition in the meantime
+        CachedModel model = models.get(newModel);
+        if (model == null)
+        {
+            model = newModel;
+            models.put(model, model);
+
+            size += model.getWeight();
+        }
+
+        final Entry entry = addEntry(partition, workflowKey, model);
+
+        evict(entry);
+
+        return model.workflow;
+    }
+
+    protected Entry addEntry(Partition partition, long workflowKey, CachedModel model)
+    {
+        final Entry entry = new Entry(partition, workflowKey, model);
+        model.refCount += 1;
+
+        final Entry replacedEntry = partition.entries.put(workflowKey, entry);
+        if (replacedEntry != null)
+        {
+            removeEntry(replacedEntry);
+        }
+
+        append(entry);
+
+        return entry;
+    }
+
+    protected void evict(Entry newEntry)
+    {
+        while (size > capacity && head != null && head != tail)
+        {
+            final Entry entry = head;
+
+            if (entry == newEntry || entry.isReferenced)
+            {
+                // second chance
+                entry.isReferenced = false;
+                moveToTail(entry);
+            }
+            else
+            {
+                entry.partition.entries.remove(entry.workflowKey);
+                entry.partition.invalidate();
+                removeEntry(entry);
+
+                evictionCounter.increment();
+            }
+        }
+    }
+
+    protected void removeEntry(Entry entry)
+    {
+        unlink(entry);
+
+        final CachedModel model = entry.model;
+        model.refCount -= 1;
+
+        if (model.refCount == 0)
+        {
+            models.remove(model);
+            size -= model.getWeight();
+        }
+    }
+
+    protected synchronized void removePartition(Partition partition)
+    {
+        for (Entry entry : partition.entries.values())
+        {
+            removeEntry(entry);
+        }
+        partition.entries.clear();
+        partition.invalidate();
+    }
+
+    protected void append(Entry entry)
+    {
+        entry.previous = tail;
+        entry.next = null;
+
+        if (tail != null)
+        {
+            tail.next = entry;
+        }
+        else
+        {
+            head = entry;
+        }
+        tail = entry;
+    }
+
+    protected void unlink(Entry entry)
+    {
+        if (entry.previous != null)
+        {
+            entry.previous.next = entry.next;
+        }
+        else
+        {
+            head = entry.next;
+        }
+
+        if (entry.next != null)
+        {
+            entry.next.previous = entry.previous;
+        }
+        else
+        {
+            tail = entry.previous;
+        }
+
+        entry.previous = null;
+        entry.next = null;
+    }
+
+    protected void moveToTail(Entry entry)
+    {
+        if (entry != tail)
+        {
+            unlink(entry);
+            append(entry);
+        }
+    }
+
+    /**
+     * The view of a partition on the cache. A partition is used by a single
+     * stream processor.
+     */
+    public class Partition implements AutoCloseable
+    {
+        /**
+         * the entries of the partition in the shared cache; guarded by the lock of the cache
+         */
+        protected final Long2ObjectHashMap<Entry> entries = new Long2ObjectHashMap<>();
+
+        /**
+         * the entries which are looked up without the lock; only accessed by the
+         * thread of the partition
+         */
+        protected final Long2ObjectHashMap<Entry> localEntries = new Long2ObjectHashMap<>();
+
+        /**
+         * incremented when entries of the partition are removed from the shared cache
+         */
+        protected volatile int invalidations = 0;
+        protected int seenInvalidations = 0;
+
+        protected final BpmnTransformer bpmnTransformer = new BpmnTransformer();
+
+        /**
+         * @return the cached workflow, or <code>null</code> if the workflow is
+         *         not cached
+         */
+        public ExecutableWorkflow get(long workflowKey)
+        {
+            final int invalidations = this.invalidations;
+            if (invalidations != seenInvalidations)
+            {
+                localEntries.clear();
+                seenInvalidations = invalidations;
+            }
+
+            Entry entry = localEntries.get(workflowKey);
+
+            if (entry != null)
+            {
+                entry.isReferenced = true;
+
+                hitCounter.increment();
+            }
+            else
+            {
+                entry = getEntry(this, workflowKey);
+
+                if (entry != null)
+                {
+                    localEntries.put(workflowKey, entry);
+                }
+            }
+
+            return entry != null ? entry.model.workflow : null;
+        }
+
+        /**
+         * Called with the lock of the cache held.
+         */
+        protected void invalidate()
+        {
+            invalidations += 1;
+        }
+
+        /**
+         * Adds the workflow to the cache. The BPMN XML is only transformed if
+         * the cache does not contain a workflow with the same XML and version
+         * and the workflow is not stored in its compiled form.
+         *
+         * @return the transformed workflow
+         */
+        public ExecutableWorkflow put(long workflowKey, DirectBuffer bpmnXml, int version)
+        {
+            // the workflow may replace a cached one
+            localEntries.remove(workflowKey);
+
+            final CachedModel key = new CachedModel(bpmnXml, version);
+
+            ExecutableWorkflow workflow = getModel(this, workflowKey, key);
+
+            if (workflow == null)
+            {
+                final long startTime = System.nanoTime();
+
+                key.workflow = load(key.bpmnXml, version);
+
+                workflow = putModel(this, workflowKey, key, System.nanoTime() - startTime);
+            }
+
+            return workflow;
+        }
+
+        protected ExecutableWorkflow load(DirectBuffer bpmnXml, int version)
+        {
+            ExecutableWorkflow workflow = null;
+
+            if (compiledWorkflowStore != null)
+            {
+                workflow = compiledWorkflowStore.load(bpmnXml, version);
+            }
+
+            if (workflow == null)
+            {
+                // currently, it can only be one
+                workflow = bpmnTransformer.transform(bpmnXml).get(0);
+                workflow.setVersion(version);
+
+                if (compiledWorkflowStore != null)
+                {
+                    compiledWorkflowStore.store(bpmnXml, workflow);
+                }
+            }
+
+            return workflow;
+        }
+
+        @Override
+        public void close()
+        {
+            removePartition(this);
+        }
+    }
+
+    protected static class Entry
+    {
+        protected final Partition partition;
+        protected final long workflowKey;
+        protected final CachedModel model;
+
+        protected Entry previous;
+        protected Entry next;
+
+        protected boolean isReferenced;
+
+        Entry(Partition partition, long workflowKey, CachedModel model)
+        {
+            this.partition = partition;
+            this.workflowKey = workflowKey;
+            this.model = model;
+        }
+    }
+
+    /**
+     * A transformed workflow, identified by its BPMN XML and version.
+     */
+    protected static class CachedModel
+    {
+        protected final DirectBuffer bpmnXml;
+        protected final int version;
+        protected final int hashCode;
+
+        protected ExecutableWorkflow workflow;
+        protected int refCount;
+
+        CachedModel(DirectBuffer bpmnXml, int version)
+        {
+            final byte[] bytes = new byte[bpmnXml.capacity()];
+            bpmnXml.getBytes(0, bytes);
+
+            this.bpmnXml = new UnsafeBuffer(bytes);
+            this.version = version;
+            this.hashCode = 31 * this.bpmnXml.hashCode() + version;
+        }
+
+        long getWeight()
+        {
+            return bpmnXml.capacity();
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (!(obj instanceof CachedModel))
+            {
+                return false;
+            }
+
+            final CachedModel other = (CachedModel) obj;
+            return version == other.version && bpmnXml.equals(other.bpmnXml);
+        }
+    }
+}
@@ -25,18 +25,19 @@ import java.nio.ByteOrder;
 import io.zeebe.broker.workflow.data.WorkflowEvent;
 import io.zeebe.broker.workflow.graph.model.ExecutableWorkflow;
 import io.zeebe.broker.workflow.graph.transformer.BpmnTransformer;
+import io.zeebe.broker.workflow.map.WorkflowCache.Partition;
 import io.zeebe.logstreams.log.LogStreamReader;
 import io.zeebe.logstreams.log.LoggedEvent;
 import io.zeebe.logstreams.snapshot.ZbMapSnapshotSupport;
 import io.zeebe.map.Bytes2LongZbMap;
 import org.agrona.DirectBuffer;
-import org.agrona.collections.LongLruCache;
 import org.agrona.concurrent.UnsafeBuffer;
 
 /**
- * Cache of deployed workflows. It contains an LRU cache which maps the workflow
- * key to the parsed workflow. Additionally, it holds an map which maps BPMN
- * process id + version to workflow key.
+ * Cache of deployed workflows. The parsed workflows are held by the
+ * broker-wide {@link WorkflowCache} which maps the workflow key to the parsed
+ * workflow. Additionally, it holds an map which maps BPMN process id + version
+ * to workflow key.
  *
  * <p>
  * When a workflow is requested then the parsed workflow is returned from the
@@ -54,24 +55,22 @@ public class WorkflowDeploymentCache implements AutoCloseable
     private int bufferLength;
 
     private final WorkflowEvent workflowEvent = new WorkflowEvent();
-    private final BpmnTransformer bpmnTransformer = new BpmnTransformer();
 
     private final Bytes2LongZbMap idVersionToKeyMap;
 
     private final ZbMapSnapshotSupport<Bytes2LongZbMap> snapshotSupport;
 
-    private final LongLruCache<ExecutableWorkflow> cache;
+    private final Partition cache;
     private final LogStreamReader logStreamReader;
 
-    public WorkflowDeploymentCache(int cacheSize, LogStreamReader logStreamReader)
+    public WorkflowDeploymentCache(WorkflowCache workflowCache, LogStreamReader logStreamReader)
     {
         this.idVersionToKeyMap = new Bytes2LongZbMap(SIZE_OF_COMPOSITE_KEY);
 
         this.snapshotSupport = new ZbMapSnapshotSupport<>(idVersionToKeyMap);
 
         this.logStreamReader = logStreamReader;
-        this.cache = new LongLruCache<>(cacheSize, this::lookupWorkflow, (workflow) ->
-        { });
+        this.cache = workflowCache.newPartition();
     }
 
     public ZbMapSnapshotSupport<Bytes2LongZbMap> getSnapshotSupport()
@@ -115,7 +114,12 @@ public class WorkflowDeploymentCache implements AutoCloseable
 
         if (workflowKey >= 0)
         {
-            workflow = cache.lookup(workflowKey);
+            workflow = cache.get(workflowKey);
+
+            if (workflow == null)
+            {
+                workflow = lookupWorkflow(workflowKey);
+            }
         }
 
         return workflow;
@@ -133,10 +137,7 @@ public class WorkflowDeploymentCache implements AutoCloseable
             workflowEvent.reset();
             event.readValue(workflowEvent);
 
-            // currently, it can only be one
-            workflow = bpmnTransformer.transform(workflowEvent.getBpmnXml()).get(0);
-
-            workflow.setVersion(workflowEvent.getVersion());
+            workflow = cache.put(position, workflowEvent.getBpmnXml(), workflowEvent.getVersion());
         }
         return workflow;
     }
@@ -145,6 +146,7 @@ public class WorkflowDeploymentCache implements AutoCloseable
     public void close()
     {
         idVersionToKeyMap.close();
+        cache.close();
     }
 
 }
@@ -29,17 +29,23 @@ import org.agrona.concurrent.UnsafeBuffer;
 /**
  * Maps <b>workflow instance key</b> to
  *
- * <li>workflow instance event position
+ * <li>workflow key
  * <li>active token count
  * <li>activity instance key
+ * <li>payload event position
+ *
+ * <p>
+ * The record has a fixed layout, so that the state of a workflow instance can
+ * be read without seeking and decoding an event of the log.
  */
 public class WorkflowInstanceIndex implements AutoCloseable
 {
-    private static final int INDEX_VALUE_SIZE = SIZE_OF_LONG + SIZE_OF_INT + SIZE_OF_LONG;
+    private static final int INDEX_VALUE_SIZE = SIZE_OF_LONG + SIZE_OF_INT + SIZE_OF_LONG + SIZE_OF_LONG;
 
-    private static final int POSITION_OFFSET = 0;
-    private static final int TOKEN_COUNT_OFFSET = POSITION_OFFSET + SIZE_OF_LONG;
+    private static final int WORKFLOW_KEY_OFFSET = 0;
+    private static final int TOKEN_COUNT_OFFSET = WORKFLOW_KEY_OFFSET + SIZE_OF_LONG;
     private static final int ACTIVITY_INSTANCE_KEY_OFFSET = TOKEN_COUNT_OFFSET + SIZE_OF_INT;
+    private static final int PAYLOAD_POSITION_OFFSET = ACTIVITY_INSTANCE_KEY_OFFSET + SIZE_OF_LONG;
 
     private static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
 
@@ -81,9 +87,9 @@ public class WorkflowInstanceIndex implements AutoCloseable
         return this;
     }
 
-    public long getPosition()
+    public long getWorkflowKey()
     {
-        return isRead ? buffer.getLong(POSITION_OFFSET, BYTE_ORDER) : -1L;
+        return isRead ? buffer.getLong(WORKFLOW_KEY_OFFSET, BYTE_ORDER) : -1L;
     }
 
     public int getTokenCount()
@@ -96,6 +102,11 @@ public class WorkflowInstanceIndex implements AutoCloseable
         return isRead ? buffer.getLong(ACTIVITY_INSTANCE_KEY_OFFSET, BYTE_ORDER) : -1L;
     }
 
+    public long getPayloadPosition()
+    {
+        return isRead ? buffer.getLong(PAYLOAD_POSITION_OFFSET, BYTE_ORDER) : -1L;
+    }
+
     public WorkflowInstanceIndex newWorkflowInstance(long workflowInstanceKey)
     {
         key = workflowInstanceKey;
@@ -109,10 +120,10 @@ public class WorkflowInstanceIndex implements AutoCloseable
         map.put(key, buffer.byteArray());
     }
 
-    public WorkflowInstanceIndex setPosition(long position)
+    public WorkflowInstanceIndex setWorkflowKey(long workflowKey)
     {
         ensureRead();
-        buffer.putLong(POSITION_OFFSET, position, BYTE_ORDER);
+        buffer.putLong(WORKFLOW_KEY_OFFSET, workflowKey, BYTE_ORDER);
         return this;
     }
 
@@ -130,6 +141,13 @@ public class WorkflowInstanceIndex implements AutoCloseable
         return this;
     }
 
+    public WorkflowInstanceIndex setPayloadPosition(long payloadPosition)
+    {
+        ensureRead();
+        buffer.putLong(PAYLOAD_POSITION_OFFSET, payloadPosition, BYTE_ORDER);
+        return this;
+    }
+
     private void ensureRead()
     {
         if (!isRead)
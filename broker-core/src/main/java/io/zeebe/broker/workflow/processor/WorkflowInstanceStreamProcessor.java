@@ -28,8 +28,10 @@ import java.util.Map;
 import org.agrona.DirectBuffer;
 import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.CountersManager;
 
 import io.zeebe.broker.logstreams.processor.MetadataFilter;
+import io.zeebe.broker.logstreams.processor.VersionedSnapshotSupport;
 import io.zeebe.broker.task.data.TaskEvent;
 import io.zeebe.broker.task.data.TaskHeaders;
 import io.zeebe.broker.task.data.TaskState;
@@ -48,6 +50,7 @@ import io.zeebe.broker.workflow.graph.model.ExecutableWorkflow;
 import io.zeebe.broker.workflow.graph.model.metadata.TaskMetadata;
 import io.zeebe.broker.workflow.map.ActivityInstanceMap;
 import io.zeebe.broker.workflow.map.PayloadCache;
+import io.zeebe.broker.workflow.map.WorkflowCache;
 import io.zeebe.broker.workflow.map.WorkflowDeploymentCache;
 import io.zeebe.broker.workflow.map.WorkflowInstanceIndex;
 import io.zeebe.logstreams.log.BufferedLogStreamReader;
@@ -75,6 +78,12 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
 {
     private static final UnsafeBuffer EMPTY_TASK_TYPE = new UnsafeBuffer("".getBytes());
 
+    /**
+     * Version 2 keeps the workflow key and the payload position in the record
+     * of the workflow instance index and has no part for the payload cache.
+     */
+    protected static final int SNAPSHOT_VERSION = 2;
+
     // processors ////////////////////////////////////
     protected final WorkflowCreatedEventProcessor workflowCreatedEventProcessor = new WorkflowCreatedEventProcessor();
 
@@ -118,7 +127,7 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
     protected final WorkflowDeploymentCache workflowDeploymentCache;
     protected final PayloadCache payloadCache;
 
-    protected final ComposedZbMapSnapshot composedSnapshot;
+    protected final SnapshotSupport stateSnapshot;
 
     protected LogStreamReader logStreamReader;
     protected LogStreamBatchWriter logStreamBatchWriter;
@@ -135,26 +144,47 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
 
     public WorkflowInstanceStreamProcessor(
             CommandResponseWriter responseWriter,
-            int deploymentCacheSize,
-            int payloadCacheSize)
+            WorkflowCache workflowCache,
+            int payloadCacheSize,
+            CountersManager countersManager,
+            String name)
+    {
+        this(responseWriter, new BufferedLogStreamReader(), workflowCache, payloadCacheSize, countersManager, name);
+    }
+
+    /**
+     * @param payloadCacheSize
+     *            the budget in bytes of the payload cache
+     * @param countersManager
+     *            to allocate the metrics of the payload cache
+     * @param name
+     *            the name of the stream processor, used for the metrics
+     */
+    public WorkflowInstanceStreamProcessor(
+            CommandResponseWriter responseWriter,
+            LogStreamReader logStreamReader,
+            WorkflowCache workflowCache,
+            int payloadCacheSize,
+            CountersManager countersManager,
+            String name)
     {
         this.responseWriter = responseWriter;
-        this.logStreamReader = new BufferedLogStreamReader();
+        this.logStreamReader = logStreamReader;
 
-        this.workflowDeploymentCache = new WorkflowDeploymentCache(deploymentCacheSize, logStreamReader);
-        this.payloadCache = new PayloadCache(payloadCacheSize, logStreamReader);
+        this.workflowDeploymentCache = new WorkflowDeploymentCache(workflowCache, logStreamReader);
+        this.payloadCache = new PayloadCache(payloadCacheSize, logStreamReader, countersManager, name);
 
         this.workflowInstanceIndex = new WorkflowInstanceIndex();
         this.activityInstanceMap = new ActivityInstanceMap();
 
         this.payloadMappingProcessor = new MappingProcessor(4096);
 
-        this.composedSnapshot = new ComposedZbMapSnapshot(
+        final ComposedZbMapSnapshot composedSnapshot = new ComposedZbMapSnapshot(
             workflowInstanceIndex.getSnapshotSupport(),
             activityInstanceMap.getSnapshotSupport(),
-            workflowDeploymentCache.getSnapshotSupport(),
-            payloadCache.getSnapshotSupport());
+            workflowDeploymentCache.getSnapshotSupport());
 
+        this.stateSnapshot = new VersionedSnapshotSupport("workflow instance stream processor", SNAPSHOT_VERSION, composedSnapshot);
     }
 
     @Override
@@ -166,7 +196,7 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
     @Override
     public SnapshotSupport getStateResource()
     {
-        return composedSnapshot;
+        return stateSnapshot;
     }
 
     @Override
@@ -328,22 +358,6 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
         }
     }
 
-    protected void lookupWorkflowInstanceEvent(long position)
-    {
-        final boolean found = logStreamReader.seek(position);
-        if (found && logStreamReader.hasNext())
-        {
-            final LoggedEvent event = logStreamReader.next();
-
-            workflowInstanceEvent.reset();
-            event.readValue(workflowInstanceEvent);
-        }
-        else
-        {
-            throw new IllegalStateException("workflow instance event not found.");
-        }
-    }
-
     protected <T extends ExecutableFlowElement> T getCurrentActivity()
     {
         final long workflowKey = workflowInstanceEvent.getWorkflowKey();
@@ -515,9 +529,10 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
         {
             workflowInstanceIndex
                 .newWorkflowInstance(eventKey)
-                .setPosition(eventPosition)
+                .setWorkflowKey(workflowInstanceEvent.getWorkflowKey())
                 .setActiveTokenCount(1)
                 .setActivityKey(-1L)
+                .setPayloadPosition(-1L)
                 .write();
         }
     }
@@ -585,8 +600,8 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
         {
             if (isCompleted)
             {
+                payloadCache.remove(workflowInstanceIndex.getPayloadPosition());
                 workflowInstanceIndex.remove(workflowInstanceEvent.getWorkflowInstanceKey());
-                payloadCache.remove(workflowInstanceEvent.getWorkflowInstanceKey());
             }
             else
             {
@@ -684,19 +699,23 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
         {
             workflowInstanceIndex
                 .wrapWorkflowInstanceKey(workflowInstanceEvent.getWorkflowInstanceKey())
-                .setActivityKey(eventKey)
-                .write();
+                .setActivityKey(eventKey);
+
+            if (!isNilPayload(sourcePayload))
+            {
+                payloadCache.remove(workflowInstanceIndex.getPayloadPosition());
+                payloadCache.addPayload(eventPosition, sourcePayload);
+
+                workflowInstanceIndex.setPayloadPosition(eventPosition);
+            }
+
+            workflowInstanceIndex.write();
 
             activityInstanceMap
                 .newActivityInstance(eventKey)
                 .setActivityId(workflowInstanceEvent.getActivityId())
                 .setTaskKey(-1L)
                 .write();
-
-            if (!isNilPayload(sourcePayload))
-            {
-                payloadCache.addPayload(workflowInstanceEvent.getWorkflowInstanceKey(), eventPosition, sourcePayload);
-            }
         }
     }
 
@@ -843,7 +862,10 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
 
         private void setWorkflowInstancePayload(Mapping[] mappings)
         {
-            final DirectBuffer workflowInstancePayload = payloadCache.getPayload(workflowInstanceEvent.getWorkflowInstanceKey());
+            final long payloadPosition = workflowInstanceIndex
+                    .wrapWorkflowInstanceKey(workflowInstanceEvent.getWorkflowInstanceKey())
+                    .getPayloadPosition();
+            final DirectBuffer workflowInstancePayload = payloadCache.getPayload(payloadPosition);
             final DirectBuffer taskPayload = workflowInstanceEvent.getPayload();
             final boolean isNilPayload = isNilPayload(taskPayload);
             if (mappings.length > 0)
@@ -893,16 +915,28 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
         public void processEvent()
         {
             isCanceled = false;
+            activityInstanceKey = -1L;
+            taskKey = -1L;
 
             workflowInstanceIndex.wrapWorkflowInstanceKey(eventKey);
 
             if (workflowInstanceIndex.getTokenCount() > 0)
             {
-                lookupWorkflowInstanceEvent(workflowInstanceIndex.getPosition());
+                final long workflowKey = workflowInstanceIndex.getWorkflowKey();
+                final ExecutableWorkflow workflow = workflowDeploymentCache.getWorkflow(workflowKey);
+
+                if (workflow == null)
+                {
+                    throw new RuntimeException("No workflow found for key: " + workflowKey);
+                }
 
+                workflowInstanceEvent.reset();
                 workflowInstanceEvent
                     .setState(WorkflowInstanceState.WORKFLOW_INSTANCE_CANCELED)
-                    .setPayload(WorkflowInstanceEvent.NO_PAYLOAD);
+                    .setBpmnProcessId(workflow.getId())
+                    .setVersion(workflow.getVersion())
+                    .setWorkflowKey(workflowKey)
+                    .setWorkflowInstanceKey(eventKey);
 
                 activityInstanceKey = workflowInstanceIndex.getActivityInstanceKey();
                 taskKey = activityInstanceMap.wrapActivityInstanceKey(activityInstanceKey).getTaskKey();
@@ -1012,8 +1046,8 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
         {
             if (isCanceled)
             {
+                payloadCache.remove(workflowInstanceIndex.getPayloadPosition());
                 workflowInstanceIndex.remove(eventKey);
-                payloadCache.remove(eventKey);
                 activityInstanceMap.remove(activityInstanceKey);
             }
         }
@@ -1062,7 +1096,12 @@ public class WorkflowInstanceStreamProcessor implements StreamProcessor
         {
             if (isUpdated)
             {
-                payloadCache.addPayload(workflowInstanceEvent.getWorkflowInstanceKey(), eventPosition, workflowInstanceEvent.getPayload());
+                payloadCache.remove(workflowInstanceIndex.getPayloadPosition());
+                payloadCache.addPayload(eventPosition, workflowInstanceEvent.getPayload());
+
+                workflowInstanceIndex
+                    .setPayloadPosition(eventPosition)
+                    .write();
             }
         }
     }
@@ -0,0 +1,161 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.clustering.gossip.data;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PeerChangeBufferTest
+{
+    private PeerList peers;
+    private PeerList changedPeers;
+    private PeerChangeBuffer peerChanges;
+
+    @Before
+    public void setUp()
+    {
+        peers = new PeerList(8);
+        changedPeers = new PeerList(4);
+
+        // one peer => each change is sent in 2 rounds, no periodic full sync
+        peerChanges = new PeerChangeBuffer(peers, 4, 2, 0);
+        peers.registerListener(peerChanges);
+
+        peers.insert(newPeer(1));
+    }
+
+    @After
+    public void tearDown()
+    {
+        peerChanges.close();
+        changedPeers.close();
+        peers.close();
+    }
+
+    @Test
+    public void shouldSendChangesForLimitedNumberOfRounds()
+    {
+        // when
+        final boolean firstRound = peerChanges.poll(changedPeers);
+        final int firstRoundChanges = changedPeers.size();
+
+        final boolean secondRound = peerChanges.poll(changedPeers);
+        final int secondRoundChanges = changedPeers.size();
+
+        final boolean thirdRound = peerChanges.poll(changedPeers);
+        final int thirdRoundChanges = changedPeers.size();
+
+        // then
+        assertThat(firstRound).isTrue();
+        assertThat(firstRoundChanges).isEqualTo(1);
+
+        assertThat(secondRound).isTrue();
+        assertThat(secondRoundChanges).isEqualTo(1);
+
+        assertThat(thirdRound).isTrue();
+        assertThat(thirdRoundChanges).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldKeepChangesInAscendingOrder()
+    {
+        // given
+        peers.insert(newPeer(3));
+        peers.insert(newPeer(2));
+
+        // when
+        peerChanges.poll(changedPeers);
+
+        // then
+        final PeerListIterator iterator = changedPeers.iterator();
+        assertThat(iterator.next().managementEndpoint().port()).isEqualTo(1);
+        assertThat(iterator.next().managementEndpoint().port()).isEqualTo(2);
+        assertThat(iterator.next().managementEndpoint().port()).isEqualTo(3);
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    @Test
+    public void shouldResetTransmissionsOnChange()
+    {
+        // given
+        peerChanges.poll(changedPeers);
+        peerChanges.poll(changedPeers);
+
+        // when
+        final Peer peer = newPeer(1);
+        peer.heartbeat().version(2);
+        peers.update(peer);
+
+        peerChanges.poll(changedPeers);
+
+        // then
+        assertThat(changedPeers.size()).isEqualTo(1);
+        assertThat(changedPeers.iterator().next().heartbeat().version()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldRequestFullSyncOnOverflow()
+    {
+        // given
+        for (int i = 2; i <= 5; i++)
+        {
+            peers.insert(newPeer(i));
+        }
+
+        // when
+        final boolean overflowRound = peerChanges.poll(changedPeers);
+        final boolean nextRound = peerChanges.poll(changedPeers);
+
+        // then
+        assertThat(overflowRound).isFalse();
+        assertThat(nextRound).isTrue();
+        assertThat(changedPeers.size()).isEqualTo(4);
+    }
+
+    @Test
+    public void shouldRequestPeriodicFullSync()
+    {
+        // given
+        final PeerChangeBuffer periodicChanges = new PeerChangeBuffer(peers, 4, 2, 2);
+
+        // when
+        final boolean firstRound = periodicChanges.poll(changedPeers);
+        final boolean secondRound = periodicChanges.poll(changedPeers);
+        final boolean thirdRound = periodicChanges.poll(changedPeers);
+
+        periodicChanges.close();
+
+        // then
+        assertThat(firstRound).isFalse();
+        assertThat(secondRound).isTrue();
+        assertThat(thirdRound).isFalse();
+    }
+
+    protected static Peer newPeer(final int port)
+    {
+        final Peer peer = new Peer().alive();
+        peer.managementEndpoint()
+            .host("localhost")
+            .port(port);
+        return peer;
+    }
+
+}
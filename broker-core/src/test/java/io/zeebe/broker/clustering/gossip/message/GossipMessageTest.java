@@ -25,11 +25,14 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.util.Iterator;
 
 import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
 import org.junit.Test;
 
 import io.zeebe.broker.clustering.gossip.data.Peer;
 import io.zeebe.broker.clustering.gossip.data.PeerList;
 import io.zeebe.broker.clustering.gossip.data.RaftMembership;
+import io.zeebe.clustering.gossip.MessageHeaderDecoder;
+import io.zeebe.clustering.gossip.MessageHeaderEncoder;
 import io.zeebe.clustering.gossip.PeerState;
 import io.zeebe.clustering.gossip.RaftMembershipState;
 import io.zeebe.test.util.BufferWriterUtil;
@@ -68,6 +71,81 @@ public class GossipMessageTest
             .hasSameElementsAs(expected);
     }
 
+    @Test
+    public void testGossipRequestContainingChanges()
+    {
+        final PeerList expected = new PeerList(1);
+        expected.append(
+            new Peer()
+                .alive()
+        );
+
+        final GossipRequest gossipRequest = new GossipRequest()
+            .peers(expected)
+            .full(false);
+
+        final GossipRequest actual = writeAndRead(gossipRequest);
+
+        assertThat(actual.isFull()).isFalse();
+        assertThat(actual.peers())
+            .usingElementComparatorOnFields(
+                "clientEndpoint",
+                "managementEndpoint",
+                "replicationEndpoint",
+                "heartbeat",
+                "state"
+            )
+            .hasSameElementsAs(expected);
+    }
+
+    @Test
+    public void testGossipRequestOfVersionWithoutFullFlag()
+    {
+        final PeerList expected = new PeerList(1);
+        expected.append(
+            new Peer()
+                .alive()
+        );
+
+        // given
+        final GossipRequest gossipRequest = new GossipRequest()
+            .peers(expected)
+            .full(false);
+
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[gossipRequest.getLength()]);
+        gossipRequest.write(buffer, 0);
+
+        // a message of version 1 has an empty root block
+        final MessageHeaderDecoder headerDecoder = new MessageHeaderDecoder().wrap(buffer, 0);
+        final int headerLength = headerDecoder.encodedLength();
+        final int rootBlockLength = headerDecoder.blockLength();
+
+        final UnsafeBuffer oldBuffer = new UnsafeBuffer(new byte[buffer.capacity() - rootBlockLength]);
+        oldBuffer.putBytes(headerLength, buffer, headerLength + rootBlockLength, buffer.capacity() - headerLength - rootBlockLength);
+
+        new MessageHeaderEncoder().wrap(oldBuffer, 0)
+            .blockLength(0)
+            .templateId(headerDecoder.templateId())
+            .schemaId(headerDecoder.schemaId())
+            .version(1);
+
+        // when
+        final GossipRequest actual = new GossipRequest();
+        actual.wrap(oldBuffer, 0, oldBuffer.capacity());
+
+        // then
+        assertThat(actual.isFull()).isTrue();
+        assertThat(actual.peers())
+            .usingElementComparatorOnFields(
+                "clientEndpoint",
+                "managementEndpoint",
+                "replicationEndpoint",
+                "heartbeat",
+                "state"
+            )
+            .hasSameElementsAs(expected);
+    }
+
     @Test
     public void testGossipResponse()
     {
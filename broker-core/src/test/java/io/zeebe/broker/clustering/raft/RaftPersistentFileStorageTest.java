@@ -0,0 +1,201 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.clustering.raft;
+
+import static io.zeebe.util.buffer.BufferUtil.bufferAsString;
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.transport.SocketAddress;
+
+public class RaftPersistentFileStorageTest
+{
+    // header (8 bytes) + slot header (16 bytes) of the first slot
+    private static final int FIRST_SLOT_CONFIGURATION_OFFSET = 24;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File file;
+    private LogStream logStream;
+
+    @Before
+    public void setUp()
+    {
+        file = new File(tempFolder.getRoot(), "default-topic.0.meta");
+
+        logStream = mock(LogStream.class);
+        when(logStream.getTopicName()).thenReturn(wrapString("default-topic"));
+        when(logStream.getPartitionId()).thenReturn(0);
+    }
+
+    @Test
+    public void shouldLoadSavedConfiguration()
+    {
+        // given
+        new RaftPersistentFileStorage(file.getAbsolutePath())
+            .setLogStream(logStream)
+            .setLogDirectory("/tmp/logs")
+            .addMember(new SocketAddress("localhost", 8001))
+            .addMember(new SocketAddress("localhost", 8002))
+            .save();
+
+        // when
+        final RaftPersistentFileStorage storage = new RaftPersistentFileStorage(file.getAbsolutePath());
+
+        // then
+        assertThat(bufferAsString(storage.getTopicName())).isEqualTo("default-topic");
+        assertThat(storage.getPartitionId()).isEqualTo(0);
+        assertThat(storage.getLogDirectory()).isEqualTo("/tmp/logs");
+        assertThat(storage.getMembers()).containsExactly(
+                new SocketAddress("localhost", 8001),
+                new SocketAddress("localhost", 8002));
+    }
+
+    @Test
+    public void shouldLoadLatestConfiguration()
+    {
+        // given
+        final RaftPersistentFileStorage storage = new RaftPersistentFileStorage(file.getAbsolutePath())
+            .setLogStream(logStream)
+            .setLogDirectory("/tmp/logs")
+            .save();
+
+        storage.setLogDirectory("/tmp/other-logs").save();
+        storage.setLogDirectory("/tmp/latest-logs").save();
+
+        // when
+        final RaftPersistentFileStorage loadedStorage = new RaftPersistentFileStorage(file.getAbsolutePath());
+
+        // then
+        assertThat(loadedStorage.getLogDirectory()).isEqualTo("/tmp/latest-logs");
+    }
+
+    @Test
+    public void shouldLoadPreviousConfigurationIfLatestIsCorrupted() throws Exception
+    {
+        // given
+        final RaftPersistentFileStorage storage = new RaftPersistentFileStorage(file.getAbsolutePath())
+            .setLogStream(logStream)
+            .setLogDirectory("/tmp/logs")
+            .save();
+
+        // the second save writes into the first slot
+        storage.setLogDirectory("/tmp/other-logs").save();
+
+        corruptFirstSlot();
+
+        // when
+        final RaftPersistentFileStorage loadedStorage = new RaftPersistentFileStorage(file.getAbsolutePath());
+
+        // then
+        assertThat(loadedStorage.getLogDirectory()).isEqualTo("/tmp/logs");
+    }
+
+    @Test
+    public void shouldLoadAndConvertConfigurationOfOlderVersion() throws Exception
+    {
+        // given
+        final RaftConfiguration configuration = new RaftConfiguration();
+        configuration.setTopicName(wrapString("default-topic"));
+        configuration.setPartitionId(0);
+        configuration.setLogDirectory("/tmp/logs");
+
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[configuration.getEncodedLength()]);
+        configuration.write(buffer, 0);
+        Files.write(file.toPath(), buffer.byteArray());
+
+        // when
+        final RaftPersistentFileStorage storage = new RaftPersistentFileStorage(file.getAbsolutePath());
+        storage.setLogStream(logStream).save();
+
+        // then
+        assertThat(storage.getLogDirectory()).isEqualTo("/tmp/logs");
+
+        final RaftPersistentFileStorage loadedStorage = new RaftPersistentFileStorage(file.getAbsolutePath());
+        assertThat(loadedStorage.getLogDirectory()).isEqualTo("/tmp/logs");
+        assertThat(bufferAsString(loadedStorage.getTopicName())).isEqualTo("default-topic");
+    }
+
+    @Test
+    public void shouldSaveConfigurationLargerThanSlot()
+    {
+        // given
+        final RaftPersistentFileStorage storage = new RaftPersistentFileStorage(file.getAbsolutePath())
+            .setLogStream(logStream)
+            .setLogDirectory("/tmp/logs")
+            .save();
+
+        final String host = new String(new char[64]).replace('\0', 'a');
+        for (int i = 0; i < 200; i++)
+        {
+            storage.addMember(new SocketAddress(host, 8000 + i));
+        }
+
+        // when
+        storage.save();
+
+        // then
+        final RaftPersistentFileStorage loadedStorage = new RaftPersistentFileStorage(file.getAbsolutePath());
+        assertThat(loadedStorage.getMembers()).hasSize(200);
+    }
+
+    @Test
+    public void shouldNotWriteUnchangedConfiguration() throws Exception
+    {
+        // given
+        final RaftPersistentFileStorage storage = new RaftPersistentFileStorage(file.getAbsolutePath())
+            .setLogStream(logStream)
+            .setLogDirectory("/tmp/logs")
+            .save();
+
+        // when
+        storage.save();
+        storage.setLogDirectory("/tmp/other-logs").save();
+
+        // then the changed configuration is written into the first slot
+        corruptFirstSlot();
+
+        final RaftPersistentFileStorage loadedStorage = new RaftPersistentFileStorage(file.getAbsolutePath());
+        assertThat(loadedStorage.getLogDirectory()).isEqualTo("/tmp/logs");
+    }
+
+    private void corruptFirstSlot() throws Exception
+    {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+        {
+            raf.seek(FIRST_SLOT_CONFIGURATION_OFFSET);
+            final int value = raf.read();
+            raf.seek(FIRST_SLOT_CONFIGURATION_OFFSET);
+            raf.write(~value);
+        }
+    }
+}
@@ -569,6 +569,50 @@ public class TopicSubscriptionTest
         assertThat(firstPushedEvent.getSequenceNumber()).isGreaterThan(subscriptionResponse.getSequenceNumber());
     }
 
+    @Test
+    public void shouldPushEventsToMultipleSubscriptionsExactlyOnce()
+    {
+        // given
+        final long firstSubscriberKey = apiRule.openTopicSubscription("foo", 0).await().key();
+        final long secondSubscriberKey = apiRule.openTopicSubscription("bar", 0).await().key();
+
+        final int numTasks = 10;
+
+        // when
+        for (int i = 0; i < numTasks; i++)
+        {
+            apiRule.createCmdRequest()
+                .topicName(DEFAULT_TOPIC_NAME)
+                .partitionId(DEFAULT_PARTITION_ID)
+                .eventTypeTask()
+                .command()
+                    .put("state", "CREATE")
+                    .put("type", "foo")
+                    .put("retries", 1)
+                    .done()
+                .sendAndAwait();
+        }
+
+        // then
+        final List<SubscribedEvent> taskEvents = apiRule.subscribedEvents()
+            .filter((e) -> e.eventType() == EventType.TASK_EVENT && "CREATED".equals(e.event().get("state")))
+            .limit(2 * numTasks)
+            .collect(Collectors.toList());
+
+        final List<Long> firstPositions = taskEvents.stream()
+            .filter((e) -> e.subscriberKey() == firstSubscriberKey)
+            .map((e) -> e.position())
+            .collect(Collectors.toList());
+
+        final List<Long> secondPositions = taskEvents.stream()
+            .filter((e) -> e.subscriberKey() == secondSubscriberKey)
+            .map((e) -> e.position())
+            .collect(Collectors.toList());
+
+        assertThat(firstPositions).hasSize(numTasks).doesNotHaveDuplicates();
+        assertThat(secondPositions).containsExactlyElementsOf(firstPositions);
+    }
+
     protected String getStringOfLength(int numCharacters)
     {
         final char[] characters = new char[numCharacters];
@@ -0,0 +1,380 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.event.processor;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import io.zeebe.broker.test.MockStreamProcessorController;
+import io.zeebe.broker.test.WrittenEvent;
+import io.zeebe.broker.transport.clientapi.CommandResponseWriter;
+import io.zeebe.broker.transport.clientapi.ErrorResponseWriter;
+import io.zeebe.broker.transport.clientapi.SubscribedEventWriter;
+import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.logstreams.processor.EventProcessor;
+import io.zeebe.logstreams.processor.StreamProcessorContext;
+import io.zeebe.msgpack.UnpackedObject;
+import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.protocol.impl.BrokerEventMetadata;
+import io.zeebe.servicecontainer.ServiceName;
+import io.zeebe.servicecontainer.ServiceStartContext;
+import io.zeebe.util.buffer.BufferReader;
+import io.zeebe.util.buffer.BufferWriter;
+import io.zeebe.util.time.ClockUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class TopicSubscriptionManagementProcessorTest
+{
+    private static final DirectBuffer SUBSCRIPTION_NAME = wrapString("sub");
+    private static final long SUBSCRIBER_KEY = 2L;
+
+    private static final int ACK_FLUSH_INTERVAL = 1000;
+    private static final int ACK_FLUSH_THRESHOLD = 3;
+
+    private static final Instant NOW = Instant.ofEpochMilli(10_000L);
+
+    @Mock
+    private CommandResponseWriter responseWriter;
+
+    @Mock
+    private ErrorResponseWriter errorWriter;
+
+    @Mock
+    private Supplier<SubscribedEventWriter> eventWriterFactory;
+
+    @Mock
+    private ServiceStartContext serviceContext;
+
+    @Mock
+    private TopicSubscriptionPushMultiplexer pushMultiplexer;
+
+    @Mock
+    private LogStream sourceStream;
+
+    @Mock
+    private LogStream targetStream;
+
+    @Rule
+    public MockStreamProcessorController<TopicSubscriptionEvent> mockController =
+        new MockStreamProcessorController<>(TopicSubscriptionEvent.class, EventType.SUBSCRIPTION_EVENT);
+
+    private TopicSubscriptionManagementProcessor processor;
+
+    @Before
+    public void setUp()
+    {
+        MockitoAnnotations.initMocks(this);
+
+        ClockUtil.setCurrentTime(NOW);
+
+        when(sourceStream.getTopicName()).thenReturn(wrapString("test-topic"));
+        when(sourceStream.getPartitionId()).thenReturn(1);
+        when(targetStream.getTerm()).thenReturn(3);
+        when(serviceContext.removeService(any(ServiceName.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        final SubscriptionCfg config = new SubscriptionCfg();
+        config.ackFlushInterval = ACK_FLUSH_INTERVAL;
+        config.ackFlushThreshold = ACK_FLUSH_THRESHOLD;
+
+        processor = new TopicSubscriptionManagementProcessor(
+                ServiceName.newServiceName("test-log", LogStream.class),
+                responseWriter,
+                errorWriter,
+                eventWriterFactory,
+                serviceContext,
+                pushMultiplexer,
+                config);
+
+        final StreamProcessorContext context = new StreamProcessorContext();
+        context.setSourceStream(sourceStream);
+        context.setTargetStream(targetStream);
+
+        mockController.initStreamProcessor(processor, context);
+    }
+
+    @After
+    public void tearDown()
+    {
+        processor.onClose();
+
+        ClockUtil.reset();
+    }
+
+    @Test
+    public void shouldNotFlushAckBeforeInterval()
+    {
+        // given
+        givenSubscription();
+
+        // when
+        receiveAck(10L);
+        ClockUtil.setCurrentTime(NOW.plusMillis(ACK_FLUSH_INTERVAL - 1));
+        processor.isSuspended();
+
+        // then
+        assertThat(mockController.getWrittenEvents()).isEmpty();
+    }
+
+    @Test
+    public void shouldFlushAckOnInterval()
+    {
+        // given
+        givenSubscription();
+        receiveAck(10L);
+
+        // when
+        ClockUtil.setCurrentTime(NOW.plusMillis(ACK_FLUSH_INTERVAL));
+        processor.isSuspended();
+
+        // then
+        assertThat(mockController.getWrittenEvents()).hasSize(1);
+        assertWrittenAck(mockController.getLastWrittenEvent(), 10L);
+    }
+
+    @Test
+    public void shouldFlushOnlyLatestAckOnInterval()
+    {
+        // given
+        givenSubscription();
+        receiveAck(10L);
+        receiveAck(11L);
+
+        // when
+        ClockUtil.setCurrentTime(NOW.plusMillis(ACK_FLUSH_INTERVAL));
+        processor.isSuspended();
+
+        ClockUtil.setCurrentTime(NOW.plusMillis(2 * ACK_FLUSH_INTERVAL));
+        processor.isSuspended();
+
+        // then the ack is written once
+        assertThat(mockController.getWrittenEvents()).hasSize(1);
+        assertWrittenAck(mockController.getLastWrittenEvent(), 11L);
+    }
+
+    @Test
+    public void shouldFlushAckOnThreshold()
+    {
+        // given
+        givenSubscription();
+
+        // when
+        for (int i = 1; i <= ACK_FLUSH_THRESHOLD; i++)
+        {
+            receiveAck(i);
+        }
+
+        // then without waiting for the interval
+        assertThat(mockController.getWrittenEvents()).hasSize(1);
+        assertWrittenAck(mockController.getLastWrittenEvent(), ACK_FLUSH_THRESHOLD);
+    }
+
+    @Test
+    public void shouldFlushAckOnSubscriptionClose()
+    {
+        // given
+        givenSubscription();
+        processor.getAckBuffer().offer(SUBSCRIPTION_NAME, 10L);
+
+        // when the ack is not yet drained
+        final CompletableFuture<Void> closeFuture = processor.closePushProcessorAsync(SUBSCRIBER_KEY);
+        mockController.drainCommandQueue();
+
+        // then
+        assertThat(closeFuture).isDone();
+        assertThat(mockController.getWrittenEvents()).hasSize(1);
+        assertWrittenAck(mockController.getLastWrittenEvent(), 10L);
+    }
+
+    @Test
+    public void shouldFlushAckOnSnapshot() throws Exception
+    {
+        // given
+        givenSubscription();
+        receiveAck(10L);
+
+        // when
+        processor.getStateResource().writeSnapshot(new ByteArrayOutputStream());
+
+        // then
+        assertThat(mockController.getWrittenEvents()).hasSize(1);
+        assertWrittenAck(mockController.getLastWrittenEvent(), 10L);
+    }
+
+    @Test
+    public void shouldNotFlushAckTwice() throws Exception
+    {
+        // given
+        givenSubscription();
+        receiveAck(10L);
+        processor.getStateResource().writeSnapshot(new ByteArrayOutputStream());
+
+        // when
+        ClockUtil.setCurrentTime(NOW.plusMillis(ACK_FLUSH_INTERVAL));
+        processor.isSuspended();
+
+        // then
+        assertThat(mockController.getWrittenEvents()).hasSize(1);
+    }
+
+    @Test
+    public void shouldFilterAllSubscriptionStatesHandledByProcessor()
+    {
+        final TopicSubscriptionEvent event = new TopicSubscriptionEvent();
+
+        for (TopicSubscriptionState state : TopicSubscriptionState.values())
+        {
+            // given
+            event.reset();
+            event.setState(state)
+                .setName(SUBSCRIPTION_NAME, 0, SUBSCRIPTION_NAME.capacity())
+                .setAckPosition(1L);
+
+            final LoggedEvent loggedEvent = loggedEvent(EventType.SUBSCRIPTION_EVENT, event);
+
+            // when
+            final EventProcessor eventProcessor = processor.onEvent(loggedEvent);
+
+            // then
+            final boolean isProcessed = TopicSubscriptionManagementProcessor.PROCESSED_SUBSCRIPTION_STATES.contains(state);
+
+            assertThat(processor.subscriptionStateFilter.applies(loggedEvent))
+                .as("filter applies to state %s", state)
+                .isEqualTo(isProcessed);
+            assertThat(eventProcessor != null)
+                .as("processor handles state %s", state)
+                .isEqualTo(isProcessed);
+        }
+    }
+
+    @Test
+    public void shouldFilterAllSubscriberStatesHandledByProcessor()
+    {
+        final TopicSubscriberEvent event = new TopicSubscriberEvent();
+
+        for (TopicSubscriberState state : TopicSubscriberState.values())
+        {
+            // given
+            event.reset();
+            event.setState(state)
+                .setName("sub")
+                .setStartPosition(1L)
+                .setPrefetchCapacity(10);
+
+            final LoggedEvent loggedEvent = loggedEvent(EventType.SUBSCRIBER_EVENT, event);
+
+            // when
+            final EventProcessor eventProcessor = processor.onEvent(loggedEvent);
+
+            // then
+            final boolean isProcessed = TopicSubscriptionManagementProcessor.PROCESSED_SUBSCRIBER_STATES.contains(state);
+
+            assertThat(processor.subscriberStateFilter.applies(loggedEvent))
+                .as("filter applies to state %s", state)
+                .isEqualTo(isProcessed);
+            assertThat(eventProcessor != null)
+                .as("processor handles state %s", state)
+                .isEqualTo(isProcessed);
+        }
+    }
+
+    protected TopicSubscriptionPushProcessor givenSubscription()
+    {
+        final TopicSubscriptionPushProcessor pushProcessor = new TopicSubscriptionPushProcessor(
+                1,
+                SUBSCRIBER_KEY,
+                0L,
+                SUBSCRIPTION_NAME,
+                0,
+                mock(SubscribedEventWriter.class),
+                pushMultiplexer);
+
+        processor.registerPushProcessor(pushProcessor);
+
+        return pushProcessor;
+    }
+
+    protected void receiveAck(long ackPosition)
+    {
+        processor.getAckBuffer().offer(SUBSCRIPTION_NAME, ackPosition);
+        processor.isSuspended();
+    }
+
+    protected static void assertWrittenAck(WrittenEvent<TopicSubscriptionEvent> writtenEvent, long ackPosition)
+    {
+        final TopicSubscriptionEvent ack = writtenEvent.getValue();
+
+        assertThat(ack.getState()).isEqualTo(TopicSubscriptionState.ACKNOWLEDGE);
+        assertThat(ack.getName()).isEqualTo(SUBSCRIPTION_NAME);
+        assertThat(ack.getAckPosition()).isEqualTo(ackPosition);
+        assertThat(writtenEvent.getMetadata().getEventType()).isEqualTo(EventType.SUBSCRIPTION_EVENT);
+    }
+
+    protected static LoggedEvent loggedEvent(EventType eventType, UnpackedObject value)
+    {
+        final LoggedEvent event = mock(LoggedEvent.class);
+
+        final DirectBuffer valueBuffer = write(value);
+        when(event.getValueBuffer()).thenReturn(valueBuffer);
+        when(event.getValueOffset()).thenReturn(0);
+        when(event.getValueLength()).thenReturn(valueBuffer.capacity());
+
+        doAnswer(invocation ->
+        {
+            final BufferReader reader = (BufferReader) invocation.getArguments()[0];
+            reader.wrap(valueBuffer, 0, valueBuffer.capacity());
+            return null;
+        }).when(event).readValue(any());
+
+        final BrokerEventMetadata metadata = new BrokerEventMetadata();
+        metadata.eventType(eventType);
+
+        final DirectBuffer metadataBuffer = write(metadata);
+        doAnswer(invocation ->
+        {
+            final BufferReader reader = (BufferReader) invocation.getArguments()[0];
+            reader.wrap(metadataBuffer, 0, metadataBuffer.capacity());
+            return null;
+        }).when(event).readMetadata(any());
+
+        return event;
+    }
+
+    protected static DirectBuffer write(BufferWriter writer)
+    {
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[writer.getLength()]);
+        writer.write(buffer, 0);
+        return buffer;
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.event.processor;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.zeebe.broker.task.data.TaskEvent;
+import io.zeebe.broker.test.MockStreamProcessorController;
+import io.zeebe.broker.transport.clientapi.SubscribedEventWriter;
+import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.logstreams.log.LogStreamReader;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.logstreams.processor.EventProcessor;
+import io.zeebe.logstreams.processor.StreamProcessorContext;
+import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.test.util.FluentAnswer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class TopicSubscriptionPushMultiplexerTest
+{
+    private static final int PREFETCH_CAPACITY = 2;
+
+    @Rule
+    public MockStreamProcessorController<TaskEvent> mockController = new MockStreamProcessorController<>(
+        TaskEvent.class,
+        event -> event.setType(wrapString("test")),
+        EventType.TASK_EVENT,
+        0L);
+
+    private TopicSubscriptionPushMultiplexer multiplexer;
+
+    private LogStream sourceStream;
+
+    private long nextSubscriberKey = 1L;
+
+    @Before
+    public void setUp()
+    {
+        sourceStream = mock(LogStream.class);
+        when(sourceStream.getTopicName()).thenReturn(wrapString("test-topic"));
+        when(sourceStream.getPartitionId()).thenReturn(1);
+
+        multiplexer = new TopicSubscriptionPushMultiplexer();
+
+        mockController.initStreamProcessor(multiplexer);
+    }
+
+    @Test
+    public void shouldAttachSubscriptionAtNextPosition()
+    {
+        // given
+        processEvents(2);
+        final Subscription subscription = openSubscription(0);
+
+        // when
+        multiplexer.attachAsync(subscription.processor, 2L);
+        mockController.drainCommandQueue();
+
+        processEvents(2);
+
+        // then
+        assertThat(subscription.processor.isSuspended()).isTrue();
+        assertThat(subscription.pushedPositions()).containsExactly(2L, 3L);
+    }
+
+    @Test
+    public void shouldRejectAttachBehindLastPosition()
+    {
+        // given
+        processEvents(3);
+        final Subscription subscription = openSubscription(0);
+
+        // when
+        multiplexer.attachAsync(subscription.processor, 2L);
+        mockController.drainCommandQueue();
+
+        processEvents(1);
+
+        // then the subscription continues on its own cursor
+        assertThat(subscription.processor.isSuspended()).isFalse();
+        assertThat(subscription.pushedPositions()).isEmpty();
+    }
+
+    @Test
+    public void shouldNotPushEventsBeforeAttachedPosition()
+    {
+        // given a subscription which is ahead of the multiplexer
+        final Subscription subscription = openSubscription(0);
+
+        // when
+        multiplexer.attachAsync(subscription.processor, 3L);
+        mockController.drainCommandQueue();
+
+        processEvents(5);
+
+        // then
+        assertThat(subscription.pushedPositions()).containsExactly(3L, 4L);
+    }
+
+    @Test
+    public void shouldPushToSubscriptionsAttachedAtDifferentPositions()
+    {
+        // given
+        final Subscription firstSubscription = openSubscription(0);
+        final Subscription secondSubscription = openSubscription(0);
+
+        // when
+        multiplexer.attachAsync(firstSubscription.processor, 0L);
+        multiplexer.attachAsync(secondSubscription.processor, 2L);
+        mockController.drainCommandQueue();
+
+        processEvents(4);
+
+        // then
+        assertThat(firstSubscription.pushedPositions()).containsExactly(0L, 1L, 2L, 3L);
+        assertThat(secondSubscription.pushedPositions()).containsExactly(2L, 3L);
+    }
+
+    @Test
+    public void shouldDetachSubscriptionWhileOthersContinue()
+    {
+        // given
+        final Subscription slowSubscription = openSubscription(PREFETCH_CAPACITY);
+        final Subscription fastSubscription = openSubscription(0);
+
+        attach(slowSubscription, 0L);
+        attach(fastSubscription, 0L);
+
+        // when the prefetch window of the slow subscription is exhausted
+        processEvents(4);
+
+        // then
+        assertThat(slowSubscription.pushedPositions()).containsExactly(0L, 1L);
+        assertThat(fastSubscription.pushedPositions()).containsExactly(0L, 1L, 2L, 3L);
+    }
+
+    @Test
+    public void shouldContinueOnOwnCursorAtDetachedPosition()
+    {
+        // given
+        final Subscription subscription = openSubscription(PREFETCH_CAPACITY);
+        attach(subscription, 0L);
+
+        processEvents(3);
+
+        // when
+        final boolean suspended = subscription.processor.isSuspended();
+
+        // then the cursor is set to the first event that was not pushed,
+        // and stays suspended until the subscriber acknowledges events
+        verify(subscription.reader).seek(2L);
+        assertThat(suspended).isTrue();
+    }
+
+    @Test
+    public void shouldNotPushToClosedSubscription()
+    {
+        // given
+        final Subscription closedSubscription = openSubscription(0);
+        final Subscription openSubscription = openSubscription(0);
+
+        attach(closedSubscription, 0L);
+        attach(openSubscription, 0L);
+
+        processEvents(1);
+
+        // when
+        closedSubscription.processor.disable();
+        processEvents(1);
+
+        // then
+        assertThat(closedSubscription.pushedPositions()).containsExactly(0L);
+        assertThat(openSubscription.pushedPositions()).containsExactly(0L, 1L);
+    }
+
+    @Test
+    public void shouldResumeAfterStall()
+    {
+        // given a subscription that was detached at position 2
+        final Subscription subscription = openSubscription(PREFETCH_CAPACITY);
+        attach(subscription, 0L);
+
+        processEvents(2);
+        final LoggedEvent stalledEvent = processEvent();
+
+        // when the subscriber acknowledges the events
+        subscription.processor.onAck(1L);
+
+        assertThat(subscription.processor.isSuspended()).isFalse();
+        verify(subscription.reader).seek(2L);
+
+        // and the own cursor reads the event the subscription was detached at
+        final EventProcessor eventProcessor = subscription.processor.onEvent(stalledEvent);
+        eventProcessor.processEvent();
+        assertThat(eventProcessor.executeSideEffects()).isTrue();
+
+        // then the subscription is attached again and receives the following events from the multiplexer
+        mockController.drainCommandQueue();
+        assertThat(subscription.processor.isSuspended()).isTrue();
+
+        subscription.processor.onAck(2L);
+        processEvents(2);
+
+        assertThat(subscription.pushedPositions()).containsExactly(0L, 1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    public void shouldRetryPushAfterStalledWrite()
+    {
+        // given
+        final Subscription firstSubscription = openSubscription(0);
+        final Subscription secondSubscription = openSubscription(0);
+
+        attach(firstSubscription, 0L);
+        attach(secondSubscription, 0L);
+
+        final LoggedEvent event = mockController.buildLoggedEvent(1L, e ->
+        { });
+
+        secondSubscription.failingWrites = 1;
+
+        // when
+        final EventProcessor eventProcessor = multiplexer.onEvent(event);
+        eventProcessor.processEvent();
+
+        final boolean firstAttempt = eventProcessor.executeSideEffects();
+        final boolean secondAttempt = eventProcessor.executeSideEffects();
+
+        // then the event is pushed once to each subscription
+        assertThat(firstAttempt).isFalse();
+        assertThat(secondAttempt).isTrue();
+
+        assertThat(firstSubscription.pushedPositions()).containsExactly(0L);
+        assertThat(secondSubscription.pushedPositions()).containsExactly(0L);
+    }
+
+    @Test
+    public void shouldRejectAttachWhenClosed()
+    {
+        // given
+        final Subscription subscription = openSubscription(0);
+        multiplexer.onClose();
+
+        // when
+        multiplexer.attachAsync(subscription.processor, 0L);
+        mockController.drainCommandQueue();
+        processEvents(1);
+
+        // then
+        assertThat(subscription.processor.isSuspended()).isFalse();
+        assertThat(subscription.pushedPositions()).isEmpty();
+    }
+
+    protected Subscription openSubscription(int prefetchCapacity)
+    {
+        final Subscription subscription = new Subscription(nextSubscriberKey++, prefetchCapacity);
+
+        final StreamProcessorContext context = new StreamProcessorContext();
+        context.setSourceStream(sourceStream);
+        context.setSourceLogStreamReader(subscription.reader);
+
+        subscription.processor.onOpen(context);
+        subscription.processor.enable();
+
+        return subscription;
+    }
+
+    protected void attach(Subscription subscription, long nextPosition)
+    {
+        multiplexer.attachAsync(subscription.processor, nextPosition);
+        mockController.drainCommandQueue();
+    }
+
+    protected void processEvents(int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            processEvent();
+        }
+    }
+
+    protected LoggedEvent processEvent()
+    {
+        final LoggedEvent event = mockController.buildLoggedEvent(1L, e ->
+        { });
+        mockController.processEvent(event);
+        return event;
+    }
+
+    protected class Subscription
+    {
+        protected final SubscribedEventWriter writer = mock(SubscribedEventWriter.class, new FluentAnswer());
+        protected final LogStreamReader reader = mock(LogStreamReader.class);
+        protected final TopicSubscriptionPushProcessor processor;
+
+        protected final List<Long> pushedPositions = new ArrayList<>();
+        protected long writtenPosition;
+        protected int failingWrites = 0;
+
+        Subscription(long subscriberKey, int prefetchCapacity)
+        {
+            processor = new TopicSubscriptionPushProcessor(
+                    1,
+                    subscriberKey,
+                    0L,
+                    wrapString("sub"),
+                    prefetchCapacity,
+                    writer,
+                    multiplexer);
+
+            doAnswer(invocation ->
+            {
+                writtenPosition = (long) invocation.getArguments()[0];
+                return writer;
+            }).when(writer).position(anyLong());
+
+            doAnswer(invocation ->
+            {
+                if (failingWrites > 0)
+                {
+                    failingWrites--;
+                    return false;
+                }
+                else
+                {
+                    pushedPositions.add(writtenPosition);
+                    return true;
+                }
+            }).when(writer).tryWriteMessage(anyInt());
+        }
+
+        /**
+         * @return the positions of the events the subscriber has received
+         */
+        protected List<Long> pushedPositions()
+        {
+            return pushedPositions;
+        }
+    }
+}
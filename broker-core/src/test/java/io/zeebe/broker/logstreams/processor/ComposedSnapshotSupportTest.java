@@ -0,0 +1,204 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import io.zeebe.logstreams.spi.SnapshotSupport;
+
+public class ComposedSnapshotSupportTest
+{
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void shouldWriteFormatHeader() throws Exception
+    {
+        // given
+        final ComposedSnapshotSupport snapshotSupport = new ComposedSnapshotSupport(new ByteSnapshot((byte) 1));
+
+        // when
+        final byte[] snapshot = writeSnapshot(snapshotSupport);
+
+        // then
+        final DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(snapshot));
+        assertThat(inputStream.readInt()).isEqualTo(ComposedSnapshotSupport.FORMAT_MAGIC);
+        assertThat(inputStream.readInt()).isEqualTo(ComposedSnapshotSupport.FORMAT_VERSION);
+    }
+
+    @Test
+    public void shouldRecoverPartsOfMultipleChunks() throws Exception
+    {
+        // given
+        final byte[] largeState = new byte[ComposedSnapshotSupport.CHUNK_SIZE * 2 + 7];
+        new Random(42).nextBytes(largeState);
+
+        final ByteSnapshot firstSnapshot = new ByteSnapshot(largeState);
+        final ByteSnapshot emptySnapshot = new ByteSnapshot();
+        final ByteSnapshot lastSnapshot = new ByteSnapshot((byte) 4, (byte) 5);
+
+        final ComposedSnapshotSupport snapshotSupport = new ComposedSnapshotSupport(firstSnapshot, emptySnapshot, lastSnapshot);
+
+        final byte[] snapshot = writeSnapshot(snapshotSupport);
+        snapshotSupport.reset();
+
+        // when
+        snapshotSupport.recoverFromSnapshot(new ByteArrayInputStream(snapshot));
+
+        // then
+        assertThat(firstSnapshot.state).isEqualTo(largeState);
+        assertThat(emptySnapshot.state).isEmpty();
+        assertThat(lastSnapshot.state).containsExactly((byte) 4, (byte) 5);
+    }
+
+    @Test
+    public void shouldRecoverNextPartIfPartIsNotReadCompletely() throws Exception
+    {
+        // given
+        final PrefixSnapshot firstSnapshot = new PrefixSnapshot((byte) 1, (byte) 2, (byte) 3);
+        final ByteSnapshot secondSnapshot = new ByteSnapshot((byte) 4);
+
+        final ComposedSnapshotSupport snapshotSupport = new ComposedSnapshotSupport(firstSnapshot, secondSnapshot);
+
+        final byte[] snapshot = writeSnapshot(snapshotSupport);
+        snapshotSupport.reset();
+
+        // when
+        snapshotSupport.recoverFromSnapshot(new ByteArrayInputStream(snapshot));
+
+        // then
+        assertThat(firstSnapshot.firstByte).isEqualTo((byte) 1);
+        assertThat(secondSnapshot.state).containsExactly((byte) 4);
+    }
+
+    @Test
+    public void shouldRecoverSnapshotWithoutHeaderIntoFirstPart() throws Exception
+    {
+        // given a snapshot written by the first processor alone
+        final byte[] uncomposedSnapshot = new byte[] {1, 2, 3, 4, 5};
+
+        final ByteSnapshot firstSnapshot = new ByteSnapshot();
+        final ByteSnapshot secondSnapshot = new ByteSnapshot((byte) 6);
+
+        final ComposedSnapshotSupport snapshotSupport = new ComposedSnapshotSupport(firstSnapshot, secondSnapshot);
+
+        // when
+        snapshotSupport.recoverFromSnapshot(new ByteArrayInputStream(uncomposedSnapshot));
+
+        // then
+        assertThat(firstSnapshot.state).isEqualTo(uncomposedSnapshot);
+        assertThat(secondSnapshot.state).isEmpty();
+    }
+
+    @Test
+    public void shouldFailToRecoverSnapshotOfUnsupportedVersion() throws Exception
+    {
+        // given
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+
+        dataOutputStream.writeInt(ComposedSnapshotSupport.FORMAT_MAGIC);
+        dataOutputStream.writeInt(ComposedSnapshotSupport.FORMAT_VERSION + 1);
+        dataOutputStream.flush();
+
+        final ComposedSnapshotSupport snapshotSupport = new ComposedSnapshotSupport(new ByteSnapshot());
+
+        // then
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("Unsupported version");
+
+        // when
+        snapshotSupport.recoverFromSnapshot(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+
+    private static byte[] writeSnapshot(SnapshotSupport snapshotSupport) throws Exception
+    {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        snapshotSupport.writeSnapshot(outputStream);
+
+        return outputStream.toByteArray();
+    }
+
+    private static class ByteSnapshot implements SnapshotSupport
+    {
+        protected byte[] state;
+
+        ByteSnapshot(byte... state)
+        {
+            this.state = state;
+        }
+
+        @Override
+        public void writeSnapshot(OutputStream outputStream) throws Exception
+        {
+            outputStream.write(state);
+        }
+
+        @Override
+        public void recoverFromSnapshot(InputStream inputStream) throws Exception
+        {
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            final byte[] readBuffer = new byte[1024];
+
+            int length;
+            while ((length = inputStream.read(readBuffer)) >= 0)
+            {
+                buffer.write(readBuffer, 0, length);
+            }
+
+            state = buffer.toByteArray();
+        }
+
+        @Override
+        public void reset()
+        {
+            state = new byte[0];
+        }
+    }
+
+    /**
+     * Reads only the first byte of its state on recovery.
+     */
+    private static class PrefixSnapshot extends ByteSnapshot
+    {
+        protected byte firstByte;
+
+        PrefixSnapshot(byte... state)
+        {
+            super(state);
+        }
+
+        @Override
+        public void recoverFromSnapshot(InputStream inputStream) throws Exception
+        {
+            firstByte = (byte) inputStream.read();
+        }
+    }
+}
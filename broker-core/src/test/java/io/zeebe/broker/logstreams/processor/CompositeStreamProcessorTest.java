@@ -0,0 +1,279 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.zeebe.logstreams.log.LogStreamWriter;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.logstreams.processor.EventProcessor;
+import io.zeebe.logstreams.processor.StreamProcessor;
+import io.zeebe.logstreams.spi.SnapshotSupport;
+
+public class CompositeStreamProcessorTest
+{
+    private StreamProcessor firstProcessor;
+    private StreamProcessor secondProcessor;
+
+    private EventProcessor firstEventProcessor;
+    private EventProcessor secondEventProcessor;
+
+    private LoggedEvent event;
+    private LogStreamWriter writer;
+
+    private CompositeStreamProcessor compositeProcessor;
+
+    @Before
+    public void setUp()
+    {
+        firstProcessor = mock(StreamProcessor.class);
+        secondProcessor = mock(StreamProcessor.class);
+
+        firstEventProcessor = mock(EventProcessor.class);
+        secondEventProcessor = mock(EventProcessor.class);
+
+        event = mock(LoggedEvent.class);
+        writer = mock(LogStreamWriter.class);
+
+        when(firstProcessor.onEvent(event)).thenReturn(firstEventProcessor);
+        when(secondProcessor.onEvent(event)).thenReturn(secondEventProcessor);
+
+        when(firstEventProcessor.executeSideEffects()).thenReturn(true);
+        when(secondEventProcessor.executeSideEffects()).thenReturn(true);
+    }
+
+    @Test
+    public void shouldOfferEventToAllProcessors()
+    {
+        // given
+        compositeProcessor = new CompositeStreamProcessor()
+                .processor(firstProcessor, m -> true)
+                .processor(secondProcessor, m -> true);
+
+        // when
+        final EventProcessor eventProcessor = compositeProcessor.onEvent(event);
+
+        eventProcessor.processEvent();
+        eventProcessor.executeSideEffects();
+        eventProcessor.writeEvent(writer);
+        eventProcessor.updateState();
+        compositeProcessor.afterEvent();
+
+        // then
+        verify(firstEventProcessor).processEvent();
+        verify(firstEventProcessor).executeSideEffects();
+        verify(firstEventProcessor).writeEvent(writer);
+        verify(firstEventProcessor).updateState();
+        verify(firstProcessor).afterEvent();
+
+        verify(secondEventProcessor).processEvent();
+        verify(secondEventProcessor).executeSideEffects();
+        verify(secondEventProcessor).writeEvent(writer);
+        verify(secondEventProcessor).updateState();
+        verify(secondProcessor).afterEvent();
+    }
+
+    @Test
+    public void shouldNotOfferEventIfFilterDoesNotApply()
+    {
+        // given
+        compositeProcessor = new CompositeStreamProcessor()
+                .processor(firstProcessor, m -> true)
+                .processor(secondProcessor, m -> false);
+
+        // when
+        final EventProcessor eventProcessor = compositeProcessor.onEvent(event);
+        eventProcessor.processEvent();
+        compositeProcessor.afterEvent();
+
+        // then
+        verify(firstEventProcessor).processEvent();
+
+        verify(secondProcessor, never()).onEvent(any());
+        verify(secondProcessor, never()).afterEvent();
+    }
+
+    @Test
+    public void shouldSkipEventIfNoProcessorHandlesIt()
+    {
+        // given
+        when(firstProcessor.onEvent(event)).thenReturn(null);
+
+        compositeProcessor = new CompositeStreamProcessor()
+                .processor(firstProcessor, m -> true)
+                .processor(secondProcessor, m -> false);
+
+        // when
+        final EventProcessor eventProcessor = compositeProcessor.onEvent(event);
+
+        // then
+        assertThat(eventProcessor).isNull();
+    }
+
+    @Test
+    public void shouldNotRepeatSideEffectsOnRetry()
+    {
+        // given
+        when(secondEventProcessor.executeSideEffects()).thenReturn(false, true);
+
+        compositeProcessor = new CompositeStreamProcessor()
+                .processor(firstProcessor, m -> true)
+                .processor(secondProcessor, m -> true);
+
+        final EventProcessor eventProcessor = compositeProcessor.onEvent(event);
+
+        // when
+        final boolean firstAttempt = eventProcessor.executeSideEffects();
+        final boolean secondAttempt = eventProcessor.executeSideEffects();
+
+        // then
+        assertThat(firstAttempt).isFalse();
+        assertThat(secondAttempt).isTrue();
+
+        verify(firstEventProcessor, times(1)).executeSideEffects();
+        verify(secondEventProcessor, times(2)).executeSideEffects();
+    }
+
+    @Test
+    public void shouldNotRepeatWriteOnRetry()
+    {
+        // given
+        when(firstEventProcessor.writeEvent(writer)).thenReturn(5L);
+        when(secondEventProcessor.writeEvent(writer)).thenReturn(-1L, 7L);
+
+        compositeProcessor = new CompositeStreamProcessor()
+                .processor(firstProcessor, m -> true)
+                .processor(secondProcessor, m -> true);
+
+        final EventProcessor eventProcessor = compositeProcessor.onEvent(event);
+
+        // when
+        final long firstAttempt = eventProcessor.writeEvent(writer);
+        final long secondAttempt = eventProcessor.writeEvent(writer);
+
+        // then
+        assertThat(firstAttempt).isEqualTo(-1L);
+        assertThat(secondAttempt).isEqualTo(7L);
+
+        verify(firstEventProcessor, times(1)).writeEvent(writer);
+        verify(secondEventProcessor, times(2)).writeEvent(writer);
+    }
+
+    @Test
+    public void shouldBeSuspendedIfAnyProcessorIsSuspended()
+    {
+        // given
+        when(secondProcessor.isSuspended()).thenReturn(true);
+
+        compositeProcessor = new CompositeStreamProcessor()
+                .processor(firstProcessor, m -> true)
+                .processor(secondProcessor, m -> true);
+
+        // then
+        assertThat(compositeProcessor.isSuspended()).isTrue();
+    }
+
+    @Test
+    public void shouldApplyEventFilterIfAnyProcessorFilterApplies()
+    {
+        // given
+        compositeProcessor = new CompositeStreamProcessor()
+                .processor(firstProcessor, m -> false)
+                .processor(secondProcessor, m -> true);
+
+        // then
+        assertThat(compositeProcessor.eventFilter().applies(null)).isTrue();
+    }
+
+    @Test
+    public void shouldWriteAndRecoverSnapshotOfAllProcessors() throws Exception
+    {
+        // given
+        final ByteSnapshot firstSnapshot = new ByteSnapshot((byte) 1, (byte) 2, (byte) 3);
+        final ByteSnapshot secondSnapshot = new ByteSnapshot((byte) 4);
+
+        when(firstProcessor.getStateResource()).thenReturn(firstSnapshot);
+        when(secondProcessor.getStateResource()).thenReturn(secondSnapshot);
+
+        compositeProcessor = new CompositeStreamProcessor()
+                .processor(firstProcessor, m -> true)
+                .processor(secondProcessor, m -> true);
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        compositeProcessor.getStateResource().writeSnapshot(outputStream);
+
+        compositeProcessor.getStateResource().reset();
+
+        // when
+        compositeProcessor.getStateResource().recoverFromSnapshot(new ByteArrayInputStream(outputStream.toByteArray()));
+
+        // then
+        assertThat(firstSnapshot.state).containsExactly((byte) 1, (byte) 2, (byte) 3);
+        assertThat(secondSnapshot.state).containsExactly((byte) 4);
+    }
+
+    private static class ByteSnapshot implements SnapshotSupport
+    {
+        private byte[] state;
+
+        ByteSnapshot(byte... state)
+        {
+            this.state = state;
+        }
+
+        @Override
+        public void writeSnapshot(OutputStream outputStream) throws Exception
+        {
+            outputStream.write(state);
+        }
+
+        @Override
+        public void recoverFromSnapshot(InputStream inputStream) throws Exception
+        {
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+            int b;
+            while ((b = inputStream.read()) >= 0)
+            {
+                buffer.write(b);
+            }
+
+            state = buffer.toByteArray();
+        }
+
+        @Override
+        public void reset()
+        {
+            state = new byte[0];
+        }
+    }
+}
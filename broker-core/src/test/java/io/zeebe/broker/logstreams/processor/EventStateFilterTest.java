@@ -0,0 +1,139 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import io.zeebe.broker.task.data.TaskEvent;
+import io.zeebe.broker.task.data.TaskHeaders;
+import io.zeebe.broker.task.data.TaskState;
+import io.zeebe.broker.workflow.data.WorkflowInstanceEvent;
+import io.zeebe.broker.workflow.data.WorkflowInstanceState;
+import io.zeebe.msgpack.UnpackedObject;
+
+public class EventStateFilterTest
+{
+    private final EventStateFilter filter = new EventStateFilter(TaskState.LOCKED, TaskState.FAILED);
+
+    @Test
+    public void shouldAcceptEventWithMatchingState()
+    {
+        // given
+        final DirectBuffer event = encode(taskEvent(TaskState.FAILED));
+
+        // when
+        final boolean applies = filter.applies(event, 0, event.capacity());
+
+        // then
+        assertThat(applies).isTrue();
+    }
+
+    @Test
+    public void shouldRejectEventWithOtherState()
+    {
+        // given
+        final DirectBuffer event = encode(taskEvent(TaskState.CREATED));
+
+        // when
+        final boolean applies = filter.applies(event, 0, event.capacity());
+
+        // then
+        assertThat(applies).isFalse();
+    }
+
+    @Test
+    public void shouldRejectEventWithStateStartingLikeMatchingState()
+    {
+        // given
+        final DirectBuffer event = encode(taskEvent(TaskState.LOCK));
+
+        // when
+        final boolean applies = filter.applies(event, 0, event.capacity());
+
+        // then
+        assertThat(applies).isFalse();
+    }
+
+    @Test
+    public void shouldReadEventAtOffset()
+    {
+        // given
+        final DirectBuffer encodedEvent = encode(taskEvent(TaskState.LOCKED));
+
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[encodedEvent.capacity() + 10]);
+        buffer.putBytes(10, encodedEvent, 0, encodedEvent.capacity());
+
+        // when
+        final boolean applies = filter.applies(buffer, 10, encodedEvent.capacity());
+
+        // then
+        assertThat(applies).isTrue();
+    }
+
+    @Test
+    public void shouldFilterWorkflowInstanceEvent()
+    {
+        // given
+        final EventStateFilter workflowInstanceFilter = new EventStateFilter(WorkflowInstanceState.PAYLOAD_UPDATED);
+
+        final DirectBuffer payloadUpdated = encode(new WorkflowInstanceEvent()
+                .setState(WorkflowInstanceState.PAYLOAD_UPDATED)
+                .setBpmnProcessId(wrapString("process")));
+
+        final DirectBuffer activityActivated = encode(new WorkflowInstanceEvent()
+                .setState(WorkflowInstanceState.ACTIVITY_ACTIVATED)
+                .setBpmnProcessId(wrapString("process")));
+
+        // then
+        assertThat(workflowInstanceFilter.applies(payloadUpdated, 0, payloadUpdated.capacity())).isTrue();
+        assertThat(workflowInstanceFilter.applies(activityActivated, 0, activityActivated.capacity())).isFalse();
+    }
+
+    @Test
+    public void shouldAcceptEventWithoutState()
+    {
+        // given
+        final DirectBuffer event = encode(new TaskHeaders());
+
+        // when
+        final boolean applies = filter.applies(event, 0, event.capacity());
+
+        // then
+        assertThat(applies).isTrue();
+    }
+
+    private static TaskEvent taskEvent(TaskState state)
+    {
+        return new TaskEvent()
+                .setState(state)
+                .setType(wrapString("test"))
+                .setLockOwner(wrapString("owner"));
+    }
+
+    private static DirectBuffer encode(UnpackedObject object)
+    {
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[object.getEncodedLength()]);
+        object.write(buffer, 0);
+        return buffer;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.CountersManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.logstreams.log.LogStreamWriter;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.logstreams.processor.EventProcessor;
+import io.zeebe.logstreams.processor.StreamProcessor;
+import io.zeebe.logstreams.processor.StreamProcessorContext;
+import io.zeebe.util.time.ClockUtil;
+
+public class InstrumentedStreamProcessorTest
+{
+    private StreamProcessor streamProcessor;
+    private EventProcessor eventProcessor;
+    private LoggedEvent event;
+    private LogStream sourceStream;
+
+    private InstrumentedStreamProcessor instrumentedProcessor;
+
+    @Before
+    public void setUp()
+    {
+        streamProcessor = mock(StreamProcessor.class);
+        eventProcessor = mock(EventProcessor.class);
+
+        event = mock(LoggedEvent.class);
+        when(event.getPosition()).thenReturn(42L);
+
+        final CountersManager countersManager = new CountersManager(
+                new UnsafeBuffer(ByteBuffer.allocateDirect(64 * 1024)),
+                new UnsafeBuffer(ByteBuffer.allocateDirect(8 * 1024)));
+
+        instrumentedProcessor = new InstrumentedStreamProcessor(streamProcessor, "test", countersManager);
+
+        sourceStream = mock(LogStream.class);
+
+        final StreamProcessorContext context = new StreamProcessorContext();
+        context.setSourceStream(sourceStream);
+
+        instrumentedProcessor.onOpen(context);
+    }
+
+    @After
+    public void cleanUp()
+    {
+        instrumentedProcessor.close();
+
+        ClockUtil.reset();
+    }
+
+    @Test
+    public void shouldDelegateEventProcessing()
+    {
+        // given
+        when(streamProcessor.onEvent(event)).thenReturn(eventProcessor);
+        when(eventProcessor.executeSideEffects()).thenReturn(true);
+        when(eventProcessor.writeEvent(any())).thenReturn(123L);
+
+        final LogStreamWriter writer = mock(LogStreamWriter.class);
+
+        // when
+        final EventProcessor processor = instrumentedProcessor.onEvent(event);
+        processor.processEvent();
+        final boolean sideEffectsExecuted = processor.executeSideEffects();
+        final long position = processor.writeEvent(writer);
+        processor.updateState();
+
+        // then
+        assertThat(sideEffectsExecuted).isTrue();
+        assertThat(position).isEqualTo(123L);
+
+        verify(eventProcessor).processEvent();
+        verify(eventProcessor).executeSideEffects();
+        verify(eventProcessor).writeEvent(writer);
+        verify(eventProcessor).updateState();
+    }
+
+    @Test
+    public void shouldRecordProcessedEvent()
+    {
+        // given
+        when(streamProcessor.onEvent(event)).thenReturn(eventProcessor);
+        when(eventProcessor.writeEvent(any())).thenReturn(123L);
+
+        // when
+        final EventProcessor processor = instrumentedProcessor.onEvent(event);
+        processor.processEvent();
+        processor.executeSideEffects();
+        processor.writeEvent(mock(LogStreamWriter.class));
+        processor.updateState();
+
+        // then
+        assertThat(instrumentedProcessor.processedEventsCounter.get()).isEqualTo(1);
+        assertThat(instrumentedProcessor.writtenEventsCounter.get()).isEqualTo(1);
+        assertThat(instrumentedProcessor.lastProcessedPositionCounter.get()).isEqualTo(42L);
+        assertThat(instrumentedProcessor.processTimeCounter.get()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    public void shouldNotRecordWriteIfNoEventIsWritten()
+    {
+        // given
+        when(streamProcessor.onEvent(event)).thenReturn(eventProcessor);
+        when(eventProcessor.writeEvent(any())).thenReturn(0L);
+
+        // when
+        final EventProcessor processor = instrumentedProcessor.onEvent(event);
+        processor.writeEvent(mock(LogStreamWriter.class));
+
+        // then
+        assertThat(instrumentedProcessor.writtenEventsCounter.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldSkipEventIfNotProcessed()
+    {
+        // given
+        when(streamProcessor.onEvent(event)).thenReturn(null);
+
+        // when
+        final EventProcessor processor = instrumentedProcessor.onEvent(event);
+
+        // then
+        assertThat(processor).isNull();
+        assertThat(instrumentedProcessor.processedEventsCounter.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldRecordCommitPosition()
+    {
+        // given
+        when(sourceStream.getCommitPosition()).thenReturn(50L);
+
+        // when
+        instrumentedProcessor.isSuspended();
+
+        // then
+        assertThat(instrumentedProcessor.commitPositionCounter.get()).isEqualTo(50L);
+    }
+
+    @Test
+    public void shouldRecordLatencyFromCommitToProcessing()
+    {
+        // given
+        ClockUtil.setCurrentTime(Instant.ofEpochMilli(1000L));
+        when(sourceStream.getCommitPosition()).thenReturn(42L);
+
+        instrumentedProcessor.isSuspended();
+
+        when(streamProcessor.onEvent(event)).thenReturn(eventProcessor);
+
+        // when
+        ClockUtil.setCurrentTime(Instant.ofEpochMilli(1005L));
+
+        final EventProcessor processor = instrumentedProcessor.onEvent(event);
+        processor.processEvent();
+        processor.updateState();
+
+        // then
+        final LatencyHistogram histogram = instrumentedProcessor.processingLatency;
+
+        assertThat(histogram.getCount(LatencyHistogram.bucketIndex(5L))).isEqualTo(1);
+        assertThat(LatencyHistogram.bucketIndex(5L)).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldRecordLatencyOfEventsCommittedLater()
+    {
+        // given
+        ClockUtil.setCurrentTime(Instant.ofEpochMilli(1000L));
+        when(sourceStream.getCommitPosition()).thenReturn(40L);
+        instrumentedProcessor.isSuspended();
+
+        ClockUtil.setCurrentTime(Instant.ofEpochMilli(1100L));
+        when(sourceStream.getCommitPosition()).thenReturn(42L);
+        instrumentedProcessor.isSuspended();
+
+        when(streamProcessor.onEvent(event)).thenReturn(eventProcessor);
+
+        // when
+        ClockUtil.setCurrentTime(Instant.ofEpochMilli(1101L));
+
+        final EventProcessor processor = instrumentedProcessor.onEvent(event);
+        processor.processEvent();
+        processor.updateState();
+
+        // then the event at position 42 is committed by the second mark
+        assertThat(instrumentedProcessor.processingLatency.getCount(LatencyHistogram.bucketIndex(1L))).isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.logstreams.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import io.zeebe.logstreams.spi.SnapshotSupport;
+
+public class VersionedSnapshotSupportTest
+{
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void shouldRecoverSnapshotOfSameVersion() throws Exception
+    {
+        // given
+        final ByteSnapshot state = new ByteSnapshot((byte) 1, (byte) 2, (byte) 3);
+        final VersionedSnapshotSupport snapshotSupport = new VersionedSnapshotSupport("test", 2, state);
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        snapshotSupport.writeSnapshot(outputStream);
+        snapshotSupport.reset();
+
+        // when
+        snapshotSupport.recoverFromSnapshot(new ByteArrayInputStream(outputStream.toByteArray()));
+
+        // then
+        assertThat(state.state).containsExactly((byte) 1, (byte) 2, (byte) 3);
+    }
+
+    @Test
+    public void shouldFailToRecoverSnapshotWithoutVersion() throws Exception
+    {
+        // given
+        final VersionedSnapshotSupport snapshotSupport = new VersionedSnapshotSupport("test", 2, new ByteSnapshot());
+
+        // then
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("the snapshot has no version");
+
+        // when
+        snapshotSupport.recoverFromSnapshot(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5}));
+    }
+
+    @Test
+    public void shouldFailToRecoverSnapshotOfOtherVersion() throws Exception
+    {
+        // given
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+
+        dataOutputStream.writeInt(VersionedSnapshotSupport.FORMAT_MAGIC);
+        dataOutputStream.writeInt(1);
+        dataOutputStream.flush();
+
+        final VersionedSnapshotSupport snapshotSupport = new VersionedSnapshotSupport("test", 2, new ByteSnapshot());
+
+        // then
+        thrown.expect(IllegalStateException.class);
+        thrown.expectMessage("unsupported version '1'");
+
+        // when
+        snapshotSupport.recoverFromSnapshot(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+
+    private static class ByteSnapshot implements SnapshotSupport
+    {
+        protected byte[] state;
+
+        ByteSnapshot(byte... state)
+        {
+            this.state = state;
+        }
+
+        @Override
+        public void writeSnapshot(OutputStream outputStream) throws Exception
+        {
+            outputStream.write(state);
+        }
+
+        @Override
+        public void recoverFromSnapshot(InputStream inputStream) throws Exception
+        {
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            final byte[] readBuffer = new byte[1024];
+
+            int length;
+            while ((length = inputStream.read(readBuffer)) >= 0)
+            {
+                buffer.write(readBuffer, 0, length);
+            }
+
+            state = buffer.toByteArray();
+        }
+
+        @Override
+        public void reset()
+        {
+            state = new byte[0];
+        }
+    }
+}
@@ -193,4 +193,67 @@ public class ScheduledExecutorTest
         assertThat(scheduledCommand.getDueDate()).isEqualTo(now.toEpochMilli());
     }
 
+    @Test
+    public void shouldScheduleAfterMoreThanOneRoundOfTheWheel()
+    {
+        // given
+        executor.stopAsync();
+        agentRunnerService.waitUntilDone();
+
+        executor = new ScheduledExecutorImpl(agentRunnerService, 16);
+        executor.start();
+
+        final AtomicInteger invocationsCmd1 = new AtomicInteger(0);
+        final AtomicInteger invocationsCmd2 = new AtomicInteger(0);
+
+        executor.schedule(() -> invocationsCmd1.incrementAndGet(), Duration.ofMillis(20));
+        executor.schedule(() -> invocationsCmd2.incrementAndGet(), Duration.ofMillis(36));
+
+        agentRunnerService.waitUntilDone();
+
+        // when
+        ClockUtil.setCurrentTime(now.plusMillis(20));
+        agentRunnerService.waitUntilDone();
+
+        // then
+        assertThat(invocationsCmd1.get()).isEqualTo(1);
+        assertThat(invocationsCmd2.get()).isEqualTo(0);
+
+        // when
+        ClockUtil.setCurrentTime(now.plusMillis(36));
+        agentRunnerService.waitUntilDone();
+
+        // then
+        assertThat(invocationsCmd1.get()).isEqualTo(1);
+        assertThat(invocationsCmd2.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldScheduleManyCommands()
+    {
+        final int commands = 10_000;
+        final AtomicInteger invocations = new AtomicInteger(0);
+
+        for (int i = 0; i < commands; i++)
+        {
+            executor.schedule(() -> invocations.incrementAndGet(), Duration.ofMillis(i));
+
+            if (i % 100 == 0)
+            {
+                agentRunnerService.waitUntilDone();
+            }
+        }
+        agentRunnerService.waitUntilDone();
+
+        ClockUtil.setCurrentTime(now.plusMillis(commands / 2));
+        agentRunnerService.waitUntilDone();
+
+        assertThat(invocations.get()).isEqualTo(commands / 2 + 1);
+
+        ClockUtil.setCurrentTime(now.plusMillis(commands));
+        agentRunnerService.waitUntilDone();
+
+        assertThat(invocations.get()).isEqualTo(commands);
+    }
+
 }
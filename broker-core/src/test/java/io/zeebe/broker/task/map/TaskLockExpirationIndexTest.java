@@ -0,0 +1,159 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.task.map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TaskLockExpirationIndexTest
+{
+    private final TaskLockExpirationIndex index = new TaskLockExpirationIndex();
+
+    private final List<Long> expiredTasks = new ArrayList<>();
+    private final List<Long> expiredPositions = new ArrayList<>();
+
+    @After
+    public void tearDown()
+    {
+        index.close();
+    }
+
+    @Test
+    public void shouldExpireOnlyElapsedLocks()
+    {
+        // given
+        index.add(1L, 10L, 1_000L);
+        index.add(2L, 20L, 5_500L);
+        index.add(3L, 30L, 9_000L);
+
+        // when
+        final int expired = index.sweep(5_500L, this::recordExpiredLock);
+
+        // then
+        assertThat(expired).isEqualTo(2);
+        assertThat(expiredTasks).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(expiredPositions).containsExactlyInAnyOrder(10L, 20L);
+    }
+
+    @Test
+    public void shouldNotExpireLockInCurrentBucketBeforeLockTime()
+    {
+        // given
+        index.add(1L, 10L, 5_900L);
+
+        // when
+        index.sweep(5_100L, this::recordExpiredLock);
+        final int expired = index.sweep(5_900L, this::recordExpiredLock);
+
+        // then
+        assertThat(expired).isEqualTo(1);
+        assertThat(expiredTasks).containsExactly(1L);
+    }
+
+    @Test
+    public void shouldNotExpireRemovedLocks()
+    {
+        // given
+        index.add(1L, 10L, 1_000L);
+        index.add(2L, 20L, 1_000L);
+        index.add(3L, 30L, 1_000L);
+
+        // when
+        index.remove(2L);
+        index.sweep(2_000L, this::recordExpiredLock);
+
+        // then
+        assertThat(expiredTasks).containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    @Test
+    public void shouldExpireLockOnlyOnce()
+    {
+        // given
+        index.add(1L, 10L, 1_000L);
+        index.sweep(2_000L, this::recordExpiredLock);
+
+        // when
+        final int expired = index.sweep(3_000L, this::recordExpiredLock);
+
+        // then
+        assertThat(expired).isEqualTo(0);
+        assertThat(expiredTasks).containsExactly(1L);
+    }
+
+    @Test
+    public void shouldKeepLockIfNotHandled()
+    {
+        // given
+        index.add(1L, 10L, 1_000L);
+        index.add(2L, 20L, 2_000L);
+
+        // when
+        final int expired = index.sweep(3_000L, (taskKey, position) -> false);
+
+        // then
+        assertThat(expired).isEqualTo(0);
+
+        index.sweep(3_000L, this::recordExpiredLock);
+        assertThat(expiredTasks).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    public void shouldExpireLockAddedBeforeLastSweep()
+    {
+        // given
+        index.add(1L, 10L, 8_000L);
+        index.sweep(9_000L, this::recordExpiredLock);
+
+        // when
+        index.add(2L, 20L, 1_000L);
+        index.sweep(9_000L, this::recordExpiredLock);
+
+        // then
+        assertThat(expiredTasks).containsExactly(1L, 2L);
+    }
+
+    @Test
+    public void shouldReplaceLockOfSameTask()
+    {
+        // given
+        index.add(1L, 10L, 1_000L);
+
+        // when
+        index.add(1L, 20L, 9_000L);
+        index.sweep(2_000L, this::recordExpiredLock);
+
+        // then
+        assertThat(expiredTasks).isEmpty();
+
+        index.sweep(9_000L, this::recordExpiredLock);
+        assertThat(expiredPositions).containsExactly(20L);
+    }
+
+    protected boolean recordExpiredLock(long taskKey, long position)
+    {
+        expiredTasks.add(taskKey);
+        expiredPositions.add(position);
+        return true;
+    }
+}
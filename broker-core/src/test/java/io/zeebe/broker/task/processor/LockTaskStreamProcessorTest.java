@@ -22,6 +22,11 @@ import static io.zeebe.util.StringUtil.getBytes;
 import static io.zeebe.util.buffer.BufferUtil.wrapString;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.Duration;
@@ -37,8 +42,8 @@ import io.zeebe.broker.task.data.TaskState;
 import io.zeebe.broker.test.MockStreamProcessorController;
 import io.zeebe.broker.test.WrittenEvent;
 import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.logstreams.log.LogStreamReader;
 import io.zeebe.logstreams.log.LoggedEvent;
-import io.zeebe.logstreams.processor.EventFilter;
 import io.zeebe.logstreams.processor.StreamProcessorContext;
 import io.zeebe.protocol.Protocol;
 import io.zeebe.protocol.impl.BrokerEventMetadata;
@@ -71,6 +76,9 @@ public class LockTaskStreamProcessorTest
     @Mock
     private LogStream mockLogStream;
 
+    @Mock
+    private LogStreamReader mockTargetLogStreamReader;
+
     @Rule
     public ExpectedException thrown = ExpectedException.none();
 
@@ -87,7 +95,7 @@ public class LockTaskStreamProcessorTest
         // fix the current time to calculate lock time
         ClockUtil.setCurrentTime(Instant.now());
 
-        streamProcessor = new LockTaskStreamProcessor(TASK_TYPE_BUFFER);
+        streamProcessor = new LockTaskStreamProcessor();
 
         subscription = new TaskSubscription(wrapString("topic"), 0, TASK_TYPE_BUFFER, Duration.ofMinutes(5).toMillis(), wrapString("owner-1"), 11);
         subscription.setSubscriberKey(1L);
@@ -100,6 +108,7 @@ public class LockTaskStreamProcessorTest
         final StreamProcessorContext context = new StreamProcessorContext();
         context.setSourceStream(mockLogStream);
         context.setTargetStream(mockLogStream);
+        context.setTargetLogStreamReader(mockTargetLogStreamReader);
 
         mockController.initStreamProcessor(streamProcessor, context);
     }
@@ -232,7 +241,7 @@ public class LockTaskStreamProcessorTest
     }
 
     @Test
-    public void shouldIgnoreTaskWithOtherType()
+    public void shouldNotLockTaskWithoutSubscriptionOfType()
     {
         // given
         streamProcessor.addSubscription(subscription);
@@ -466,19 +475,6 @@ public class LockTaskStreamProcessorTest
         streamProcessor.addSubscription(subscription);
     }
 
-    @Test
-    public void shouldFailToAddSubscriptionIfWrongType()
-    {
-        final TaskSubscription subscription = new TaskSubscription(wrapString("topic"), 0, ANOTHER_TASK_TYPE_BUFFER, Duration.ofMinutes(5).toMillis(),
-                wrapString("owner-1"), 11);
-        subscription.setCredits(5);
-
-        thrown.expect(RuntimeException.class);
-        thrown.expectMessage("Subscription task type is not equal to 'test-task'.");
-
-        streamProcessor.addSubscription(subscription);
-    }
-
     @Test
     public void shouldFailToAddSubscriptionIfZeroLockDuration()
     {
@@ -511,27 +507,378 @@ public class LockTaskStreamProcessorTest
     }
 
     @Test
-    public void shouldAcceptEventForReprocessingWithSubscribedType()
+    public void shouldLockTasksOfDifferentTypes()
     {
-        final LoggedEvent loggedEvent = mockController.buildLoggedEvent(2L, event -> event
+        // given
+        final TaskSubscription subscriptionOfAnotherType = new TaskSubscription(wrapString("topic"), 0, ANOTHER_TASK_TYPE_BUFFER, Duration.ofMinutes(10).toMillis(), wrapString("owner-2"), 12);
+        subscriptionOfAnotherType.setSubscriberKey(2L);
+        subscriptionOfAnotherType.setCredits(2);
+
+        streamProcessor.addSubscription(subscription);
+        streamProcessor.addSubscription(subscriptionOfAnotherType);
+
+        // when
+        mockController.processEvent(2L, event -> event
                 .setState(TaskState.CREATED)
-                .setType(TASK_TYPE_BUFFER));
+                .setType(TASK_TYPE_BUFFER, 0, TASK_TYPE_BUFFER.capacity()));
+
+        mockController.processEvent(3L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(ANOTHER_TASK_TYPE_BUFFER, 0, ANOTHER_TASK_TYPE_BUFFER.capacity()));
 
-        final EventFilter eventFilter = LockTaskStreamProcessor.reprocessingEventFilter(TASK_TYPE_BUFFER);
+        // then
+        assertThat(mockController.getWrittenEvents()).hasSize(2);
+
+        final WrittenEvent<TaskEvent> firstWrittenEvent = mockController.getWrittenEvents().get(0);
+        assertThat(firstWrittenEvent.getKey()).isEqualTo(2L);
+        assertThat(firstWrittenEvent.getValue().getLockOwner()).isEqualTo(wrapString("owner-1"));
+        assertThat(firstWrittenEvent.getMetadata().getSubscriberKey()).isEqualTo(subscription.getSubscriberKey());
 
-        assertThat(eventFilter.applies(loggedEvent)).isTrue();
+        final WrittenEvent<TaskEvent> secondWrittenEvent = mockController.getWrittenEvents().get(1);
+        assertThat(secondWrittenEvent.getKey()).isEqualTo(3L);
+        assertThat(secondWrittenEvent.getValue().getLockOwner()).isEqualTo(wrapString("owner-2"));
+        assertThat(secondWrittenEvent.getMetadata().getSubscriberKey()).isEqualTo(subscriptionOfAnotherType.getSubscriberKey());
     }
 
     @Test
-    public void shouldRejectEventForReprocessingWithDifferentType()
+    public void shouldNotTrackTasksOfTypeWithoutSubscription()
     {
-        final LoggedEvent loggedEvent = mockController.buildLoggedEvent(2L, event -> event
+        // given
+        streamProcessor.addSubscription(subscription);
+
+        // when
+        mockController.processEvent(2L, event -> event
                 .setState(TaskState.CREATED)
-                .setType(ANOTHER_TASK_TYPE_BUFFER));
+                .setType(ANOTHER_TASK_TYPE_BUFFER, 0, ANOTHER_TASK_TYPE_BUFFER.capacity()));
+
+        // then
+        assertThat(streamProcessor.groupsByTaskType).containsOnlyKeys(TASK_TYPE_BUFFER);
+    }
+
+    @Test
+    public void shouldSkipTaskInIgnoredStateWithoutDecoding()
+    {
+        // given
+        streamProcessor.addSubscription(subscription);
 
-        final EventFilter eventFilter = LockTaskStreamProcessor.reprocessingEventFilter(TASK_TYPE_BUFFER);
+        final LoggedEvent completedEvent = mockController.buildLoggedEvent(2L, event -> event
+                .setState(TaskState.COMPLETED));
+
+        // when
+        mockController.processEvent(completedEvent);
+
+        // then
+        verify(completedEvent, never()).readValue(any());
+        assertThat(mockController.getWrittenEvents()).isEmpty();
+    }
+
+    @Test
+    public void shouldFilterAllStatesHandledByProcessor()
+    {
+        final TaskEvent taskEvent = new TaskEvent();
+
+        for (TaskState state : TaskState.values())
+        {
+            taskEvent.reset();
+            taskEvent.setState(state)
+                .setType(TASK_TYPE_BUFFER, 0, TASK_TYPE_BUFFER.capacity())
+                .setRetries(3);
+
+            final boolean isHandled = LockTaskStreamProcessor.isLockable(taskEvent) || LockTaskStreamProcessor.isLockedOrCanceled(taskEvent);
+
+            assertThat(streamProcessor.stateFilter.applies(encode(taskEvent), 0, taskEvent.getLength()))
+                .as("filter applies to state %s", state)
+                .isEqualTo(isHandled);
+        }
+    }
+
+    @Test
+    public void shouldRemoveGroupOfTypeIfLastSubscriptionIsRemoved()
+    {
+        // given
+        subscription.setCredits(1);
+        streamProcessor.addSubscription(subscription);
+        givenSubscriptionOfAnotherType();
+
+        Stream.of(1L, 2L).forEach(key ->
+        {
+            mockController.processEvent(key, event -> event
+                    .setState(TaskState.CREATED)
+                    .setType(TASK_TYPE_BUFFER, 0, TASK_TYPE_BUFFER.capacity()));
+        });
+
+        final TaskTypeGroup group = streamProcessor.groupsByTaskType.get(TASK_TYPE_BUFFER);
+        assertThat(group.hasPendingTasks()).isTrue();
+
+        // when
+        streamProcessor.removeSubscription(subscription.getSubscriberKey());
+        mockController.drainCommandQueue();
+
+        // then
+        assertThat(streamProcessor.groupsByTaskType).doesNotContainKey(TASK_TYPE_BUFFER);
+        assertThat(streamProcessor.groups).doesNotContain(group);
+        assertThat(group.hasPendingTasks()).isFalse();
+    }
+
+    @Test
+    public void shouldLockPendingTaskIfSubscriptionOfTypeIsAdded()
+    {
+        // given
+        streamProcessor.addSubscription(subscription);
+
+        final LoggedEvent pendingEvent = mockController.buildLoggedEvent(2L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(ANOTHER_TASK_TYPE_BUFFER, 0, ANOTHER_TASK_TYPE_BUFFER.capacity()));
+
+        mockController.processEvent(pendingEvent);
+
+        assertThat(mockController.getWrittenEvents()).isEmpty();
+
+        givenTargetEvents(pendingEvent);
+
+        final TaskSubscription subscriptionOfAnotherType = new TaskSubscription(wrapString("topic"), 0, ANOTHER_TASK_TYPE_BUFFER, Duration.ofMinutes(10).toMillis(), wrapString("owner-2"), 12);
+        subscriptionOfAnotherType.setSubscriberKey(2L);
+        subscriptionOfAnotherType.setCredits(2);
+
+        // when
+        streamProcessor.addSubscription(subscriptionOfAnotherType);
+
+        mockController.drainCommandQueue();
+
+        // then the task is found by the rescan of the log
+        assertThat(mockController.getWrittenEvents()).hasSize(1);
+
+        final WrittenEvent<TaskEvent> lastWrittenEvent = mockController.getLastWrittenEvent();
+        assertThat(lastWrittenEvent.getKey()).isEqualTo(2L);
+        assertThat(lastWrittenEvent.getValue().getState()).isEqualTo(TaskState.LOCK);
+        assertThat(lastWrittenEvent.getValue().getLockTime()).isEqualTo(lockTimeOf(subscriptionOfAnotherType));
+        assertThat(lastWrittenEvent.getMetadata().getSubscriberKey()).isEqualTo(subscriptionOfAnotherType.getSubscriberKey());
+
+        // and the event is not handled again when it is processed
+        mockController.processEvent(pendingEvent);
+
+        assertThat(mockController.getWrittenEvents()).hasSize(1);
+    }
+
+    @Test
+    public void shouldLockPendingTasksInOrderIfSubscriptionCreditsIncreased()
+    {
+        // given
+        final TaskSubscription subscriptionOfAnotherType = new TaskSubscription(wrapString("topic"), 0, ANOTHER_TASK_TYPE_BUFFER, Duration.ofMinutes(10).toMillis(), wrapString("owner-2"), 12);
+        subscriptionOfAnotherType.setSubscriberKey(2L);
+        subscriptionOfAnotherType.setCredits(2);
+
+        subscription.setCredits(1);
+
+        streamProcessor.addSubscription(subscription);
+        streamProcessor.addSubscription(subscriptionOfAnotherType);
+
+        Stream.of(1L, 2L, 3L).forEach(key ->
+        {
+            mockController.processEvent(key, event -> event
+                    .setState(TaskState.CREATED)
+                    .setType(TASK_TYPE_BUFFER, 0, TASK_TYPE_BUFFER.capacity()));
+        });
+
+        assertThat(mockController.getWrittenEvents()).hasSize(1);
+
+        // when
+        streamProcessor.increaseSubscriptionCreditsAsync(new CreditsRequest(subscription.getSubscriberKey(), 1));
+        streamProcessor.isSuspended();
+        mockController.drainCommandQueue();
+
+        // then the oldest pending task is locked from the queued event
+        assertThat(mockController.getWrittenEvents()).hasSize(2);
+
+        final WrittenEvent<TaskEvent> lastWrittenEvent = mockController.getLastWrittenEvent();
+        assertThat(lastWrittenEvent.getKey()).isEqualTo(2L);
+        assertThat(lastWrittenEvent.getValue().getState()).isEqualTo(TaskState.LOCK);
+        assertThat(lastWrittenEvent.getValue().getType()).isEqualTo(TASK_TYPE_BUFFER);
+        assertThat(lastWrittenEvent.getValue().getRetries()).isEqualTo(3);
+        assertThat(lastWrittenEvent.getMetadata().getSubscriberKey()).isEqualTo(subscription.getSubscriberKey());
+
+        verify(mockTargetLogStreamReader, never()).seek(anyLong());
+    }
+
+    @Test
+    public void shouldNotLockPendingTasksWhenCheckingSuspension()
+    {
+        // given
+        subscription.setCredits(1);
+        streamProcessor.addSubscription(subscription);
+        givenSubscriptionOfAnotherType();
+
+        Stream.of(1L, 2L).forEach(key ->
+        {
+            mockController.processEvent(key, event -> event
+                    .setState(TaskState.CREATED)
+                    .setType(TASK_TYPE_BUFFER, 0, TASK_TYPE_BUFFER.capacity()));
+        });
+
+        // when
+        streamProcessor.increaseSubscriptionCreditsAsync(new CreditsRequest(subscription.getSubscriberKey(), 1));
+        streamProcessor.isSuspended();
+
+        // then the pending task is locked by the command
+        assertThat(mockController.getWrittenEvents()).hasSize(1);
+
+        mockController.drainCommandQueue();
+
+        assertThat(mockController.getWrittenEvents()).hasSize(2);
+        assertThat(mockController.getLastWrittenEvent().getKey()).isEqualTo(2L);
+    }
+
+    @Test
+    public void shouldNotLockPendingTaskIfCanceled()
+    {
+        // given
+        subscription.setCredits(1);
+        streamProcessor.addSubscription(subscription);
+        givenSubscriptionOfAnotherType();
+
+        mockController.processEvent(1L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(TASK_TYPE_BUFFER, 0, TASK_TYPE_BUFFER.capacity()));
+
+        mockController.processEvent(2L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(TASK_TYPE_BUFFER, 0, TASK_TYPE_BUFFER.capacity()));
+
+        mockController.processEvent(2L, event -> event
+                .setState(TaskState.CANCELED)
+                .setType(TASK_TYPE_BUFFER, 0, TASK_TYPE_BUFFER.capacity()));
+
+        // when
+        streamProcessor.increaseSubscriptionCreditsAsync(new CreditsRequest(subscription.getSubscriberKey(), 1));
+        streamProcessor.isSuspended();
+        mockController.drainCommandQueue();
+
+        // then
+        assertThat(mockController.getWrittenEvents()).hasSize(1);
+        assertThat(mockController.getLastWrittenEvent().getKey()).isEqualTo(1L);
+    }
+
+    @Test
+    public void shouldLockPendingTaskOnceIfUpdatedWhilePending()
+    {
+        // given
+        subscription.setCredits(1);
+        streamProcessor.addSubscription(subscription);
+        givenSubscriptionOfAnotherType();
+
+        mockController.processEvent(1L, event -> event
+                .setState(TaskState.CREATED)
+                .setType(TASK_TYPE_BUFFER, 0, TASK_TYPE_BUFFER.capacity()));
+
+        mockController.processEvent(2L, event -> event
+                .setState(TaskState.FAILED)
+                .setType(TASK_TYPE_BUFFER, 0, TASK_TYPE_BUFFER.capacity()));
+
+        mockController.processEvent(2L, event -> event
+                .setState(TaskState.RETRIES_UPDATED)
+                .setRetries(5)
+                .setType(TASK_TYPE_BUFFER, 0, TASK_TYPE_BUFFER.capacity()));
+
+        // when
+        streamProcessor.increaseSubscriptionCreditsAsync(new CreditsRequest(subscription.getSubscriberKey(), 2));
+        streamProcessor.isSuspended();
+        mockController.drainCommandQueue();
+
+        // then the task is locked once from the latest event
+        assertThat(mockController.getWrittenEvents()).hasSize(2);
+
+        final WrittenEvent<TaskEvent> lastWrittenEvent = mockController.getLastWrittenEvent();
+        assertThat(lastWrittenEvent.getKey()).isEqualTo(2L);
+        assertThat(lastWrittenEvent.getValue().getRetries()).isEqualTo(5);
+    }
+
+    @Test
+    public void shouldRescanLogIfPendingQueueIsFull()
+    {
+        // given
+        final int pendingTasks = TaskTypeGroup.MAX_PENDING_TASKS + 1;
+
+        subscription.setCredits(1);
+        streamProcessor.addSubscription(subscription);
+        givenSubscriptionOfAnotherType();
+
+        final LoggedEvent[] events = LongStream.rangeClosed(1, pendingTasks + 1)
+            .mapToObj(key -> mockController.buildLoggedEvent(key, event -> event
+                .setState(TaskState.CREATED)
+                .setType(TASK_TYPE_BUFFER, 0, TASK_TYPE_BUFFER.capacity())))
+            .toArray(LoggedEvent[]::new);
+
+        Stream.of(events).forEach(mockController::processEvent);
+
+        // the task which does not fit in the queue is found by a rescan
+        final TaskTypeGroup group = streamProcessor.groupsByTaskType.get(TASK_TYPE_BUFFER);
+        assertThat(group.isRescanning()).isTrue();
+        assertThat(group.getRescanPosition()).isEqualTo(events[pendingTasks].getPosition());
+
+        givenTargetEvents(events);
+
+        // when
+        streamProcessor.increaseSubscriptionCreditsAsync(new CreditsRequest(subscription.getSubscriberKey(), pendingTasks));
+        streamProcessor.isSuspended();
+
+        for (int i = 0; i < 10; i++)
+        {
+            mockController.drainCommandQueue();
+        }
+
+        // then all tasks are locked in order
+        assertThat(mockController.getWrittenEvents()).hasSize(pendingTasks + 1);
+        assertThat(mockController.getWrittenEvents())
+            .extracting(WrittenEvent::getKey)
+            .containsExactlyElementsOf(LongStream.rangeClosed(1, pendingTasks + 1).boxed().collect(Collectors.toList()));
+
+        assertThat(group.isRescanning()).isFalse();
+        assertThat(group.hasPendingTasks()).isFalse();
+    }
+
+    private static DirectBuffer encode(TaskEvent taskEvent)
+    {
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[taskEvent.getLength()]);
+        taskEvent.write(buffer, 0);
+        return buffer;
+    }
+
+    private void givenSubscriptionOfAnotherType()
+    {
+        // keeps the stream processor active while the subscription of the task type has no credits
+        final TaskSubscription subscriptionOfAnotherType = new TaskSubscription(wrapString("topic"), 0, ANOTHER_TASK_TYPE_BUFFER, Duration.ofMinutes(10).toMillis(), wrapString("owner-2"), 12);
+        subscriptionOfAnotherType.setSubscriberKey(2L);
+        subscriptionOfAnotherType.setCredits(2);
+
+        streamProcessor.addSubscription(subscriptionOfAnotherType);
+    }
+
+    private void givenTargetEvents(LoggedEvent... events)
+    {
+        final AtomicInteger nextEvent = new AtomicInteger(events.length);
+
+        doAnswer(invocation ->
+        {
+            nextEvent.set(0);
+            return null;
+        }).when(mockTargetLogStreamReader).seekToFirstEvent();
+
+        when(mockTargetLogStreamReader.seek(anyLong())).thenAnswer(invocation ->
+        {
+            final long position = (long) invocation.getArguments()[0];
+
+            int index = 0;
+            while (index < events.length && events[index].getPosition() < position)
+            {
+                index += 1;
+            }
+            nextEvent.set(index);
+
+            return index < events.length && events[index].getPosition() == position;
+        });
 
-        assertThat(eventFilter.applies(loggedEvent)).isFalse();
+        when(mockTargetLogStreamReader.hasNext()).thenAnswer(invocation -> nextEvent.get() < events.length);
+        when(mockTargetLogStreamReader.next()).thenAnswer(invocation -> events[nextEvent.getAndIncrement()]);
     }
 
     protected long lockTimeOf(TaskSubscription subscription)
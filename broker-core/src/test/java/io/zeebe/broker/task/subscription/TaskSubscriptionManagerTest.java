@@ -26,7 +26,7 @@ import static org.mockito.Mockito.*;
 
 import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
-import java.util.function.Function;
+import java.util.function.Supplier;
 
 import io.zeebe.broker.task.CreditsRequest;
 import io.zeebe.broker.task.TaskSubscriptionManager;
@@ -68,7 +68,7 @@ public class TaskSubscriptionManagerTest
     private ServiceBuilder<Object> mockServiceBuilder;
 
     @Mock
-    private Function<DirectBuffer, LockTaskStreamProcessor> mockStreamProcessorBuilder;
+    private Supplier<LockTaskStreamProcessor> mockStreamProcessorBuilder;
 
     private LogStream mockLogStream;
     private LockTaskStreamProcessor mockStreamProcessor;
@@ -90,21 +90,20 @@ public class TaskSubscriptionManagerTest
         when(mockServiceContext.createService(any(), any())).thenReturn(mockServiceBuilder);
         when(mockServiceContext.removeService(any())).thenReturn(CompletableFuture.completedFuture(null));
 
-        mockStreamProcessor = createMockStreamProcessor(LOG_STREAM_TOPIC_NAME_BUFFER, LOG_STREAM_PARTITION_ID, TASK_TYPE_BUFFER);
+        mockStreamProcessor = createMockStreamProcessor(LOG_STREAM_TOPIC_NAME_BUFFER, LOG_STREAM_PARTITION_ID);
 
         manager = new TaskSubscriptionManager(mockServiceContext, mockStreamProcessorBuilder);
 
         subscription = createTaskSubscription(LOG_STREAM_TOPIC_NAME_BUFFER, LOG_STREAM_PARTITION_ID, TASK_TYPE_BUFFER);
     }
 
-    private LockTaskStreamProcessor createMockStreamProcessor(DirectBuffer logStreamTopicName, int logStreamPartitionId, DirectBuffer taskTypeBuffer)
+    private LockTaskStreamProcessor createMockStreamProcessor(DirectBuffer logStreamTopicName, int logStreamPartitionId)
     {
         final LockTaskStreamProcessor mockStreamProcessor = mock(LockTaskStreamProcessor.class);
 
-        when(mockStreamProcessorBuilder.apply(taskTypeBuffer)).thenReturn(mockStreamProcessor);
+        when(mockStreamProcessorBuilder.get()).thenReturn(mockStreamProcessor);
         when(mockStreamProcessor.getLogStreamTopicName()).thenReturn(logStreamTopicName);
         when(mockStreamProcessor.getLogStreamPartitionId()).thenReturn(logStreamPartitionId);
-        when(mockStreamProcessor.getSubscriptedTaskType()).thenReturn(taskTypeBuffer);
 
         when(mockStreamProcessor.addSubscription(any())).thenReturn(CompletableFuture.completedFuture(null));
         when(mockStreamProcessor.increaseSubscriptionCreditsAsync(any())).thenReturn(true);
@@ -145,10 +144,10 @@ public class TaskSubscriptionManagerTest
         assertThat(future).isCompleted();
         assertThat(subscription.getSubscriberKey()).isEqualTo(0L);
 
-        verify(mockStreamProcessorBuilder).apply(TASK_TYPE_BUFFER);
+        verify(mockStreamProcessorBuilder).get();
         verify(mockStreamProcessor).addSubscription(subscription);
 
-        verify(mockServiceContext).createService(eq(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME, TASK_TYPE)), any());
+        verify(mockServiceContext).createService(eq(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME)), any());
         verify(mockServiceBuilder).install();
     }
 
@@ -169,12 +168,12 @@ public class TaskSubscriptionManagerTest
         assertThat(future).isCompleted();
         assertThat(anotherSubscription.getSubscriberKey()).isEqualTo(1L);
 
-        verify(mockStreamProcessorBuilder, times(1)).apply(TASK_TYPE_BUFFER);
+        verify(mockStreamProcessorBuilder, times(1)).get();
 
         verify(mockStreamProcessor).addSubscription(subscription);
         verify(mockStreamProcessor).addSubscription(anotherSubscription);
 
-        verify(mockServiceContext, times(1)).createService(eq(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME, TASK_TYPE)), any());
+        verify(mockServiceContext, times(1)).createService(eq(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME)), any());
         verify(mockServiceBuilder, times(1)).install();
     }
 
@@ -198,24 +197,22 @@ public class TaskSubscriptionManagerTest
         assertThat(future).isCompleted();
         assertThat(anotherSubscription.getSubscriberKey()).isEqualTo(1L);
 
-        verify(mockStreamProcessorBuilder, times(2)).apply(TASK_TYPE_BUFFER);
+        verify(mockStreamProcessorBuilder, times(2)).get();
 
         verify(mockStreamProcessor).addSubscription(subscription);
         verify(mockStreamProcessor).addSubscription(anotherSubscription);
 
-        verify(mockServiceContext, times(1)).createService(eq(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME, TASK_TYPE)), any());
-        verify(mockServiceContext, times(1)).createService(eq(taskQueueLockStreamProcessorServiceName(ANOTHER_LOG_STREAM_LOG_NAME, TASK_TYPE)), any());
+        verify(mockServiceContext, times(1)).createService(eq(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME)), any());
+        verify(mockServiceContext, times(1)).createService(eq(taskQueueLockStreamProcessorServiceName(ANOTHER_LOG_STREAM_LOG_NAME)), any());
         verify(mockServiceBuilder, times(2)).install();
     }
 
     @Test
-    public void shouldCreateServiceForEachTaskType() throws Exception
+    public void shouldShareServiceForAllTaskTypes() throws Exception
     {
         // given
         final TaskSubscription anotherSubscription = createTaskSubscription(LOG_STREAM_TOPIC_NAME_BUFFER, LOG_STREAM_PARTITION_ID, ANOTHER_TASK_TYPE_BUFFER);
 
-        final LockTaskStreamProcessor anotherMockStreamProcessor = createMockStreamProcessor(LOG_STREAM_TOPIC_NAME_BUFFER, LOG_STREAM_PARTITION_ID, ANOTHER_TASK_TYPE_BUFFER);
-
         manager.addStream(mockLogStream, LOG_STREAM_SERVICE_NAME);
         manager.addSubscription(subscription);
 
@@ -227,15 +224,36 @@ public class TaskSubscriptionManagerTest
         assertThat(future).isCompleted();
         assertThat(anotherSubscription.getSubscriberKey()).isEqualTo(1L);
 
-        verify(mockStreamProcessorBuilder, times(1)).apply(TASK_TYPE_BUFFER);
-        verify(mockStreamProcessorBuilder, times(1)).apply(ANOTHER_TASK_TYPE_BUFFER);
+        verify(mockStreamProcessorBuilder, times(1)).get();
 
         verify(mockStreamProcessor).addSubscription(subscription);
-        verify(anotherMockStreamProcessor).addSubscription(anotherSubscription);
+        verify(mockStreamProcessor).addSubscription(anotherSubscription);
 
-        verify(mockServiceContext, times(1)).createService(eq(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME, TASK_TYPE)), any());
-        verify(mockServiceContext, times(1)).createService(eq(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME, ANOTHER_TASK_TYPE)), any());
-        verify(mockServiceBuilder, times(2)).install();
+        verify(mockServiceContext, times(1)).createService(eq(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME)), any());
+        verify(mockServiceBuilder, times(1)).install();
+    }
+
+    @Test
+    public void shouldCreateServiceAgainAfterRemoveLastSubscription() throws Exception
+    {
+        // given
+        final TaskSubscription anotherSubscription = createTaskSubscription(LOG_STREAM_TOPIC_NAME_BUFFER, LOG_STREAM_PARTITION_ID, ANOTHER_TASK_TYPE_BUFFER);
+
+        manager.addStream(mockLogStream, LOG_STREAM_SERVICE_NAME);
+        manager.addSubscription(subscription);
+        manager.removeSubscription(0L);
+
+        // when
+        final CompletableFuture<Void> future = manager.addSubscription(anotherSubscription);
+        manager.doWork();
+
+        // then
+        assertThat(future).isCompleted();
+
+        verify(mockStreamProcessorBuilder, times(2)).get();
+
+        verify(mockServiceContext).removeService(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME));
+        verify(mockServiceContext, times(2)).createService(eq(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME)), any());
     }
 
     @Test
@@ -275,7 +293,7 @@ public class TaskSubscriptionManagerTest
 
         verify(mockStreamProcessor).removeSubscription(0L);
 
-        verify(mockServiceContext).removeService(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME, TASK_TYPE));
+        verify(mockServiceContext).removeService(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME));
     }
 
     @Test
@@ -297,7 +315,7 @@ public class TaskSubscriptionManagerTest
 
         verify(mockStreamProcessor).removeSubscription(0L);
 
-        verify(mockServiceContext, never()).removeService(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME, TASK_TYPE));
+        verify(mockServiceContext, never()).removeService(taskQueueLockStreamProcessorServiceName(LOG_STREAM_LOG_NAME));
     }
 
     @Test
@@ -276,6 +276,10 @@ public class MockStreamProcessorController<T extends UnpackedObject> extends Ext
         final T event = newEventInstance();
         final DirectBuffer buf = populateAndWrite(event, defaultEventSetter.andThen(eventSetter));
 
+        when(mockLoggedEvent.getValueBuffer()).thenReturn(buf);
+        when(mockLoggedEvent.getValueOffset()).thenReturn(0);
+        when(mockLoggedEvent.getValueLength()).thenReturn(buf.capacity());
+
         doAnswer(invocation ->
         {
             final BufferReader arg = (BufferReader) invocation.getArguments()[0];
@@ -19,16 +19,25 @@ package io.zeebe.broker.transport.clientapi;
 
 import static io.zeebe.dispatcher.impl.log.DataFrameDescriptor.alignedLength;
 import static io.zeebe.util.VarDataUtil.readBytes;
+import static io.zeebe.util.buffer.BufferUtil.bufferAsString;
 import static io.zeebe.util.buffer.BufferUtil.wrapString;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 
+import io.zeebe.broker.event.processor.TopicSubscriptionAckBuffer;
+import io.zeebe.broker.event.processor.TopicSubscriptionEvent;
+import io.zeebe.broker.event.processor.TopicSubscriptionState;
+import io.zeebe.broker.task.CreditsRequest;
+import io.zeebe.broker.task.TaskSubscriptionManager;
 import io.zeebe.broker.task.data.TaskEvent;
 import io.zeebe.broker.task.data.TaskState;
 import io.zeebe.broker.transport.controlmessage.ControlMessageRequestHeaderDescriptor;
@@ -38,10 +47,14 @@ import io.zeebe.logstreams.LogStreams;
 import io.zeebe.logstreams.log.*;
 import io.zeebe.protocol.Protocol;
 import io.zeebe.protocol.clientapi.*;
+import io.zeebe.protocol.clientapi.batch.ExecuteCommandBatchDescriptor;
+import io.zeebe.protocol.clientapi.subscription.TaskSubscriptionCreditsDescriptor;
 import io.zeebe.protocol.impl.BrokerEventMetadata;
 import io.zeebe.test.util.agent.ControllableTaskScheduler;
 import io.zeebe.transport.RemoteAddress;
 import io.zeebe.transport.SocketAddress;
+import io.zeebe.transport.impl.RequestResponseHeaderDescriptor;
+import io.zeebe.transport.impl.TransportHeaderDescriptor;
 import org.agrona.DirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.junit.*;
@@ -283,6 +296,141 @@ public class ClientApiMessageHandlerTest
         assertThat(errorDecoder.errorData()).isEqualTo("Cannot handle message. Template id '999' is not supported.");
     }
 
+    @Test
+    public void shouldHandTaskSubscriptionCreditsToSubscriptionManager()
+    {
+        // given
+        final TaskSubscriptionManager taskSubscriptionManager = mock(TaskSubscriptionManager.class);
+        when(taskSubscriptionManager.increaseSubscriptionCreditsAsync(any(CreditsRequest.class))).thenReturn(true);
+        messageHandler.setTaskSubscriptionManager(taskSubscriptionManager);
+
+        final int writtenLength = writeTaskSubscriptionCreditsToBuffer(buffer, 123L, 5);
+
+        // when
+        final boolean isHandled = messageHandler.onMessage(serverOutput, DEFAULT_ADDRESS, buffer, 0, writtenLength);
+
+        // then
+        assertThat(isHandled).isTrue();
+        assertThat(serverOutput.getSentResponses()).isEmpty();
+
+        verify(taskSubscriptionManager).increaseSubscriptionCreditsAsync(new CreditsRequest(123L, 5));
+    }
+
+    @Test
+    public void shouldRetryTaskSubscriptionCreditsIfNotAccepted()
+    {
+        // given
+        final TaskSubscriptionManager taskSubscriptionManager = mock(TaskSubscriptionManager.class);
+        when(taskSubscriptionManager.increaseSubscriptionCreditsAsync(any(CreditsRequest.class))).thenReturn(false);
+        messageHandler.setTaskSubscriptionManager(taskSubscriptionManager);
+
+        final int writtenLength = writeTaskSubscriptionCreditsToBuffer(buffer, 123L, 5);
+
+        // when
+        final boolean isHandled = messageHandler.onMessage(serverOutput, DEFAULT_ADDRESS, buffer, 0, writtenLength);
+
+        // then
+        assertThat(isHandled).isFalse();
+    }
+
+    @Test
+    public void shouldIgnoreTaskSubscriptionCreditsOfOtherSchema()
+    {
+        // given
+        final TaskSubscriptionManager taskSubscriptionManager = mock(TaskSubscriptionManager.class);
+        messageHandler.setTaskSubscriptionManager(taskSubscriptionManager);
+
+        final int writtenLength = writeTaskSubscriptionCreditsToBuffer(buffer, 123L, 5);
+        headerEncoder.wrap(buffer, 0).schemaId(TaskSubscriptionCreditsDescriptor.SCHEMA_ID + 1);
+
+        // when
+        final boolean isHandled = messageHandler.onMessage(serverOutput, DEFAULT_ADDRESS, buffer, 0, writtenLength);
+
+        // then
+        assertThat(isHandled).isTrue();
+        verify(taskSubscriptionManager, never()).increaseSubscriptionCreditsAsync(any(CreditsRequest.class));
+    }
+
+    @Test
+    public void shouldIgnoreTruncatedTaskSubscriptionCredits()
+    {
+        // given
+        final TaskSubscriptionManager taskSubscriptionManager = mock(TaskSubscriptionManager.class);
+        messageHandler.setTaskSubscriptionManager(taskSubscriptionManager);
+
+        final int writtenLength = writeTaskSubscriptionCreditsToBuffer(buffer, 123L, 5);
+
+        // when
+        final boolean isHandled = messageHandler.onMessage(serverOutput, DEFAULT_ADDRESS, buffer, 0, writtenLength - 1);
+
+        // then
+        assertThat(isHandled).isTrue();
+        verify(taskSubscriptionManager, never()).increaseSubscriptionCreditsAsync(any(CreditsRequest.class));
+    }
+
+    @Test
+    public void shouldHandTopicSubscriptionAckToAckBuffer()
+    {
+        // given
+        final TopicSubscriptionAckBuffer ackBuffer = new TopicSubscriptionAckBuffer(16, 32);
+        messageHandler.addTopicSubscriptionAckBuffer(logStream, ackBuffer);
+
+        final TopicSubscriptionEvent ack = new TopicSubscriptionEvent()
+            .setState(TopicSubscriptionState.ACKNOWLEDGE)
+            .setName(wrapString("foo"), 0, 3)
+            .setAckPosition(123L);
+
+        final int writtenLength = writeCommandRequestToBuffer(buffer, LOG_STREAM_TOPIC_NAME, LOG_STREAM_PARTITION_ID, null, EventType.SUBSCRIPTION_EVENT, encode(ack));
+
+        // when
+        final boolean isHandled = messageHandler.onRequest(serverOutput, DEFAULT_ADDRESS, buffer, 0, writtenLength, REQUEST_ID);
+
+        // then
+        assertThat(isHandled).isTrue();
+        assertThat(serverOutput.getSentResponses()).hasSize(1);
+
+        final List<String> ackedSubscriptions = new ArrayList<>();
+        final List<Long> ackPositions = new ArrayList<>();
+        ackBuffer.drain((name, position) ->
+        {
+            ackedSubscriptions.add(bufferAsString(name));
+            ackPositions.add(position);
+        });
+
+        assertThat(ackedSubscriptions).containsExactly("foo");
+        assertThat(ackPositions).containsExactly(123L);
+
+        final BufferedLogStreamReader logStreamReader = new BufferedLogStreamReader(logStream, true);
+        assertThat(logStreamReader.hasNext()).isFalse();
+    }
+
+    @Test
+    public void shouldWriteTopicSubscriptionAckToLogIfNoAckBufferIsRegistered() throws InterruptedException, ExecutionException
+    {
+        // given
+        final TopicSubscriptionEvent ack = new TopicSubscriptionEvent()
+            .setState(TopicSubscriptionState.ACKNOWLEDGE)
+            .setName(wrapString("foo"), 0, 3)
+            .setAckPosition(123L);
+
+        final int writtenLength = writeCommandRequestToBuffer(buffer, LOG_STREAM_TOPIC_NAME, LOG_STREAM_PARTITION_ID, null, EventType.SUBSCRIPTION_EVENT, encode(ack));
+
+        // when
+        final boolean isHandled = messageHandler.onRequest(serverOutput, DEFAULT_ADDRESS, buffer, 0, writtenLength, REQUEST_ID);
+
+        // then
+        assertThat(isHandled).isTrue();
+        assertThat(serverOutput.getSentResponses()).isEmpty();
+
+        final BufferedLogStreamReader logStreamReader = new BufferedLogStreamReader(logStream, true);
+        waitForAvailableEvent(logStreamReader);
+
+        final BrokerEventMetadata eventMetadata = new BrokerEventMetadata();
+        logStreamReader.next().readMetadata(eventMetadata);
+
+        assertThat(eventMetadata.getEventType()).isEqualTo(EventType.SUBSCRIPTION_EVENT);
+    }
+
     @Test
     public void shouldSendErrorMessageOnRequestWithNewerProtocolVersion()
     {
@@ -345,7 +493,185 @@ public class ClientApiMessageHandlerTest
         assertThat(errorDecoder.errorData()).isEqualTo("Cannot execute command. Invalid event type 'NULL_VAL'.");
     }
 
+    @Test
+    public void shouldHandleCommandBatchRequest() throws InterruptedException, ExecutionException
+    {
+        // given
+        final int writtenLength = writeCommandBatchRequestToBuffer(buffer, LOG_STREAM_TOPIC_NAME, LOG_STREAM_TOPIC_NAME);
+
+        // when
+        final boolean isHandled = messageHandler.onRequest(serverOutput, DEFAULT_ADDRESS, buffer, 0, writtenLength, REQUEST_ID);
+
+        // then
+        assertThat(isHandled).isTrue();
+
+        final BufferedLogStreamReader logStreamReader = new BufferedLogStreamReader(logStream, true);
+        waitForAvailableEvent(logStreamReader);
+
+        final BrokerEventMetadata eventMetadata = new BrokerEventMetadata();
+
+        for (int i = 0; i < 2; i++)
+        {
+            while (!logStreamReader.hasNext())
+            {
+                // wait for event
+            }
+
+            final LoggedEvent loggedEvent = logStreamReader.next();
+            assertThat(loggedEvent.getValueLength()).isEqualTo(TASK_EVENT.length);
+
+            loggedEvent.readMetadata(eventMetadata);
+            assertThat(eventMetadata.getEventType()).isEqualTo(EventType.TASK_EVENT);
+            assertThat(eventMetadata.getRequestStreamId()).isEqualTo(DEFAULT_ADDRESS.getStreamId());
+            assertThat(ExecuteCommandBatchDescriptor.isBatchedRequestId(eventMetadata.getRequestId())).isTrue();
+            assertThat(ExecuteCommandBatchDescriptor.commandIndex(eventMetadata.getRequestId())).isEqualTo(i);
+        }
+
+        // the batch is answered when all commands are answered
+        assertThat(serverOutput.getSentResponses()).isEmpty();
+    }
+
+    @Test
+    public void shouldAnswerCommandBatchWhenAllCommandsAreAnswered() throws InterruptedException, ExecutionException
+    {
+        // given
+        final int writtenLength = writeCommandBatchRequestToBuffer(buffer, LOG_STREAM_TOPIC_NAME, LOG_STREAM_TOPIC_NAME);
+        messageHandler.onRequest(serverOutput, DEFAULT_ADDRESS, buffer, 0, writtenLength, REQUEST_ID);
+
+        final BufferedLogStreamReader logStreamReader = new BufferedLogStreamReader(logStream, true);
+        waitForAvailableEvent(logStreamReader);
+
+        final BrokerEventMetadata eventMetadata = new BrokerEventMetadata();
+        final long[] requestIds = new long[2];
+
+        for (int i = 0; i < 2; i++)
+        {
+            while (!logStreamReader.hasNext())
+            {
+                // wait for event
+            }
+
+            logStreamReader.next().readMetadata(eventMetadata);
+            requestIds[i] = eventMetadata.getRequestId();
+        }
+
+        final CommandResponseWriter responseWriter = new CommandResponseWriter(serverOutput, messageHandler.getBatchResponseCollector());
+        final TaskEvent createdEvent = new TaskEvent()
+                .setState(TaskState.CREATED)
+                .setType(wrapString("test"));
+        final TaskEvent rejectedEvent = new TaskEvent()
+                .setState(TaskState.COMPLETE_REJECTED)
+                .setType(wrapString("test"));
+
+        // when answering the commands in reverse order
+        responseWriter
+            .topicName(LOG_STREAM_TOPIC_NAME)
+            .partitionId(LOG_STREAM_PARTITION_ID)
+            .key(11L)
+            .position(21L)
+            .eventWriter(rejectedEvent)
+            .tryWriteResponse(DEFAULT_ADDRESS.getStreamId(), requestIds[1]);
+
+        assertThat(serverOutput.getSentResponses()).isEmpty();
+
+        responseWriter
+            .topicName(LOG_STREAM_TOPIC_NAME)
+            .partitionId(LOG_STREAM_PARTITION_ID)
+            .key(10L)
+            .position(20L)
+            .eventWriter(createdEvent)
+            .tryWriteResponse(DEFAULT_ADDRESS.getStreamId(), requestIds[0]);
+
+        // then
+        assertThat(serverOutput.getSentResponses()).hasSize(1);
+
+        final DirectBuffer response = serverOutput.getSentResponses().get(0);
+        final int offset = TransportHeaderDescriptor.HEADER_LENGTH + RequestResponseHeaderDescriptor.HEADER_LENGTH;
+
+        final MessageHeaderDecoder responseHeaderDecoder = new MessageHeaderDecoder().wrap(response, offset);
+        assertThat(responseHeaderDecoder.templateId()).isEqualTo(ExecuteCommandBatchDescriptor.RESPONSE_TEMPLATE_ID);
+
+        int responseOffset = offset + responseHeaderDecoder.encodedLength();
+        assertThat(ExecuteCommandBatchDescriptor.responseCommandCount(response, responseOffset)).isEqualTo(2);
+        responseOffset += ExecuteCommandBatchDescriptor.responseHeaderLength();
+
+        final TaskEvent resultEvent = new TaskEvent();
+
+        assertThat(ExecuteCommandBatchDescriptor.resultKey(response, responseOffset)).isEqualTo(10L);
+        assertThat(ExecuteCommandBatchDescriptor.resultPosition(response, responseOffset)).isEqualTo(20L);
+        resultEvent.wrap(response, ExecuteCommandBatchDescriptor.resultEventOffset(responseOffset), ExecuteCommandBatchDescriptor.resultEventLength(response, responseOffset));
+        assertThat(resultEvent.getState()).isEqualTo(TaskState.CREATED);
+
+        responseOffset += ExecuteCommandBatchDescriptor.framedResultLength(ExecuteCommandBatchDescriptor.resultEventLength(response, responseOffset));
+
+        assertThat(ExecuteCommandBatchDescriptor.resultKey(response, responseOffset)).isEqualTo(11L);
+        assertThat(ExecuteCommandBatchDescriptor.resultPosition(response, responseOffset)).isEqualTo(21L);
+        resultEvent.reset();
+        resultEvent.wrap(response, ExecuteCommandBatchDescriptor.resultEventOffset(responseOffset), ExecuteCommandBatchDescriptor.resultEventLength(response, responseOffset));
+        assertThat(resultEvent.getState()).isEqualTo(TaskState.COMPLETE_REJECTED);
+    }
+
+    @Test
+    public void shouldNotWriteCommandBatchWithEventTypeWhichCanNotBeBatched() throws InterruptedException, ExecutionException
+    {
+        // given
+        int offset = writeCommandBatchHeaderToBuffer(buffer, 1);
+
+        final UnsafeBuffer commandBuffer = new UnsafeBuffer(buffer, offset + ExecuteCommandBatchDescriptor.commandHeaderLength(), buffer.capacity() - offset - ExecuteCommandBatchDescriptor.commandHeaderLength());
+        final TopicSubscriptionEvent subscriptionEvent = new TopicSubscriptionEvent()
+                .setState(TopicSubscriptionState.ACKNOWLEDGE)
+                .setName(wrapString("foo"), 0, 3);
+        final int commandLength = writeCommandRequestToBuffer(commandBuffer, LOG_STREAM_TOPIC_NAME, LOG_STREAM_PARTITION_ID, null, EventType.SUBSCRIPTION_EVENT, encode(subscriptionEvent));
+
+        buffer.putInt(offset + ExecuteCommandBatchDescriptor.COMMAND_LENGTH_OFFSET, commandLength, Protocol.ENDIANNESS);
+        offset += ExecuteCommandBatchDescriptor.framedCommandLength(commandLength);
+
+        // when
+        final boolean isHandled = messageHandler.onRequest(serverOutput, DEFAULT_ADDRESS, buffer, 0, offset, REQUEST_ID);
+
+        // then
+        assertThat(isHandled).isTrue();
+
+        final ErrorResponseDecoder errorDecoder = serverOutput.getAsErrorResponse(0);
+        assertThat(errorDecoder.errorCode()).isEqualTo(ErrorCode.MESSAGE_NOT_SUPPORTED);
+
+        agentRunnerService.waitUntilDone();
+
+        final BufferedLogStreamReader logStreamReader = new BufferedLogStreamReader(logStream, true);
+        assertThat(logStreamReader.hasNext()).isFalse();
+    }
+
+    @Test
+    public void shouldNotWriteCommandBatchIfCommandIsInvalid() throws InterruptedException, ExecutionException
+    {
+        // given
+        final int writtenLength = writeCommandBatchRequestToBuffer(buffer, LOG_STREAM_TOPIC_NAME, wrapString("unknown-topic"));
+
+        // when
+        final boolean isHandled = messageHandler.onRequest(serverOutput, DEFAULT_ADDRESS, buffer, 0, writtenLength, REQUEST_ID);
+
+        // then
+        assertThat(isHandled).isTrue();
+
+        assertThat(serverOutput.getSentResponses()).hasSize(1);
+
+        final ErrorResponseDecoder errorDecoder = serverOutput.getAsErrorResponse(0);
+
+        assertThat(errorDecoder.errorCode()).isEqualTo(ErrorCode.TOPIC_NOT_FOUND);
+        assertThat(errorDecoder.errorData()).startsWith("Cannot execute command batch. Command 1 is invalid:");
+
+        agentRunnerService.waitUntilDone();
+
+        final BufferedLogStreamReader logStreamReader = new BufferedLogStreamReader(logStream, true);
+        assertThat(logStreamReader.hasNext()).isFalse();
+    }
+
     protected int writeCommandRequestToBuffer(UnsafeBuffer buffer, DirectBuffer topicName, int partitionId, Short protocolVersion, EventType eventType)
+    {
+        return writeCommandRequestToBuffer(buffer, topicName, partitionId, protocolVersion, eventType, TASK_EVENT);
+    }
+
+    protected int writeCommandRequestToBuffer(UnsafeBuffer buffer, DirectBuffer topicName, int partitionId, Short protocolVersion, EventType eventType, byte[] command)
     {
         int offset = 0;
 
@@ -366,12 +692,56 @@ public class ClientApiMessageHandlerTest
             .partitionId(partitionId)
             .eventType(eventTypeToWrite)
             .putTopicName(topicName, 0, topicName.capacity())
-            .putCommand(TASK_EVENT, 0, TASK_EVENT.length);
+            .putCommand(command, 0, command.length);
 
         return headerEncoder.encodedLength() +
                 commandRequestEncoder.encodedLength();
     }
 
+    protected static byte[] encode(TopicSubscriptionEvent event)
+    {
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[event.getEncodedLength()]);
+        event.write(buffer, 0);
+
+        return buffer.byteArray();
+    }
+
+    protected int writeCommandBatchHeaderToBuffer(UnsafeBuffer buffer, int commandCount)
+    {
+        int offset = 0;
+
+        headerEncoder.wrap(buffer, offset)
+            .blockLength(ExecuteCommandBatchDescriptor.headerLength())
+            .schemaId(commandRequestEncoder.sbeSchemaId())
+            .templateId(ExecuteCommandBatchDescriptor.REQUEST_TEMPLATE_ID)
+            .version(commandRequestEncoder.sbeSchemaVersion());
+
+        offset += headerEncoder.encodedLength();
+
+        new ExecuteCommandBatchDescriptor()
+            .wrap(buffer, offset)
+            .commandCount(commandCount);
+
+        return offset + ExecuteCommandBatchDescriptor.headerLength();
+    }
+
+    protected int writeCommandBatchRequestToBuffer(UnsafeBuffer buffer, DirectBuffer... topicNames)
+    {
+        int offset = writeCommandBatchHeaderToBuffer(buffer, topicNames.length);
+
+        for (DirectBuffer topicName : topicNames)
+        {
+            final UnsafeBuffer commandBuffer = new UnsafeBuffer(buffer, offset + ExecuteCommandBatchDescriptor.commandHeaderLength(), buffer.capacity() - offset - ExecuteCommandBatchDescriptor.commandHeaderLength());
+            final int commandLength = writeCommandRequestToBuffer(commandBuffer, topicName, LOG_STREAM_PARTITION_ID, null, EventType.TASK_EVENT);
+
+            buffer.putInt(offset + ExecuteCommandBatchDescriptor.COMMAND_LENGTH_OFFSET, commandLength, Protocol.ENDIANNESS);
+
+            offset += ExecuteCommandBatchDescriptor.framedCommandLength(commandLength);
+        }
+
+        return offset;
+    }
+
     private int writeControlRequestToBuffer(UnsafeBuffer buffer)
     {
         int offset = 0;
@@ -392,6 +762,22 @@ public class ClientApiMessageHandlerTest
                 controlRequestEncoder.encodedLength();
     }
 
+    protected int writeTaskSubscriptionCreditsToBuffer(UnsafeBuffer buffer, long subscriberKey, int credits)
+    {
+        headerEncoder.wrap(buffer, 0)
+            .blockLength(TaskSubscriptionCreditsDescriptor.LENGTH)
+            .schemaId(TaskSubscriptionCreditsDescriptor.SCHEMA_ID)
+            .templateId(TaskSubscriptionCreditsDescriptor.TEMPLATE_ID)
+            .version(TaskSubscriptionCreditsDescriptor.SCHEMA_VERSION);
+
+        final int offset = headerEncoder.encodedLength();
+
+        buffer.putLong(offset + TaskSubscriptionCreditsDescriptor.SUBSCRIBER_KEY_OFFSET, subscriberKey, Protocol.ENDIANNESS);
+        buffer.putInt(offset + TaskSubscriptionCreditsDescriptor.CREDITS_OFFSET, credits, Protocol.ENDIANNESS);
+
+        return offset + TaskSubscriptionCreditsDescriptor.LENGTH;
+    }
+
     protected Answer<?> claimFragment(final long offset)
     {
         return invocation ->
@@ -0,0 +1,176 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.transport.clientapi;
+
+import static io.zeebe.protocol.clientapi.batch.ExecuteCommandBatchDescriptor.batchedRequestId;
+import static io.zeebe.util.StringUtil.getBytes;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.zeebe.transport.ServerOutput;
+import io.zeebe.transport.ServerResponse;
+import io.zeebe.util.buffer.DirectBufferWriter;
+import io.zeebe.util.time.ClockUtil;
+
+public class CommandBatchResponseCollectorTest
+{
+    private static final int STREAM_ID = 3;
+    private static final long REQUEST_ID = 5L;
+    private static final long TIMEOUT = 1000L;
+    private static final byte[] EVENT = getBytes("event");
+
+    private final DirectBufferWriter eventWriter = new DirectBufferWriter();
+
+    private BufferingServerOutput output;
+    private CommandBatchResponseCollector collector;
+
+    @Before
+    public void setUp()
+    {
+        ClockUtil.setCurrentTime(Instant.now());
+
+        output = new BufferingServerOutput();
+        collector = new CommandBatchResponseCollector(2, TIMEOUT);
+
+        eventWriter.wrap(new UnsafeBuffer(EVENT), 0, EVENT.length);
+    }
+
+    @After
+    public void tearDown()
+    {
+        ClockUtil.reset();
+    }
+
+    @Test
+    public void shouldSendResponseWhenAllCommandsAreAnswered()
+    {
+        // given
+        final long batchId = collector.open(output, STREAM_ID, REQUEST_ID, 2);
+
+        // when
+        collector.addResult(batchedRequestId(batchId, 0), 1L, 2L, eventWriter);
+
+        // then
+        assertThat(output.getSentResponses()).isEmpty();
+
+        // when
+        collector.addResult(batchedRequestId(batchId, 1), 1L, 2L, eventWriter);
+
+        // then
+        assertThat(output.getSentResponses()).hasSize(1);
+    }
+
+    @Test
+    public void shouldIgnoreFurtherResultOfAnsweredCommand()
+    {
+        // given
+        final long batchId = collector.open(output, STREAM_ID, REQUEST_ID, 2);
+        collector.addResult(batchedRequestId(batchId, 0), 1L, 2L, eventWriter);
+
+        // when
+        collector.addResult(batchedRequestId(batchId, 0), 1L, 2L, eventWriter);
+
+        // then
+        assertThat(output.getSentResponses()).isEmpty();
+    }
+
+    @Test
+    public void shouldNotOpenBatchIfAllSlotsAreTaken()
+    {
+        // given
+        collector.open(output, STREAM_ID, REQUEST_ID, 1);
+        collector.open(output, STREAM_ID, REQUEST_ID, 1);
+
+        // when
+        final long batchId = collector.open(output, STREAM_ID, REQUEST_ID, 1);
+
+        // then
+        assertThat(batchId).isEqualTo(-1L);
+    }
+
+    @Test
+    public void shouldReuseSlotOfAnsweredBatch()
+    {
+        // given
+        final long answeredBatchId = collector.open(output, STREAM_ID, REQUEST_ID, 1);
+        collector.open(output, STREAM_ID, REQUEST_ID, 1);
+
+        collector.addResult(batchedRequestId(answeredBatchId, 0), 1L, 2L, eventWriter);
+
+        // when
+        final long batchId = collector.open(output, STREAM_ID, REQUEST_ID, 1);
+
+        // then
+        assertThat(batchId).isGreaterThanOrEqualTo(0L);
+    }
+
+    @Test
+    public void shouldReuseSlotOfTimedOutBatch()
+    {
+        // given
+        final long timedOutBatchId = collector.open(output, STREAM_ID, REQUEST_ID, 1);
+        collector.open(output, STREAM_ID, REQUEST_ID, 1);
+
+        ClockUtil.addTime(Duration.ofMillis(TIMEOUT + 1));
+
+        // when
+        final long batchId = collector.open(output, STREAM_ID, REQUEST_ID, 1);
+
+        // then
+        assertThat(batchId).isGreaterThanOrEqualTo(0L);
+
+        // and the result of the timed out batch is dropped
+        final boolean isAdded = collector.addResult(batchedRequestId(timedOutBatchId, 0), 1L, 2L, eventWriter);
+
+        assertThat(isAdded).isTrue();
+        assertThat(output.getSentResponses()).isEmpty();
+    }
+
+    @Test
+    public void shouldRetrySendingResponse()
+    {
+        // given
+        final ServerOutput failingOutput = mock(ServerOutput.class);
+        when(failingOutput.sendResponse(any(ServerResponse.class))).thenReturn(false, true);
+
+        final long batchId = collector.open(failingOutput, STREAM_ID, REQUEST_ID, 1);
+
+        // when
+        final boolean isAddedFirst = collector.addResult(batchedRequestId(batchId, 0), 1L, 2L, eventWriter);
+        final boolean isAddedSecond = collector.addResult(batchedRequestId(batchId, 0), 1L, 2L, eventWriter);
+
+        // then
+        assertThat(isAddedFirst).isFalse();
+        assertThat(isAddedSecond).isTrue();
+
+        verify(failingOutput, times(2)).sendResponse(any(ServerResponse.class));
+    }
+
+}
@@ -0,0 +1,230 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.transport.clientapi;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import io.zeebe.broker.event.processor.TopicSubscriberEvent;
+import io.zeebe.broker.event.processor.TopicSubscriberState;
+import io.zeebe.broker.event.processor.TopicSubscriptionEvent;
+import io.zeebe.broker.event.processor.TopicSubscriptionState;
+import io.zeebe.broker.task.data.TaskEvent;
+import io.zeebe.broker.task.data.TaskState;
+import io.zeebe.broker.transport.clientapi.CommandSchema.Property;
+import io.zeebe.broker.transport.clientapi.CommandSchema.PropertyType;
+import io.zeebe.broker.workflow.data.DeploymentEvent;
+import io.zeebe.broker.workflow.data.DeploymentState;
+import io.zeebe.broker.workflow.data.WorkflowInstanceEvent;
+import io.zeebe.broker.workflow.data.WorkflowInstanceState;
+import io.zeebe.msgpack.UnpackedObject;
+import io.zeebe.test.broker.protocol.MsgPackHelper;
+
+/**
+ * Checks that the schemas match the events they describe, so that a property
+ * which is added to an event is not rejected or skipped by the validator.
+ */
+public class CommandSchemasTest
+{
+    protected final MsgPackHelper msgPackHelper = new MsgPackHelper();
+    protected final CommandValidator validator = new CommandValidator();
+
+    @Test
+    public void shouldMatchPopulatedTaskEvent()
+    {
+        // given
+        final TaskEvent event = new TaskEvent()
+            .setState(TaskState.CREATE)
+            .setLockTime(123L)
+            .setLockOwner(wrapString("owner"))
+            .setRetries(3)
+            .setType(wrapString("foo"))
+            .setPayload(new UnsafeBuffer(msgPackHelper.encodeAsMsgPack(Collections.singletonMap("a", 1))));
+
+        event.headers()
+            .setBpmnProcessId(wrapString("process"))
+            .setWorkflowDefinitionVersion(1)
+            .setWorkflowKey(2L)
+            .setWorkflowInstanceKey(3L)
+            .setActivityId(wrapString("task"))
+            .setActivityInstanceKey(4L);
+
+        event.setCustomHeaders(new UnsafeBuffer(msgPackHelper.encodeAsMsgPack(Collections.singletonMap("b", "c"))));
+
+        // then
+        assertSchemaMatches(CommandSchemas.TASK_EVENT, event);
+    }
+
+    @Test
+    public void shouldMatchDefaultTaskEvent()
+    {
+        // given
+        final TaskEvent event = new TaskEvent()
+            .setState(TaskState.CREATE)
+            .setType(wrapString("foo"));
+
+        // then
+        assertSchemaMatches(CommandSchemas.TASK_EVENT, event);
+    }
+
+    @Test
+    public void shouldMatchPopulatedWorkflowInstanceEvent()
+    {
+        // given
+        final WorkflowInstanceEvent event = new WorkflowInstanceEvent()
+            .setState(WorkflowInstanceState.CREATE_WORKFLOW_INSTANCE)
+            .setBpmnProcessId(wrapString("process"))
+            .setVersion(1)
+            .setWorkflowKey(2L)
+            .setWorkflowInstanceKey(3L)
+            .setActivityId("task")
+            .setPayload(new UnsafeBuffer(msgPackHelper.encodeAsMsgPack(Collections.singletonMap("a", 1))));
+
+        // then
+        assertSchemaMatches(CommandSchemas.WORKFLOW_INSTANCE_EVENT, event);
+    }
+
+    @Test
+    public void shouldMatchDefaultWorkflowInstanceEvent()
+    {
+        // given
+        final WorkflowInstanceEvent event = new WorkflowInstanceEvent()
+            .setState(WorkflowInstanceState.CREATE_WORKFLOW_INSTANCE);
+
+        // then
+        assertSchemaMatches(CommandSchemas.WORKFLOW_INSTANCE_EVENT, event);
+    }
+
+    @Test
+    public void shouldMatchPopulatedDeploymentEvent()
+    {
+        // given
+        final DeploymentEvent event = new DeploymentEvent()
+            .setState(DeploymentState.CREATE_DEPLOYMENT)
+            .setBpmnXml(wrapString("<xml/>"))
+            .setErrorMessage("error");
+
+        event.deployedWorkflows().add()
+            .setBpmnProcessId(wrapString("process"))
+            .setVersion(1);
+
+        // then
+        assertSchemaMatches(CommandSchemas.DEPLOYMENT_EVENT, event);
+    }
+
+    @Test
+    public void shouldMatchDefaultDeploymentEvent()
+    {
+        // given
+        final DeploymentEvent event = new DeploymentEvent()
+            .setState(DeploymentState.CREATE_DEPLOYMENT)
+            .setBpmnXml(wrapString("<xml/>"));
+
+        // then
+        assertSchemaMatches(CommandSchemas.DEPLOYMENT_EVENT, event);
+    }
+
+    @Test
+    public void shouldMatchPopulatedSubscriberEvent()
+    {
+        // given
+        final TopicSubscriberEvent event = new TopicSubscriberEvent()
+            .setState(TopicSubscriberState.SUBSCRIBE)
+            .setStartPosition(1L)
+            .setName("foo")
+            .setPrefetchCapacity(2);
+
+        // then
+        assertSchemaMatches(CommandSchemas.SUBSCRIBER_EVENT, event);
+    }
+
+    @Test
+    public void shouldMatchDefaultSubscriberEvent()
+    {
+        // given
+        final TopicSubscriberEvent event = new TopicSubscriberEvent()
+            .setState(TopicSubscriberState.SUBSCRIBE)
+            .setName("foo");
+
+        // then
+        assertSchemaMatches(CommandSchemas.SUBSCRIBER_EVENT, event);
+    }
+
+    @Test
+    public void shouldMatchSubscriptionEvent()
+    {
+        // given all properties of the event are required
+        final TopicSubscriptionEvent event = new TopicSubscriptionEvent()
+            .setState(TopicSubscriptionState.ACKNOWLEDGE)
+            .setAckPosition(1L);
+
+        event.setName(wrapString("foo"), 0, 3);
+
+        // then
+        assertSchemaMatches(CommandSchemas.SUBSCRIPTION_EVENT, event);
+    }
+
+    protected void assertSchemaMatches(CommandSchema schema, UnpackedObject event)
+    {
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[event.getEncodedLength()]);
+        event.write(buffer, 0);
+
+        final boolean isValid = validator.validate(schema, buffer, 0, buffer.capacity());
+        assertThat(isValid).overridingErrorMessage("Expected the event to be valid but got: %s", validator.getErrorMessage()).isTrue();
+
+        final Map<String, Object> document = msgPackHelper.readMsgPack(new ByteArrayInputStream(buffer.byteArray()));
+        assertDeclaresProperties(schema, document);
+    }
+
+    /**
+     * Asserts that the schema declares exactly the properties the event writes.
+     */
+    @SuppressWarnings("unchecked")
+    protected void assertDeclaresProperties(CommandSchema schema, Map<String, Object> document)
+    {
+        assertThat(document).hasSize(schema.getPropertyCount());
+
+        for (int i = 0; i < schema.getPropertyCount(); i++)
+        {
+            final Property property = schema.getProperty(i);
+            assertThat(document).containsKey(property.getName());
+
+            final Object value = document.get(property.getName());
+
+            if (property.getType() == PropertyType.OBJECT)
+            {
+                assertDeclaresProperties(property.getSchema(), (Map<String, Object>) value);
+            }
+            else if (property.getType() == PropertyType.ARRAY)
+            {
+                for (Object element : (List<Object>) value)
+                {
+                    assertDeclaresProperties(property.getSchema(), (Map<String, Object>) element);
+                }
+            }
+        }
+    }
+}
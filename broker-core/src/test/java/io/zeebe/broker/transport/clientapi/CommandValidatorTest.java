@@ -0,0 +1,194 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.transport.clientapi;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import io.zeebe.broker.task.data.TaskEvent;
+import io.zeebe.broker.task.data.TaskState;
+import io.zeebe.test.broker.protocol.MsgPackHelper;
+
+public class CommandValidatorTest
+{
+    protected final MsgPackHelper msgPackHelper = new MsgPackHelper();
+    protected final CommandValidator validator = new CommandValidator();
+
+    @Test
+    public void shouldAcceptValidCommand()
+    {
+        // given
+        final TaskEvent taskEvent = new TaskEvent()
+            .setState(TaskState.CREATE)
+            .setType(wrapString("foo"))
+            .setRetries(3);
+
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[taskEvent.getEncodedLength()]);
+        taskEvent.write(buffer, 0);
+
+        // when
+        final boolean isValid = validator.validate(CommandSchemas.TASK_EVENT, buffer, 0, buffer.capacity());
+
+        // then
+        assertThat(isValid).isTrue();
+        assertThat(validator.getErrorMessage()).isNull();
+    }
+
+    @Test
+    public void shouldAcceptUndeclaredProperties()
+    {
+        // given
+        final Map<String, Object> command = taskCommand();
+        command.put("foo", "bar");
+
+        // when
+        final boolean isValid = validate(CommandSchemas.TASK_EVENT, command);
+
+        // then
+        assertThat(isValid).isTrue();
+    }
+
+    @Test
+    public void shouldRejectInvalidEnumValue()
+    {
+        // given
+        final Map<String, Object> command = taskCommand();
+        command.put("state", "FOO");
+
+        // when
+        final boolean isValid = validate(CommandSchemas.TASK_EVENT, command);
+
+        // then
+        assertThat(isValid).isFalse();
+        assertThat(validator.getErrorMessage()).isEqualTo("Could not read property 'state'. Invalid value 'FOO'");
+    }
+
+    @Test
+    public void shouldRejectMissingRequiredProperty()
+    {
+        // given
+        final Map<String, Object> command = taskCommand();
+        command.remove("type");
+
+        // when
+        final boolean isValid = validate(CommandSchemas.TASK_EVENT, command);
+
+        // then
+        assertThat(isValid).isFalse();
+        assertThat(validator.getErrorMessage()).isEqualTo("Property 'type' has no valid value");
+    }
+
+    @Test
+    public void shouldRejectPropertyOfWrongType()
+    {
+        // given
+        final Map<String, Object> command = taskCommand();
+        command.put("retries", "3");
+
+        // when
+        final boolean isValid = validate(CommandSchemas.TASK_EVENT, command);
+
+        // then
+        assertThat(isValid).isFalse();
+        assertThat(validator.getErrorMessage()).isEqualTo("Could not read property 'retries'. Expected a value of type INTEGER but found STRING");
+    }
+
+    @Test
+    public void shouldRejectIntegerExceedingRange()
+    {
+        // given
+        final Map<String, Object> command = taskCommand();
+        command.put("retries", Long.MAX_VALUE);
+
+        // when
+        final boolean isValid = validate(CommandSchemas.TASK_EVENT, command);
+
+        // then
+        assertThat(isValid).isFalse();
+        assertThat(validator.getErrorMessage()).startsWith("Could not read property 'retries'.");
+    }
+
+    @Test
+    public void shouldValidateNestedObject()
+    {
+        // given
+        final Map<String, Object> headers = new HashMap<>();
+        headers.put("workflowKey", "foo");
+
+        final Map<String, Object> command = taskCommand();
+        command.put("headers", headers);
+
+        // when
+        final boolean isValid = validate(CommandSchemas.TASK_EVENT, command);
+
+        // then
+        assertThat(isValid).isFalse();
+        assertThat(validator.getErrorMessage())
+            .isEqualTo("Could not read property 'headers'. Could not read property 'workflowKey'. Expected a value of type INTEGER but found STRING");
+    }
+
+    @Test
+    public void shouldRejectCommandWhichIsNotAMap()
+    {
+        // given
+        final DirectBuffer buffer = new UnsafeBuffer(msgPackHelper.encodeAsMsgPack("foo"));
+
+        // when
+        final boolean isValid = validator.validate(CommandSchemas.TASK_EVENT, buffer, 0, buffer.capacity());
+
+        // then
+        assertThat(isValid).isFalse();
+        assertThat(validator.getErrorMessage()).isEqualTo("Expected a map but found STRING");
+    }
+
+    @Test
+    public void shouldRejectTruncatedCommand()
+    {
+        // given
+        final DirectBuffer buffer = new UnsafeBuffer(msgPackHelper.encodeAsMsgPack(taskCommand()));
+
+        // when
+        final boolean isValid = validator.validate(CommandSchemas.TASK_EVENT, buffer, 0, buffer.capacity() - 2);
+
+        // then
+        assertThat(isValid).isFalse();
+        assertThat(validator.getErrorMessage()).startsWith("Could not read");
+    }
+
+    protected Map<String, Object> taskCommand()
+    {
+        final Map<String, Object> command = new HashMap<>();
+        command.put("state", "CREATE");
+        command.put("type", "foo");
+        command.put("retries", 3);
+        return command;
+    }
+
+    protected boolean validate(CommandSchema schema, Map<String, Object> command)
+    {
+        final DirectBuffer buffer = new UnsafeBuffer(msgPackHelper.encodeAsMsgPack(command));
+        return validator.validate(schema, buffer, 0, buffer.capacity());
+    }
+}
@@ -22,6 +22,8 @@ import static io.zeebe.util.StringUtil.getBytes;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -29,6 +31,7 @@ import static org.mockito.Mockito.when;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
 
@@ -59,10 +62,12 @@ import io.zeebe.util.time.ClockUtil;
 public class ControlMessageHandlerManagerTest
 {
     private static final ControlMessageType CONTROL_MESSAGE_TYPE = ControlMessageType.ADD_TASK_SUBSCRIPTION;
+    private static final ControlMessageType OTHER_CONTROL_MESSAGE_TYPE = ControlMessageType.REQUEST_TOPOLOGY;
     private static final byte[] CONTROL_MESSAGE_DATA = getBytes("foo");
     private static final Duration TIMEOUT = Duration.ofSeconds(30);
 
     private static final int REQ_STREAM_ID = 11;
+    private static final int OTHER_REQ_STREAM_ID = 12;
     private static final long REQ_REQUEST_ID = 13L;
 
     private final UnsafeBuffer requestWriteBuffer = new UnsafeBuffer(new byte[1024]);
@@ -224,7 +229,10 @@ public class ControlMessageHandlerManagerTest
         // given a polled message
         opened();
 
-        when(mockSubscription.poll(any(FragmentHandler.class), eq(1))).thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE));
+        when(mockSubscription.poll(any(FragmentHandler.class), eq(1)))
+            .thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE))
+            .thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE))
+            .thenReturn(0);
 
         final CompletableFuture<Void> spyFuture = spy(new CompletableFuture<Void>());
         when(mockControlMessageHandler.handle(any(DirectBuffer.class), any(BrokerEventMetadata.class))).thenReturn(spyFuture);
@@ -236,27 +244,241 @@ public class ControlMessageHandlerManagerTest
         manager.doWork();
         manager.doWork();
 
-        verify(mockSubscription, times(1)).poll(any(FragmentHandler.class), eq(1));
+        verify(mockControlMessageHandler, times(1)).handle(any(DirectBuffer.class), any(BrokerEventMetadata.class));
 
         spyFuture.complete(null);
 
-        // and continue polling
-        manager.doWork();
+        // and continue handling
         manager.doWork();
 
         // then
         assertThat(manager.isOpen()).isTrue();
 
+        verify(mockControlMessageHandler, times(2)).handle(any(DirectBuffer.class), any(BrokerEventMetadata.class));
+    }
+
+    @Test
+    public void shouldHandleControlMessagesOfDifferentTypesConcurrently()
+    {
+        // given
+        final ControlMessageHandler otherControlMessageHandler = otherControlMessageHandler();
+        openedWithHandlers(mockControlMessageHandler, otherControlMessageHandler);
+
+        when(mockSubscription.poll(any(FragmentHandler.class), eq(1)))
+            .thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE, REQ_STREAM_ID))
+            .thenAnswer(pollControlMessage(OTHER_CONTROL_MESSAGE_TYPE, OTHER_REQ_STREAM_ID))
+            .thenReturn(0);
+
+        when(mockControlMessageHandler.handle(any(DirectBuffer.class), any(BrokerEventMetadata.class))).thenReturn(new CompletableFuture<>());
+
+        // when
+        manager.doWork();
+        manager.doWork();
+
+        // then
+        verify(mockControlMessageHandler).handle(any(DirectBuffer.class), any(BrokerEventMetadata.class));
+
+        final ArgumentCaptor<BrokerEventMetadata> metadataCaptor = ArgumentCaptor.forClass(BrokerEventMetadata.class);
+        verify(otherControlMessageHandler).handle(any(DirectBuffer.class), metadataCaptor.capture());
+
+        assertThat(metadataCaptor.getValue().getRequestStreamId()).isEqualTo(OTHER_REQ_STREAM_ID);
+    }
+
+    @Test
+    public void shouldHandleControlMessagesOfSameStreamInOrder()
+    {
+        // given
+        final ControlMessageHandler otherControlMessageHandler = otherControlMessageHandler();
+        openedWithHandlers(mockControlMessageHandler, otherControlMessageHandler);
+
+        when(mockSubscription.poll(any(FragmentHandler.class), eq(1)))
+            .thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE, REQ_STREAM_ID))
+            .thenAnswer(pollControlMessage(OTHER_CONTROL_MESSAGE_TYPE, REQ_STREAM_ID))
+            .thenReturn(0);
+
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        when(mockControlMessageHandler.handle(any(DirectBuffer.class), any(BrokerEventMetadata.class))).thenReturn(future);
+
+        manager.doWork();
+        manager.doWork();
+
+        verify(otherControlMessageHandler, never()).handle(any(DirectBuffer.class), any(BrokerEventMetadata.class));
+
+        // when
+        future.complete(null);
+        manager.doWork();
+
+        // then
+        verify(otherControlMessageHandler).handle(any(DirectBuffer.class), any(BrokerEventMetadata.class));
+    }
+
+    @Test
+    public void shouldNotPollIfMaxConcurrentRequestsReached()
+    {
+        // given
+        manager = new ControlMessageHandlerManager(
+                output,
+                mockControlMessageBuffer,
+                TIMEOUT.toMillis(),
+                1,
+                mockTaskScheduler,
+                Collections.singletonList(mockControlMessageHandler));
+        when(mockTaskScheduler.schedule(manager)).thenReturn(mockActorRef);
+        opened();
+
+        when(mockSubscription.poll(any(FragmentHandler.class), eq(1))).thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE));
+
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        when(mockControlMessageHandler.handle(any(DirectBuffer.class), any(BrokerEventMetadata.class))).thenReturn(future);
+
+        manager.doWork();
+
+        // when
+        manager.doWork();
+        manager.doWork();
+
+        // then
+        verify(mockSubscription, times(1)).poll(any(FragmentHandler.class), eq(1));
+
+        // and continue polling when the request is handled
+        future.complete(null);
+        manager.doWork();
+
         verify(mockSubscription, times(2)).poll(any(FragmentHandler.class), eq(1));
     }
 
+    @Test
+    public void shouldNotBlockOtherTypesByBurstOfOneType()
+    {
+        // given a type can take one of four request slots
+        final ControlMessageHandler otherControlMessageHandler = otherControlMessageHandler();
+
+        manager = new ControlMessageHandlerManager(
+                output,
+                mockControlMessageBuffer,
+                TIMEOUT.toMillis(),
+                4,
+                mockTaskScheduler,
+                Arrays.asList(mockControlMessageHandler, otherControlMessageHandler));
+        when(mockTaskScheduler.schedule(manager)).thenReturn(mockActorRef);
+        opened();
+
+        when(mockSubscription.poll(any(FragmentHandler.class), eq(1)))
+            .thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE, 1))
+            .thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE, 2))
+            .thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE, 3))
+            .thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE, 4))
+            .thenAnswer(pollControlMessage(OTHER_CONTROL_MESSAGE_TYPE, OTHER_REQ_STREAM_ID))
+            .thenReturn(0);
+
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        when(mockControlMessageHandler.handle(any(DirectBuffer.class), any(BrokerEventMetadata.class))).thenReturn(future);
+
+        // when
+        for (int i = 0; i < 6; i++)
+        {
+            manager.doWork();
+        }
+
+        // then the request of the other type is handled while the burst waits for its handler
+        verify(mockControlMessageHandler, times(1)).handle(any(DirectBuffer.class), any(BrokerEventMetadata.class));
+
+        final ArgumentCaptor<BrokerEventMetadata> metadataCaptor = ArgumentCaptor.forClass(BrokerEventMetadata.class);
+        verify(otherControlMessageHandler).handle(any(DirectBuffer.class), metadataCaptor.capture());
+
+        assertThat(metadataCaptor.getValue().getRequestStreamId()).isEqualTo(OTHER_REQ_STREAM_ID);
+
+        // and the burst is handled in order when the handler is available again
+        future.complete(null);
+        manager.doWork();
+
+        final ArgumentCaptor<BrokerEventMetadata> burstMetadataCaptor = ArgumentCaptor.forClass(BrokerEventMetadata.class);
+        verify(mockControlMessageHandler, times(2)).handle(any(DirectBuffer.class), burstMetadataCaptor.capture());
+
+        assertThat(burstMetadataCaptor.getAllValues())
+            .extracting(BrokerEventMetadata::getRequestStreamId)
+            .containsExactly(1, 2);
+    }
+
+    @Test
+    public void shouldNotPollIfOverflowSlotsAreTaken()
+    {
+        // given a type can take one of four request slots and four overflow slots
+        manager = new ControlMessageHandlerManager(
+                output,
+                mockControlMessageBuffer,
+                TIMEOUT.toMillis(),
+                4,
+                mockTaskScheduler,
+                Collections.singletonList(mockControlMessageHandler));
+        when(mockTaskScheduler.schedule(manager)).thenReturn(mockActorRef);
+        opened();
+
+        when(mockSubscription.poll(any(FragmentHandler.class), eq(1)))
+            .thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE, 1))
+            .thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE, 2))
+            .thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE, 3))
+            .thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE, 4))
+            .thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE, 5))
+            .thenReturn(0);
+
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        when(mockControlMessageHandler.handle(any(DirectBuffer.class), any(BrokerEventMetadata.class))).thenReturn(future);
+
+        // when
+        for (int i = 0; i < 7; i++)
+        {
+            manager.doWork();
+        }
+
+        // then
+        verify(mockSubscription, times(5)).poll(any(FragmentHandler.class), eq(1));
+
+        // and continue polling when a request of an overflow slot is completed
+        future.complete(null);
+        manager.doWork();
+        manager.doWork();
+
+        verify(mockSubscription, times(6)).poll(any(FragmentHandler.class), eq(1));
+    }
+
+    @Test
+    public void shouldWriteErrorResponseIfWaitingControlMessageIsNotHandledInTime()
+    {
+        // given a request which waits for the handler
+        opened();
+
+        when(mockSubscription.poll(any(FragmentHandler.class), eq(1)))
+            .thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE, REQ_STREAM_ID))
+            .thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE, OTHER_REQ_STREAM_ID))
+            .thenReturn(0);
+
+        when(mockControlMessageHandler.handle(any(DirectBuffer.class), any(BrokerEventMetadata.class))).thenReturn(new CompletableFuture<>());
+
+        manager.doWork();
+        manager.doWork();
+
+        // when
+        ClockUtil.setCurrentTime(ClockUtil.getCurrentTime().plus(TIMEOUT));
+        manager.doWork();
+
+        // then both the handled and the waiting request time out
+        assertThat(output.getSentResponses()).hasSize(2);
+        assertThat(output.getAsErrorResponse(0).errorCode()).isEqualTo(ErrorCode.REQUEST_TIMEOUT);
+        assertThat(output.getAsErrorResponse(1).errorCode()).isEqualTo(ErrorCode.REQUEST_TIMEOUT);
+
+        verify(mockControlMessageHandler, times(1)).handle(any(DirectBuffer.class), any(BrokerEventMetadata.class));
+    }
+
     @Test
     public void shouldWriteErrorResponseIfHandleControlMessageTakesLongerThanTimeout()
     {
         // given a polled message
         opened();
 
-        when(mockSubscription.poll(any(FragmentHandler.class), eq(1))).thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE));
+        when(mockSubscription.poll(any(FragmentHandler.class), eq(1)))
+            .thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE))
+            .thenReturn(0);
 
         final CompletableFuture<Void> spyFuture = spy(new CompletableFuture<Void>());
         when(mockControlMessageHandler.handle(any(DirectBuffer.class), any(BrokerEventMetadata.class))).thenReturn(spyFuture);
@@ -282,8 +504,44 @@ public class ControlMessageHandlerManagerTest
         assertThat(errorResponse.errorCode()).isEqualTo(ErrorCode.REQUEST_TIMEOUT);
         assertThat(errorResponse.errorData()).isEqualTo("Timeout while handle control message.");
 
-        verify(spyFuture, times(2)).isDone();
-        verify(mockSubscription, times(2)).poll(any(FragmentHandler.class), eq(1));
+        verify(spyFuture, times(3)).isDone();
+        verify(mockSubscription, times(4)).poll(any(FragmentHandler.class), eq(1));
+    }
+
+    @Test
+    public void shouldNotHandleNextRequestUntilTimedOutHandlerCompletes()
+    {
+        // given a request which takes longer than the timeout
+        opened();
+
+        when(mockSubscription.poll(any(FragmentHandler.class), eq(1)))
+            .thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE, REQ_STREAM_ID))
+            .thenReturn(0)
+            .thenAnswer(pollControlMessage(CONTROL_MESSAGE_TYPE, OTHER_REQ_STREAM_ID))
+            .thenReturn(0);
+
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        when(mockControlMessageHandler.handle(any(DirectBuffer.class), any(BrokerEventMetadata.class))).thenReturn(future);
+
+        manager.doWork();
+
+        ClockUtil.setCurrentTime(ClockUtil.getCurrentTime().plus(TIMEOUT));
+        manager.doWork();
+
+        // when the next request of the type is polled
+        manager.doWork();
+
+        // then it waits until the handler completes the timed out request
+        verify(mockControlMessageHandler, times(1)).handle(any(DirectBuffer.class), any(BrokerEventMetadata.class));
+
+        future.complete(null);
+        manager.doWork();
+
+        verify(mockControlMessageHandler, times(2)).handle(any(DirectBuffer.class), any(BrokerEventMetadata.class));
+
+        // and only the timeout response is written
+        assertThat(output.getSentResponses()).hasSize(1);
+        assertThat(output.getAsErrorResponse(0).errorCode()).isEqualTo(ErrorCode.REQUEST_TIMEOUT);
     }
 
     @Test
@@ -292,13 +550,15 @@ public class ControlMessageHandlerManagerTest
         // given
         opened();
 
-        when(mockSubscription.poll(any(FragmentHandler.class), eq(1))).thenAnswer(pollControlMessage(ControlMessageType.SBE_UNKNOWN));
+        when(mockSubscription.poll(any(FragmentHandler.class), eq(1)))
+            .thenAnswer(pollControlMessage(ControlMessageType.SBE_UNKNOWN))
+            .thenReturn(0);
 
         // when handle the message
         manager.doWork();
-        manager.doWork();
         // and continue polling
         manager.doWork();
+        manager.doWork();
 
         // then
         assertThat(manager.isOpen()).isTrue();
@@ -309,7 +569,7 @@ public class ControlMessageHandlerManagerTest
 
         assertThat(errorResponse.errorCode()).isEqualTo(ErrorCode.MESSAGE_NOT_SUPPORTED);
         assertThat(errorResponse.errorData()).isEqualTo("Cannot handle control message with type 'NULL_VAL'.");
-        verify(mockSubscription, times(2)).poll(any(FragmentHandler.class), eq(1));
+        verify(mockSubscription, times(3)).poll(any(FragmentHandler.class), eq(1));
     }
 
     private void opened()
@@ -318,7 +578,34 @@ public class ControlMessageHandlerManagerTest
         manager.doWork();
     }
 
+    private void openedWithHandlers(ControlMessageHandler... handlers)
+    {
+        manager = new ControlMessageHandlerManager(
+                output,
+                mockControlMessageBuffer,
+                TIMEOUT.toMillis(),
+                mockTaskScheduler,
+                Arrays.asList(handlers));
+
+        when(mockTaskScheduler.schedule(manager)).thenReturn(mockActorRef);
+
+        opened();
+    }
+
+    private ControlMessageHandler otherControlMessageHandler()
+    {
+        final ControlMessageHandler handler = mock(ControlMessageHandler.class);
+        when(handler.getMessageType()).thenReturn(OTHER_CONTROL_MESSAGE_TYPE);
+        when(handler.handle(any(DirectBuffer.class), any(BrokerEventMetadata.class))).thenReturn(CompletableFuture.completedFuture(null));
+        return handler;
+    }
+
     private Answer<?> pollControlMessage(ControlMessageType type)
+    {
+        return pollControlMessage(type, REQ_STREAM_ID);
+    }
+
+    private Answer<?> pollControlMessage(ControlMessageType type, int streamId)
     {
         return invocation ->
         {
@@ -328,7 +615,7 @@ public class ControlMessageHandlerManagerTest
 
             requestHeaderDescriptor
                 .wrap(requestWriteBuffer, offset)
-                .streamId(REQ_STREAM_ID)
+                .streamId(streamId)
                 .requestId(REQ_REQUEST_ID);
 
             offset += ControlMessageRequestHeaderDescriptor.headerLength();
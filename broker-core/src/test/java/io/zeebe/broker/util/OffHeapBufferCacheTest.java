@@ -0,0 +1,173 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.util;
+
+import static io.zeebe.util.buffer.BufferUtil.bufferAsString;
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.CountersManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OffHeapBufferCacheTest
+{
+    // header + 16 bytes value
+    private static final int ENTRY_LENGTH = OffHeapBufferCache.HEADER_LENGTH + 16;
+
+    private static final DirectBuffer VALUE_A = wrapString("aaaaaaaaaaaaaaaa");
+    private static final DirectBuffer VALUE_B = wrapString("bbbbbbbbbbbbbbbb");
+    private static final DirectBuffer VALUE_C = wrapString("cccccccccccccccc");
+
+    private OffHeapBufferCache cache;
+
+    @Before
+    public void setUp()
+    {
+        final CountersManager countersManager = new CountersManager(
+                new UnsafeBuffer(ByteBuffer.allocateDirect(16 * 1024)),
+                new UnsafeBuffer(ByteBuffer.allocateDirect(4 * 1024)));
+
+        cache = new OffHeapBufferCache(2 * ENTRY_LENGTH, countersManager, "test");
+    }
+
+    @After
+    public void cleanUp()
+    {
+        cache.close();
+    }
+
+    @Test
+    public void shouldReturnNullIfNotCached()
+    {
+        // when
+        final DirectBuffer value = cache.get(1L);
+
+        // then
+        assertThat(value).isNull();
+        assertThat(cache.missCounter.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldGetCachedBuffer()
+    {
+        // given
+        cache.put(1L, VALUE_A, 0, VALUE_A.capacity());
+
+        // when
+        final DirectBuffer value = cache.get(1L);
+
+        // then
+        assertThat(bufferAsString(value)).isEqualTo("aaaaaaaaaaaaaaaa");
+        assertThat(cache.hitCounter.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReplaceCachedBuffer()
+    {
+        // given
+        cache.put(1L, VALUE_A, 0, VALUE_A.capacity());
+
+        // when
+        cache.put(1L, VALUE_B, 0, VALUE_B.capacity());
+
+        // then
+        assertThat(bufferAsString(cache.get(1L))).isEqualTo("bbbbbbbbbbbbbbbb");
+    }
+
+    @Test
+    public void shouldRemoveCachedBuffer()
+    {
+        // given
+        cache.put(1L, VALUE_A, 0, VALUE_A.capacity());
+
+        // when
+        cache.remove(1L);
+
+        // then
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    public void shouldEvictOldestBufferIfFull()
+    {
+        // given
+        cache.put(1L, VALUE_A, 0, VALUE_A.capacity());
+        cache.put(2L, VALUE_B, 0, VALUE_B.capacity());
+
+        // when
+        cache.put(3L, VALUE_C, 0, VALUE_C.capacity());
+
+        // then
+        assertThat(cache.get(1L)).isNull();
+        assertThat(bufferAsString(cache.get(2L))).isEqualTo("bbbbbbbbbbbbbbbb");
+        assertThat(bufferAsString(cache.get(3L))).isEqualTo("cccccccccccccccc");
+        assertThat(cache.evictionCounter.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldWrapAroundWithDifferentSizes()
+    {
+        // given
+        final DirectBuffer smallValue = wrapString("s");
+
+        cache.put(1L, smallValue, 0, smallValue.capacity());
+        cache.put(2L, VALUE_A, 0, VALUE_A.capacity());
+
+        // when - doesn't fit at the end
+        cache.put(3L, VALUE_B, 0, VALUE_B.capacity());
+        cache.put(4L, smallValue, 0, smallValue.capacity());
+
+        // then
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(2L)).isNull();
+        assertThat(bufferAsString(cache.get(3L))).isEqualTo("bbbbbbbbbbbbbbbb");
+        assertThat(bufferAsString(cache.get(4L))).isEqualTo("s");
+    }
+
+    @Test
+    public void shouldNotCacheBufferLargerThanCapacity()
+    {
+        // given
+        final UnsafeBuffer largeValue = new UnsafeBuffer(new byte[3 * ENTRY_LENGTH]);
+
+        // when
+        final boolean isCached = cache.put(1L, largeValue, 0, largeValue.capacity());
+
+        // then
+        assertThat(isCached).isFalse();
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    public void shouldCacheManyBuffers()
+    {
+        for (int i = 0; i < 1000; i++)
+        {
+            final DirectBuffer value = wrapString("value-" + i);
+            cache.put(i, value, 0, value.capacity());
+
+            assertThat(bufferAsString(cache.get(i))).isEqualTo("value-" + i);
+        }
+    }
+}
@@ -29,6 +29,7 @@ import java.util.Map;
 
 import io.zeebe.broker.workflow.graph.model.*;
 import io.zeebe.broker.workflow.graph.transformer.BpmnTransformer;
+import io.zeebe.broker.workflow.graph.transformer.ZeebeExtensions;
 import io.zeebe.msgpack.mapping.Mapping;
 import io.zeebe.msgpack.spec.MsgPackWriter;
 import io.zeebe.util.buffer.BufferUtil;
@@ -36,6 +37,7 @@ import org.agrona.DirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.camunda.bpm.model.bpmn.Bpmn;
 import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.camunda.bpm.model.bpmn.builder.AbstractFlowNodeBuilder;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -252,6 +254,46 @@ public class BpmnTransformerTests
 
     }
 
+    @Test
+    public void shouldLookUpChildrenById()
+    {
+        // given
+        final int taskCount = 100;
+
+        AbstractFlowNodeBuilder<?, ?> builder = Bpmn.createExecutableProcess()
+            .startEvent("start");
+
+        for (int i = 0; i < taskCount; i++)
+        {
+            builder = builder.serviceTask("task-" + i);
+        }
+
+        final ZeebeExtensions.ZeebeModelInstance modelInstance = wrap(builder.endEvent("end").done());
+
+        for (int i = 0; i < taskCount; i++)
+        {
+            modelInstance.taskDefinition("task-" + i, "test", 3);
+        }
+
+        // when
+        final ExecutableWorkflow process = transformSingleProcess(modelInstance);
+
+        // then
+        for (int i = 0; i < taskCount; i++)
+        {
+            final DirectBuffer id = wrapString("task-" + i);
+            final ExecutableServiceTask serviceTask = process.getChildById(id);
+
+            assertThat(serviceTask.getId()).isEqualTo(id);
+            assertThat(process.<ExecutableServiceTask>getChildByIndex(process.getChildIndex(id))).isSameAs(serviceTask);
+        }
+
+        assertThat(process.<ExecutableStartEvent>getChildById(wrapString("start")).getId()).isEqualTo(wrapString("start"));
+        assertThat(process.<ExecutableEndEvent>getChildById(wrapString("end")).getId()).isEqualTo(wrapString("end"));
+        assertThat(process.<ExecutableFlowElement>getChildById(wrapString("unknown"))).isNull();
+        assertThat(process.getChildIndex(wrapString("unknown"))).isEqualTo(FlowElementIndex.NOT_FOUND);
+    }
+
     protected ExecutableWorkflow transformSingleProcess(BpmnModelInstance bpmnModelInstance)
     {
         final List<ExecutableWorkflow> processes = bpmnTransformer.transform(bpmnModelInstance);
@@ -0,0 +1,203 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.workflow.map;
+
+import static io.zeebe.broker.workflow.graph.transformer.ZeebeExtensions.wrap;
+import static io.zeebe.util.buffer.BufferUtil.bufferAsString;
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import io.zeebe.broker.workflow.graph.model.BpmnAspect;
+import io.zeebe.broker.workflow.graph.model.ExecutableEndEvent;
+import io.zeebe.broker.workflow.graph.model.ExecutableSequenceFlow;
+import io.zeebe.broker.workflow.graph.model.ExecutableServiceTask;
+import io.zeebe.broker.workflow.graph.model.ExecutableStartEvent;
+import io.zeebe.broker.workflow.graph.model.ExecutableWorkflow;
+import io.zeebe.broker.workflow.graph.transformer.BpmnTransformer;
+
+public class CompiledWorkflowStoreTest
+{
+    private static final DirectBuffer WORKFLOW = wrapString(Bpmn.convertToString(wrap(Bpmn.createExecutableProcess("process")
+            .name("Process")
+            .startEvent("start")
+            .serviceTask("task")
+                .name("Task")
+            .endEvent("end")
+            .done())
+        .taskDefinition("task", "test", 5)
+        .taskHeaders("task", Collections.singletonMap("foo", "bar"))
+        .ioMapping("task")
+            .input("$.foo", "$.bar")
+            .output("$.bar", "$.foo")
+        .done()));
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private CompiledWorkflowStore store;
+    private ExecutableWorkflow workflow;
+
+    @Before
+    public void setUp()
+    {
+        store = spy(new CompiledWorkflowStore(tempFolder.getRoot().getAbsolutePath()));
+
+        workflow = new BpmnTransformer().transform(WORKFLOW).get(0);
+        workflow.setVersion(2);
+    }
+
+    @Test
+    public void shouldReturnNullIfNotStored()
+    {
+        // when
+        final ExecutableWorkflow loadedWorkflow = store.load(WORKFLOW, 2);
+
+        // then
+        assertThat(loadedWorkflow).isNull();
+    }
+
+    @Test
+    public void shouldLoadStoredWorkflow()
+    {
+        // given
+        store.store(WORKFLOW, workflow);
+
+        // when
+        final ExecutableWorkflow loadedWorkflow = store.load(WORKFLOW, 2);
+
+        // then
+        assertThat(loadedWorkflow).isNotNull();
+        assertThat(bufferAsString(loadedWorkflow.getId())).isEqualTo("process");
+        assertThat(loadedWorkflow.getName()).isEqualTo("Process");
+        assertThat(loadedWorkflow.getVersion()).isEqualTo(2);
+        assertThat(loadedWorkflow.getFlowElements()).hasSameSizeAs(workflow.getFlowElements());
+
+        for (int i = 0; i < workflow.getFlowElements().length; i++)
+        {
+            assertThat(loadedWorkflow.getFlowElements()[i].getId()).isEqualTo(workflow.getFlowElements()[i].getId());
+            assertThat(loadedWorkflow.getFlowElements()[i].getClass()).isEqualTo(workflow.getFlowElements()[i].getClass());
+        }
+
+        final ExecutableStartEvent startEvent = loadedWorkflow.getScopeStartEvent();
+        assertThat(bufferAsString(startEvent.getId())).isEqualTo("start");
+        assertThat(startEvent.getBpmnAspect()).isEqualTo(BpmnAspect.TAKE_SEQUENCE_FLOW);
+        assertThat(startEvent.getIncomingSequenceFlows()).isEmpty();
+        assertThat(startEvent.getOutgoingSequenceFlows()).hasSize(1);
+
+        final ExecutableSequenceFlow sequenceFlow = startEvent.getOutgoingSequenceFlows()[0];
+        assertThat(sequenceFlow.getSourceNode()).isSameAs(startEvent);
+        assertThat(sequenceFlow.getFlowScope()).isSameAs(loadedWorkflow);
+        assertThat(sequenceFlow.getWorkflow()).isSameAs(loadedWorkflow);
+
+        final ExecutableServiceTask serviceTask = (ExecutableServiceTask) sequenceFlow.getTargetNode();
+        assertThat(bufferAsString(serviceTask.getId())).isEqualTo("task");
+        assertThat(serviceTask.getName()).isEqualTo("Task");
+        assertThat(serviceTask.getIncomingSequenceFlows()).containsExactly(sequenceFlow);
+        assertThat(loadedWorkflow.<ExecutableServiceTask>getChildById("task")).isSameAs(serviceTask);
+        assertThat(loadedWorkflow.findFlowElementById(wrapString("task"))).isSameAs(serviceTask);
+
+        final ExecutableServiceTask originalTask = workflow.getChildById("task");
+        assertThat(serviceTask.getTaskMetadata().getTaskType()).isEqualTo(wrapString("test"));
+        assertThat(serviceTask.getTaskMetadata().getRetries()).isEqualTo(5);
+        assertThat(serviceTask.getTaskMetadata().getHeaders()).isEqualTo(originalTask.getTaskMetadata().getHeaders());
+
+        assertThat(serviceTask.getIoMapping().getInputMappingQueries()).containsExactly("$.foo", "$.bar");
+        assertThat(serviceTask.getIoMapping().getInputMappings()).hasSize(1);
+        assertThat(serviceTask.getIoMapping().getInputMappings()[0].getSource().isValid()).isTrue();
+        assertThat(serviceTask.getIoMapping().getOutputMappingQueries()).containsExactly("$.bar", "$.foo");
+        assertThat(serviceTask.getIoMapping().getOutputMappings()).hasSize(1);
+
+        final ExecutableEndEvent endEvent = (ExecutableEndEvent) serviceTask.getOutgoingSequenceFlows()[0].getTargetNode();
+        assertThat(bufferAsString(endEvent.getId())).isEqualTo("end");
+        assertThat(endEvent.getBpmnAspect()).isEqualTo(BpmnAspect.CONSUME_TOKEN);
+        assertThat(endEvent.getOutgoingSequenceFlows()).isEmpty();
+    }
+
+    @Test
+    public void shouldNotLoadWorkflowOfOtherVersion()
+    {
+        // given
+        store.store(WORKFLOW, workflow);
+
+        // when
+        final ExecutableWorkflow loadedWorkflow = store.load(WORKFLOW, 3);
+
+        // then
+        assertThat(loadedWorkflow).isNull();
+    }
+
+    @Test
+    public void shouldIgnoreBrokenFile() throws IOException
+    {
+        // given
+        final File file = store.getFile(WORKFLOW, 2);
+        final ExpandableArrayBuffer buffer = new ExpandableArrayBuffer();
+        buffer.putInt(0, CompiledWorkflowStore.FORMAT_VERSION, ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(SIZE_OF_INT, WORKFLOW.capacity(), ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(2 * SIZE_OF_INT, Integer.MAX_VALUE, ByteOrder.LITTLE_ENDIAN);
+
+        Files.write(file.toPath(), Arrays.copyOf(buffer.byteArray(), 3 * SIZE_OF_INT));
+
+        // when
+        final ExecutableWorkflow loadedWorkflow = store.load(WORKFLOW, 2);
+
+        // then
+        assertThat(loadedWorkflow).isNull();
+    }
+
+    @Test
+    public void shouldLoadWorkflowWithoutTransformation()
+    {
+        // given
+        final WorkflowCache workflowCache = new WorkflowCache(1024 * 1024, store, WorkflowCacheTest.newCountersManager());
+        workflowCache.newPartition().put(1L, WORKFLOW, 2);
+
+        final File[] files = store.getDirectory().listFiles();
+        assertThat(files).hasSize(1);
+
+        // when
+        final WorkflowCache restartedCache = new WorkflowCache(1024 * 1024, store, WorkflowCacheTest.newCountersManager());
+        final ExecutableWorkflow loadedWorkflow = restartedCache.newPartition().put(1L, WORKFLOW, 2);
+
+        // then
+        assertThat(bufferAsString(loadedWorkflow.getId())).isEqualTo("process");
+        assertThat(store.getDirectory().listFiles()).containsExactly(files);
+
+        // the workflow is only transformed and stored once
+        verify(store).store(any(DirectBuffer.class), any(ExecutableWorkflow.class));
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.workflow.map;
+
+import static io.zeebe.broker.workflow.map.WorkflowCacheTest.newCountersManager;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.zeebe.broker.workflow.data.WorkflowInstanceEvent;
+import io.zeebe.broker.workflow.data.WorkflowInstanceState;
+import io.zeebe.logstreams.log.LogStreamReader;
+import io.zeebe.logstreams.log.LoggedEvent;
+
+public class PayloadCacheTest
+{
+    // msgpack of {"a":1}
+    private static final DirectBuffer PAYLOAD = new UnsafeBuffer(new byte[] {(byte) 0x81, (byte) 0xa1, 'a', 0x01});
+
+    private static final long PAYLOAD_POSITION = 5L;
+
+    private LogStreamReader logStreamReader;
+    private PayloadCache payloadCache;
+
+    @Before
+    public void setUp()
+    {
+        logStreamReader = mock(LogStreamReader.class);
+
+        payloadCache = new PayloadCache(1024, logStreamReader, newCountersManager(), "test");
+    }
+
+    @After
+    public void cleanUp()
+    {
+        payloadCache.close();
+    }
+
+    @Test
+    public void shouldGetCachedPayload()
+    {
+        // given
+        payloadCache.addPayload(PAYLOAD_POSITION, PAYLOAD);
+
+        // when
+        final DirectBuffer payload = payloadCache.getPayload(PAYLOAD_POSITION);
+
+        // then
+        assertThat(payload).isEqualTo(PAYLOAD);
+        verify(logStreamReader, never()).seek(anyLong());
+    }
+
+    @Test
+    public void shouldReadPayloadFromLogIfNotCached()
+    {
+        // given
+        givenPayloadEventInLog(PAYLOAD_POSITION);
+
+        // when
+        final DirectBuffer payload = payloadCache.getPayload(PAYLOAD_POSITION);
+
+        // then
+        assertThat(payload).isEqualTo(PAYLOAD);
+        verify(logStreamReader).seek(PAYLOAD_POSITION);
+    }
+
+    @Test
+    public void shouldCachePayloadReadFromLog()
+    {
+        // given
+        givenPayloadEventInLog(PAYLOAD_POSITION);
+        payloadCache.getPayload(PAYLOAD_POSITION);
+
+        // when
+        final DirectBuffer payload = payloadCache.getPayload(PAYLOAD_POSITION);
+
+        // then
+        assertThat(payload).isEqualTo(PAYLOAD);
+        verify(logStreamReader, times(1)).seek(PAYLOAD_POSITION);
+    }
+
+    @Test
+    public void shouldReadPayloadFromLogIfRemoved()
+    {
+        // given
+        givenPayloadEventInLog(PAYLOAD_POSITION);
+        payloadCache.addPayload(PAYLOAD_POSITION, PAYLOAD);
+
+        // when
+        payloadCache.remove(PAYLOAD_POSITION);
+        final DirectBuffer payload = payloadCache.getPayload(PAYLOAD_POSITION);
+
+        // then
+        assertThat(payload).isEqualTo(PAYLOAD);
+        verify(logStreamReader).seek(PAYLOAD_POSITION);
+    }
+
+    @Test
+    public void shouldReturnNoPayloadIfNotFoundInLog()
+    {
+        // given
+        when(logStreamReader.seek(PAYLOAD_POSITION)).thenReturn(false);
+
+        // when
+        final DirectBuffer payload = payloadCache.getPayload(PAYLOAD_POSITION);
+
+        // then
+        assertThat(payload).isEqualTo(WorkflowInstanceEvent.NO_PAYLOAD);
+    }
+
+    @Test
+    public void shouldReturnNoPayloadForNegativePosition()
+    {
+        // when
+        final DirectBuffer payload = payloadCache.getPayload(-1L);
+
+        // then
+        assertThat(payload).isEqualTo(WorkflowInstanceEvent.NO_PAYLOAD);
+        verify(logStreamReader, never()).seek(anyLong());
+    }
+
+    private void givenPayloadEventInLog(long position)
+    {
+        final WorkflowInstanceEvent event = new WorkflowInstanceEvent();
+        event.setState(WorkflowInstanceState.ACTIVITY_COMPLETED)
+            .setBpmnProcessId(new UnsafeBuffer("process".getBytes()))
+            .setActivityId("task")
+            .setWorkflowInstanceKey(1L)
+            .setPayload(PAYLOAD);
+
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[event.getLength()]);
+        event.write(buffer, 0);
+
+        final LoggedEvent loggedEvent = mock(LoggedEvent.class);
+        when(loggedEvent.getPosition()).thenReturn(position);
+        when(loggedEvent.getValueBuffer()).thenReturn(buffer);
+        when(loggedEvent.getValueOffset()).thenReturn(0);
+        when(loggedEvent.getValueLength()).thenReturn(buffer.capacity());
+
+        when(logStreamReader.seek(position)).thenReturn(true);
+        when(logStreamReader.hasNext()).thenReturn(true);
+        when(logStreamReader.next()).thenReturn(loggedEvent);
+    }
+}
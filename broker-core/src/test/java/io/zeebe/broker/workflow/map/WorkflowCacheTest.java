@@ -0,0 +1,254 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.workflow.map;
+
+import static io.zeebe.util.buffer.BufferUtil.bufferAsString;
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.CountersManager;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.zeebe.broker.workflow.graph.model.ExecutableWorkflow;
+import io.zeebe.broker.workflow.map.WorkflowCache.Partition;
+
+public class WorkflowCacheTest
+{
+    private static final DirectBuffer WORKFLOW_A = workflow("a");
+    private static final DirectBuffer WORKFLOW_B = workflow("b");
+    private static final DirectBuffer WORKFLOW_C = workflow("c");
+
+    private WorkflowCache workflowCache;
+    private Partition partition;
+    private Partition otherPartition;
+
+    @Before
+    public void setUp()
+    {
+        workflowCache = new WorkflowCache(WORKFLOW_A.capacity() + WORKFLOW_B.capacity(), newCountersManager());
+
+        partition = workflowCache.newPartition();
+        otherPartition = workflowCache.newPartition();
+    }
+
+    @After
+    public void cleanUp()
+    {
+        workflowCache.close();
+    }
+
+    @Test
+    public void shouldReturnNullIfNotCached()
+    {
+        // when
+        final ExecutableWorkflow workflow = partition.get(1L);
+
+        // then
+        assertThat(workflow).isNull();
+        assertThat(workflowCache.missCounter.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldGetCachedWorkflow()
+    {
+        // given
+        final ExecutableWorkflow workflow = partition.put(1L, WORKFLOW_A, 1);
+
+        // when
+        final ExecutableWorkflow cachedWorkflow = partition.get(1L);
+
+        // then
+        assertThat(cachedWorkflow).isSameAs(workflow);
+        assertThat(bufferAsString(cachedWorkflow.getId())).isEqualTo("a");
+        assertThat(cachedWorkflow.getVersion()).isEqualTo(1);
+
+        assertThat(workflowCache.hitCounter.get()).isEqualTo(1);
+        assertThat(workflowCache.getSize()).isEqualTo(WORKFLOW_A.capacity());
+    }
+
+    @Test
+    public void shouldNotShareWorkflowKeysBetweenPartitions()
+    {
+        // given
+        partition.put(1L, WORKFLOW_A, 1);
+
+        // when
+        final ExecutableWorkflow workflow = otherPartition.get(1L);
+
+        // then
+        assertThat(workflow).isNull();
+    }
+
+    @Test
+    public void shouldShareWorkflowWithSameXmlAndVersion()
+    {
+        // given
+        final ExecutableWorkflow workflow = partition.put(1L, WORKFLOW_A, 1);
+
+        // when
+        final ExecutableWorkflow otherWorkflow = otherPartition.put(2L, WORKFLOW_A, 1);
+
+        // then
+        assertThat(otherWorkflow).isSameAs(workflow);
+        assertThat(otherPartition.get(2L)).isSameAs(workflow);
+
+        assertThat(workflowCache.getSize()).isEqualTo(WORKFLOW_A.capacity());
+    }
+
+    @Test
+    public void shouldNotShareWorkflowWithDifferentVersion()
+    {
+        // given
+        final ExecutableWorkflow workflow = partition.put(1L, WORKFLOW_A, 1);
+
+        // when
+        final ExecutableWorkflow otherWorkflow = otherPartition.put(2L, WORKFLOW_A, 2);
+
+        // then
+        assertThat(otherWorkflow).isNotSameAs(workflow);
+        assertThat(otherWorkflow.getVersion()).isEqualTo(2);
+        assertThat(workflow.getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedWorkflow()
+    {
+        // given
+        partition.put(1L, WORKFLOW_A, 1);
+        partition.put(2L, WORKFLOW_B, 1);
+
+        // workflow A is used more recently than B
+        partition.get(1L);
+
+        // when
+        otherPartition.put(3L, WORKFLOW_C, 1);
+
+        // then
+        assertThat(partition.get(1L)).isNotNull();
+        assertThat(partition.get(2L)).isNull();
+        assertThat(otherPartition.get(3L)).isNotNull();
+
+        assertThat(workflowCache.getSize()).isEqualTo(WORKFLOW_A.capacity() + WORKFLOW_C.capacity());
+        assertThat(workflowCache.evictionCounter.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotGetEvictedWorkflowFromPartition()
+    {
+        // given workflow B is looked up by the partition
+        partition.put(1L, WORKFLOW_A, 1);
+        partition.put(2L, WORKFLOW_B, 1);
+
+        partition.get(2L);
+        partition.get(1L);
+
+        // when
+        otherPartition.put(3L, WORKFLOW_C, 1);
+
+        // then
+        assertThat(partition.get(2L)).isNull();
+        assertThat(workflowCache.evictionCounter.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotEvictWorkflowWhichIsReferencedByPartition()
+    {
+        // given
+        partition.put(1L, WORKFLOW_A, 1);
+        partition.put(2L, WORKFLOW_B, 1);
+
+        partition.get(1L);
+        partition.get(2L);
+
+        // workflow A is found in the lookup of the partition
+        partition.get(1L);
+
+        // when
+        otherPartition.put(3L, WORKFLOW_C, 1);
+
+        // then
+        assertThat(partition.get(1L)).isNotNull();
+        assertThat(partition.get(2L)).isNull();
+
+        assertThat(workflowCache.hitCounter.get()).isEqualTo(4);
+    }
+
+    @Test
+    public void shouldKeepSharedWorkflowUntilAllEntriesAreEvicted()
+    {
+        // given
+        final ExecutableWorkflow workflow = partition.put(1L, WORKFLOW_A, 1);
+        otherPartition.put(1L, WORKFLOW_A, 1);
+
+        // when
+        partition.close();
+
+        // then
+        assertThat(otherPartition.get(1L)).isSameAs(workflow);
+        assertThat(workflowCache.getSize()).isEqualTo(WORKFLOW_A.capacity());
+    }
+
+    @Test
+    public void shouldRemoveWorkflowsOfClosedPartition()
+    {
+        // given
+        partition.put(1L, WORKFLOW_A, 1);
+        partition.put(2L, WORKFLOW_B, 1);
+
+        // when
+        partition.close();
+
+        // then
+        assertThat(partition.get(1L)).isNull();
+        assertThat(partition.get(2L)).isNull();
+
+        assertThat(workflowCache.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldCountParseTime()
+    {
+        // when
+        partition.put(1L, WORKFLOW_A, 1);
+
+        // then
+        assertThat(workflowCache.parseTimeCounter.get()).isGreaterThan(0);
+    }
+
+    static CountersManager newCountersManager()
+    {
+        return new CountersManager(
+                new UnsafeBuffer(ByteBuffer.allocateDirect(16 * 1024)),
+                new UnsafeBuffer(ByteBuffer.allocateDirect(4 * 1024)));
+    }
+
+    private static DirectBuffer workflow(String bpmnProcessId)
+    {
+        return wrapString(Bpmn.convertToString(Bpmn.createExecutableProcess(bpmnProcessId)
+            .startEvent()
+            .endEvent()
+            .done()));
+    }
+}
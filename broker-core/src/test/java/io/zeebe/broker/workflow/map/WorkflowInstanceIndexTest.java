@@ -0,0 +1,188 @@
+/*
+ * Zeebe Broker Core
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.zeebe.broker.workflow.map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class WorkflowInstanceIndexTest
+{
+    private WorkflowInstanceIndex index;
+
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Before
+    public void setUp()
+    {
+        index = new WorkflowInstanceIndex();
+    }
+
+    @After
+    public void cleanUp()
+    {
+        index.close();
+    }
+
+    @Test
+    public void shouldReturnDefaultValuesIfNotIndexed()
+    {
+        // when
+        index.wrapWorkflowInstanceKey(1L);
+
+        // then
+        assertThat(index.getWorkflowKey()).isEqualTo(-1L);
+        assertThat(index.getTokenCount()).isEqualTo(-1);
+        assertThat(index.getActivityInstanceKey()).isEqualTo(-1L);
+        assertThat(index.getPayloadPosition()).isEqualTo(-1L);
+    }
+
+    @Test
+    public void shouldRoundTripAllFields()
+    {
+        // given
+        index.newWorkflowInstance(1L)
+            .setWorkflowKey(2L)
+            .setActiveTokenCount(3)
+            .setActivityKey(4L)
+            .setPayloadPosition(5L)
+            .write();
+
+        index.reset();
+
+        // when
+        index.wrapWorkflowInstanceKey(1L);
+
+        // then
+        assertThat(index.getWorkflowKey()).isEqualTo(2L);
+        assertThat(index.getTokenCount()).isEqualTo(3);
+        assertThat(index.getActivityInstanceKey()).isEqualTo(4L);
+        assertThat(index.getPayloadPosition()).isEqualTo(5L);
+    }
+
+    @Test
+    public void shouldUpdateSingleField()
+    {
+        // given
+        index.newWorkflowInstance(1L)
+            .setWorkflowKey(2L)
+            .setActiveTokenCount(1)
+            .setActivityKey(-1L)
+            .setPayloadPosition(-1L)
+            .write();
+
+        // when
+        index.wrapWorkflowInstanceKey(1L)
+            .setActivityKey(4L)
+            .write();
+
+        index.wrapWorkflowInstanceKey(1L)
+            .setPayloadPosition(5L)
+            .write();
+
+        index.wrapWorkflowInstanceKey(1L)
+            .setActiveTokenCount(0)
+            .write();
+
+        // then
+        index.wrapWorkflowInstanceKey(1L);
+
+        assertThat(index.getWorkflowKey()).isEqualTo(2L);
+        assertThat(index.getTokenCount()).isEqualTo(0);
+        assertThat(index.getActivityInstanceKey()).isEqualTo(4L);
+        assertThat(index.getPayloadPosition()).isEqualTo(5L);
+    }
+
+    @Test
+    public void shouldKeepRecordsOfInstancesSeparate()
+    {
+        // given
+        index.newWorkflowInstance(1L)
+            .setWorkflowKey(10L)
+            .setActiveTokenCount(1)
+            .setActivityKey(11L)
+            .setPayloadPosition(12L)
+            .write();
+
+        index.newWorkflowInstance(2L)
+            .setWorkflowKey(20L)
+            .setActiveTokenCount(2)
+            .setActivityKey(21L)
+            .setPayloadPosition(22L)
+            .write();
+
+        // when
+        index.wrapWorkflowInstanceKey(1L);
+
+        // then
+        assertThat(index.getWorkflowKey()).isEqualTo(10L);
+        assertThat(index.getTokenCount()).isEqualTo(1);
+        assertThat(index.getActivityInstanceKey()).isEqualTo(11L);
+        assertThat(index.getPayloadPosition()).isEqualTo(12L);
+    }
+
+    @Test
+    public void shouldRemoveCanceledInstance()
+    {
+        // given
+        index.newWorkflowInstance(1L)
+            .setWorkflowKey(10L)
+            .setActiveTokenCount(1)
+            .setActivityKey(11L)
+            .setPayloadPosition(12L)
+            .write();
+
+        index.newWorkflowInstance(2L)
+            .setWorkflowKey(20L)
+            .setActiveTokenCount(1)
+            .setActivityKey(21L)
+            .setPayloadPosition(22L)
+            .write();
+
+        // when the instance is canceled
+        index.wrapWorkflowInstanceKey(1L);
+        index.remove(1L);
+
+        // then
+        index.wrapWorkflowInstanceKey(1L);
+        assertThat(index.getTokenCount()).isEqualTo(-1);
+        assertThat(index.getPayloadPosition()).isEqualTo(-1L);
+
+        index.wrapWorkflowInstanceKey(2L);
+        assertThat(index.getWorkflowKey()).isEqualTo(20L);
+        assertThat(index.getTokenCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotSetFieldIfNotWrapped()
+    {
+        // given
+        index.wrapWorkflowInstanceKey(1L);
+
+        // then
+        thrown.expect(IllegalStateException.class);
+
+        // when
+        index.setActiveTokenCount(1);
+    }
+}
@@ -57,12 +57,38 @@ public class ClientProperties
      */
     public static final String CLIENT_TASK_EXECUTION_AUTOCOMPLETE = "zeebe.client.tasks.execution.autocomplete";
 
+    /**
+     * The maximum number of task commands (complete, fail) of {@link TaskHandler}s which are sent
+     * together in one batch request. If greater than 1, the handler does not wait for the response
+     * of a command but continues with the next task. Default value is 1, i.e. each command is sent
+     * on its own and the handler waits for the response.
+     */
+    public static final String CLIENT_TASK_COMMAND_BATCH_SIZE = "zeebe.client.tasks.commands.batchSize";
+
+    /**
+     * The maximum time in milliseconds a task command is buffered until its batch is sent,
+     * even if the batch is not full. Only used if the batch size is greater than 1.
+     * Default value is 5.
+     */
+    public static final String CLIENT_TASK_COMMAND_LINGER = "zeebe.client.tasks.commands.linger";
+
     /**
      * Determines the maximum amount of topic events are prefetched and buffered at a time
      * before they are handled to the event handler. Default value is 32.
      */
     public static final String CLIENT_TOPIC_SUBSCRIPTION_PREFETCH_CAPACITY = "zeebe.client.event.prefetch";
 
+    /**
+     * Determines to which partition of a topic new tasks and workflow instances are sent.
+     * Possible values:
+     * DEFAULT: always the first partition
+     * ROUND_ROBIN: all partitions of the topic in turn
+     * KEY_HASH: the partition is determined by the hash of the task type or the BPMN process id
+     * LEAST_LOADED: the partition with the least requests in flight
+     * Default value is ROUND_ROBIN.
+     */
+    public static final String CLIENT_PARTITION_STRATEGY = "zeebe.client.partitionStrategy";
+
     /**
      * The period of time in milliseconds for sending keep alive messages on tcp channels. Setting this appropriately
      * can avoid overhead by reopening channels after idle time.
@@ -80,6 +106,9 @@ public class ClientProperties
         properties.putIfAbsent(CLIENT_THREADINGMODE, "SHARED");
         properties.putIfAbsent(CLIENT_TASK_EXECUTION_THREADS, "2");
         properties.putIfAbsent(CLIENT_TASK_EXECUTION_AUTOCOMPLETE, "true");
+        properties.putIfAbsent(CLIENT_TASK_COMMAND_BATCH_SIZE, "1");
+        properties.putIfAbsent(CLIENT_TASK_COMMAND_LINGER, "5");
         properties.putIfAbsent(CLIENT_TOPIC_SUBSCRIPTION_PREFETCH_CAPACITY, "32");
+        properties.putIfAbsent(CLIENT_PARTITION_STRATEGY, "ROUND_ROBIN");
     }
 }
@@ -18,6 +18,7 @@ package io.zeebe.client;
 import java.util.Properties;
 
 import io.zeebe.client.clustering.impl.TopologyResponse;
+import io.zeebe.client.cmd.BatchCommand;
 import io.zeebe.client.cmd.Request;
 import io.zeebe.client.impl.ZeebeClientImpl;
 
@@ -38,6 +39,12 @@ public interface ZeebeClient extends AutoCloseable
      */
     TopicsClient topics();
 
+    /**
+     * Creates a batch of commands which are sent to the broker in one request,
+     * e.g. to create many tasks at once.
+     */
+    BatchCommand createBatch();
+
     // TODO: this exposes an impl class as its result
     Request<TopologyResponse> requestTopology();
 
@@ -41,7 +41,7 @@ public class ClientTopologyManager implements Actor
     protected final ClientTopologyController clientTopologyController;
     protected final List<CompletableFuture<Void>> refreshFutures;
 
-    protected TopologyImpl topology;
+    protected volatile TopologyImpl topology;
     private ClientTransport transport;
     protected RemoteAddress topologyEndpoint;
 
@@ -94,6 +94,15 @@ public class ClientTopologyManager implements Actor
         return topology;
     }
 
+    /**
+     * Can be called from any thread. Returns the partitions of the topic as
+     * known by the most recent topology.
+     */
+    public List<Partition> getPartitionsOfTopic(final String topicName)
+    {
+        return topology.getPartitionsOfTopic(topicName);
+    }
+
     public RemoteAddress getLeaderForTopic(final Partition topic)
     {
         if (topic != null)
@@ -25,12 +25,14 @@ import io.zeebe.transport.*;
 public class TopologyImpl implements Topology
 {
     protected Map<Partition, RemoteAddress> topicLeaders;
+    protected Map<String, List<Partition>> partitionsByTopic;
     protected List<RemoteAddress> brokers;
     protected final Random randomBroker = new Random();
 
     public TopologyImpl()
     {
         topicLeaders = new HashMap<>();
+        partitionsByTopic = new HashMap<>();
         brokers = new ArrayList<>();
     }
 
@@ -52,6 +54,16 @@ public class TopologyImpl implements Topology
         }
     }
 
+    /**
+     * @return the known partitions of the given topic, ordered by partition id;
+     *         an empty list if the topic is not part of the topology
+     */
+    public List<Partition> getPartitionsOfTopic(String topicName)
+    {
+        final List<Partition> partitions = partitionsByTopic.get(topicName);
+        return partitions != null ? partitions : Collections.emptyList();
+    }
+
     @Override
     public RemoteAddress getRandomBroker()
     {
@@ -84,7 +96,15 @@ public class TopologyImpl implements Topology
 
         for (TopicLeader leader : topologyDto.getTopicLeaders())
         {
-            topicLeaders.put(leader.getTopic(), transport.registerRemoteAddress(leader.getSocketAddress()));
+            final Partition partition = leader.getTopic();
+
+            topicLeaders.put(partition, transport.registerRemoteAddress(leader.getSocketAddress()));
+            partitionsByTopic.computeIfAbsent(partition.getTopicName(), t -> new ArrayList<>()).add(partition);
+        }
+
+        for (List<Partition> partitions : partitionsByTopic.values())
+        {
+            partitions.sort(Comparator.comparingInt(Partition::getPartitionId));
         }
     }
 
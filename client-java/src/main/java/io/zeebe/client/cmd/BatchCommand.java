@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.cmd;
+
+import io.zeebe.client.event.Event;
+
+/**
+ * Sends many commands of the same topic and partition to the broker in one
+ * request. The broker writes them to the log at once and processes them like
+ * single commands. The batch is answered when all commands are processed; the
+ * result contains the outcome of each command.
+ */
+public interface BatchCommand extends Request<BatchResult>
+{
+    /**
+     * Adds the command to the batch. The command must be created by this client,
+     * e.g. via {@code tasks().create(..)}, and is not executed by itself.
+     */
+    BatchCommand add(Request<? extends Event> command);
+
+    /**
+     * @return the number of commands in the batch
+     */
+    int size();
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.cmd;
+
+import io.zeebe.client.event.Event;
+
+/**
+ * The result of a single command of a batch.
+ */
+public interface BatchCommandResult
+{
+    /**
+     * @return the event the broker answered the command with, e.g. the created
+     *         task including its key, or the rejection of the command
+     */
+    Event getEvent();
+
+    /**
+     * @return true, if the broker rejected the command
+     */
+    boolean isRejected();
+
+    /**
+     * @return the reason why the command was rejected, or <code>null</code> if the
+     *         command was not rejected
+     */
+    String getRejectionMessage();
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.cmd;
+
+import java.util.List;
+
+public interface BatchResult
+{
+    /**
+     * @return the topic the commands were written to
+     */
+    String getTopicName();
+
+    /**
+     * @return the partition the commands were written to
+     */
+    int getPartitionId();
+
+    /**
+     * @return the number of commands in the batch
+     */
+    int getCommandCount();
+
+    /**
+     * @return the results of the commands, in the order in which the commands
+     *         were added to the batch
+     */
+    List<BatchCommandResult> getResults();
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.event;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Read-only view of an event of type {@link TopicEventType#TASK}. The properties are
+ * read from the received MessagePack document when they are accessed, so that
+ * handling an event does not require to decode the properties which are not read.
+ *
+ * <p>
+ * The view is reused for the next event of the subscription and is only valid
+ * while the handler is invoked. Use {@link #toTaskEvent()} to keep an event.
+ */
+public interface TaskEventView
+{
+
+    /**
+     * @return the event's metadata
+     */
+    EventMetadata getMetadata();
+
+    /**
+     * @return the key of the task
+     */
+    long getKey();
+
+    /**
+     * @return the state of the event
+     */
+    String getState();
+
+    /**
+     * @return the task's type
+     */
+    String getType();
+
+    /**
+     * @return the lock owner
+     */
+    String getLockOwner();
+
+    /**
+     * @return remaining retries
+     */
+    Integer getRetries();
+
+    /**
+     * @return the time until when the task is locked
+     */
+    Instant getLockExpirationTime();
+
+    /**
+     * @return broker-defined headers associated with this task
+     */
+    Map<String, Object> getHeaders();
+
+    /**
+     * @return user-defined headers associated with this task
+     */
+    Map<String, Object> getCustomHeaders();
+
+    /**
+     * @return JSON-formatted payload
+     */
+    String getPayload();
+
+    /**
+     * @return a POJO copy of the event which remains valid after the handler returns
+     */
+    TaskEvent toTaskEvent();
+}
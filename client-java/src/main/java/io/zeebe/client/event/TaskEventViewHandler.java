@@ -0,0 +1,29 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.event;
+
+/**
+ * Handles task events without mapping them to a {@link TaskEvent}.
+ */
+@FunctionalInterface
+public interface TaskEventViewHandler
+{
+
+    /**
+     * @param event a view of the next event of the topic, only valid during the invocation
+     */
+    void handle(TaskEventView event) throws Exception;
+}
@@ -47,13 +47,24 @@ public interface TopicSubscriptionBuilder
     TopicSubscriptionBuilder handler(TopicEventHandler handler);
 
     /**
-     * Registers a handler that handles all task events.
+     * Registers a handler that handles all task events. Each event is mapped to
+     * a {@link TaskEvent} POJO before the handler is invoked.
      *
      * @param handler the handler to register
      * @return this builder
      */
     TopicSubscriptionBuilder taskEventHandler(TaskEventHandler handler);
 
+    /**
+     * Registers a handler that handles all task events as {@link TaskEventView}, which
+     * reads the properties of an event only when they are accessed. Can not be combined
+     * with a handler registered by {@link #taskEventHandler(TaskEventHandler)}.
+     *
+     * @param handler the handler to register
+     * @return this builder
+     */
+    TopicSubscriptionBuilder taskEventViewHandler(TaskEventViewHandler handler);
+
     /**
      * Registers a handler that handles all workflow instance events.
      *
@@ -0,0 +1,295 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.event.impl;
+
+import static io.zeebe.util.StringUtil.getBytes;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessageUnpacker;
+import org.msgpack.core.buffer.ArrayBufferInput;
+import org.msgpack.value.ValueType;
+
+import io.zeebe.client.event.EventMetadata;
+import io.zeebe.client.event.TaskEvent;
+import io.zeebe.client.event.TaskEventView;
+import io.zeebe.client.impl.data.MsgPackConverter;
+import io.zeebe.client.impl.data.MsgPackMapper;
+import io.zeebe.protocol.Protocol;
+
+/**
+ * Flyweight over the MessagePack document of a received task event. A property is
+ * located in the document each time it is accessed, the other properties are skipped.
+ */
+public class TaskEventViewImpl implements TaskEventView
+{
+    protected static final byte[] STATE = getBytes("state");
+    protected static final byte[] TYPE = getBytes("type");
+    protected static final byte[] LOCK_OWNER = getBytes("lockOwner");
+    protected static final byte[] LOCK_TIME = getBytes("lockTime");
+    protected static final byte[] RETRIES = getBytes("retries");
+    protected static final byte[] HEADERS = getBytes("headers");
+    protected static final byte[] CUSTOM_HEADERS = getBytes("customHeaders");
+    protected static final byte[] PAYLOAD = getBytes("payload");
+
+    protected final MsgPackMapper msgPackMapper;
+    protected final MsgPackConverter msgPackConverter;
+
+    protected final ArrayBufferInput input = new ArrayBufferInput(new byte[0]);
+    protected final MessageUnpacker unpacker = MessagePack.newDefaultUnpacker(input);
+    protected byte[] keyBuffer = new byte[32];
+
+    protected TopicEventImpl event;
+    protected byte[] msgPack;
+
+    public TaskEventViewImpl(MsgPackMapper msgPackMapper, MsgPackConverter msgPackConverter)
+    {
+        this.msgPackMapper = msgPackMapper;
+        this.msgPackConverter = msgPackConverter;
+    }
+
+    public TaskEventViewImpl wrap(TopicEventImpl event)
+    {
+        this.event = event;
+        this.msgPack = event.getAsMsgPack();
+        return this;
+    }
+
+    @Override
+    public EventMetadata getMetadata()
+    {
+        return event.getMetadata();
+    }
+
+    @Override
+    public long getKey()
+    {
+        return event.getMetadata().getKey();
+    }
+
+    @Override
+    public String getState()
+    {
+        return readString(STATE);
+    }
+
+    @Override
+    public String getType()
+    {
+        return readString(TYPE);
+    }
+
+    @Override
+    public String getLockOwner()
+    {
+        return readString(LOCK_OWNER);
+    }
+
+    @Override
+    public Integer getRetries()
+    {
+        try
+        {
+            if (seekValue(RETRIES))
+            {
+                return unpacker.unpackInt();
+            }
+            else
+            {
+                return null;
+            }
+        }
+        catch (IOException e)
+        {
+            throw readException(RETRIES, e);
+        }
+    }
+
+    @Override
+    public Instant getLockExpirationTime()
+    {
+        try
+        {
+            if (seekValue(LOCK_TIME))
+            {
+                final long lockTime = unpacker.unpackLong();
+                return lockTime != Protocol.INSTANT_NULL_VALUE ? Instant.ofEpochMilli(lockTime) : null;
+            }
+            else
+            {
+                return null;
+            }
+        }
+        catch (IOException e)
+        {
+            throw readException(LOCK_TIME, e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getHeaders()
+    {
+        return readMap(HEADERS);
+    }
+
+    @Override
+    public Map<String, Object> getCustomHeaders()
+    {
+        return readMap(CUSTOM_HEADERS);
+    }
+
+    @Override
+    public String getPayload()
+    {
+        try
+        {
+            if (seekValue(PAYLOAD))
+            {
+                final int length = unpacker.unpackBinaryHeader();
+                final byte[] payload = new byte[length];
+                unpacker.readPayload(payload);
+
+                return msgPackConverter.convertToJson(payload);
+            }
+            else
+            {
+                return null;
+            }
+        }
+        catch (IOException e)
+        {
+            throw readException(PAYLOAD, e);
+        }
+    }
+
+    @Override
+    public TaskEvent toTaskEvent()
+    {
+        final TaskEventImpl taskEvent = msgPackMapper.convert(msgPack, TaskEventImpl.class);
+        taskEvent.updateMetadata(event.getMetadata());
+        return taskEvent;
+    }
+
+    protected String readString(byte[] property)
+    {
+        try
+        {
+            if (seekValue(property))
+            {
+                return unpacker.unpackString();
+            }
+            else
+            {
+                return null;
+            }
+        }
+        catch (IOException e)
+        {
+            throw readException(property, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Map<String, Object> readMap(byte[] property)
+    {
+        try
+        {
+            if (seekValue(property))
+            {
+                final int offset = (int) unpacker.getTotalReadBytes();
+                unpacker.skipValue();
+                final int length = (int) unpacker.getTotalReadBytes() - offset;
+
+                return msgPackMapper.convert(msgPack, offset, length, Map.class);
+            }
+            else
+            {
+                return null;
+            }
+        }
+        catch (IOException e)
+        {
+            throw readException(property, e);
+        }
+    }
+
+    /**
+     * Positions the unpacker at the value of the given property.
+     *
+     * @return <code>false</code> if the event has no such property or its value is nil
+     */
+    protected boolean seekValue(byte[] property) throws IOException
+    {
+        input.reset(msgPack);
+        unpacker.reset(input);
+
+        final int propertyCount = unpacker.unpackMapHeader();
+
+        for (int i = 0; i < propertyCount; i++)
+        {
+            final int keyLength = unpacker.unpackRawStringHeader();
+
+            if (keyBuffer.length < keyLength)
+            {
+                keyBuffer = new byte[keyLength];
+            }
+            unpacker.readPayload(keyBuffer, 0, keyLength);
+
+            if (equals(keyBuffer, keyLength, property))
+            {
+                return unpacker.getNextFormat().getValueType() != ValueType.NIL;
+            }
+            else
+            {
+                unpacker.skipValue();
+            }
+        }
+
+        return false;
+    }
+
+    protected static boolean equals(byte[] buffer, int length, byte[] other)
+    {
+        if (length != other.length)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++)
+        {
+            if (buffer[i] != other[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected static RuntimeException readException(byte[] property, IOException cause)
+    {
+        return new RuntimeException("Could not read property '" + new String(property, StandardCharsets.UTF_8) + "' of task event", cause);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TaskEventView [metadata=" + event.getMetadata() + ", state=" + getState() + ", type=" + getType() + "]";
+    }
+}
@@ -19,6 +19,7 @@ import io.zeebe.client.TopicsClient;
 import io.zeebe.client.event.PollableTopicSubscriptionBuilder;
 import io.zeebe.client.event.TopicSubscriptionBuilder;
 import io.zeebe.client.impl.ZeebeClientImpl;
+import io.zeebe.client.impl.data.MsgPackConverter;
 
 
 public class TopicClientImpl implements TopicsClient
@@ -52,6 +53,11 @@ public class TopicClientImpl implements TopicsClient
         return new CloseTopicSubscriptionCommandImpl(client.getCommandManager(), topicName, partitionId, subscriberKey);
     }
 
+    public MsgPackConverter getMsgPackConverter()
+    {
+        return client.getMsgPackConverter();
+    }
+
     public AcknowledgeSubscribedEventCommandImpl acknowledgeEvent(String topicName, int partitionId)
     {
         return new AcknowledgeSubscribedEventCommandImpl(client.getCommandManager(), topicName, partitionId);
@@ -25,6 +25,7 @@ public class TopicSubscriptionBuilderImpl implements TopicSubscriptionBuilder
 {
     protected TopicEventHandler defaultEventHandler;
     protected TaskEventHandler taskEventHandler;
+    protected TaskEventViewHandler taskEventViewHandler;
     protected WorkflowInstanceEventHandler wfInstanceEventHandler;
     protected WorkflowEventHandler wfEventHandler;
     protected IncidentEventHandler incidentEventHandler;
@@ -32,6 +33,7 @@ public class TopicSubscriptionBuilderImpl implements TopicSubscriptionBuilder
 
     protected final TopicSubscriptionImplBuilder builder;
     protected final MsgPackMapper msgPackMapper;
+    protected final TaskEventViewImpl taskEventView;
 
     public TopicSubscriptionBuilderImpl(
             TopicClientImpl client,
@@ -43,6 +45,7 @@ public class TopicSubscriptionBuilderImpl implements TopicSubscriptionBuilder
     {
         builder = new TopicSubscriptionImplBuilder(client, topic, partition, acquisition, prefetchCapacity);
         this.msgPackMapper = msgPackMapper;
+        this.taskEventView = new TaskEventViewImpl(msgPackMapper, client.getMsgPackConverter());
     }
 
     @Override
@@ -59,6 +62,13 @@ public class TopicSubscriptionBuilderImpl implements TopicSubscriptionBuilder
         return this;
     }
 
+    @Override
+    public TopicSubscriptionBuilder taskEventViewHandler(TaskEventViewHandler handler)
+    {
+        this.taskEventViewHandler = handler;
+        return this;
+    }
+
     @Override
     public TopicSubscriptionBuilder workflowInstanceEventHandler(WorkflowInstanceEventHandler handler)
     {
@@ -91,11 +101,15 @@ public class TopicSubscriptionBuilderImpl implements TopicSubscriptionBuilder
     public TopicSubscription open()
     {
         EnsureUtil.ensureNotNull("name", builder.getName());
-        if (defaultEventHandler == null && taskEventHandler == null && wfEventHandler == null && wfInstanceEventHandler == null && incidentEventHandler == null
+        if (defaultEventHandler == null && taskEventHandler == null && taskEventViewHandler == null && wfEventHandler == null && wfInstanceEventHandler == null && incidentEventHandler == null
                 && raftEventHandler == null)
         {
             throw new RuntimeException("at least one handler must be set");
         }
+        if (taskEventHandler != null && taskEventViewHandler != null)
+        {
+            throw new RuntimeException("either a task event handler or a task event view handler can be set");
+        }
 
         builder.handler(this::dispatchEvent);
 
@@ -108,7 +122,11 @@ public class TopicSubscriptionBuilderImpl implements TopicSubscriptionBuilder
     {
         final TopicEventType eventType = event.getMetadata().getType();
 
-        if (TopicEventType.TASK == eventType && taskEventHandler != null)
+        if (TopicEventType.TASK == eventType && taskEventViewHandler != null)
+        {
+            taskEventViewHandler.handle(taskEventView.wrap(event));
+        }
+        else if (TopicEventType.TASK == eventType && taskEventHandler != null)
         {
             final TaskEventImpl taskEvent = msgPackMapper.convert(event.getAsMsgPack(), TaskEventImpl.class);
             taskEvent.updateMetadata(event.getMetadata());
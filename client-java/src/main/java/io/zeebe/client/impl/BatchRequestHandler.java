@@ -0,0 +1,203 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.impl;
+
+import static io.zeebe.protocol.clientapi.batch.ExecuteCommandBatchDescriptor.*;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.io.DirectBufferInputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.zeebe.client.clustering.impl.ClientTopologyManager;
+import io.zeebe.client.cmd.BatchCommandResult;
+import io.zeebe.client.cmd.ClientException;
+import io.zeebe.client.event.EventMetadata;
+import io.zeebe.client.event.impl.EventImpl;
+import io.zeebe.client.impl.cmd.BatchCommandImpl;
+import io.zeebe.client.impl.cmd.BatchCommandResultImpl;
+import io.zeebe.client.impl.cmd.BatchResultImpl;
+import io.zeebe.client.impl.cmd.CommandImpl;
+import io.zeebe.protocol.clientapi.ExecuteCommandRequestEncoder;
+import io.zeebe.protocol.clientapi.ExecuteCommandResponseDecoder;
+import io.zeebe.protocol.clientapi.MessageHeaderDecoder;
+import io.zeebe.protocol.clientapi.MessageHeaderEncoder;
+import io.zeebe.transport.RemoteAddress;
+
+/**
+ * Serializes the commands of a batch one after another into a single request,
+ * reusing the serialization of single commands. The response contains the
+ * resulting event of each command, which is checked like the response of a
+ * single command.
+ */
+public class BatchRequestHandler implements RequestResponseHandler
+{
+    protected final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    protected final CommandRequestHandler commandRequestHandler;
+    protected final ObjectMapper objectMapper;
+    protected final DirectBufferInputStream eventInputStream = new DirectBufferInputStream();
+
+    protected final ExpandableArrayBuffer serializedBatch = new ExpandableArrayBuffer();
+    protected int serializedBatchLength = 0;
+
+    protected List<CommandImpl<?>> commands;
+    protected EventMetadata metadata;
+    protected int commandCount;
+
+    public BatchRequestHandler(ObjectMapper objectMapper)
+    {
+        this.objectMapper = objectMapper;
+        this.commandRequestHandler = new CommandRequestHandler(objectMapper);
+    }
+
+    public void configure(BatchCommandImpl batch)
+    {
+        final List<CommandImpl<?>> commands = batch.getCommands();
+
+        this.commands = commands;
+        this.metadata = commands.get(0).getEvent().getMetadata();
+        this.commandCount = commands.size();
+
+        int offset = 0;
+        headerEncoder.wrap(serializedBatch, offset)
+            .blockLength(HEADER_LENGTH)
+            .schemaId(ExecuteCommandRequestEncoder.SCHEMA_ID)
+            .templateId(REQUEST_TEMPLATE_ID)
+            .version(ExecuteCommandRequestEncoder.SCHEMA_VERSION);
+
+        offset += headerEncoder.encodedLength();
+
+        serializedBatch.putInt(offset + COMMAND_COUNT_OFFSET, commandCount, ByteOrder.LITTLE_ENDIAN);
+        offset += HEADER_LENGTH;
+
+        for (int i = 0; i < commandCount; i++)
+        {
+            commandRequestHandler.configure(commands.get(i));
+
+            final int commandLength = commandRequestHandler.getLength();
+            serializedBatch.putInt(offset + COMMAND_LENGTH_OFFSET, commandLength, ByteOrder.LITTLE_ENDIAN);
+            offset += COMMAND_HEADER_LENGTH;
+
+            commandRequestHandler.write(serializedBatch, offset);
+            offset += commandLength;
+        }
+
+        serializedBatchLength = offset;
+    }
+
+    @Override
+    public int getLength()
+    {
+        return serializedBatchLength;
+    }
+
+    @Override
+    public void write(MutableDirectBuffer buffer, int offset)
+    {
+        buffer.putBytes(offset, serializedBatch, 0, serializedBatchLength);
+    }
+
+    @Override
+    public boolean handlesResponse(MessageHeaderDecoder responseHeader)
+    {
+        return responseHeader.schemaId() == ExecuteCommandResponseDecoder.SCHEMA_ID && responseHeader.templateId() == RESPONSE_TEMPLATE_ID;
+    }
+
+    @Override
+    public BatchResultImpl getResult(DirectBuffer buffer, int offset, int blockLength, int version)
+    {
+        final int resultCount = responseCommandCount(buffer, offset);
+
+        if (resultCount != commandCount)
+        {
+            throw new ClientException("Expected " + commandCount + " results of the command batch but got " + resultCount);
+        }
+
+        final List<BatchCommandResult> results = new ArrayList<>(resultCount);
+        int resultOffset = offset + responseHeaderLength();
+
+        for (int i = 0; i < resultCount; i++)
+        {
+            final int eventLength = resultEventLength(buffer, resultOffset);
+
+            results.add(getCommandResult(
+                    commands.get(i),
+                    resultKey(buffer, resultOffset),
+                    resultPosition(buffer, resultOffset),
+                    buffer,
+                    resultEventOffset(resultOffset),
+                    eventLength));
+
+            resultOffset += framedResultLength(eventLength);
+        }
+
+        return new BatchResultImpl(metadata.getTopicName(), metadata.getPartitionId(), results);
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    protected BatchCommandResult getCommandResult(CommandImpl command, long key, long position, DirectBuffer buffer, int eventOffset, int eventLength)
+    {
+        final EventImpl requestEvent = command.getEvent();
+
+        eventInputStream.wrap(buffer, eventOffset, eventLength);
+
+        final EventImpl event;
+        try
+        {
+            event = objectMapper.readValue(eventInputStream, requestEvent.getClass());
+        }
+        catch (Exception e)
+        {
+            throw new ClientException("Cannot deserialize event in response", e);
+        }
+
+        event.setKey(key);
+        event.setPartitionId(metadata.getPartitionId());
+        event.setTopicName(metadata.getTopicName());
+        event.setEventPosition(position);
+
+        final String expectedState = command.getExpectedStatus();
+        String rejectionMessage = null;
+
+        if (expectedState != null && !expectedState.equals(event.getState()))
+        {
+            rejectionMessage = command.generateError(requestEvent, event);
+        }
+
+        return new BatchCommandResultImpl(event, rejectionMessage);
+    }
+
+    @Override
+    public RemoteAddress getTarget(ClientTopologyManager currentTopology)
+    {
+        return currentTopology.getLeaderForTopic(new Partition(metadata.getTopicName(), metadata.getPartitionId()));
+    }
+
+    @Override
+    public String describeRequest()
+    {
+        return "[ topic = " + metadata.getTopicName() +
+                ", partition = " + metadata.getPartitionId() +
+                ", commands = " + commandCount + "]";
+    }
+
+}
@@ -15,15 +15,21 @@
  */
 package io.zeebe.client.impl;
 
-import io.zeebe.client.event.TopicEventType;
+import io.zeebe.client.event.impl.EventImpl;
 
 public class DefaultPartitionStrategy implements RequestDispatchStrategy
 {
     protected static final int DEFAULT_PARTITION = 0;
 
     @Override
-    public int determinePartition(String topic, TopicEventType eventType, String state)
+    public int determinePartition(String topic, EventImpl event)
     {
         return DEFAULT_PARTITION;
     }
+
+    @Override
+    public void onRequestCompleted(String topic, int partitionId)
+    {
+        // nothing to do
+    }
 }
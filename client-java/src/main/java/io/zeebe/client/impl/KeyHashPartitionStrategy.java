@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.impl;
+
+import java.util.List;
+import java.util.function.Function;
+
+import io.zeebe.client.clustering.impl.ClientTopologyManager;
+import io.zeebe.client.event.impl.EventImpl;
+import io.zeebe.client.event.impl.TaskEventImpl;
+import io.zeebe.client.workflow.impl.WorkflowInstanceEventImpl;
+
+/**
+ * Sends all commands with the same key to the same partition, as long as the
+ * partitions of the topic do not change. By default, the key of a task is its
+ * type and the key of a workflow instance is its BPMN process id.
+ */
+public class KeyHashPartitionStrategy extends DefaultPartitionStrategy
+{
+    public static final Function<EventImpl, Object> DEFAULT_KEY_EXTRACTOR = KeyHashPartitionStrategy::defaultKey;
+
+    protected final ClientTopologyManager topologyManager;
+    protected final Function<EventImpl, Object> keyExtractor;
+
+    public KeyHashPartitionStrategy(ClientTopologyManager topologyManager)
+    {
+        this(topologyManager, DEFAULT_KEY_EXTRACTOR);
+    }
+
+    public KeyHashPartitionStrategy(ClientTopologyManager topologyManager, Function<EventImpl, Object> keyExtractor)
+    {
+        this.topologyManager = topologyManager;
+        this.keyExtractor = keyExtractor;
+    }
+
+    @Override
+    public int determinePartition(String topic, EventImpl event)
+    {
+        final List<Partition> partitions = topologyManager.getPartitionsOfTopic(topic);
+
+        if (partitions.isEmpty())
+        {
+            return DEFAULT_PARTITION;
+        }
+        else
+        {
+            final Object key = keyExtractor.apply(event);
+            final int hash = key != null ? spread(key.hashCode()) : 0;
+
+            return partitions.get(hash % partitions.size()).getPartitionId();
+        }
+    }
+
+    protected static int spread(int hashCode)
+    {
+        return (hashCode ^ (hashCode >>> 16)) & Integer.MAX_VALUE;
+    }
+
+    protected static Object defaultKey(EventImpl event)
+    {
+        if (event instanceof TaskEventImpl)
+        {
+            return ((TaskEventImpl) event).getType();
+        }
+        else if (event instanceof WorkflowInstanceEventImpl)
+        {
+            return ((WorkflowInstanceEventImpl) event).getBpmnProcessId();
+        }
+        else
+        {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.impl;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.zeebe.client.clustering.impl.ClientTopologyManager;
+import io.zeebe.client.event.impl.EventImpl;
+
+/**
+ * Sends a command to the partition of the topic with the least number of
+ * requests in flight that were dispatched by this strategy.
+ */
+public class LeastLoadedPartitionStrategy extends DefaultPartitionStrategy
+{
+    protected final ClientTopologyManager topologyManager;
+    protected final ConcurrentHashMap<Partition, AtomicInteger> inFlightRequests = new ConcurrentHashMap<>();
+    protected final AtomicInteger tieBreaker = new AtomicInteger();
+
+    public LeastLoadedPartitionStrategy(ClientTopologyManager topologyManager)
+    {
+        this.topologyManager = topologyManager;
+    }
+
+    @Override
+    public int determinePartition(String topic, EventImpl event)
+    {
+        final List<Partition> partitions = topologyManager.getPartitionsOfTopic(topic);
+        final int partitionCount = partitions.size();
+
+        if (partitionCount == 0)
+        {
+            return DEFAULT_PARTITION;
+        }
+
+        // start at a rotating offset so that partitions with equal load are used alternately
+        final int offset = (tieBreaker.getAndIncrement() & Integer.MAX_VALUE) % partitionCount;
+
+        Partition selectedPartition = null;
+        AtomicInteger selectedCounter = null;
+        int minInFlight = Integer.MAX_VALUE;
+
+        for (int i = 0; i < partitionCount; i++)
+        {
+            final Partition partition = partitions.get((offset + i) % partitionCount);
+            final AtomicInteger counter = inFlightRequests.computeIfAbsent(partition, p -> new AtomicInteger());
+
+            final int inFlight = counter.get();
+            if (inFlight < minInFlight)
+            {
+                minInFlight = inFlight;
+                selectedPartition = partition;
+                selectedCounter = counter;
+            }
+        }
+
+        selectedCounter.incrementAndGet();
+
+        return selectedPartition.getPartitionId();
+    }
+
+    @Override
+    public void onRequestCompleted(String topic, int partitionId)
+    {
+        final AtomicInteger counter = inFlightRequests.get(new Partition(topic, partitionId));
+
+        if (counter != null)
+        {
+            // the request may have been dispatched before the partition was known
+            counter.updateAndGet(inFlight -> inFlight > 0 ? inFlight - 1 : 0);
+        }
+    }
+
+    public int getInFlightRequests(String topic, int partitionId)
+    {
+        final AtomicInteger counter = inFlightRequests.get(new Partition(topic, partitionId));
+        return counter != null ? counter.get() : 0;
+    }
+}
@@ -30,6 +30,7 @@ import io.zeebe.client.clustering.impl.ClientTopologyManager;
 import io.zeebe.client.cmd.BrokerErrorException;
 import io.zeebe.client.cmd.ClientCommandRejectedException;
 import io.zeebe.client.cmd.ClientException;
+import io.zeebe.client.impl.cmd.BatchCommandImpl;
 import io.zeebe.client.impl.cmd.CommandImpl;
 import io.zeebe.client.impl.cmd.ReceiverAwareResponseResult;
 import io.zeebe.client.task.impl.ControlMessageRequest;
@@ -82,6 +83,7 @@ public class RequestController implements BufferReader
     protected final CommandRequestHandler commandRequestHandler;
     protected RequestResponseHandler currentRequestHandler;
     protected ControlMessageRequestHandler controlMessageHandler;
+    protected final BatchRequestHandler batchRequestHandler;
 
     public RequestController(
             final ClientTransport transport,
@@ -94,6 +96,7 @@ public class RequestController implements BufferReader
         this.closeConsumer = closeConsumer;
         this.commandRequestHandler = new CommandRequestHandler(objectMapper);
         this.controlMessageHandler = new ControlMessageRequestHandler(objectMapper);
+        this.batchRequestHandler = new BatchRequestHandler(objectMapper);
 
         stateMachine = StateMachine.<Context>builder(Context::new)
             .initialState(closedState)
@@ -125,6 +128,15 @@ public class RequestController implements BufferReader
 
     }
 
+    public void configureBatchRequest(final BatchCommandImpl batch, final CompletableFuture future)
+    {
+        this.future = future;
+        batchRequestHandler.configure(batch);
+
+        currentRequestHandler = batchRequestHandler;
+        isConfigured = true;
+    }
+
     public void configureControlMessageRequest(ControlMessageRequest controlMessage, CompletableFuture future)
     {
         this.future = future;
@@ -15,10 +15,21 @@
  */
 package io.zeebe.client.impl;
 
-import io.zeebe.client.event.TopicEventType;
+import io.zeebe.client.event.impl.EventImpl;
 
+/**
+ * Determines the partition a command is sent to, if the command does not refer
+ * to an existing entity (i.e. its event has no partition id yet).
+ * Implementations are invoked concurrently from any thread that submits commands.
+ */
 public interface RequestDispatchStrategy
 {
 
-    int determinePartition(String topic, TopicEventType eventType, String state);
+    int determinePartition(String topic, EventImpl event);
+
+    /**
+     * Invoked once the request for a command that was dispatched by this strategy
+     * has completed (successfully or not).
+     */
+    void onRequestCompleted(String topic, int partitionId);
 }
@@ -15,6 +15,7 @@
  */
 package io.zeebe.client.impl;
 
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -24,9 +25,11 @@ import org.agrona.LangUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.zeebe.client.clustering.impl.ClientTopologyManager;
+import io.zeebe.client.cmd.BatchResult;
 import io.zeebe.client.event.Event;
 import io.zeebe.client.event.EventMetadata;
 import io.zeebe.client.event.impl.EventImpl;
+import io.zeebe.client.impl.cmd.BatchCommandImpl;
 import io.zeebe.client.impl.cmd.CommandImpl;
 import io.zeebe.client.task.impl.ControlMessageRequest;
 import io.zeebe.transport.ClientTransport;
@@ -44,16 +47,22 @@ public class RequestManager implements Actor
 
     protected final RequestDispatchStrategy dispatchStrategy;
 
+    protected final ObjectMapper objectMapper;
+    protected final int messageMaxLength;
+
     public RequestManager(
             final ClientTransport transport,
             final ClientTopologyManager topologyManager,
             RequestDispatchStrategy dispatchStrategy,
             ObjectMapper objectMapper,
-            int capacity)
+            int capacity,
+            int messageMaxLength)
     {
         this.transport = transport;
         this.topologyManager = topologyManager;
         this.capacity = capacity;
+        this.objectMapper = objectMapper;
+        this.messageMaxLength = messageMaxLength;
 
         this.pooledCmds = new ArrayBlockingQueue<>(capacity);
         this.commandControllers = new RequestController[capacity];
@@ -83,10 +92,19 @@ public class RequestManager implements Actor
 
     public <E extends Event> CompletableFuture<E> executeAsync(final CommandImpl<E> command)
     {
-        ensureValidTarget(command);
+        final boolean isDispatched = ensureValidTarget(command);
 
         final CompletableFuture<E> future = new CompletableFuture<>();
 
+        if (isDispatched)
+        {
+            final EventMetadata metadata = command.getEvent().getMetadata();
+            final String topicName = metadata.getTopicName();
+            final int partitionId = metadata.getPartitionId();
+
+            future.whenComplete((r, t) -> dispatchStrategy.onRequestCompleted(topicName, partitionId));
+        }
+
         try
         {
             final RequestController ctrl = pooledCmds.take();
@@ -100,14 +118,22 @@ public class RequestManager implements Actor
         return future;
     }
 
-    private <E extends Event> void ensureValidTarget(final CommandImpl<E> command)
+    /**
+     * @return true if the target partition was determined by the dispatch strategy
+     */
+    private boolean ensureValidTarget(final CommandImpl<?> command)
     {
         final EventImpl event = command.getEvent();
         if (!event.hasValidPartitionId())
         {
             final EventMetadata metadata = event.getMetadata();
-            final int targetPartition = dispatchStrategy.determinePartition(metadata.getTopicName(), metadata.getType(), event.getState());
+            final int targetPartition = dispatchStrategy.determinePartition(metadata.getTopicName(), event);
             event.setPartitionId(targetPartition);
+            return true;
+        }
+        else
+        {
+            return false;
         }
     }
 
@@ -116,6 +142,73 @@ public class RequestManager implements Actor
         return waitAndResolve(executeAsync(command));
     }
 
+    /**
+     * @return a batch whose request is limited to the maximum message length of the transport
+     */
+    public BatchCommandImpl createBatch()
+    {
+        return new BatchCommandImpl(this, objectMapper, messageMaxLength);
+    }
+
+    public CompletableFuture<BatchResult> executeAsync(final BatchCommandImpl batch)
+    {
+        final List<CommandImpl<?>> commands = batch.getCommands();
+
+        if (commands.isEmpty())
+        {
+            throw new IllegalStateException("Batch must contain at least one command");
+        }
+
+        // all commands of a batch are written to the partition of the first command
+        final boolean isDispatched = ensureValidTarget(commands.get(0));
+
+        final EventMetadata metadata = commands.get(0).getEvent().getMetadata();
+        final String topicName = metadata.getTopicName();
+        final int partitionId = metadata.getPartitionId();
+
+        for (int i = 1; i < commands.size(); i++)
+        {
+            final EventImpl event = commands.get(i).getEvent();
+
+            if (!topicName.equals(event.getMetadata().getTopicName()))
+            {
+                throw new IllegalStateException("All commands of a batch must have the same topic");
+            }
+
+            if (!event.hasValidPartitionId())
+            {
+                event.setPartitionId(partitionId);
+            }
+            else if (event.getMetadata().getPartitionId() != partitionId)
+            {
+                throw new IllegalStateException("All commands of a batch must have the same partition");
+            }
+        }
+
+        final CompletableFuture<BatchResult> future = new CompletableFuture<>();
+
+        if (isDispatched)
+        {
+            future.whenComplete((r, t) -> dispatchStrategy.onRequestCompleted(topicName, partitionId));
+        }
+
+        try
+        {
+            final RequestController ctrl = pooledCmds.take();
+            ctrl.configureBatchRequest(batch, future);
+        }
+        catch (InterruptedException e)
+        {
+            LangUtil.rethrowUnchecked(e);
+        }
+
+        return future;
+    }
+
+    public BatchResult execute(final BatchCommandImpl batch)
+    {
+        return waitAndResolve(executeAsync(batch));
+    }
 
     public <E> CompletableFuture<E> executeAsync(final ControlMessageRequest<E> controlMessage)
     {
@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.impl;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.zeebe.client.clustering.impl.ClientTopologyManager;
+import io.zeebe.client.event.impl.EventImpl;
+
+/**
+ * Distributes commands evenly over all known partitions of the topic.
+ * Falls back to the default partition if the topic is not known yet.
+ */
+public class RoundRobinPartitionStrategy extends DefaultPartitionStrategy
+{
+    protected final ClientTopologyManager topologyManager;
+    protected final AtomicInteger counter = new AtomicInteger();
+
+    public RoundRobinPartitionStrategy(ClientTopologyManager topologyManager)
+    {
+        this.topologyManager = topologyManager;
+    }
+
+    @Override
+    public int determinePartition(String topic, EventImpl event)
+    {
+        final List<Partition> partitions = topologyManager.getPartitionsOfTopic(topic);
+
+        if (partitions.isEmpty())
+        {
+            return DEFAULT_PARTITION;
+        }
+        else
+        {
+            final int index = (counter.getAndIncrement() & Integer.MAX_VALUE) % partitions.size();
+            return partitions.get(index).getPartitionId();
+        }
+    }
+}
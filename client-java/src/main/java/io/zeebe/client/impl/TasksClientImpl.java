@@ -31,6 +31,8 @@ import io.zeebe.client.task.impl.CreateTaskSubscriptionCommandImpl;
 import io.zeebe.client.task.impl.FailTaskCommandImpl;
 import io.zeebe.client.task.impl.IncreaseTaskSubscriptionCreditsCmdImpl;
 import io.zeebe.client.task.impl.UpdateRetriesCommandImpl;
+import io.zeebe.client.task.impl.subscription.TaskCommandBatcher;
+import io.zeebe.transport.ClientOutput;
 
 public class TasksClientImpl implements TasksClient
 {
@@ -95,4 +97,14 @@ public class TasksClientImpl implements TasksClient
         return new IncreaseTaskSubscriptionCreditsCmdImpl(client.getCommandManager(), partition);
     }
 
+    public TaskCommandBatcher getTaskCommandBatcher()
+    {
+        return client.getSubscriptionManager().getTaskCommandBatcher();
+    }
+
+    public ClientOutput getOutput()
+    {
+        return client.getTransport().getOutput();
+    }
+
 }
@@ -33,6 +33,7 @@ import io.zeebe.client.ZeebeClient;
 import io.zeebe.client.clustering.impl.ClientTopologyManager;
 import io.zeebe.client.clustering.impl.RequestTopologyCmdImpl;
 import io.zeebe.client.clustering.impl.TopologyResponse;
+import io.zeebe.client.cmd.BatchCommand;
 import io.zeebe.client.cmd.Request;
 import io.zeebe.client.event.impl.TopicClientImpl;
 import io.zeebe.client.impl.data.MsgPackConverter;
@@ -49,6 +50,8 @@ import io.zeebe.util.actor.ActorSchedulerBuilder;
 
 public class ZeebeClientImpl implements ZeebeClient
 {
+    public static final int MESSAGE_MAX_LENGTH = 1024 * 1024;
+
     protected final Properties initializationProperties;
 
     protected SocketAddress contactPoint;
@@ -98,7 +101,7 @@ public class ZeebeClientImpl implements ZeebeClient
             .build();
 
         final ClientTransportBuilder transportBuilder = Transports.newClientTransport()
-            .messageMaxLength(1024 * 1024)
+            .messageMaxLength(MESSAGE_MAX_LENGTH)
             .messageReceiveBuffer(dataFrameReceiveBuffer)
             .requestPoolSize(maxRequests + 16)
             .scheduler(transportActorScheduler)
@@ -129,17 +132,40 @@ public class ZeebeClientImpl implements ZeebeClient
         final int numExecutionThreads = Integer.parseInt(properties.getProperty(ClientProperties.CLIENT_TASK_EXECUTION_THREADS));
         final Boolean autoCompleteTasks = Boolean.parseBoolean(properties.getProperty(ClientProperties.CLIENT_TASK_EXECUTION_AUTOCOMPLETE));
 
+        final int taskCommandBatchSize = Integer.parseInt(properties.getProperty(ClientProperties.CLIENT_TASK_COMMAND_BATCH_SIZE));
+        final long taskCommandLinger = Long.parseLong(properties.getProperty(ClientProperties.CLIENT_TASK_COMMAND_LINGER));
+
         final int prefetchCapacity = Integer.parseInt(properties.getProperty(ClientProperties.CLIENT_TOPIC_SUBSCRIPTION_PREFETCH_CAPACITY));
 
+        topologyManager = new ClientTopologyManager(transport, objectMapper, contactPoint);
+        final RequestDispatchStrategy dispatchStrategy = createDispatchStrategy(properties.getProperty(ClientProperties.CLIENT_PARTITION_STRATEGY));
+        apiCommandManager = new RequestManager(transport, topologyManager, dispatchStrategy, objectMapper, maxRequests, MESSAGE_MAX_LENGTH);
+
         subscriptionManager = new SubscriptionManager(
                 this,
                 numExecutionThreads,
                 autoCompleteTasks,
+                taskCommandBatchSize,
+                taskCommandLinger,
                 prefetchCapacity);
         transport.registerChannelListener(subscriptionManager);
+    }
 
-        topologyManager = new ClientTopologyManager(transport, objectMapper, contactPoint);
-        apiCommandManager = new RequestManager(transport, topologyManager, new DefaultPartitionStrategy(), objectMapper, maxRequests);
+    protected RequestDispatchStrategy createDispatchStrategy(String strategy)
+    {
+        switch (strategy)
+        {
+            case "DEFAULT":
+                return new DefaultPartitionStrategy();
+            case "ROUND_ROBIN":
+                return new RoundRobinPartitionStrategy(topologyManager);
+            case "KEY_HASH":
+                return new KeyHashPartitionStrategy(topologyManager);
+            case "LEAST_LOADED":
+                return new LeastLoadedPartitionStrategy(topologyManager);
+            default:
+                throw new IllegalArgumentException("Unknown partition strategy: " + strategy);
+        }
     }
 
     @Override
@@ -213,6 +239,12 @@ public class ZeebeClientImpl implements ZeebeClient
         transportActorScheduler.close();
     }
 
+    @Override
+    public BatchCommand createBatch()
+    {
+        return apiCommandManager.createBatch();
+    }
+
     @Override
     public Request<TopologyResponse> requestTopology()
     {
@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.impl.cmd;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.zeebe.client.cmd.BatchCommand;
+import io.zeebe.client.cmd.BatchResult;
+import io.zeebe.client.cmd.Request;
+import io.zeebe.client.event.Event;
+import io.zeebe.client.impl.CommandRequestHandler;
+import io.zeebe.client.impl.RequestManager;
+import io.zeebe.protocol.clientapi.MessageHeaderEncoder;
+import io.zeebe.protocol.clientapi.batch.ExecuteCommandBatchDescriptor;
+import io.zeebe.util.EnsureUtil;
+
+/**
+ * Limits the batch to the maximum number of commands and to the maximum
+ * message length of the transport. Each added command is serialized to
+ * determine the length of the request.
+ */
+public class BatchCommandImpl implements BatchCommand
+{
+    protected final RequestManager client;
+    protected final CommandRequestHandler commandRequestHandler;
+    protected final int maxLength;
+
+    protected final List<CommandImpl<?>> commands = new ArrayList<>();
+    protected int length = MessageHeaderEncoder.ENCODED_LENGTH + ExecuteCommandBatchDescriptor.HEADER_LENGTH;
+
+    public BatchCommandImpl(RequestManager client, ObjectMapper objectMapper, int maxLength)
+    {
+        this.client = client;
+        this.commandRequestHandler = new CommandRequestHandler(objectMapper);
+        this.maxLength = maxLength;
+    }
+
+    @Override
+    public BatchCommand add(Request<? extends Event> command)
+    {
+        EnsureUtil.ensureNotNull("command", command);
+
+        if (!(command instanceof CommandImpl))
+        {
+            throw new IllegalArgumentException("Command of type " + command.getClass().getName() + " can not be added to a batch");
+        }
+
+        if (commands.size() >= ExecuteCommandBatchDescriptor.MAX_COMMAND_COUNT)
+        {
+            throw new IllegalStateException("Batch can not have more than " + ExecuteCommandBatchDescriptor.MAX_COMMAND_COUNT + " commands");
+        }
+
+        if (!tryAdd((CommandImpl<?>) command))
+        {
+            throw new IllegalStateException("Batch can not exceed the maximum message length of " + maxLength + " bytes");
+        }
+
+        return this;
+    }
+
+    /**
+     * Adds the command if the batch has capacity for it.
+     *
+     * @return false if the batch has the maximum number of commands or the
+     *         request would exceed the maximum message length
+     */
+    public boolean tryAdd(CommandImpl<?> command)
+    {
+        if (commands.size() >= ExecuteCommandBatchDescriptor.MAX_COMMAND_COUNT)
+        {
+            return false;
+        }
+
+        commandRequestHandler.configure(command);
+
+        final int commandLength = ExecuteCommandBatchDescriptor.COMMAND_HEADER_LENGTH + commandRequestHandler.getLength();
+
+        if (length + commandLength > maxLength)
+        {
+            return false;
+        }
+
+        commands.add(command);
+        length += commandLength;
+
+        return true;
+    }
+
+    /**
+     * @return the length of the batch request
+     */
+    public int getLength()
+    {
+        return length;
+    }
+
+    @Override
+    public int size()
+    {
+        return commands.size();
+    }
+
+    public List<CommandImpl<?>> getCommands()
+    {
+        return commands;
+    }
+
+    @Override
+    public BatchResult execute()
+    {
+        return client.execute(this);
+    }
+
+    @Override
+    public Future<BatchResult> executeAsync()
+    {
+        return client.executeAsync(this);
+    }
+
+}
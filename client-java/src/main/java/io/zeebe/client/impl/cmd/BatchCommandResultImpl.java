@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.impl.cmd;
+
+import io.zeebe.client.cmd.BatchCommandResult;
+import io.zeebe.client.event.Event;
+
+public class BatchCommandResultImpl implements BatchCommandResult
+{
+    protected final Event event;
+    protected final String rejectionMessage;
+
+    public BatchCommandResultImpl(Event event, String rejectionMessage)
+    {
+        this.event = event;
+        this.rejectionMessage = rejectionMessage;
+    }
+
+    @Override
+    public Event getEvent()
+    {
+        return event;
+    }
+
+    @Override
+    public boolean isRejected()
+    {
+        return rejectionMessage != null;
+    }
+
+    @Override
+    public String getRejectionMessage()
+    {
+        return rejectionMessage;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BatchCommandResult [event=" + event + ", rejectionMessage=" + rejectionMessage + "]";
+    }
+}
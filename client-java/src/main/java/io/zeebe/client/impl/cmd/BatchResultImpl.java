@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.impl.cmd;
+
+import java.util.List;
+
+import io.zeebe.client.cmd.BatchCommandResult;
+import io.zeebe.client.cmd.BatchResult;
+
+public class BatchResultImpl implements BatchResult
+{
+    protected final String topicName;
+    protected final int partitionId;
+    protected final List<BatchCommandResult> results;
+
+    public BatchResultImpl(String topicName, int partitionId, List<BatchCommandResult> results)
+    {
+        this.topicName = topicName;
+        this.partitionId = partitionId;
+        this.results = results;
+    }
+
+    @Override
+    public String getTopicName()
+    {
+        return topicName;
+    }
+
+    @Override
+    public int getPartitionId()
+    {
+        return partitionId;
+    }
+
+    @Override
+    public int getCommandCount()
+    {
+        return results.size();
+    }
+
+    @Override
+    public List<BatchCommandResult> getResults()
+    {
+        return results;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BatchResult [topicName=" + topicName + ", partitionId=" + partitionId + ", results=" + results + "]";
+    }
+}
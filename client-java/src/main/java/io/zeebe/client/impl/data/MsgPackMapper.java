@@ -39,5 +39,17 @@ public class MsgPackMapper
         }
     }
 
+    public <T> T convert(byte[] msgPack, int offset, int length, Class<T> targetClass)
+    {
+        try
+        {
+            return objectMapper.readValue(msgPack, offset, length, targetClass);
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException("Could not convert msgpack to object of type " + targetClass.getName(), e);
+        }
+    }
+
 
 }
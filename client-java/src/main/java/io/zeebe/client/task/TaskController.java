@@ -15,23 +15,37 @@
  */
 package io.zeebe.client.task;
 
+import java.util.concurrent.Future;
+
+import io.zeebe.client.event.TaskEvent;
 import io.zeebe.client.task.cmd.CompleteTaskCommand;
 
 /**
  * Provides operations in the context of a locked task. Should not be referenced for longer than
  * the corresponding task handler invocation.
+ * <p>
+ * If task commands are batched (see {@link io.zeebe.client.ClientProperties#CLIENT_TASK_COMMAND_BATCH_SIZE}),
+ * the commands are sent asynchronously and the returned future is completed when the broker has
+ * processed the command. Otherwise, the command is sent immediately and the returned future is
+ * already completed.
  */
 public interface TaskController
 {
     /**
      * Completes the task and does not submit any payload. See {@link CompleteTaskCommand#clearPayload()}
      * for details.
+     *
+     * @return a future which is completed with the completed task, or exceptionally if the broker
+     *         rejected the command
      */
-    void completeTaskWithoutPayload();
+    Future<TaskEvent> completeTaskWithoutPayload();
 
     /**
      * Completes the task with the updated payload.
+     *
+     * @return a future which is completed with the completed task, or exceptionally if the broker
+     *         rejected the command
      */
-    void completeTask(String newPayload);
+    Future<TaskEvent> completeTask(String newPayload);
 
 }
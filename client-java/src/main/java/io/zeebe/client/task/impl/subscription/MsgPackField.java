@@ -21,15 +21,21 @@ import io.zeebe.client.impl.data.MsgPackConverter;
 
 public class MsgPackField
 {
-    // TODO: could do lazy initialization, i.e. only convert when required
     protected final MsgPackConverter msgPackConverter;
 
     protected String json;
     protected byte[] msgPack;
 
+    /**
+     * The JSON representation is only created when it is accessed,
+     * since most events are never read as JSON (e.g. events pushed to typed handlers).
+     */
+    protected boolean isJsonConverted;
+
     public MsgPackField(MsgPackConverter msgPackConverter)
     {
         this.msgPackConverter = msgPackConverter;
+        this.isJsonConverted = true;
     }
 
     public MsgPackField(MsgPackField other)
@@ -37,17 +43,25 @@ public class MsgPackField
         this.msgPackConverter = other.msgPackConverter;
         this.msgPack = other.msgPack;
         this.json = other.json;
+        this.isJsonConverted = other.isJsonConverted;
     }
 
 
     public String getAsJson()
     {
+        if (!isJsonConverted)
+        {
+            json = msgPackConverter.convertToJson(msgPack);
+            isJsonConverted = true;
+        }
+
         return json;
     }
 
     public void setJson(String json)
     {
         this.json = json;
+        this.isJsonConverted = true;
         if (json != null)
         {
             this.msgPack = this.msgPackConverter.convertToMsgPack(json);
@@ -73,14 +87,8 @@ public class MsgPackField
     public void setMsgPack(byte[] msgPack)
     {
         this.msgPack = msgPack;
-        if (msgPack != null)
-        {
-            this.json = this.msgPackConverter.convertToJson(msgPack);
-        }
-        else
-        {
-            this.json = null;
-        }
+        this.json = null;
+        this.isJsonConverted = msgPack == null;
     }
 
     public byte[] getMsgPack()
@@ -54,6 +54,7 @@ public class SubscriptionManager implements TransportListener, Actor
 
     // task-subscription-specific config
     protected final boolean autoCompleteTasks;
+    protected final TaskCommandBatcher taskCommandBatcher;
 
     // topic-subscription specific config
     protected final int topicSubscriptionPrefetchCapacity;
@@ -62,6 +63,8 @@ public class SubscriptionManager implements TransportListener, Actor
             ZeebeClientImpl client,
             int numExecutionThreads,
             boolean autoCompleteTasks,
+            int taskCommandBatchSize,
+            long taskCommandLinger,
             int topicSubscriptionPrefetchCapacity)
     {
         this.taskSubscriptions = new EventSubscriptions<>();
@@ -81,6 +84,15 @@ public class SubscriptionManager implements TransportListener, Actor
 
         this.numExecutionThreads = numExecutionThreads;
         this.autoCompleteTasks = autoCompleteTasks;
+
+        if (taskCommandBatchSize > 1)
+        {
+            this.taskCommandBatcher = new TaskCommandBatcher(client.getCommandManager(), taskCommandBatchSize, taskCommandLinger);
+        }
+        else
+        {
+            this.taskCommandBatcher = null;
+        }
         this.msgPackMapper = new MsgPackMapper(client.getObjectMapper());
 
         this.topicSubscriptionPrefetchCapacity = topicSubscriptionPrefetchCapacity;
@@ -99,6 +111,11 @@ public class SubscriptionManager implements TransportListener, Actor
     {
         stopAcquisition();
         stopExecution();
+
+        if (taskCommandBatcher != null)
+        {
+            taskCommandBatcher.flush();
+        }
     }
 
     public void close()
@@ -111,11 +128,16 @@ public class SubscriptionManager implements TransportListener, Actor
     {
         if (acquisitionActorRefs == null)
         {
-            acquisitionActorRefs = new ActorReference[3];
+            acquisitionActorRefs = new ActorReference[taskCommandBatcher != null ? 4 : 3];
 
             acquisitionActorRefs[0] = acquisitionActorScheduler.schedule(this);
             acquisitionActorRefs[1] = acquisitionActorScheduler.schedule(taskAcquisition);
             acquisitionActorRefs[2] = acquisitionActorScheduler.schedule(topicSubscriptionAcquisition);
+
+            if (taskCommandBatcher != null)
+            {
+                acquisitionActorRefs[3] = acquisitionActorScheduler.schedule(taskCommandBatcher);
+            }
         }
     }
 
@@ -153,6 +175,14 @@ public class SubscriptionManager implements TransportListener, Actor
         executorActorRefs = null;
     }
 
+    /**
+     * @return the batcher for task commands, or null if task commands are not batched
+     */
+    public TaskCommandBatcher getTaskCommandBatcher()
+    {
+        return taskCommandBatcher;
+    }
+
     public void closeAllSubscriptions()
     {
         this.taskSubscriptions.closeAll();
@@ -0,0 +1,264 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.task.impl.subscription;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+
+import io.zeebe.client.cmd.BatchCommandResult;
+import io.zeebe.client.cmd.BatchResult;
+import io.zeebe.client.cmd.ClientCommandRejectedException;
+import io.zeebe.client.event.Event;
+import io.zeebe.client.event.EventMetadata;
+import io.zeebe.client.impl.Loggers;
+import io.zeebe.client.impl.Partition;
+import io.zeebe.client.impl.RequestManager;
+import io.zeebe.client.impl.cmd.BatchCommandImpl;
+import io.zeebe.client.impl.cmd.CommandImpl;
+import io.zeebe.protocol.clientapi.batch.ExecuteCommandBatchDescriptor;
+import io.zeebe.util.actor.Actor;
+import io.zeebe.util.time.ClockUtil;
+
+/**
+ * Collects the commands (e.g. complete, fail) issued by task handlers and sends
+ * them as batch per partition, so that the handler threads do not wait for a
+ * response of each command. A batch is sent when it reaches the batch size,
+ * when the next command would exceed the maximum message length, or when its
+ * first command is older than the linger time.
+ */
+public class TaskCommandBatcher implements Actor
+{
+    public static final String ROLE_NAME = "task-command-batcher";
+
+    protected static final Logger LOGGER = Loggers.TASK_SUBSCRIPTION_LOGGER;
+
+    protected final RequestManager requestManager;
+    protected final int batchSize;
+    protected final long lingerMillis;
+
+    protected final Map<Partition, PendingBatch> pendingBatches = new HashMap<>();
+    protected final List<PendingBatch> batchesToSend = new ArrayList<>();
+
+    public TaskCommandBatcher(RequestManager requestManager, int batchSize, long lingerMillis)
+    {
+        this.requestManager = requestManager;
+        this.batchSize = Math.min(batchSize, ExecuteCommandBatchDescriptor.MAX_COMMAND_COUNT);
+        this.lingerMillis = lingerMillis;
+    }
+
+    /**
+     * Adds the command to the batch of its partition. The command must target a task
+     * event which was received from the broker, i.e. its topic and partition are known.
+     *
+     * @return a future which is completed with the resulting event when the broker has
+     *         processed the command, or exceptionally if the broker rejected the command
+     *         or the batch could not be sent
+     */
+    public CompletableFuture<Event> add(CommandImpl<?> command)
+    {
+        final EventMetadata metadata = command.getEvent().getMetadata();
+        final Partition partition = new Partition(metadata.getTopicName(), metadata.getPartitionId());
+
+        PendingBatch exceededBatch = null;
+        PendingBatch fullBatch = null;
+        final CompletableFuture<Event> future = new CompletableFuture<>();
+
+        synchronized (pendingBatches)
+        {
+            PendingBatch batch = pendingBatches.get(partition);
+
+            if (batch != null && !batch.add(command, future))
+            {
+                // the command exceeds the maximum message length of the batch
+                pendingBatches.remove(partition);
+                exceededBatch = batch;
+                batch = null;
+            }
+
+            if (batch == null)
+            {
+                batch = new PendingBatch(requestManager.createBatch(), ClockUtil.getCurrentTimeInMillis());
+
+                if (!batch.add(command, future))
+                {
+                    future.completeExceptionally(new IllegalStateException("Task command exceeds the maximum message length"));
+                    batch = null;
+                }
+                else
+                {
+                    pendingBatches.put(partition, batch);
+                }
+            }
+
+            if (batch != null && batch.command.size() >= batchSize)
+            {
+                pendingBatches.remove(partition);
+                fullBatch = batch;
+            }
+        }
+
+        if (exceededBatch != null)
+        {
+            send(exceededBatch);
+        }
+
+        if (fullBatch != null)
+        {
+            send(fullBatch);
+        }
+
+        return future;
+    }
+
+    @Override
+    public int doWork()
+    {
+        final long now = ClockUtil.getCurrentTimeInMillis();
+
+        synchronized (pendingBatches)
+        {
+            final Iterator<PendingBatch> iterator = pendingBatches.values().iterator();
+            while (iterator.hasNext())
+            {
+                final PendingBatch batch = iterator.next();
+                if (now >= batch.creationTime + lingerMillis)
+                {
+                    iterator.remove();
+                    batchesToSend.add(batch);
+                }
+            }
+        }
+
+        final int workCount = batchesToSend.size();
+
+        for (int i = 0; i < batchesToSend.size(); i++)
+        {
+            send(batchesToSend.get(i));
+        }
+        batchesToSend.clear();
+
+        return workCount;
+    }
+
+    /**
+     * Sends all pending batches immediately, e.g. before the client is disconnected.
+     */
+    public void flush()
+    {
+        final List<PendingBatch> batches;
+
+        synchronized (pendingBatches)
+        {
+            batches = new ArrayList<>(pendingBatches.values());
+            pendingBatches.clear();
+        }
+
+        for (int i = 0; i < batches.size(); i++)
+        {
+            send(batches.get(i));
+        }
+    }
+
+    protected void send(PendingBatch batch)
+    {
+        try
+        {
+            requestManager.executeAsync(batch.command).whenComplete((result, failure) ->
+            {
+                if (failure != null)
+                {
+                    LOGGER.warn("Failed to send batch of " + batch.command.size() + " task commands", failure);
+                    batch.fail(failure);
+                }
+                else
+                {
+                    batch.complete(result);
+                }
+            });
+        }
+        catch (Exception e)
+        {
+            LOGGER.warn("Failed to send batch of " + batch.command.size() + " task commands", e);
+            batch.fail(e);
+        }
+    }
+
+    @Override
+    public String name()
+    {
+        return ROLE_NAME;
+    }
+
+    protected static class PendingBatch
+    {
+        protected final BatchCommandImpl command;
+        protected final long creationTime;
+        protected final List<CompletableFuture<Event>> futures = new ArrayList<>();
+
+        PendingBatch(BatchCommandImpl command, long creationTime)
+        {
+            this.command = command;
+            this.creationTime = creationTime;
+        }
+
+        boolean add(CommandImpl<?> command, CompletableFuture<Event> future)
+        {
+            final boolean isAdded = this.command.tryAdd(command);
+
+            if (isAdded)
+            {
+                futures.add(future);
+            }
+
+            return isAdded;
+        }
+
+        void complete(BatchResult result)
+        {
+            final List<BatchCommandResult> results = result.getResults();
+
+            for (int i = 0; i < futures.size(); i++)
+            {
+                final BatchCommandResult commandResult = results.get(i);
+
+                if (commandResult.isRejected())
+                {
+                    LOGGER.info(commandResult.getRejectionMessage());
+                    futures.get(i).completeExceptionally(new ClientCommandRejectedException(commandResult.getRejectionMessage()));
+                }
+                else
+                {
+                    futures.get(i).complete(commandResult.getEvent());
+                }
+            }
+        }
+
+        void fail(Throwable failure)
+        {
+            for (int i = 0; i < futures.size(); i++)
+            {
+                futures.get(i).completeExceptionally(failure);
+            }
+        }
+    }
+
+}
@@ -15,52 +15,118 @@
  */
 package io.zeebe.client.task.impl.subscription;
 
+import java.util.concurrent.CompletableFuture;
+
 import io.zeebe.client.TasksClient;
+import io.zeebe.client.cmd.Request;
+import io.zeebe.client.event.TaskEvent;
 import io.zeebe.client.event.impl.TaskEventImpl;
+import io.zeebe.client.impl.cmd.CommandImpl;
 import io.zeebe.client.task.TaskController;
+import io.zeebe.client.task.cmd.CompleteTaskCommand;
+import io.zeebe.client.task.cmd.FailTaskCommand;
 
 public class TaskControllerImpl implements TaskController
 {
 
     protected final TasksClient tasksClient;
     protected final TaskEventImpl baseEvent;
+    protected final TaskCommandBatcher commandBatcher;
 
-    protected int state;
+    // updated by the response of a batched command
+    protected volatile int state;
     protected static final int STATE_LOCKED = 0;
     protected static final int STATE_COMPLETED = 1;
     protected static final int STATE_FAILED = 2;
 
+    protected boolean isCommandIssued = false;
+
     public TaskControllerImpl(TasksClient tasksClient, TaskEventImpl baseEvent)
+    {
+        this(tasksClient, baseEvent, null);
+    }
+
+    /**
+     * @param commandBatcher if not null, the commands are added to the batcher
+     *            instead of being sent and awaited one by one
+     */
+    public TaskControllerImpl(TasksClient tasksClient, TaskEventImpl baseEvent, TaskCommandBatcher commandBatcher)
     {
         this.tasksClient = tasksClient;
         this.baseEvent = baseEvent;
+        this.commandBatcher = commandBatcher;
     }
 
-    public void completeTaskWithoutPayload()
+    @Override
+    public CompletableFuture<TaskEvent> completeTaskWithoutPayload()
     {
-        completeTask(null);
+        return completeTask(null);
     }
 
-    public void completeTask(String newPayload)
+    @Override
+    public CompletableFuture<TaskEvent> completeTask(String newPayload)
     {
-        tasksClient.complete(baseEvent)
-            .payload(newPayload)
-            .execute();
+        final CompleteTaskCommand command = tasksClient.complete(baseEvent)
+            .payload(newPayload);
 
-        state = STATE_COMPLETED;
+        return execute(command, STATE_COMPLETED);
     }
 
-    public void fail(Exception e)
+    public CompletableFuture<TaskEvent> fail(Exception e)
     {
-        tasksClient.fail(baseEvent)
-            .retries(baseEvent.getRetries() - 1)
-            .execute();
+        final FailTaskCommand command = tasksClient.fail(baseEvent)
+            .retries(baseEvent.getRetries() - 1);
 
-        state = STATE_FAILED;
+        return execute(command, STATE_FAILED);
+    }
+
+    /**
+     * Sends the command, or adds it to the batcher. The state is only updated
+     * when the broker has processed the command.
+     */
+    protected CompletableFuture<TaskEvent> execute(Request<TaskEvent> command, int newState)
+    {
+        isCommandIssued = true;
+
+        if (commandBatcher != null)
+        {
+            final CompletableFuture<TaskEvent> future = new CompletableFuture<>();
+
+            commandBatcher.add((CommandImpl<?>) command).whenComplete((event, failure) ->
+            {
+                if (failure != null)
+                {
+                    future.completeExceptionally(failure);
+                }
+                else
+                {
+                    state = newState;
+                    future.complete((TaskEvent) event);
+                }
+            });
+
+            return future;
+        }
+        else
+        {
+            final TaskEvent event = command.execute();
+            state = newState;
+
+            return CompletableFuture.completedFuture(event);
+        }
     }
 
     public boolean isTaskCompleted()
     {
         return state == STATE_COMPLETED;
     }
+
+    /**
+     * @return true, if a command was issued for the task, regardless of whether it
+     *         was already processed by the broker
+     */
+    public boolean isCommandIssued()
+    {
+        return isCommandIssued;
+    }
 }
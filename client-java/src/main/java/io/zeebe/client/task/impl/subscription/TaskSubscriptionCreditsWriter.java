@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.task.impl.subscription;
+
+import static io.zeebe.protocol.clientapi.subscription.TaskSubscriptionCreditsDescriptor.*;
+
+import org.agrona.MutableDirectBuffer;
+
+import io.zeebe.protocol.Protocol;
+import io.zeebe.protocol.clientapi.MessageHeaderEncoder;
+import io.zeebe.util.buffer.BufferWriter;
+
+/**
+ * Writes a one-way message which increases the credits of a task subscription.
+ */
+public class TaskSubscriptionCreditsWriter implements BufferWriter
+{
+    protected final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+
+    protected long subscriberKey;
+    protected int credits;
+
+    public TaskSubscriptionCreditsWriter subscriberKey(long subscriberKey)
+    {
+        this.subscriberKey = subscriberKey;
+        return this;
+    }
+
+    public TaskSubscriptionCreditsWriter credits(int credits)
+    {
+        this.credits = credits;
+        return this;
+    }
+
+    @Override
+    public int getLength()
+    {
+        return headerEncoder.encodedLength() + LENGTH;
+    }
+
+    @Override
+    public void write(MutableDirectBuffer buffer, int offset)
+    {
+        headerEncoder.wrap(buffer, offset)
+            .blockLength(LENGTH)
+            .schemaId(SCHEMA_ID)
+            .templateId(TEMPLATE_ID)
+            .version(SCHEMA_VERSION);
+
+        offset += headerEncoder.encodedLength();
+
+        buffer.putLong(offset + SUBSCRIBER_KEY_OFFSET, subscriberKey, Protocol.ENDIANNESS);
+        buffer.putInt(offset + CREDITS_OFFSET, credits, Protocol.ENDIANNESS);
+    }
+
+}
@@ -24,6 +24,8 @@ import io.zeebe.client.impl.data.MsgPackMapper;
 import io.zeebe.client.task.PollableTaskSubscription;
 import io.zeebe.client.task.TaskHandler;
 import io.zeebe.client.task.TaskSubscription;
+import io.zeebe.transport.RemoteAddress;
+import io.zeebe.transport.TransportMessage;
 
 public class TaskSubscriptionImpl
     extends EventSubscription<TaskSubscriptionImpl>
@@ -41,6 +43,9 @@ public class TaskSubscriptionImpl
     protected boolean autoComplete;
     protected MsgPackMapper msgPackMapper;
 
+    protected final TaskSubscriptionCreditsWriter creditsWriter = new TaskSubscriptionCreditsWriter();
+    protected final TransportMessage creditsMessage = new TransportMessage();
+
     public TaskSubscriptionImpl(
             TasksClientImpl client,
             String topic,
@@ -94,13 +99,13 @@ public class TaskSubscriptionImpl
             final TaskEventImpl taskEvent = msgPackMapper.convert(e.getAsMsgPack(), TaskEventImpl.class);
             taskEvent.updateMetadata(e.getMetadata());
 
-            final TaskControllerImpl controller = new TaskControllerImpl(taskClient, taskEvent);
+            final TaskControllerImpl controller = new TaskControllerImpl(taskClient, taskEvent, taskClient.getTaskCommandBatcher());
 
             try
             {
                 taskHandler.handle(controller, taskEvent);
 
-                if (autoComplete && !controller.isTaskCompleted())
+                if (autoComplete && !controller.isCommandIssued())
                 {
                     controller.completeTaskWithoutPayload();
                 }
@@ -133,10 +138,41 @@ public class TaskSubscriptionImpl
     @Override
     protected void requestEventSourceReplenishment(int eventsProcessed)
     {
-        taskClient.increaseSubscriptionCredits(topic, partitionId)
+        final boolean sent = sendCredits(eventsProcessed);
+
+        if (!sent)
+        {
+            taskClient.increaseSubscriptionCredits(topic, partitionId)
+                .subscriberKey(subscriberKey)
+                .credits(eventsProcessed)
+                .execute();
+        }
+    }
+
+    /**
+     * Sends the credits as one-way message to the broker which pushes the tasks,
+     * so that the subscription does not wait for the broker to accept them.
+     *
+     * @return false, if the message could not be sent
+     */
+    protected boolean sendCredits(int credits)
+    {
+        final RemoteAddress eventSource = this.eventSource;
+
+        if (eventSource == null)
+        {
+            return false;
+        }
+
+        creditsWriter
             .subscriberKey(subscriberKey)
-            .credits(eventsProcessed)
-            .execute();
+            .credits(credits);
+
+        creditsMessage.reset()
+            .remoteStreamId(eventSource.getStreamId())
+            .writer(creditsWriter);
+
+        return taskClient.getOutput().sendMessage(creditsMessage);
     }
 
     @Override
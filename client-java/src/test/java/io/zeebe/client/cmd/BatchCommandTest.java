@@ -0,0 +1,200 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.cmd;
+
+import static io.zeebe.protocol.clientapi.batch.ExecuteCommandBatchDescriptor.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.RuleChain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.zeebe.client.ZeebeClient;
+import io.zeebe.client.event.TaskEvent;
+import io.zeebe.client.event.impl.TaskEventImpl;
+import io.zeebe.client.impl.BatchRequestHandler;
+import io.zeebe.client.impl.ZeebeClientImpl;
+import io.zeebe.client.impl.cmd.BatchCommandImpl;
+import io.zeebe.client.task.impl.CompleteTaskCommandImpl;
+import io.zeebe.protocol.Protocol;
+import io.zeebe.util.buffer.BufferUtil;
+import io.zeebe.test.broker.protocol.brokerapi.StubBrokerRule;
+
+public class BatchCommandTest
+{
+
+    public ClientRule clientRule = new ClientRule();
+    public StubBrokerRule brokerRule = new StubBrokerRule();
+
+    @Rule
+    public RuleChain ruleChain = RuleChain.outerRule(brokerRule).around(clientRule);
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    protected ZeebeClient client;
+
+    @Before
+    public void setUp()
+    {
+        this.client = clientRule.getClient();
+    }
+
+    @Test
+    public void shouldAddCommands()
+    {
+        // given
+        final BatchCommand batch = client.createBatch();
+
+        // when
+        batch
+            .add(clientRule.tasks().create(clientRule.getDefaultTopicName(), "foo"))
+            .add(clientRule.tasks().create(clientRule.getDefaultTopicName(), "bar"));
+
+        // then
+        assertThat(batch.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldNotExecuteEmptyBatch()
+    {
+        // given
+        final BatchCommand batch = client.createBatch();
+
+        // then
+        exception.expect(IllegalStateException.class);
+        exception.expectMessage("Batch must contain at least one command");
+
+        // when
+        batch.execute();
+    }
+
+    @Test
+    public void shouldNotExecuteBatchWithDifferentTopics()
+    {
+        // given
+        final BatchCommand batch = client.createBatch()
+            .add(clientRule.tasks().create(clientRule.getDefaultTopicName(), "foo"))
+            .add(clientRule.tasks().create("other-topic", "bar"));
+
+        // then
+        exception.expect(IllegalStateException.class);
+        exception.expectMessage("All commands of a batch must have the same topic");
+
+        // when
+        batch.execute();
+    }
+
+    @Test
+    public void shouldNotAddNullCommand()
+    {
+        // given
+        final BatchCommand batch = client.createBatch();
+
+        // then
+        exception.expect(RuntimeException.class);
+
+        // when
+        batch.add(null);
+    }
+
+    @Test
+    public void shouldNotAddCommandWhichExceedsMessageLength()
+    {
+        // given
+        final BatchCommand batch = client.createBatch()
+            .add(clientRule.tasks().create(clientRule.getDefaultTopicName(), "foo"));
+
+        final StringBuilder payload = new StringBuilder("{\"foo\":\"");
+        for (int i = 0; i < ZeebeClientImpl.MESSAGE_MAX_LENGTH; i++)
+        {
+            payload.append('a');
+        }
+        payload.append("\"}");
+
+        // then
+        exception.expect(IllegalStateException.class);
+        exception.expectMessage("Batch can not exceed the maximum message length");
+
+        // when
+        batch.add(clientRule.tasks().create(clientRule.getDefaultTopicName(), "bar").payload(payload.toString()));
+    }
+
+    @Test
+    public void shouldReturnResultOfEachCommand() throws Exception
+    {
+        // given
+        final ZeebeClientImpl clientImpl = (ZeebeClientImpl) client;
+        final ObjectMapper objectMapper = clientImpl.getObjectMapper();
+
+        final BatchCommandImpl batch = new BatchCommandImpl(null, objectMapper, ZeebeClientImpl.MESSAGE_MAX_LENGTH);
+        batch.add(new CompleteTaskCommandImpl(null, lockedTask(clientImpl, 1L)));
+        batch.add(new CompleteTaskCommandImpl(null, lockedTask(clientImpl, 2L)));
+
+        final BatchRequestHandler requestHandler = new BatchRequestHandler(objectMapper);
+        requestHandler.configure(batch);
+
+        final UnsafeBuffer response = new UnsafeBuffer(new byte[1024]);
+        int offset = responseHeaderLength();
+        response.putInt(RESPONSE_COMMAND_COUNT_OFFSET, 2, Protocol.ENDIANNESS);
+
+        offset = writeResult(response, offset, 1L, 10L, objectMapper.writeValueAsBytes(new TaskEventImpl("COMPLETED", clientImpl.getMsgPackConverter())));
+        writeResult(response, offset, 2L, 11L, objectMapper.writeValueAsBytes(new TaskEventImpl("COMPLETE_REJECTED", clientImpl.getMsgPackConverter())));
+
+        // when
+        final BatchResult result = requestHandler.getResult(response, 0, responseHeaderLength(), Protocol.PROTOCOL_VERSION);
+
+        // then
+        assertThat(result.getCommandCount()).isEqualTo(2);
+
+        final BatchCommandResult completed = result.getResults().get(0);
+        assertThat(completed.isRejected()).isFalse();
+        assertThat(completed.getEvent().getState()).isEqualTo("COMPLETED");
+        assertThat(completed.getEvent().getMetadata().getKey()).isEqualTo(1L);
+        assertThat(completed.getEvent().getMetadata().getPosition()).isEqualTo(10L);
+        assertThat(completed.getEvent()).isInstanceOf(TaskEvent.class);
+
+        final BatchCommandResult rejected = result.getResults().get(1);
+        assertThat(rejected.isRejected()).isTrue();
+        assertThat(rejected.getRejectionMessage()).contains("COMPLETE_REJECTED");
+        assertThat(rejected.getEvent().getMetadata().getKey()).isEqualTo(2L);
+    }
+
+    protected TaskEventImpl lockedTask(ZeebeClientImpl clientImpl, long key)
+    {
+        final TaskEventImpl event = new TaskEventImpl("LOCKED", clientImpl.getMsgPackConverter());
+        event.setTopicName(clientRule.getDefaultTopicName());
+        event.setPartitionId(0);
+        event.setKey(key);
+        event.setType("foo");
+        return event;
+    }
+
+    protected static int writeResult(UnsafeBuffer buffer, int offset, long key, long position, byte[] event)
+    {
+        buffer.putLong(offset + RESULT_KEY_OFFSET, key, Protocol.ENDIANNESS);
+        buffer.putLong(offset + RESULT_POSITION_OFFSET, position, Protocol.ENDIANNESS);
+        buffer.putInt(offset + RESULT_EVENT_LENGTH_OFFSET, event.length, Protocol.ENDIANNESS);
+        buffer.putBytes(resultEventOffset(offset), BufferUtil.wrapArray(event), 0, event.length);
+
+        return offset + framedResultLength(event.length);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.cmd;
+
+import static io.zeebe.test.broker.protocol.clientapi.ClientApiRule.DEFAULT_TOPIC_NAME;
+import static io.zeebe.test.util.TestUtil.waitUntil;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import io.zeebe.client.ClientProperties;
+import io.zeebe.client.ZeebeClient;
+import io.zeebe.client.impl.ZeebeClientImpl;
+import io.zeebe.protocol.Protocol;
+import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.test.broker.protocol.brokerapi.ExecuteCommandRequest;
+import io.zeebe.test.broker.protocol.brokerapi.StubBrokerRule;
+
+public class PartitionDispatchTest
+{
+    @Rule
+    public StubBrokerRule broker = new StubBrokerRule();
+
+    @Test
+    public void shouldDistributeTasksRoundRobin()
+    {
+        // given
+        final ZeebeClient client = createClient("ROUND_ROBIN");
+
+        // when
+        createTasks(client, "foo", "foo", "foo", "foo");
+
+        // then
+        assertThat(receivedPartitionIds()).containsExactly(0, 1, 0, 1);
+    }
+
+    @Test
+    public void shouldDispatchTasksByTypeHash()
+    {
+        // given
+        final ZeebeClient client = createClient("KEY_HASH");
+
+        // when
+        createTasks(client, "foo", "bar", "foo", "bar");
+
+        // then
+        final List<Integer> partitionIds = receivedPartitionIds();
+        assertThat(partitionIds.get(2)).isEqualTo(partitionIds.get(0));
+        assertThat(partitionIds.get(3)).isEqualTo(partitionIds.get(1));
+    }
+
+    @Test
+    public void shouldDispatchToDefaultPartition()
+    {
+        // given
+        final ZeebeClient client = createClient("DEFAULT");
+
+        // when
+        createTasks(client, "foo", "foo", "foo");
+
+        // then
+        assertThat(receivedPartitionIds()).containsOnly(0);
+    }
+
+    @Test
+    public void shouldDispatchToLeastLoadedPartition()
+    {
+        // given
+        broker.onExecuteCommandRequestWithoutResponse(r -> r.partitionId() == 0);
+
+        final ZeebeClient client = createClient("LEAST_LOADED");
+
+        // the first request goes to partition 0 and stays in flight
+        client.tasks()
+            .create(DEFAULT_TOPIC_NAME, "foo")
+            .executeAsync();
+
+        waitUntil(() -> broker.getReceivedCommandRequests().size() == 1);
+
+        // when
+        createTasks(client, "foo", "foo", "foo");
+
+        // then
+        assertThat(receivedPartitionIds()).containsExactly(0, 1, 1, 1);
+    }
+
+    protected ZeebeClient createClient(String strategy)
+    {
+        broker.addTopic(DEFAULT_TOPIC_NAME, 1);
+
+        broker.onExecuteCommandRequest(EventType.TASK_EVENT, "CREATE")
+            .respondWith()
+            .topicName(r -> r.topicName())
+            .partitionId(r -> r.partitionId())
+            .key(123)
+            .event()
+              .allOf((r) -> r.getCommand())
+              .put("state", "CREATED")
+              .put("lockTime", Protocol.INSTANT_NULL_VALUE)
+              .put("lockOwner", "")
+              .done()
+            .register();
+
+        final ZeebeClient client = ZeebeClient.create(createProperties(strategy));
+        client.connect();
+
+        ((ZeebeClientImpl) client).getTopologyManager().refreshNow().join();
+
+        return client;
+    }
+
+    protected Properties createProperties(String strategy)
+    {
+        final Properties properties = new Properties();
+        properties.put(ClientProperties.CLIENT_PARTITION_STRATEGY, strategy);
+        return properties;
+    }
+
+    protected void createTasks(ZeebeClient client, String... types)
+    {
+        try
+        {
+            for (String type : types)
+            {
+                client.tasks()
+                    .create(DEFAULT_TOPIC_NAME, type)
+                    .execute();
+            }
+        }
+        finally
+        {
+            client.close();
+        }
+    }
+
+    protected List<Integer> receivedPartitionIds()
+    {
+        return broker.getReceivedCommandRequests()
+                .stream()
+                .map(ExecuteCommandRequest::partitionId)
+                .collect(Collectors.toList());
+    }
+}
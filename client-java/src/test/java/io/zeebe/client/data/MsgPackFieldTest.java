@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.data;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+
+import io.zeebe.client.impl.data.MsgPackConverter;
+import io.zeebe.client.task.impl.subscription.MsgPackField;
+
+public class MsgPackFieldTest
+{
+    protected static final String JSON = "{\"key1\":1,\"key2\":2}";
+    protected static final byte[] MSG_PACK = MsgPackConverterTest.createMsgPack();
+
+    protected MsgPackConverter converter = spy(new MsgPackConverter());
+
+    @Test
+    public void shouldNotConvertMsgPackUntilJsonIsAccessed()
+    {
+        // given
+        final MsgPackField field = new MsgPackField(converter);
+
+        // when
+        field.setMsgPack(MSG_PACK);
+
+        // then
+        verify(converter, never()).convertToJson(any(byte[].class));
+        assertThat(field.getMsgPack()).isEqualTo(MSG_PACK);
+    }
+
+    @Test
+    public void shouldConvertMsgPackOnlyOnce()
+    {
+        // given
+        final MsgPackField field = new MsgPackField(converter);
+        field.setMsgPack(MSG_PACK);
+
+        // when
+        final String json = field.getAsJson();
+        field.getAsJson();
+
+        // then
+        assertThat(json).isEqualTo(JSON);
+        verify(converter, times(1)).convertToJson(MSG_PACK);
+    }
+
+    @Test
+    public void shouldCopyUnconvertedField()
+    {
+        // given
+        final MsgPackField field = new MsgPackField(converter);
+        field.setMsgPack(MSG_PACK);
+
+        // when
+        final MsgPackField copy = new MsgPackField(field);
+
+        // then
+        assertThat(copy.getAsJson()).isEqualTo(JSON);
+    }
+
+    @Test
+    public void shouldReturnNullJsonForNullMsgPack()
+    {
+        // given
+        final MsgPackField field = new MsgPackField(converter);
+
+        // when
+        field.setMsgPack(null);
+
+        // then
+        assertThat(field.getAsJson()).isNull();
+        verify(converter, never()).convertToJson(any(byte[].class));
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.event;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.InjectableValues;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessagePacker;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+
+import io.zeebe.client.event.impl.TaskEventViewImpl;
+import io.zeebe.client.event.impl.TopicEventImpl;
+import io.zeebe.client.impl.data.MsgPackConverter;
+import io.zeebe.client.impl.data.MsgPackMapper;
+
+public class TaskEventViewTest
+{
+    protected static final long LOCK_TIME = 123_456L;
+
+    protected MsgPackConverter converter;
+    protected MsgPackMapper mapper;
+    protected TaskEventViewImpl view;
+
+    @Before
+    public void setUp()
+    {
+        converter = spy(new MsgPackConverter());
+
+        final ObjectMapper objectMapper = new ObjectMapper(new MessagePackFactory());
+        objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        objectMapper.setInjectableValues(new InjectableValues.Std().addValue(MsgPackConverter.class, converter));
+
+        mapper = spy(new MsgPackMapper(objectMapper));
+        view = new TaskEventViewImpl(mapper, converter);
+    }
+
+    @Test
+    public void shouldReadPropertiesOnDemand() throws Exception
+    {
+        // given
+        final TopicEventImpl event = topicEvent(encodeTaskEvent("LOCKED", 3));
+
+        // when
+        view.wrap(event);
+
+        // then
+        assertThat(view.getKey()).isEqualTo(2L);
+        assertThat(view.getMetadata().getPosition()).isEqualTo(4L);
+        assertThat(view.getState()).isEqualTo("LOCKED");
+        assertThat(view.getType()).isEqualTo("foo");
+        assertThat(view.getLockOwner()).isEqualTo("owner");
+        assertThat(view.getRetries()).isEqualTo(3);
+        assertThat(view.getLockExpirationTime()).isEqualTo(Instant.ofEpochMilli(LOCK_TIME));
+        assertThat(view.getHeaders()).containsExactly(entry("activityId", "task"));
+        assertThat(view.getCustomHeaders()).containsExactly(entry("k", "v"));
+        assertThat(view.getPayload()).isEqualTo("{\"a\":1}");
+    }
+
+    @Test
+    public void shouldNotMapEventToPojo() throws Exception
+    {
+        // given
+        final TopicEventImpl event = topicEvent(encodeTaskEvent("LOCKED", 3));
+
+        // when
+        view.wrap(event);
+        view.getType();
+
+        // then
+        verify(mapper, never()).convert(any(byte[].class), any());
+        verify(converter, never()).convertToJson(any(byte[].class));
+    }
+
+    @Test
+    public void shouldReadNextEventAfterRewrap() throws Exception
+    {
+        // given
+        view.wrap(topicEvent(encodeTaskEvent("LOCKED", 3)));
+        view.getState();
+
+        // when
+        view.wrap(topicEvent(encodeTaskEvent("COMPLETED", 2)));
+
+        // then
+        assertThat(view.getState()).isEqualTo("COMPLETED");
+        assertThat(view.getRetries()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldCopyToPojo() throws Exception
+    {
+        // given
+        view.wrap(topicEvent(encodeTaskEvent("LOCKED", 3)));
+
+        // when
+        final TaskEvent taskEvent = view.toTaskEvent();
+        view.wrap(topicEvent(encodeTaskEvent("COMPLETED", 2)));
+
+        // then
+        assertThat(taskEvent.getState()).isEqualTo("LOCKED");
+        assertThat(taskEvent.getType()).isEqualTo("foo");
+        assertThat(taskEvent.getRetries()).isEqualTo(3);
+        assertThat(taskEvent.getPayload()).isEqualTo("{\"a\":1}");
+        assertThat(taskEvent.getMetadata().getKey()).isEqualTo(2L);
+    }
+
+    @Test
+    public void shouldReturnNullForMissingProperty() throws Exception
+    {
+        // given
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final MessagePacker packer = MessagePack.newDefaultPacker(outputStream);
+        packer.packMapHeader(1)
+            .packString("state").packString("CREATED");
+        packer.flush();
+
+        // when
+        view.wrap(topicEvent(outputStream.toByteArray()));
+
+        // then
+        assertThat(view.getState()).isEqualTo("CREATED");
+        assertThat(view.getLockOwner()).isNull();
+        assertThat(view.getRetries()).isNull();
+        assertThat(view.getHeaders()).isNull();
+        assertThat(view.getPayload()).isNull();
+    }
+
+    protected TopicEventImpl topicEvent(byte[] msgPack)
+    {
+        return new TopicEventImpl("topic", 1, 2L, 4L, TopicEventType.TASK, msgPack, converter);
+    }
+
+    protected static byte[] encodeTaskEvent(String state, int retries) throws IOException
+    {
+        final ByteArrayOutputStream payloadStream = new ByteArrayOutputStream();
+        final MessagePacker payloadPacker = MessagePack.newDefaultPacker(payloadStream);
+        payloadPacker.packMapHeader(1)
+            .packString("a").packInt(1);
+        payloadPacker.flush();
+        final byte[] payload = payloadStream.toByteArray();
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final MessagePacker packer = MessagePack.newDefaultPacker(outputStream);
+
+        packer.packMapHeader(8)
+            .packString("state").packString(state)
+            .packString("lockTime").packLong(LOCK_TIME)
+            .packString("lockOwner").packString("owner")
+            .packString("retries").packInt(retries)
+            .packString("type").packString("foo")
+            .packString("headers").packMapHeader(1)
+                .packString("activityId").packString("task")
+            .packString("customHeaders").packMapHeader(1)
+                .packString("k").packString("v")
+            .packString("payload").packBinaryHeader(payload.length);
+
+        packer.writePayload(payload);
+        packer.flush();
+
+        return outputStream.toByteArray();
+    }
+}
@@ -589,6 +589,55 @@ public class TopicSubscriptionTest
         assertThat(eventHandler.numIncidentEvents()).isEqualTo(0);
     }
 
+    @Test
+    public void shouldInvokeTaskEventViewHandlerForTaskEvent()
+    {
+        // given
+        broker.stubTopicSubscriptionApi(123L);
+
+        final RecordingTopicEventHandler eventHandler = new RecordingTopicEventHandler();
+        final List<Long> viewedEventPositions = new CopyOnWriteArrayList<>();
+
+        clientRule.topics().newSubscription(clientRule.getDefaultTopicName())
+            .startAtHeadOfTopic()
+            .handler(eventHandler)
+            .taskEventViewHandler(e -> viewedEventPositions.add(e.getMetadata().getPosition()))
+            .name(SUBSCRIPTION_NAME)
+            .open();
+
+        final RemoteAddress clientAddress = broker.getReceivedCommandRequests().get(0).getSource();
+
+        // when pushing two events
+        broker.pushTopicEvent(clientAddress, 123L, 1L, 1L, EventType.TASK_EVENT);
+        broker.pushTopicEvent(clientAddress, 123L, 1L, 2L, EventType.TASK_EVENT);
+
+        // then
+        waitUntil(() -> viewedEventPositions.size() >= 2);
+
+        assertThat(viewedEventPositions).containsExactly(1L, 2L);
+        assertThat(eventHandler.numTopicEvents()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldNotAllowTaskEventHandlerAndTaskEventViewHandler()
+    {
+        // given
+        final TopicSubscriptionBuilder builder = clientRule.topics().newSubscription(clientRule.getDefaultTopicName())
+            .startAtHeadOfTopic()
+            .taskEventHandler(e ->
+            { })
+            .taskEventViewHandler(e ->
+            { })
+            .name(SUBSCRIPTION_NAME);
+
+        // then
+        exception.expect(RuntimeException.class);
+        exception.expectMessage("either a task event handler or a task event view handler can be set");
+
+        // when
+        builder.open();
+    }
+
     @Test
     public void shouldInvokeWorkflowHandlerForWorkflowEvent()
     {
@@ -0,0 +1,240 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.task.subscription;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.msgpack.jackson.dataformat.MessagePackFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.zeebe.client.cmd.BatchResult;
+import io.zeebe.client.cmd.ClientCommandRejectedException;
+import io.zeebe.client.event.Event;
+import io.zeebe.client.event.impl.TaskEventImpl;
+import io.zeebe.client.impl.RequestManager;
+import io.zeebe.client.impl.cmd.BatchCommandImpl;
+import io.zeebe.client.impl.cmd.BatchCommandResultImpl;
+import io.zeebe.client.impl.cmd.BatchResultImpl;
+import io.zeebe.client.impl.cmd.CommandImpl;
+import io.zeebe.client.impl.data.MsgPackConverter;
+import io.zeebe.client.task.impl.subscription.TaskCommandBatcher;
+import io.zeebe.util.time.ClockUtil;
+
+public class TaskCommandBatcherTest
+{
+    private final ObjectMapper objectMapper = new ObjectMapper(new MessagePackFactory());
+
+    private RequestManager requestManager;
+    private CompletableFuture<BatchResult> batchFuture;
+    private int maxBatchLength;
+
+    @Before
+    public void setUp()
+    {
+        ClockUtil.setCurrentTime(Instant.now());
+
+        batchFuture = new CompletableFuture<>();
+        maxBatchLength = Integer.MAX_VALUE;
+
+        requestManager = mock(RequestManager.class);
+        when(requestManager.executeAsync(any(BatchCommandImpl.class))).thenReturn(batchFuture);
+        when(requestManager.createBatch()).thenAnswer(i -> new BatchCommandImpl(requestManager, objectMapper, maxBatchLength));
+    }
+
+    @After
+    public void tearDown()
+    {
+        ClockUtil.reset();
+    }
+
+    @Test
+    public void shouldSendBatchWhenFull()
+    {
+        // given
+        final TaskCommandBatcher batcher = new TaskCommandBatcher(requestManager, 2, 1000);
+        batcher.add(newCommand("foo", 0));
+
+        // when
+        final CompletableFuture<Event> future = batcher.add(newCommand("foo", 0));
+
+        // then
+        final ArgumentCaptor<BatchCommandImpl> captor = ArgumentCaptor.forClass(BatchCommandImpl.class);
+        verify(requestManager).executeAsync(captor.capture());
+        assertThat(captor.getValue().size()).isEqualTo(2);
+
+        // and
+        assertThat(future).isNotDone();
+
+        batchFuture.complete(new BatchResultImpl("foo", 0, Arrays.asList(
+                new BatchCommandResultImpl(newEvent("COMPLETED"), null),
+                new BatchCommandResultImpl(newEvent("COMPLETED"), null))));
+        assertThat(future).isCompleted();
+    }
+
+    @Test
+    public void shouldCompleteFutureOfEachCommandWithItsResult() throws Exception
+    {
+        // given
+        final TaskCommandBatcher batcher = new TaskCommandBatcher(requestManager, 2, 1000);
+
+        final CompletableFuture<Event> completedFuture = batcher.add(newCommand("foo", 0));
+        final CompletableFuture<Event> rejectedFuture = batcher.add(newCommand("foo", 0));
+
+        final TaskEventImpl completedEvent = newEvent("COMPLETED");
+
+        // when
+        batchFuture.complete(new BatchResultImpl("foo", 0, Arrays.asList(
+                new BatchCommandResultImpl(completedEvent, null),
+                new BatchCommandResultImpl(newEvent("COMPLETE_REJECTED"), "rejected"))));
+
+        // then
+        assertThat(completedFuture.get()).isSameAs(completedEvent);
+
+        assertThat(rejectedFuture).isCompletedExceptionally();
+        assertThat(rejectedFuture.handle((e, failure) -> failure).get()).isInstanceOf(ClientCommandRejectedException.class);
+    }
+
+    @Test
+    public void shouldSendBatchAfterLingerTime()
+    {
+        // given
+        final TaskCommandBatcher batcher = new TaskCommandBatcher(requestManager, 10, 5);
+        batcher.add(newCommand("foo", 0));
+
+        batcher.doWork();
+        verify(requestManager, never()).executeAsync(any(BatchCommandImpl.class));
+
+        // when
+        ClockUtil.setCurrentTime(ClockUtil.getCurrentTime().plusMillis(5));
+        final int workCount = batcher.doWork();
+
+        // then
+        assertThat(workCount).isEqualTo(1);
+        verify(requestManager).executeAsync(any(BatchCommandImpl.class));
+    }
+
+    @Test
+    public void shouldBatchPerPartition()
+    {
+        // given
+        final TaskCommandBatcher batcher = new TaskCommandBatcher(requestManager, 10, 5);
+
+        // when
+        batcher.add(newCommand("foo", 0));
+        batcher.add(newCommand("foo", 1));
+        batcher.add(newCommand("bar", 0));
+        batcher.add(newCommand("foo", 0));
+
+        batcher.flush();
+
+        // then
+        final ArgumentCaptor<BatchCommandImpl> captor = ArgumentCaptor.forClass(BatchCommandImpl.class);
+        verify(requestManager, times(3)).executeAsync(captor.capture());
+
+        assertThat(captor.getAllValues())
+            .extracting(BatchCommandImpl::size)
+            .containsOnly(1, 1, 2);
+    }
+
+    @Test
+    public void shouldSendBatchWhenMessageLengthIsExceeded()
+    {
+        // given a batch which has space for one command only
+        final BatchCommandImpl probe = new BatchCommandImpl(requestManager, objectMapper, Integer.MAX_VALUE);
+        probe.add(newCommand("foo", 0));
+        maxBatchLength = probe.getLength();
+
+        final TaskCommandBatcher batcher = new TaskCommandBatcher(requestManager, 10, 1000);
+        batcher.add(newCommand("foo", 0));
+
+        // when
+        final CompletableFuture<Event> future = batcher.add(newCommand("foo", 0));
+
+        // then
+        final ArgumentCaptor<BatchCommandImpl> captor = ArgumentCaptor.forClass(BatchCommandImpl.class);
+        verify(requestManager).executeAsync(captor.capture());
+        assertThat(captor.getValue().size()).isEqualTo(1);
+
+        // and the command is added to the next batch
+        assertThat(future).isNotDone();
+
+        batcher.flush();
+        verify(requestManager, times(2)).executeAsync(any(BatchCommandImpl.class));
+    }
+
+    @Test
+    public void shouldFailCommandWhichExceedsMessageLength()
+    {
+        // given
+        maxBatchLength = 1;
+
+        final TaskCommandBatcher batcher = new TaskCommandBatcher(requestManager, 10, 1000);
+
+        // when
+        final CompletableFuture<Event> future = batcher.add(newCommand("foo", 0));
+
+        // then
+        assertThat(future).isCompletedExceptionally();
+
+        batcher.flush();
+        verify(requestManager, never()).executeAsync(any(BatchCommandImpl.class));
+    }
+
+    @Test
+    public void shouldCompleteFutureExceptionallyIfBatchFails()
+    {
+        // given
+        final TaskCommandBatcher batcher = new TaskCommandBatcher(requestManager, 1, 5);
+
+        // when
+        final CompletableFuture<Event> future = batcher.add(newCommand("foo", 0));
+        batchFuture.completeExceptionally(new RuntimeException("expected"));
+
+        // then
+        assertThat(future).isCompletedExceptionally();
+    }
+
+    protected static TaskEventImpl newEvent(String state)
+    {
+        return new TaskEventImpl(state, new MsgPackConverter());
+    }
+
+    protected static CommandImpl<?> newCommand(String topicName, int partitionId)
+    {
+        final TaskEventImpl event = new TaskEventImpl("COMPLETE", new MsgPackConverter());
+        event.setTopicName(topicName);
+        event.setPartitionId(partitionId);
+
+        final CommandImpl<?> command = mock(CommandImpl.class);
+        when(command.getEvent()).thenReturn(event);
+        return command;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.client.task.subscription;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.zeebe.client.TasksClient;
+import io.zeebe.client.cmd.ClientCommandRejectedException;
+import io.zeebe.client.event.Event;
+import io.zeebe.client.event.TaskEvent;
+import io.zeebe.client.event.impl.TaskEventImpl;
+import io.zeebe.client.impl.cmd.CommandImpl;
+import io.zeebe.client.impl.data.MsgPackConverter;
+import io.zeebe.client.task.impl.CompleteTaskCommandImpl;
+import io.zeebe.client.task.impl.subscription.TaskCommandBatcher;
+import io.zeebe.client.task.impl.subscription.TaskControllerImpl;
+
+public class TaskControllerImplTest
+{
+    private TasksClient tasksClient;
+    private TaskCommandBatcher commandBatcher;
+    private CompleteTaskCommandImpl completeCommand;
+    private CompletableFuture<Event> commandFuture;
+
+    private TaskEventImpl baseEvent;
+
+    @Before
+    public void setUp()
+    {
+        baseEvent = new TaskEventImpl("LOCKED", new MsgPackConverter());
+
+        completeCommand = mock(CompleteTaskCommandImpl.class);
+        when(completeCommand.payload((String) null)).thenReturn(completeCommand);
+
+        tasksClient = mock(TasksClient.class);
+        when(tasksClient.complete(baseEvent)).thenReturn(completeCommand);
+
+        commandFuture = new CompletableFuture<>();
+
+        commandBatcher = mock(TaskCommandBatcher.class);
+        when(commandBatcher.add(any(CommandImpl.class))).thenReturn(commandFuture);
+    }
+
+    @Test
+    public void shouldCompleteTaskWhenBatchedCommandIsProcessed() throws Exception
+    {
+        // given
+        final TaskControllerImpl controller = new TaskControllerImpl(tasksClient, baseEvent, commandBatcher);
+
+        // when
+        final CompletableFuture<TaskEvent> future = controller.completeTaskWithoutPayload();
+
+        // then
+        assertThat(future).isNotDone();
+        assertThat(controller.isCommandIssued()).isTrue();
+        assertThat(controller.isTaskCompleted()).isFalse();
+
+        // when
+        final TaskEventImpl completedEvent = new TaskEventImpl("COMPLETED", new MsgPackConverter());
+        commandFuture.complete(completedEvent);
+
+        // then
+        assertThat(future.get()).isSameAs(completedEvent);
+        assertThat(controller.isTaskCompleted()).isTrue();
+
+        verify(completeCommand, never()).execute();
+    }
+
+    @Test
+    public void shouldNotCompleteTaskIfBatchedCommandIsRejected()
+    {
+        // given
+        final TaskControllerImpl controller = new TaskControllerImpl(tasksClient, baseEvent, commandBatcher);
+        final CompletableFuture<TaskEvent> future = controller.completeTaskWithoutPayload();
+
+        // when
+        commandFuture.completeExceptionally(new ClientCommandRejectedException("rejected"));
+
+        // then
+        assertThat(future).isCompletedExceptionally();
+        assertThat(controller.isTaskCompleted()).isFalse();
+    }
+
+    @Test
+    public void shouldCompleteTaskWithoutBatcher()
+    {
+        // given
+        final TaskEventImpl completedEvent = new TaskEventImpl("COMPLETED", new MsgPackConverter());
+        when(completeCommand.execute()).thenReturn(completedEvent);
+
+        final TaskControllerImpl controller = new TaskControllerImpl(tasksClient, baseEvent);
+
+        // when
+        final CompletableFuture<TaskEvent> future = controller.completeTaskWithoutPayload();
+
+        // then
+        assertThat(future).isCompleted();
+        assertThat(controller.isTaskCompleted()).isTrue();
+    }
+
+}
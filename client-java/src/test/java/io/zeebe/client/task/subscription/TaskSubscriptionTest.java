@@ -64,6 +64,7 @@ import io.zeebe.test.broker.protocol.MsgPackHelper;
 import io.zeebe.test.broker.protocol.brokerapi.ControlMessageRequest;
 import io.zeebe.test.broker.protocol.brokerapi.ExecuteCommandRequest;
 import io.zeebe.test.broker.protocol.brokerapi.StubBrokerRule;
+import io.zeebe.test.broker.protocol.brokerapi.TaskSubscriptionCredits;
 import io.zeebe.test.util.TestUtil;
 import io.zeebe.transport.RemoteAddress;
 
@@ -804,15 +805,52 @@ public class TaskSubscriptionTest
         Thread.sleep(500L);
 
         // then
-        final List<ControlMessageRequest> creditRequests = broker.getReceivedControlMessageRequests().stream()
-            .filter((r) -> r.messageType() == ControlMessageType.INCREASE_TASK_SUBSCRIPTION_CREDITS)
-            .collect(Collectors.toList());
+        final List<TaskSubscriptionCredits> creditRequests = broker.getReceivedTaskSubscriptionCredits();
 
         assertThat(creditRequests).isNotEmpty();
-        final int numSubmittedCredits = creditRequests.stream().mapToInt((r) -> (int) r.getData().get("credits")).sum();
+        assertThat(creditRequests.stream().allMatch((r) -> r.subscriberKey() == 123L)).isTrue();
+        final int numSubmittedCredits = creditRequests.stream().mapToInt((r) -> r.credits()).sum();
         assertThat(numSubmittedCredits).isGreaterThan(0);
     }
 
+    @Test
+    public void shouldSendCreditsAsOneWayMessage()
+    {
+        // given
+        broker.stubTaskSubscriptionApi(123L);
+
+        final int subscriptionCapacity = 8;
+        final AtomicInteger handledTasks = new AtomicInteger(0);
+
+        clientRule.tasks().newTaskSubscription(clientRule.getDefaultTopicName())
+            .handler((c, t) -> handledTasks.incrementAndGet())
+            .lockOwner("owner")
+            .lockTime(1000L)
+            .taskFetchSize(subscriptionCapacity)
+            .taskType("foo")
+            .open();
+
+        final RemoteAddress clientAddress = broker.getReceivedControlMessageRequests().get(0).getSource();
+
+        // when
+        for (int i = 0; i < subscriptionCapacity; i++)
+        {
+            broker.pushLockedTask(clientAddress, 123L, i, i, "owner", "foo");
+        }
+
+        // then
+        TestUtil.waitUntil(() -> !broker.getReceivedTaskSubscriptionCredits().isEmpty());
+
+        final TaskSubscriptionCredits credits = broker.getReceivedTaskSubscriptionCredits().get(0);
+        assertThat(credits.subscriberKey()).isEqualTo(123L);
+        assertThat(credits.credits()).isGreaterThan(0);
+
+        final long creditControlMessages = broker.getReceivedControlMessageRequests().stream()
+            .filter((r) -> r.messageType() == ControlMessageType.INCREASE_TASK_SUBSCRIPTION_CREDITS)
+            .count();
+        assertThat(creditControlMessages).isEqualTo(0);
+    }
+
     @Test
     public void shouldReopenSubscriptionAfterChannelInterruption()
     {
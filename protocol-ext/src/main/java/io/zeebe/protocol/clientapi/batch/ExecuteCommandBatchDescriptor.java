@@ -0,0 +1,206 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.clientapi.batch;
+
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.zeebe.protocol.Protocol;
+
+/**
+ * Layout of a request which carries many execute command requests, and of its
+ * response. A request consists of the message header, the number of commands
+ * and the commands. Each command is framed by its length and is a complete
+ * execute command request, including its message header.
+ * <p>
+ * The broker writes the commands to the log stream at once. Each command gets
+ * request metadata with a {@link #batchedRequestId(long, int) batched request id},
+ * so the stream processors answer it like a single command. The broker collects
+ * these answers and sends one response, which consists of the message header,
+ * the number of commands and one result per command in the order of the request.
+ * A result consists of the key and the position of the event the command was
+ * answered with, followed by the event framed by its length. A rejected command
+ * is answered with its rejection event.
+ */
+public class ExecuteCommandBatchDescriptor
+{
+    public static final int REQUEST_TEMPLATE_ID = 200;
+    public static final int RESPONSE_TEMPLATE_ID = 201;
+
+    public static final int COMMAND_INDEX_BITS = 10;
+    public static final int MAX_COMMAND_COUNT = 1 << COMMAND_INDEX_BITS;
+
+    public static final long BATCHED_REQUEST_FLAG = 1L << 62;
+    public static final long COMMAND_INDEX_MASK = MAX_COMMAND_COUNT - 1;
+
+    public static final int COMMAND_COUNT_OFFSET;
+    public static final int HEADER_LENGTH;
+
+    public static final int COMMAND_LENGTH_OFFSET;
+    public static final int COMMAND_HEADER_LENGTH;
+
+    public static final int RESPONSE_COMMAND_COUNT_OFFSET;
+    public static final int RESPONSE_HEADER_LENGTH;
+
+    public static final int RESULT_KEY_OFFSET;
+    public static final int RESULT_POSITION_OFFSET;
+    public static final int RESULT_EVENT_LENGTH_OFFSET;
+    public static final int RESULT_HEADER_LENGTH;
+
+    static
+    {
+        int offset = 0;
+
+        COMMAND_COUNT_OFFSET = offset;
+        offset += SIZE_OF_INT;
+
+        HEADER_LENGTH = offset;
+
+        offset = 0;
+
+        COMMAND_LENGTH_OFFSET = offset;
+        offset += SIZE_OF_INT;
+
+        COMMAND_HEADER_LENGTH = offset;
+
+        offset = 0;
+
+        RESPONSE_COMMAND_COUNT_OFFSET = offset;
+        offset += SIZE_OF_INT;
+
+        RESPONSE_HEADER_LENGTH = offset;
+
+        offset = 0;
+
+        RESULT_KEY_OFFSET = offset;
+        offset += SIZE_OF_LONG;
+
+        RESULT_POSITION_OFFSET = offset;
+        offset += SIZE_OF_LONG;
+
+        RESULT_EVENT_LENGTH_OFFSET = offset;
+        offset += SIZE_OF_INT;
+
+        RESULT_HEADER_LENGTH = offset;
+    }
+
+    public static int headerLength()
+    {
+        return HEADER_LENGTH;
+    }
+
+    public static int commandHeaderLength()
+    {
+        return COMMAND_HEADER_LENGTH;
+    }
+
+    public static int framedCommandLength(int commandLength)
+    {
+        return COMMAND_HEADER_LENGTH + commandLength;
+    }
+
+    public static int commandLength(DirectBuffer buffer, int commandOffset)
+    {
+        return buffer.getInt(commandOffset + COMMAND_LENGTH_OFFSET, Protocol.ENDIANNESS);
+    }
+
+    public static int responseHeaderLength()
+    {
+        return RESPONSE_HEADER_LENGTH;
+    }
+
+    public static int responseCommandCount(DirectBuffer buffer, int responseOffset)
+    {
+        return buffer.getInt(responseOffset + RESPONSE_COMMAND_COUNT_OFFSET, Protocol.ENDIANNESS);
+    }
+
+    public static int resultHeaderLength()
+    {
+        return RESULT_HEADER_LENGTH;
+    }
+
+    public static int framedResultLength(int eventLength)
+    {
+        return RESULT_HEADER_LENGTH + eventLength;
+    }
+
+    public static long resultKey(DirectBuffer buffer, int resultOffset)
+    {
+        return buffer.getLong(resultOffset + RESULT_KEY_OFFSET, Protocol.ENDIANNESS);
+    }
+
+    public static long resultPosition(DirectBuffer buffer, int resultOffset)
+    {
+        return buffer.getLong(resultOffset + RESULT_POSITION_OFFSET, Protocol.ENDIANNESS);
+    }
+
+    public static int resultEventLength(DirectBuffer buffer, int resultOffset)
+    {
+        return buffer.getInt(resultOffset + RESULT_EVENT_LENGTH_OFFSET, Protocol.ENDIANNESS);
+    }
+
+    public static int resultEventOffset(int resultOffset)
+    {
+        return resultOffset + RESULT_HEADER_LENGTH;
+    }
+
+    /**
+     * @return the request id of the command with the given index in the batch
+     *         with the given id
+     */
+    public static long batchedRequestId(long batchId, int commandIndex)
+    {
+        return BATCHED_REQUEST_FLAG | (batchId << COMMAND_INDEX_BITS) | (commandIndex & COMMAND_INDEX_MASK);
+    }
+
+    public static boolean isBatchedRequestId(long requestId)
+    {
+        return requestId >= 0 && (requestId & BATCHED_REQUEST_FLAG) != 0;
+    }
+
+    public static long batchId(long batchedRequestId)
+    {
+        return (batchedRequestId & ~BATCHED_REQUEST_FLAG) >>> COMMAND_INDEX_BITS;
+    }
+
+    public static int commandIndex(long batchedRequestId)
+    {
+        return (int) (batchedRequestId & COMMAND_INDEX_MASK);
+    }
+
+    protected final UnsafeBuffer buffer = new UnsafeBuffer(new byte[HEADER_LENGTH]);
+
+    public ExecuteCommandBatchDescriptor wrap(DirectBuffer buffer, int offset)
+    {
+        this.buffer.wrap(buffer, offset, HEADER_LENGTH);
+        return this;
+    }
+
+    public ExecuteCommandBatchDescriptor commandCount(int commandCount)
+    {
+        buffer.putInt(COMMAND_COUNT_OFFSET, commandCount, Protocol.ENDIANNESS);
+        return this;
+    }
+
+    public int commandCount()
+    {
+        return buffer.getInt(COMMAND_COUNT_OFFSET, Protocol.ENDIANNESS);
+    }
+
+}
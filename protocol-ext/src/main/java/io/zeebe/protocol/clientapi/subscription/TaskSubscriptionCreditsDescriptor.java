@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.clientapi.subscription;
+
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+
+import org.agrona.DirectBuffer;
+
+import io.zeebe.protocol.Protocol;
+import io.zeebe.protocol.clientapi.ExecuteCommandRequestEncoder;
+
+/**
+ * Layout of a one-way message which increases the credits of a task
+ * subscription. A message consists of the message header, the subscriber key
+ * and the credits. The broker does not answer it, so that the client does not
+ * wait for credits to be accepted.
+ */
+public class TaskSubscriptionCreditsDescriptor
+{
+    public static final int TEMPLATE_ID = 202;
+    public static final int SCHEMA_ID = ExecuteCommandRequestEncoder.SCHEMA_ID;
+    public static final int SCHEMA_VERSION = ExecuteCommandRequestEncoder.SCHEMA_VERSION;
+
+    public static final int SUBSCRIBER_KEY_OFFSET;
+    public static final int CREDITS_OFFSET;
+    public static final int LENGTH;
+
+    static
+    {
+        int offset = 0;
+
+        SUBSCRIBER_KEY_OFFSET = offset;
+        offset += SIZE_OF_LONG;
+
+        CREDITS_OFFSET = offset;
+        offset += SIZE_OF_INT;
+
+        LENGTH = offset;
+    }
+
+    public static long subscriberKey(DirectBuffer buffer, int offset)
+    {
+        return buffer.getLong(offset + SUBSCRIBER_KEY_OFFSET, Protocol.ENDIANNESS);
+    }
+
+    public static int credits(DirectBuffer buffer, int offset)
+    {
+        return buffer.getInt(offset + CREDITS_OFFSET, Protocol.ENDIANNESS);
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.clientapi.batch;
+
+import static io.zeebe.protocol.clientapi.batch.ExecuteCommandBatchDescriptor.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class ExecuteCommandBatchDescriptorTest
+{
+
+    @Test
+    public void shouldEncodeBatchIdAndCommandIndexInRequestId()
+    {
+        // when
+        final long requestId = batchedRequestId(123_456L, MAX_COMMAND_COUNT - 1);
+
+        // then
+        assertThat(isBatchedRequestId(requestId)).isTrue();
+        assertThat(batchId(requestId)).isEqualTo(123_456L);
+        assertThat(commandIndex(requestId)).isEqualTo(MAX_COMMAND_COUNT - 1);
+    }
+
+    @Test
+    public void shouldNotConsiderRequestIdOfSingleRequestAsBatched()
+    {
+        assertThat(isBatchedRequestId(0L)).isFalse();
+        assertThat(isBatchedRequestId(42L)).isFalse();
+        assertThat(isBatchedRequestId(-1L)).isFalse();
+    }
+
+}
@@ -29,6 +29,19 @@ public class ResponseStub<R>
         this.activationFunction = activationFunction;
     }
 
+    /**
+     * Creates a stub which handles the request without sending a response.
+     */
+    public ResponseStub(Predicate<R> activationFunction)
+    {
+        this(activationFunction, null);
+    }
+
+    public boolean shouldRespond()
+    {
+        return responseWriter != null;
+    }
+
     public boolean applies(R request)
     {
         return activationFunction.test(request);
@@ -141,7 +141,7 @@ public class StubBrokerRule extends ExternalResource
                     .bindAddress(bindAddr)
                     .scheduler(actorScheduler)
                     .sendBuffer(sendBuffer)
-                    .build(null, channelHandler);
+                    .build(channelHandler, channelHandler);
         }
         else
         {
@@ -184,6 +184,14 @@ public class StubBrokerRule extends ExternalResource
         return onExecuteCommandRequest(ecr -> ecr.eventType() == eventType && eventStatus.equals(ecr.getCommand().get("state")));
     }
 
+    /**
+     * Leaves the matching requests unanswered, so that they stay in flight on the client.
+     */
+    public void onExecuteCommandRequestWithoutResponse(Predicate<ExecuteCommandRequest> activationFunction)
+    {
+        channelHandler.addExecuteCommandRequestStub(new ResponseStub<>(activationFunction));
+    }
+
     public ResponseBuilder<ControlMessageResponseBuilder, ErrorResponseBuilder<ControlMessageRequest>> onControlMessageRequest()
     {
         return onControlMessageRequest((r) -> true);
@@ -211,6 +219,11 @@ public class StubBrokerRule extends ExternalResource
         return channelHandler.getAllReceivedRequests();
     }
 
+    public List<TaskSubscriptionCredits> getReceivedTaskSubscriptionCredits()
+    {
+        return channelHandler.getReceivedTaskSubscriptionCredits();
+    }
+
     public SubscribedEventBuilder newSubscribedEvent()
     {
         return new SubscribedEventBuilder(msgPackHelper, transport);
@@ -28,11 +28,12 @@ import io.zeebe.protocol.clientapi.ExecuteCommandRequestDecoder;
 import io.zeebe.protocol.clientapi.MessageHeaderDecoder;
 import io.zeebe.test.broker.protocol.MsgPackHelper;
 import io.zeebe.transport.RemoteAddress;
+import io.zeebe.transport.ServerMessageHandler;
 import io.zeebe.transport.ServerOutput;
 import io.zeebe.transport.ServerRequestHandler;
 import io.zeebe.transport.ServerResponse;
 
-public class StubResponseChannelHandler implements ServerRequestHandler
+public class StubResponseChannelHandler implements ServerRequestHandler, ServerMessageHandler
 {
 
     protected final MessageHeaderDecoder headerDecoder = new MessageHeaderDecoder();
@@ -44,6 +45,7 @@ public class StubResponseChannelHandler implements ServerRequestHandler
     protected final List<Object> allRequests = new CopyOnWriteArrayList<>();
     protected final List<ControlMessageRequest> controlMessageRequests = new CopyOnWriteArrayList<>();
     protected final List<ExecuteCommandRequest> commandRequests = new CopyOnWriteArrayList<>();
+    protected final List<TaskSubscriptionCredits> taskSubscriptionCredits = new CopyOnWriteArrayList<>();
 
     protected ServerResponse response = new ServerResponse();
 
@@ -78,6 +80,24 @@ public class StubResponseChannelHandler implements ServerRequestHandler
         return allRequests;
     }
 
+    public List<TaskSubscriptionCredits> getReceivedTaskSubscriptionCredits()
+    {
+        return taskSubscriptionCredits;
+    }
+
+    @Override
+    public boolean onMessage(ServerOutput output, RemoteAddress remoteAddress, DirectBuffer buffer, int offset, int length)
+    {
+        headerDecoder.wrap(buffer, offset);
+
+        if (TaskSubscriptionCredits.TEMPLATE_ID == headerDecoder.templateId())
+        {
+            taskSubscriptionCredits.add(new TaskSubscriptionCredits(remoteAddress, buffer, offset + headerDecoder.encodedLength()));
+        }
+
+        return true;
+    }
+
     @Override
     public boolean onRequest(ServerOutput output, RemoteAddress remoteAddress, DirectBuffer buffer, int offset, int length, long requestId)
     {
@@ -130,6 +150,11 @@ public class StubResponseChannelHandler implements ServerRequestHandler
         {
             if (stub.applies(request))
             {
+                if (!stub.shouldRespond())
+                {
+                    return true;
+                }
+
                 final MessageBuilder<T> responseWriter = stub.getResponseWriter();
                 responseWriter.initializeFrom(request);
 
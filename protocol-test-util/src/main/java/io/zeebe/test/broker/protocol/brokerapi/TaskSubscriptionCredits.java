@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.test.broker.protocol.brokerapi;
+
+import java.nio.ByteOrder;
+
+import org.agrona.DirectBuffer;
+
+import io.zeebe.transport.RemoteAddress;
+
+/**
+ * A one-way message which increases the credits of a task subscription.
+ */
+public class TaskSubscriptionCredits
+{
+    public static final int TEMPLATE_ID = 202;
+
+    protected static final int SUBSCRIBER_KEY_OFFSET = 0;
+    protected static final int CREDITS_OFFSET = 8;
+
+    protected final RemoteAddress source;
+    protected final long subscriberKey;
+    protected final int credits;
+
+    public TaskSubscriptionCredits(RemoteAddress source, DirectBuffer buffer, int offset)
+    {
+        this.source = source;
+        this.subscriberKey = buffer.getLong(offset + SUBSCRIBER_KEY_OFFSET, ByteOrder.LITTLE_ENDIAN);
+        this.credits = buffer.getInt(offset + CREDITS_OFFSET, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public long subscriberKey()
+    {
+        return subscriberKey;
+    }
+
+    public int credits()
+    {
+        return credits;
+    }
+
+    public RemoteAddress getSource()
+    {
+        return source;
+    }
+
+}
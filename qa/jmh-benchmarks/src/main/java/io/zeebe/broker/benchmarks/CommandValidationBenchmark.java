@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.broker.benchmarks;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.zeebe.broker.task.data.TaskEvent;
+import io.zeebe.broker.task.data.TaskState;
+import io.zeebe.broker.transport.clientapi.CommandSchemas;
+import io.zeebe.broker.transport.clientapi.CommandValidator;
+
+/**
+ * Compares the validation of a complete task command by decoding it into a
+ * task event against the validation of the encoded command by its schema.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class CommandValidationBenchmark
+{
+    private final TaskEvent taskEvent = new TaskEvent();
+    private final CommandValidator commandValidator = new CommandValidator();
+
+    private DirectBuffer command;
+
+    @Setup
+    public void setUp()
+    {
+        // the payload is not interpreted by the validation
+        final DirectBuffer payload = new UnsafeBuffer(new byte[1024]);
+
+        final TaskEvent event = new TaskEvent()
+                .setState(TaskState.COMPLETE)
+                .setType(wrapString("benchmark-task"))
+                .setLockOwner(wrapString("benchmark-worker"))
+                .setLockTime(1234L)
+                .setRetries(3)
+                .setPayload(payload);
+
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[event.getEncodedLength()]);
+        event.write(buffer, 0);
+
+        command = buffer;
+    }
+
+    @Benchmark
+    public boolean decodeEvent()
+    {
+        taskEvent.reset();
+
+        try
+        {
+            taskEvent.wrap(command, 0, command.capacity());
+            return true;
+        }
+        catch (Throwable t)
+        {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean validateBySchema()
+    {
+        return commandValidator.validate(CommandSchemas.TASK_EVENT, command, 0, command.capacity());
+    }
+}
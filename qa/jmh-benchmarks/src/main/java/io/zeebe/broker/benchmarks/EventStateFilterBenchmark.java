@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.broker.benchmarks;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.zeebe.broker.logstreams.processor.EventStateFilter;
+import io.zeebe.broker.task.data.TaskEvent;
+import io.zeebe.broker.task.data.TaskState;
+
+/**
+ * Compares decoding every task event against checking the state of the encoded
+ * event first, for a task lifecycle (create, lock, complete) of which the lock
+ * expiration processor handles two of eight events.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class EventStateFilterBenchmark
+{
+    private static final TaskState[] LIFECYCLE = {
+        TaskState.CREATE,
+        TaskState.CREATED,
+        TaskState.LOCK,
+        TaskState.LOCKED,
+        TaskState.COMPLETE,
+        TaskState.COMPLETED,
+        TaskState.CREATE,
+        TaskState.CREATED
+    };
+
+    private final TaskEvent taskEvent = new TaskEvent();
+
+    private final EventStateFilter stateFilter = new EventStateFilter(
+            TaskState.LOCKED,
+            TaskState.EXPIRE_LOCK,
+            TaskState.LOCK_EXPIRED,
+            TaskState.COMPLETED,
+            TaskState.FAILED);
+
+    private DirectBuffer[] events;
+
+    @Setup
+    public void setUp()
+    {
+        // empty msgpack map
+        final DirectBuffer payload = new UnsafeBuffer(new byte[] {(byte) 0x80});
+
+        events = new DirectBuffer[LIFECYCLE.length];
+
+        for (int i = 0; i < LIFECYCLE.length; i++)
+        {
+            final TaskEvent event = new TaskEvent()
+                    .setState(LIFECYCLE[i])
+                    .setType(wrapString("benchmark-task"))
+                    .setLockOwner(wrapString("benchmark-worker"))
+                    .setPayload(payload);
+
+            final UnsafeBuffer buffer = new UnsafeBuffer(new byte[event.getEncodedLength()]);
+            event.write(buffer, 0);
+
+            events[i] = buffer;
+        }
+    }
+
+    @Benchmark
+    public int decodeAll()
+    {
+        int handled = 0;
+
+        for (int i = 0; i < events.length; i++)
+        {
+            final DirectBuffer event = events[i];
+
+            taskEvent.reset();
+            taskEvent.wrap(event, 0, event.capacity());
+
+            if (isHandled(taskEvent.getState()))
+            {
+                handled += 1;
+            }
+        }
+
+        return handled;
+    }
+
+    @Benchmark
+    public int filterByState()
+    {
+        int handled = 0;
+
+        for (int i = 0; i < events.length; i++)
+        {
+            final DirectBuffer event = events[i];
+
+            if (stateFilter.applies(event, 0, event.capacity()))
+            {
+                taskEvent.reset();
+                taskEvent.wrap(event, 0, event.capacity());
+
+                if (isHandled(taskEvent.getState()))
+                {
+                    handled += 1;
+                }
+            }
+        }
+
+        return handled;
+    }
+
+    private static boolean isHandled(TaskState state)
+    {
+        switch (state)
+        {
+            case LOCKED:
+            case EXPIRE_LOCK:
+            case LOCK_EXPIRED:
+            case COMPLETED:
+            case FAILED:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
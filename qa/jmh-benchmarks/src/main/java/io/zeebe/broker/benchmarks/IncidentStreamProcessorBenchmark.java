@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.broker.benchmarks;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.zeebe.broker.incident.processor.IncidentStreamProcessor;
+import io.zeebe.broker.task.data.TaskEvent;
+import io.zeebe.broker.task.data.TaskState;
+import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.protocol.impl.BrokerEventMetadata;
+
+/**
+ * Measures the events per second which are processed by the incident stream
+ * processor. Each invocation creates an incident for a failed task and
+ * deletes it again when the retries of the task are updated. These are six
+ * events: the failed task, the create command, the created event, the retries
+ * update, the delete command and the deleted event.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class IncidentStreamProcessorBenchmark
+{
+    private static final long TASK_KEY = 2L;
+
+    private StreamProcessorHarness harness;
+
+    private RecordedEvent taskFailedEvent;
+    private RecordedEvent taskRetriesUpdatedEvent;
+
+    @Setup
+    public void setUp()
+    {
+        harness = new StreamProcessorHarness();
+        harness.open(new IncidentStreamProcessor(harness.getLogStreamReader()));
+
+        taskFailedEvent = harness.newEvent(TASK_KEY, metadata(), new TaskEvent()
+            .setState(TaskState.FAILED)
+            .setType(wrapString("benchmark"))
+            .setRetries(0));
+
+        taskRetriesUpdatedEvent = harness.newEvent(TASK_KEY, metadata(), new TaskEvent()
+            .setState(TaskState.RETRIES_UPDATED)
+            .setType(wrapString("benchmark"))
+            .setRetries(1));
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        harness.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public int createAndDeleteIncident()
+    {
+        return harness.processUntilIdle(taskFailedEvent) + harness.processUntilIdle(taskRetriesUpdatedEvent);
+    }
+
+    private static BrokerEventMetadata metadata()
+    {
+        return new BrokerEventMetadata()
+            .eventType(EventType.TASK_EVENT)
+            .protocolVersion(0)
+            .raftTermId(StreamProcessorHarness.TERM);
+    }
+}
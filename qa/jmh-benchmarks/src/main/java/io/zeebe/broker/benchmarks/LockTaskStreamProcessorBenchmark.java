@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.broker.benchmarks;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.DirectBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.zeebe.broker.task.CreditsRequest;
+import io.zeebe.broker.task.data.TaskEvent;
+import io.zeebe.broker.task.data.TaskState;
+import io.zeebe.broker.task.processor.LockTaskStreamProcessor;
+import io.zeebe.broker.task.processor.TaskSubscription;
+import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.protocol.impl.BrokerEventMetadata;
+
+/**
+ * Measures the created tasks per second which are locked by the lock task
+ * stream processor for one subscription. The credits of the subscription are
+ * increased in batches, like a client does after it has handled the locked
+ * tasks.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class LockTaskStreamProcessorBenchmark
+{
+    private static final DirectBuffer TASK_TYPE = wrapString("benchmark");
+    private static final long SUBSCRIBER_KEY = 1L;
+    private static final int CREDITS = 1024;
+
+    private StreamProcessorHarness harness;
+    private LockTaskStreamProcessor streamProcessor;
+
+    private RecordedEvent taskCreatedEvent;
+
+    private final CreditsRequest creditsRequest = new CreditsRequest(SUBSCRIBER_KEY, CREDITS);
+    private int lockedTasks;
+
+    @Setup
+    public void setUp()
+    {
+        harness = new StreamProcessorHarness();
+
+        streamProcessor = new LockTaskStreamProcessor();
+        harness.open(streamProcessor);
+
+        final TaskSubscription subscription = new TaskSubscription(
+                wrapString(StreamProcessorHarness.TOPIC_NAME),
+                StreamProcessorHarness.PARTITION_ID,
+                TASK_TYPE,
+                Duration.ofMinutes(5).toMillis(),
+                wrapString("owner"),
+                1);
+        subscription.setSubscriberKey(SUBSCRIBER_KEY);
+        subscription.setCredits(2 * CREDITS);
+
+        streamProcessor.addSubscription(subscription);
+
+        taskCreatedEvent = harness.newEvent(2L, metadata(), new TaskEvent()
+            .setState(TaskState.CREATED)
+            .setType(TASK_TYPE)
+            .setRetries(3));
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        harness.close();
+    }
+
+    @Benchmark
+    public boolean lockTask()
+    {
+        lockedTasks++;
+        if (lockedTasks == CREDITS)
+        {
+            streamProcessor.increaseSubscriptionCreditsAsync(creditsRequest);
+            lockedTasks = 0;
+        }
+
+        return harness.process(taskCreatedEvent);
+    }
+
+    private static BrokerEventMetadata metadata()
+    {
+        return new BrokerEventMetadata()
+            .eventType(EventType.TASK_EVENT)
+            .protocolVersion(0)
+            .raftTermId(StreamProcessorHarness.TERM);
+    }
+}
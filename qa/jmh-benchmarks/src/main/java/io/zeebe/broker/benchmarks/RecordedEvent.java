@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.broker.benchmarks;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.util.buffer.BufferReader;
+import io.zeebe.util.buffer.BufferWriter;
+
+/**
+ * A reusable event of the benchmark log. The key, the metadata and the value
+ * are copied into buffers which are owned by the event, so that a slot can be
+ * overwritten without allocating a new logged event.
+ */
+public class RecordedEvent
+{
+    private static final int INITIAL_BUFFER_CAPACITY = 1024;
+
+    private final LoggedEvent loggedEvent;
+
+    private MutableDirectBuffer metadataBuffer = new UnsafeBuffer(new byte[INITIAL_BUFFER_CAPACITY]);
+    private int metadataLength;
+
+    private MutableDirectBuffer valueBuffer = new UnsafeBuffer(new byte[INITIAL_BUFFER_CAPACITY]);
+    private int valueLength;
+
+    private long position;
+    private long key;
+
+    public RecordedEvent()
+    {
+        // stub only - the mock must not record the invocations
+        loggedEvent = mock(LoggedEvent.class, withSettings().stubOnly());
+
+        when(loggedEvent.getPosition()).thenAnswer(i -> position);
+        when(loggedEvent.getKey()).thenAnswer(i -> key);
+
+        when(loggedEvent.getValueBuffer()).thenAnswer(i -> valueBuffer);
+        when(loggedEvent.getValueOffset()).thenReturn(0);
+        when(loggedEvent.getValueLength()).thenAnswer(i -> valueLength);
+
+        doAnswer(i ->
+        {
+            final BufferReader reader = (BufferReader) i.getArguments()[0];
+            reader.wrap(metadataBuffer, 0, metadataLength);
+            return null;
+        }).when(loggedEvent).readMetadata(any());
+
+        doAnswer(i ->
+        {
+            final BufferReader reader = (BufferReader) i.getArguments()[0];
+            reader.wrap(valueBuffer, 0, valueLength);
+            return null;
+        }).when(loggedEvent).readValue(any());
+    }
+
+    public void set(long position, long key, BufferWriter metadataWriter, BufferWriter valueWriter)
+    {
+        this.position = position;
+        this.key = key;
+
+        metadataLength = metadataWriter.getLength();
+        if (metadataBuffer.capacity() < metadataLength)
+        {
+            metadataBuffer = new UnsafeBuffer(new byte[metadataLength]);
+        }
+        metadataWriter.write(metadataBuffer, 0);
+
+        valueLength = valueWriter.getLength();
+        if (valueBuffer.capacity() < valueLength)
+        {
+            valueBuffer = new UnsafeBuffer(new byte[valueLength]);
+        }
+        valueWriter.write(valueBuffer, 0);
+    }
+
+    public long getPosition()
+    {
+        return position;
+    }
+
+    public long getKey()
+    {
+        return key;
+    }
+
+    public LoggedEvent getLoggedEvent()
+    {
+        return loggedEvent;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.broker.benchmarks;
+
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.zeebe.broker.system.executor.ScheduledExecutorImpl;
+import io.zeebe.util.actor.ActorScheduler;
+import io.zeebe.util.time.ClockUtil;
+
+/**
+ * Measures the duration of a duty cycle of the scheduled executor, depending
+ * on the number of scheduled commands. The commands are executed periodically
+ * with a period between 1 and 60 seconds. Each duty cycle advances the clock
+ * by one millisecond.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class ScheduledExecutorBenchmark
+{
+    @Param({"10", "1000", "10000"})
+    private int scheduledCommands;
+
+    private ScheduledExecutorImpl executor;
+
+    private Instant now;
+
+    private int executions;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        now = Instant.now();
+        ClockUtil.setCurrentTime(now);
+
+        executor = new ScheduledExecutorImpl(mock(ActorScheduler.class));
+        executor.start();
+
+        final Random random = new Random(42);
+        final Runnable command = () -> executions += 1;
+
+        for (int i = 0; i < scheduledCommands; i++)
+        {
+            final Duration period = Duration.ofMillis(1 + random.nextInt(60_000));
+            executor.scheduleAtFixedRate(command, period, period);
+
+            if (i % 512 == 0)
+            {
+                // drain the queue of the new commands
+                executor.doWork();
+            }
+        }
+        executor.doWork();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        ClockUtil.reset();
+    }
+
+    @Benchmark
+    public int dutyCycle() throws Exception
+    {
+        now = now.plusMillis(1);
+        ClockUtil.setCurrentTime(now);
+
+        return executor.doWork();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.broker.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the stream processor benchmarks with the GC profiler, so that the
+ * throughput is reported together with the allocation rate per operation.
+ * Additional JMH options (e.g. a benchmark filter or <code>-rf json</code>)
+ * can be passed as arguments.
+ */
+public class StreamProcessorBenchmarks
+{
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException
+    {
+        final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+
+        final OptionsBuilder optionsBuilder = new OptionsBuilder();
+        optionsBuilder.parent(commandLineOptions);
+
+        if (commandLineOptions.getIncludes().isEmpty())
+        {
+            optionsBuilder.include(StreamProcessorBenchmarks.class.getPackage().getName() + ".*Benchmark");
+        }
+
+        final Options options = optionsBuilder
+            .addProfiler(GCProfiler.class)
+            .build();
+
+        new Runner(options).run();
+    }
+}
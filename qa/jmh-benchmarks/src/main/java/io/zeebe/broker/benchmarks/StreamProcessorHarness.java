@@ -0,0 +1,280 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.broker.benchmarks;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import org.agrona.collections.Long2ObjectHashMap;
+
+import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.logstreams.log.LogStreamReader;
+import io.zeebe.logstreams.log.LogStreamWriter;
+import io.zeebe.logstreams.processor.EventProcessor;
+import io.zeebe.logstreams.processor.StreamProcessor;
+import io.zeebe.logstreams.processor.StreamProcessorContext;
+import io.zeebe.test.util.FluentAnswer;
+import io.zeebe.util.DeferredCommandContext;
+import io.zeebe.util.buffer.BufferWriter;
+
+/**
+ * Drives a stream processor through a mocked {@link StreamProcessorContext},
+ * in the same way as the stream processor controller does: drain the command
+ * queue, check if the processor is suspended and then process, execute the
+ * side effects, write the event and update the state.
+ *
+ * <p>
+ * Written events are kept in a small ring of reusable {@link RecordedEvent}s
+ * which can be looked up by position through the mocked log stream reader and
+ * which can be fed back into the processor. Events which must stay readable
+ * (e.g. a deployed workflow) can be pinned.
+ *
+ * <p>
+ * The mocks are stub only and the ring is preallocated, so the harness itself
+ * does not grow while a benchmark runs. The mocked invocations still allocate
+ * a little, which is a constant overhead of all benchmarks.
+ */
+public class StreamProcessorHarness
+{
+    public static final String TOPIC_NAME = "benchmark-topic";
+    public static final int PARTITION_ID = 0;
+    public static final int TERM = 1;
+
+    private static final int LOG_CAPACITY = 64;
+
+    private final StreamProcessorContext context = new StreamProcessorContext();
+    private final DeferredCommandContext cmdQueue = new DeferredCommandContext(64);
+
+    private final LogStream logStream;
+    private final LogStreamWriter logStreamWriter;
+    private final LogStreamReader logStreamReader;
+
+    private final RecordedEvent[] log = new RecordedEvent[LOG_CAPACITY];
+    private final Long2ObjectHashMap<RecordedEvent> pinnedEvents = new Long2ObjectHashMap<>();
+    private long position;
+
+    private RecordedEvent seekedEvent;
+    private RecordedEvent lastWrittenEvent;
+
+    private long writeKey;
+    private boolean writePositionAsKey;
+    private BufferWriter writeMetadata;
+    private BufferWriter writeValue;
+
+    private StreamProcessor streamProcessor;
+
+    public StreamProcessorHarness()
+    {
+        for (int i = 0; i < LOG_CAPACITY; i++)
+        {
+            log[i] = new RecordedEvent();
+        }
+
+        logStream = mock(LogStream.class, withSettings().stubOnly());
+        when(logStream.getTopicName()).thenReturn(wrapString(TOPIC_NAME));
+        when(logStream.getPartitionId()).thenReturn(PARTITION_ID);
+        when(logStream.getTerm()).thenReturn(TERM);
+
+        logStreamWriter = mock(LogStreamWriter.class, withSettings().stubOnly().defaultAnswer(new FluentAnswer()));
+
+        doAnswer(i ->
+        {
+            writeKey = (long) i.getArguments()[0];
+            writePositionAsKey = false;
+            return i.getMock();
+        }).when(logStreamWriter).key(anyLong());
+
+        doAnswer(i ->
+        {
+            writePositionAsKey = true;
+            return i.getMock();
+        }).when(logStreamWriter).positionAsKey();
+
+        doAnswer(i ->
+        {
+            writeMetadata = (BufferWriter) i.getArguments()[0];
+            return i.getMock();
+        }).when(logStreamWriter).metadataWriter(any(BufferWriter.class));
+
+        doAnswer(i ->
+        {
+            writeValue = (BufferWriter) i.getArguments()[0];
+            return i.getMock();
+        }).when(logStreamWriter).valueWriter(any(BufferWriter.class));
+
+        doAnswer(i -> append()).when(logStreamWriter).tryWrite();
+
+        logStreamReader = mock(LogStreamReader.class, withSettings().stubOnly());
+
+        doAnswer(i ->
+        {
+            seekedEvent = getEvent((long) i.getArguments()[0]);
+            return seekedEvent != null;
+        }).when(logStreamReader).seek(anyLong());
+
+        doAnswer(i -> seekedEvent != null).when(logStreamReader).hasNext();
+
+        doAnswer(i ->
+        {
+            final RecordedEvent event = seekedEvent;
+            seekedEvent = null;
+            return event.getLoggedEvent();
+        }).when(logStreamReader).next();
+    }
+
+    public void open(StreamProcessor streamProcessor)
+    {
+        this.streamProcessor = streamProcessor;
+
+        context.setId(1);
+        context.setSourceStream(logStream);
+        context.setTargetStream(logStream);
+        context.setStreamProcessorCmdQueue(cmdQueue);
+        context.setLogStreamWriter(logStreamWriter);
+        context.setSourceLogStreamReader(logStreamReader);
+        context.setTargetLogStreamReader(logStreamReader);
+
+        streamProcessor.onOpen(context);
+    }
+
+    public void close()
+    {
+        streamProcessor.onClose();
+    }
+
+    /**
+     * @return the reader which looks up the events of the benchmark log, for
+     *         processors which read the log by themselves
+     */
+    public LogStreamReader getLogStreamReader()
+    {
+        return logStreamReader;
+    }
+
+    /**
+     * Appends an event to the log which is not overwritten by later events.
+     * The key of the event is its position.
+     */
+    public RecordedEvent pinEvent(BufferWriter metadata, BufferWriter value)
+    {
+        position++;
+
+        final RecordedEvent event = new RecordedEvent();
+        event.set(position, position, metadata, value);
+
+        pinnedEvents.put(position, event);
+
+        return event;
+    }
+
+    /**
+     * Creates an event which is not part of the log. It can be passed to
+     * {@link #process(RecordedEvent)} multiple times.
+     */
+    public RecordedEvent newEvent(long key, BufferWriter metadata, BufferWriter value)
+    {
+        position++;
+
+        final RecordedEvent event = new RecordedEvent();
+        event.set(position, key, metadata, value);
+
+        return event;
+    }
+
+    /**
+     * Processes the given event.
+     *
+     * @return <code>true</code>, if the processor has written a new event
+     */
+    public boolean process(RecordedEvent event)
+    {
+        lastWrittenEvent = null;
+
+        cmdQueue.doWork();
+
+        if (!streamProcessor.isSuspended())
+        {
+            final EventProcessor eventProcessor = streamProcessor.onEvent(event.getLoggedEvent());
+            if (eventProcessor != null)
+            {
+                eventProcessor.processEvent();
+                eventProcessor.executeSideEffects();
+                eventProcessor.writeEvent(logStreamWriter);
+                eventProcessor.updateState();
+            }
+            streamProcessor.afterEvent();
+        }
+
+        return lastWrittenEvent != null;
+    }
+
+    /**
+     * Processes the given event and afterwards the events which are written
+     * by the processor, until no more event is written.
+     *
+     * @return the number of processed events
+     */
+    public int processUntilIdle(RecordedEvent event)
+    {
+        int processedEvents = 1;
+
+        boolean hasWrittenEvent = process(event);
+        while (hasWrittenEvent)
+        {
+            hasWrittenEvent = process(lastWrittenEvent);
+            processedEvents++;
+        }
+
+        return processedEvents;
+    }
+
+    protected long append()
+    {
+        position++;
+
+        final RecordedEvent event = log[(int) (position % LOG_CAPACITY)];
+        final long key = writePositionAsKey ? position : writeKey;
+
+        event.set(position, key, writeMetadata, writeValue);
+
+        lastWrittenEvent = event;
+
+        writeKey = -1L;
+        writePositionAsKey = false;
+        writeMetadata = null;
+        writeValue = null;
+
+        return position;
+    }
+
+    protected RecordedEvent getEvent(long position)
+    {
+        final RecordedEvent pinnedEvent = pinnedEvents.get(position);
+        if (pinnedEvent != null)
+        {
+            return pinnedEvent;
+        }
+
+        final RecordedEvent event = log[(int) (position % LOG_CAPACITY)];
+        return event.getPosition() == position ? event : null;
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.broker.benchmarks;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.DirectBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.zeebe.broker.task.CreditsRequest;
+import io.zeebe.broker.task.TaskSubscriptionManager;
+import io.zeebe.broker.task.data.TaskEvent;
+import io.zeebe.broker.task.data.TaskState;
+import io.zeebe.broker.task.processor.TaskInstanceStreamProcessor;
+import io.zeebe.broker.transport.clientapi.CommandResponseWriter;
+import io.zeebe.broker.transport.clientapi.SubscribedEventWriter;
+import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.protocol.impl.BrokerEventMetadata;
+import io.zeebe.test.util.FluentAnswer;
+
+/**
+ * Measures the task events per second which are processed by the task
+ * instance stream processor. Each invocation creates, locks and completes a
+ * task, so that the index of the processor does not grow.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class TaskInstanceStreamProcessorBenchmark
+{
+    private static final long TASK_KEY = 2L;
+    private static final DirectBuffer TASK_TYPE = wrapString("benchmark");
+    private static final DirectBuffer LOCK_OWNER = wrapString("owner");
+
+    private StreamProcessorHarness harness;
+
+    private RecordedEvent createCommand;
+    private RecordedEvent lockCommand;
+    private RecordedEvent completeCommand;
+
+    @Setup
+    public void setUp()
+    {
+        harness = new StreamProcessorHarness();
+
+        final CommandResponseWriter responseWriter = mock(CommandResponseWriter.class, withSettings().stubOnly().defaultAnswer(new FluentAnswer()));
+        when(responseWriter.tryWriteResponse(anyInt(), anyLong())).thenReturn(true);
+
+        final SubscribedEventWriter subscribedEventWriter = mock(SubscribedEventWriter.class, withSettings().stubOnly().defaultAnswer(new FluentAnswer()));
+        when(subscribedEventWriter.tryWriteMessage(anyInt())).thenReturn(true);
+
+        final TaskSubscriptionManager taskSubscriptionManager = mock(TaskSubscriptionManager.class, withSettings().stubOnly());
+        when(taskSubscriptionManager.increaseSubscriptionCreditsAsync(any(CreditsRequest.class))).thenReturn(true);
+
+        harness.open(new TaskInstanceStreamProcessor(responseWriter, subscribedEventWriter, taskSubscriptionManager));
+
+        createCommand = harness.newEvent(TASK_KEY, metadata().requestStreamId(1).requestId(1L), new TaskEvent()
+            .setState(TaskState.CREATE)
+            .setType(TASK_TYPE)
+            .setRetries(3));
+
+        lockCommand = harness.newEvent(TASK_KEY, metadata().requestStreamId(1).subscriberKey(3L), new TaskEvent()
+            .setState(TaskState.LOCK)
+            .setType(TASK_TYPE)
+            .setRetries(3)
+            .setLockTime(Long.MAX_VALUE)
+            .setLockOwner(LOCK_OWNER));
+
+        completeCommand = harness.newEvent(TASK_KEY, metadata().requestStreamId(1).requestId(2L), new TaskEvent()
+            .setState(TaskState.COMPLETE)
+            .setType(TASK_TYPE)
+            .setRetries(3)
+            .setLockTime(Long.MAX_VALUE)
+            .setLockOwner(LOCK_OWNER));
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        harness.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(3)
+    public boolean createLockAndCompleteTask()
+    {
+        harness.process(createCommand);
+        harness.process(lockCommand);
+        return harness.process(completeCommand);
+    }
+
+    private static BrokerEventMetadata metadata()
+    {
+        return new BrokerEventMetadata()
+            .eventType(EventType.TASK_EVENT)
+            .protocolVersion(0)
+            .raftTermId(StreamProcessorHarness.TERM);
+    }
+}
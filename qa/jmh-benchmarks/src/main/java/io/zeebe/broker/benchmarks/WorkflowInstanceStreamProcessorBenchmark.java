@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.broker.benchmarks;
+
+import static io.zeebe.util.buffer.BufferUtil.wrapString;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.CountersManager;
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.zeebe.broker.transport.clientapi.CommandResponseWriter;
+import io.zeebe.broker.workflow.data.WorkflowEvent;
+import io.zeebe.broker.workflow.data.WorkflowInstanceEvent;
+import io.zeebe.broker.workflow.data.WorkflowInstanceState;
+import io.zeebe.broker.workflow.data.WorkflowState;
+import io.zeebe.broker.workflow.map.WorkflowCache;
+import io.zeebe.broker.workflow.processor.WorkflowInstanceStreamProcessor;
+import io.zeebe.protocol.clientapi.EventType;
+import io.zeebe.protocol.impl.BrokerEventMetadata;
+import io.zeebe.test.util.FluentAnswer;
+
+/**
+ * Measures the workflow instances per second which are executed by the
+ * workflow instance stream processor. One instance of a workflow with a start
+ * and an end event takes six events from the create command to the completed
+ * event.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class WorkflowInstanceStreamProcessorBenchmark
+{
+    private static final String BPMN_PROCESS_ID = "process";
+
+    private static final BpmnModelInstance WORKFLOW = Bpmn.createExecutableProcess(BPMN_PROCESS_ID)
+            .startEvent("start")
+            .endEvent("end")
+            .done();
+
+    private StreamProcessorHarness harness;
+    private RecordedEvent createWorkflowInstanceCommand;
+
+    @Setup
+    public void setUp()
+    {
+        harness = new StreamProcessorHarness();
+
+        final CommandResponseWriter responseWriter = mock(CommandResponseWriter.class, withSettings().stubOnly().defaultAnswer(new FluentAnswer()));
+        when(responseWriter.tryWriteResponse(anyInt(), anyLong())).thenReturn(true);
+
+        final CountersManager countersManager = new CountersManager(
+                new UnsafeBuffer(ByteBuffer.allocateDirect(64 * 1024)),
+                new UnsafeBuffer(ByteBuffer.allocateDirect(16 * 1024)));
+        final WorkflowCache workflowCache = new WorkflowCache(1024 * 1024, countersManager);
+
+        final WorkflowInstanceStreamProcessor streamProcessor = new WorkflowInstanceStreamProcessor(
+                responseWriter,
+                harness.getLogStreamReader(),
+                workflowCache,
+                1024 * 1024,
+                countersManager,
+                "benchmark");
+        harness.open(streamProcessor);
+
+        final WorkflowEvent workflowEvent = new WorkflowEvent()
+            .setState(WorkflowState.CREATED)
+            .setBpmnProcessId(wrapString(BPMN_PROCESS_ID))
+            .setVersion(1)
+            .setBpmnXml(wrapString(Bpmn.convertToString(WORKFLOW)));
+
+        final RecordedEvent workflowCreatedEvent = harness.pinEvent(metadata(EventType.WORKFLOW_EVENT), workflowEvent);
+        harness.process(workflowCreatedEvent);
+
+        final WorkflowInstanceEvent createCommand = new WorkflowInstanceEvent()
+            .setState(WorkflowInstanceState.CREATE_WORKFLOW_INSTANCE)
+            .setBpmnProcessId(wrapString(BPMN_PROCESS_ID));
+
+        createWorkflowInstanceCommand = harness.newEvent(1L, metadata(EventType.WORKFLOW_INSTANCE_EVENT).requestStreamId(1).requestId(1L), createCommand);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        harness.close();
+    }
+
+    @Benchmark
+    public int executeWorkflowInstance()
+    {
+        return harness.processUntilIdle(createWorkflowInstanceCommand);
+    }
+
+    private static BrokerEventMetadata metadata(EventType eventType)
+    {
+        return new BrokerEventMetadata()
+            .eventType(eventType)
+            .protocolVersion(0)
+            .raftTermId(StreamProcessorHarness.TERM);
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.perftest;
+
+import static io.zeebe.broker.workflow.graph.transformer.ZeebeExtensions.wrap;
+import static io.zeebe.client.ClientProperties.CLIENT_MAXREQUESTS;
+import static io.zeebe.client.ClientProperties.CLIENT_TASK_EXECUTION_THREADS;
+import static io.zeebe.perftest.CommonProperties.DEFAULT_TOPIC_NAME;
+import static io.zeebe.perftest.helper.TestHelper.printProperties;
+
+import java.util.Properties;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+
+import io.zeebe.client.ClientProperties;
+import io.zeebe.client.WorkflowsClient;
+import io.zeebe.client.ZeebeClient;
+import io.zeebe.client.event.TopicSubscription;
+import io.zeebe.client.task.TaskSubscription;
+import io.zeebe.perftest.embedded.BrokerStageCounters;
+import io.zeebe.perftest.embedded.EmbeddedBroker;
+import io.zeebe.perftest.helper.TestHelper;
+import io.zeebe.perftest.reporter.FileReportWriter;
+import io.zeebe.perftest.reporter.RateReporter;
+import io.zeebe.perftest.reporter.StageRateReporter;
+
+/**
+ * Starts workflow instances at max rate against a broker which runs in the same process and reports the
+ * throughput per stage of the broker:
+ * <ul>
+ * <li>ingest: requests sent by the client</li>
+ * <li>append: events committed to the log</li>
+ * <li>processing: events processed by the task queue and workflow instance stream processors</li>
+ * <li>push: events processed by the task lock and topic subscription push processors</li>
+ * </ul>
+ * The created tasks are completed by a task subscription and all events are received by a topic subscription.
+ * The throughput of each stage is written to <code>test.outputFileName</code> with the stage name as suffix.
+ */
+public class EmbeddedBrokerThroughputTest
+{
+    public static final String TEST_WARMUP_TIMEMS = "test.warmup.timems";
+    public static final String TEST_MAX_CONCURRENT_REQUESTS = "test.maxConcurrentRequests";
+    public static final String BROKER_PORT_OFFSET = "test.broker.portOffset";
+    public static final String BROKER_THREADS = "test.broker.threads";
+
+    public static final String PROCESS_ID = "process";
+    public static final String TASK_TYPE = "foo";
+
+    public static final String[] STAGES = {"ingest", "append", "processing", "push"};
+
+    public static void main(String[] args)
+    {
+        new EmbeddedBrokerThroughputTest().run();
+    }
+
+    public void run()
+    {
+        final Properties properties = System.getProperties();
+
+        setDefaultProperties(properties);
+        ClientProperties.setDefaults(properties);
+
+        printProperties(properties);
+
+        final int portOffset = Integer.parseInt(properties.getProperty(BROKER_PORT_OFFSET));
+        final int brokerThreads = Integer.parseInt(properties.getProperty(BROKER_THREADS));
+
+        try (EmbeddedBroker broker = new EmbeddedBroker(portOffset, brokerThreads))
+        {
+            broker.start();
+
+            final ZeebeClient client = broker.createClient(properties);
+
+            try
+            {
+                executeSetup(client);
+                executeTest(properties, broker, client);
+            }
+            finally
+            {
+                client.close();
+            }
+        }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    protected void setDefaultProperties(final Properties properties)
+    {
+        properties.putIfAbsent(TEST_WARMUP_TIMEMS, "10000");
+        properties.putIfAbsent(CommonProperties.TEST_TIMEMS, "30000");
+        properties.putIfAbsent(TEST_MAX_CONCURRENT_REQUESTS, "128");
+        properties.putIfAbsent(CommonProperties.TEST_OUTPUT_FILE_NAME, "data/output.txt");
+        properties.putIfAbsent(BROKER_PORT_OFFSET, "100");
+        properties.putIfAbsent(BROKER_THREADS, "2");
+        properties.putIfAbsent(CLIENT_MAXREQUESTS, "256");
+        properties.putIfAbsent(CLIENT_TASK_EXECUTION_THREADS, "2");
+    }
+
+    protected void executeSetup(ZeebeClient client)
+    {
+        final BpmnModelInstance processModel = Bpmn.createExecutableProcess(PROCESS_ID)
+                .startEvent()
+                .serviceTask("serviceTask")
+                .endEvent()
+                .done();
+
+        wrap(processModel).taskDefinition("serviceTask", TASK_TYPE, 3);
+
+        client.workflows()
+            .deploy(DEFAULT_TOPIC_NAME)
+            .bpmnModelInstance(processModel)
+            .execute();
+
+        try
+        {
+            Thread.sleep(1000);
+        }
+        catch (InterruptedException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    protected void executeTest(Properties properties, EmbeddedBroker broker, ZeebeClient client)
+    {
+        final int warmupTimeMs = Integer.parseInt(properties.getProperty(TEST_WARMUP_TIMEMS));
+        final int testTimeMs = Integer.parseInt(properties.getProperty(CommonProperties.TEST_TIMEMS));
+        final int maxConcurrentRequests = Integer.parseInt(properties.getProperty(TEST_MAX_CONCURRENT_REQUESTS));
+        final String outputFileName = properties.getProperty(CommonProperties.TEST_OUTPUT_FILE_NAME);
+
+        final TaskSubscription taskSubscription = client.tasks().newTaskSubscription(DEFAULT_TOPIC_NAME)
+            .taskType(TASK_TYPE)
+            .lockOwner("test")
+            .lockTime(10000)
+            .taskFetchSize(32)
+            .handler((controller, task) -> controller.completeTaskWithoutPayload())
+            .open();
+
+        final TopicSubscription topicSubscription = client.topics().newSubscription(DEFAULT_TOPIC_NAME)
+            .name("test")
+            .startAtTailOfTopic()
+            .handler((event) ->
+            {
+                // ignore
+            })
+            .open();
+
+        final WorkflowsClient workflows = client.workflows();
+        final Supplier<Future> requestFn = () -> workflows.create(DEFAULT_TOPIC_NAME)
+            .bpmnProcessId(PROCESS_ID)
+            .executeAsync();
+
+        System.out.format("Executing warmup\n");
+
+        final RateReporter warmupReporter = new RateReporter(1, TimeUnit.SECONDS, (timestamp, intervalValue) ->
+        {
+            // ignore
+        });
+        TestHelper.executeAtMaxRate(requestFn, warmupReporter, warmupTimeMs, maxConcurrentRequests);
+
+        TestHelper.gc();
+
+        System.out.format("Executing test\n");
+
+        final BrokerStageCounters stageCounters = broker.getStageCounters();
+        final RateReporter requestReporter = new RateReporter(1, TimeUnit.SECONDS, (timestamp, intervalValue) ->
+        {
+            // reported by the stage reporter
+        });
+
+        final FileReportWriter[] reportWriters = new FileReportWriter[STAGES.length];
+        for (int i = 0; i < STAGES.length; i++)
+        {
+            reportWriters[i] = new FileReportWriter();
+        }
+
+        final StageRateReporter stageReporter = new StageRateReporter(1, TimeUnit.SECONDS)
+            .stage(STAGES[0], requestReporter::getValue, reportWriters[0])
+            .stage(STAGES[1], broker::getAppendedEvents, reportWriters[1])
+            .stage(STAGES[2], stageCounters::getProcessedEvents, reportWriters[2])
+            .stage(STAGES[3], stageCounters::getPushedEvents, reportWriters[3]);
+
+        new Thread(stageReporter::doReport).start();
+
+        TestHelper.executeAtMaxRate(requestFn, requestReporter, testTimeMs, maxConcurrentRequests);
+
+        System.out.format("Finished test.\n");
+
+        stageReporter.exit();
+
+        taskSubscription.close();
+        topicSubscription.close();
+
+        for (int i = 0; i < STAGES.length; i++)
+        {
+            reportWriters[i].writeToFile(stageFileName(outputFileName, STAGES[i]));
+        }
+
+        TestHelper.gc();
+    }
+
+    protected static String stageFileName(String outputFileName, String stage)
+    {
+        final int extensionIndex = outputFileName.lastIndexOf('.');
+
+        if (extensionIndex > outputFileName.lastIndexOf('/'))
+        {
+            return outputFileName.substring(0, extensionIndex) + "-" + stage + outputFileName.substring(extensionIndex);
+        }
+        else
+        {
+            return outputFileName + "-" + stage;
+        }
+    }
+}
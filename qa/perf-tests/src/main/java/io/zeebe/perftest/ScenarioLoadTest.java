@@ -0,0 +1,223 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.perftest;
+
+import static io.zeebe.broker.workflow.graph.transformer.ZeebeExtensions.wrap;
+import static io.zeebe.client.ClientProperties.CLIENT_MAXREQUESTS;
+import static io.zeebe.client.ClientProperties.CLIENT_TASK_EXECUTION_THREADS;
+import static io.zeebe.perftest.CommonProperties.DEFAULT_TOPIC_NAME;
+import static io.zeebe.perftest.helper.TestHelper.printProperties;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.camunda.bpm.model.bpmn.Bpmn;
+import org.camunda.bpm.model.bpmn.BpmnModelInstance;
+
+import io.zeebe.client.ClientProperties;
+import io.zeebe.client.ZeebeClient;
+import io.zeebe.perftest.helper.TestHelper;
+import io.zeebe.perftest.load.LatencyIntervalMerger;
+import io.zeebe.perftest.load.LoadClient;
+import io.zeebe.perftest.load.LoadScenario;
+import io.zeebe.perftest.reporter.FileReportWriter;
+import io.zeebe.perftest.reporter.RateReporter;
+
+/**
+ * Runs a {@link LoadScenario} with multiple client instances and records coordinated-omission-corrected
+ * latencies. The scenario file is given by <code>test.scenario</code>; the bundled
+ * <code>load-scenario.properties</code> is used by default.
+ * <p>
+ * Writes
+ * <ul>
+ * <li>the latency percentile distribution to <code>test.outputFileName</code></li>
+ * <li>the latency interval log (one merged histogram per second) to <code>test.outputFileName</code>.hlog</li>
+ * <li>the completed requests per second to <code>test.throughputOutputFileName</code></li>
+ * <li>the events received by task workers and topic subscriptions per second to <code>test.eventsOutputFileName</code></li>
+ * </ul>
+ */
+public class ScenarioLoadTest
+{
+    public static final String TEST_SCENARIO = "test.scenario";
+    public static final String TEST_THROUGHPUT_OUTPUT_FILE_NAME = "test.throughputOutputFileName";
+    public static final String TEST_EVENTS_OUTPUT_FILE_NAME = "test.eventsOutputFileName";
+
+    public static final String DEFAULT_SCENARIO_RESOURCE = "load-scenario.properties";
+
+    public static void main(String[] args)
+    {
+        new ScenarioLoadTest().run();
+    }
+
+    public void run()
+    {
+        final Properties properties = System.getProperties();
+
+        setDefaultProperties(properties);
+        ClientProperties.setDefaults(properties);
+
+        printProperties(properties);
+
+        final LoadScenario scenario = readScenario(properties);
+        System.out.println(scenario);
+
+        final List<ZeebeClient> zeebeClients = new ArrayList<>();
+
+        try
+        {
+            for (int i = 0; i < scenario.getClients(); i++)
+            {
+                final ZeebeClient client = ZeebeClient.create(properties);
+                client.connect();
+                zeebeClients.add(client);
+            }
+
+            executeSetup(zeebeClients.get(0));
+            executeTest(properties, scenario, zeebeClients);
+        }
+        catch (Exception e)
+        {
+            e.printStackTrace();
+        }
+        finally
+        {
+            zeebeClients.forEach(ZeebeClient::close);
+        }
+    }
+
+    protected void setDefaultProperties(final Properties properties)
+    {
+        properties.putIfAbsent(CommonProperties.TEST_OUTPUT_FILE_NAME, "data/output.txt");
+        properties.putIfAbsent(TEST_THROUGHPUT_OUTPUT_FILE_NAME, "data/output-throughput.txt");
+        properties.putIfAbsent(TEST_EVENTS_OUTPUT_FILE_NAME, "data/output-events.txt");
+        properties.putIfAbsent(CLIENT_MAXREQUESTS, "2048");
+        properties.putIfAbsent(CLIENT_TASK_EXECUTION_THREADS, "2");
+    }
+
+    protected LoadScenario readScenario(Properties properties)
+    {
+        final String scenarioFile = properties.getProperty(TEST_SCENARIO);
+
+        if (scenarioFile != null)
+        {
+            return LoadScenario.fromFile(scenarioFile);
+        }
+
+        try (InputStream inputStream = ScenarioLoadTest.class.getClassLoader().getResourceAsStream(DEFAULT_SCENARIO_RESOURCE))
+        {
+            return LoadScenario.fromStream(inputStream);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException("Cannot read load scenario " + DEFAULT_SCENARIO_RESOURCE, e);
+        }
+    }
+
+    protected void executeSetup(ZeebeClient client)
+    {
+        final BpmnModelInstance processModel = Bpmn.createExecutableProcess(LoadClient.PROCESS_ID)
+                .startEvent()
+                .serviceTask("serviceTask")
+                .endEvent()
+                .done();
+
+        wrap(processModel).taskDefinition("serviceTask", LoadClient.TASK_TYPE, 3);
+
+        client.workflows()
+            .deploy(DEFAULT_TOPIC_NAME)
+            .bpmnModelInstance(processModel)
+            .execute();
+
+        try
+        {
+            Thread.sleep(1000);
+        }
+        catch (InterruptedException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    protected void executeTest(Properties properties, LoadScenario scenario, List<ZeebeClient> zeebeClients) throws InterruptedException
+    {
+        final String outputFileName = properties.getProperty(CommonProperties.TEST_OUTPUT_FILE_NAME);
+
+        final FileReportWriter throughputReportWriter = new FileReportWriter();
+        final RateReporter requestReporter = new RateReporter(1, TimeUnit.SECONDS, throughputReportWriter);
+
+        final FileReportWriter eventsReportWriter = new FileReportWriter();
+        final RateReporter eventReporter = new RateReporter(1, TimeUnit.SECONDS, eventsReportWriter);
+
+        final List<LoadClient> loadClients = new ArrayList<>();
+        final List<Thread> clientThreads = new ArrayList<>();
+
+        for (int i = 0; i < zeebeClients.size(); i++)
+        {
+            final LoadClient loadClient = new LoadClient(i, zeebeClients.get(i), scenario, requestReporter, eventReporter);
+            loadClient.openConsumers();
+            loadClients.add(loadClient);
+
+            clientThreads.add(new Thread(loadClient, "load-client-" + i));
+        }
+
+        final LatencyIntervalMerger latencyMerger = new LatencyIntervalMerger(loadClients, outputFileName + ".hlog");
+
+        new Thread(requestReporter::doReport).start();
+        new Thread(eventReporter::doReport).start();
+
+        System.out.format("Executing load scenario with %d clients\n", loadClients.size());
+
+        clientThreads.forEach(Thread::start);
+
+        for (Thread clientThread : clientThreads)
+        {
+            while (clientThread.isAlive())
+            {
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+                latencyMerger.mergeInterval();
+            }
+        }
+
+        latencyMerger.mergeInterval();
+
+        loadClients.forEach(LoadClient::closeConsumers);
+
+        requestReporter.exit();
+        eventReporter.exit();
+
+        long backpressured = 0;
+        long failed = 0;
+        long missed = 0;
+
+        for (LoadClient loadClient : loadClients)
+        {
+            backpressured += loadClient.getBackpressuredRequests();
+            failed += loadClient.getFailedRequests();
+            missed += loadClient.getMissedRequests();
+        }
+
+        System.out.format("Finished test. Requests delayed by backpressure: %d, failed: %d, not sent in time: %d\n", backpressured, failed, missed);
+
+        TestHelper.recordHistogram(latencyMerger.getAccumulatedHistogram(), outputFileName);
+        throughputReportWriter.writeToFile(properties.getProperty(TEST_THROUGHPUT_OUTPUT_FILE_NAME));
+        eventsReportWriter.writeToFile(properties.getProperty(TEST_EVENTS_OUTPUT_FILE_NAME));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.perftest.embedded;
+
+import static io.zeebe.broker.logstreams.processor.InstrumentedStreamProcessor.COUNTER_LABEL_PREFIX;
+import static io.zeebe.broker.task.TaskQueueServiceNames.taskQueueInstanceStreamProcessorServiceName;
+import static io.zeebe.broker.task.TaskQueueServiceNames.taskQueueLockStreamProcessorServiceName;
+import static io.zeebe.broker.workflow.WorkflowQueueServiceNames.workflowInstanceStreamProcessorServiceName;
+
+import java.util.function.Predicate;
+
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.status.CountersManager;
+
+import io.zeebe.broker.event.TopicSubscriptionServiceNames;
+import io.zeebe.broker.services.Counters;
+
+/**
+ * Sums up the processed events of the broker's stream processors by stage, as recorded in the counters file.
+ * <ul>
+ * <li>processing: the task queue and workflow instance stream processors</li>
+ * <li>push: the task lock processor and the topic subscription push processors</li>
+ * </ul>
+ * Counters of closed processors are freed, so a sum can decrease when a subscription is closed.
+ */
+public class BrokerStageCounters
+{
+    protected static final String EVENTS_PROCESSED_SUFFIX = ".events-processed";
+
+    protected final CountersManager countersManager;
+    protected final AtomicBuffer countersBuffer;
+
+    protected final Predicate<String> processingLabels;
+    protected final Predicate<String> pushLabels;
+
+    public BrokerStageCounters(Counters counters, String logName)
+    {
+        this.countersManager = counters.getCountersManager();
+        this.countersBuffer = counters.getCountersBuffer();
+
+        final String taskQueueLabel = eventsProcessedLabel(taskQueueInstanceStreamProcessorServiceName(logName).getName());
+        final String workflowInstanceLabel = eventsProcessedLabel(workflowInstanceStreamProcessorServiceName(logName).getName());
+        processingLabels = (label) -> label.equals(taskQueueLabel) || label.equals(workflowInstanceLabel);
+
+        final String taskLockLabel = eventsProcessedLabel(taskQueueLockStreamProcessorServiceName(logName).getName());
+        final String multiplexerLabel = eventsProcessedLabel(TopicSubscriptionServiceNames.subscriptionPushMultiplexerServiceName(logName).getName());
+        final String pushProcessorPrefix = COUNTER_LABEL_PREFIX + TopicSubscriptionServiceNames.subscriptionPushServiceName(logName, "").getName();
+        pushLabels = (label) -> label.equals(taskLockLabel) || label.equals(multiplexerLabel) ||
+                (label.startsWith(pushProcessorPrefix) && label.endsWith(EVENTS_PROCESSED_SUFFIX));
+    }
+
+    protected static String eventsProcessedLabel(String streamProcessorName)
+    {
+        return COUNTER_LABEL_PREFIX + streamProcessorName + EVENTS_PROCESSED_SUFFIX;
+    }
+
+    public long getProcessedEvents()
+    {
+        return sum(processingLabels);
+    }
+
+    public long getPushedEvents()
+    {
+        return sum(pushLabels);
+    }
+
+    protected long sum(Predicate<String> labels)
+    {
+        final long[] sum = new long[1];
+
+        countersManager.forEach((id, label) ->
+        {
+            if (labels.test(label))
+            {
+                sum[0] += countersBuffer.getLongVolatile(CountersManager.counterOffset(id));
+            }
+        });
+
+        return sum[0];
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.perftest.embedded;
+
+import static io.zeebe.broker.logstreams.LogStreamServiceNames.SNAPSHOT_STORAGE_SERVICE;
+import static io.zeebe.broker.logstreams.LogStreamServiceNames.logStreamServiceName;
+import static io.zeebe.broker.system.SystemServiceNames.ACTOR_SCHEDULER_SERVICE;
+import static io.zeebe.broker.system.SystemServiceNames.COUNTERS_MANAGER_SERVICE;
+import static io.zeebe.broker.task.TaskQueueServiceNames.taskQueueInstanceStreamProcessorServiceName;
+import static io.zeebe.broker.workflow.WorkflowQueueServiceNames.workflowInstanceStreamProcessorServiceName;
+import static io.zeebe.logstreams.log.LogStream.DEFAULT_LOG_NAME;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import io.zeebe.broker.Broker;
+import io.zeebe.broker.event.TopicSubscriptionServiceNames;
+import io.zeebe.broker.logstreams.processor.StreamProcessorService;
+import io.zeebe.broker.services.Counters;
+import io.zeebe.broker.transport.TransportServiceNames;
+import io.zeebe.client.ClientProperties;
+import io.zeebe.client.ZeebeClient;
+import io.zeebe.logstreams.log.LogStream;
+import io.zeebe.logstreams.processor.StreamProcessorController;
+import io.zeebe.servicecontainer.Injector;
+import io.zeebe.servicecontainer.Service;
+import io.zeebe.servicecontainer.ServiceContainer;
+import io.zeebe.servicecontainer.ServiceName;
+import io.zeebe.servicecontainer.ServiceStartContext;
+import io.zeebe.servicecontainer.ServiceStopContext;
+
+/**
+ * Starts a broker with all components in the current process, so that the broker can be benchmarked on a single
+ * machine without starting it separately. The broker uses temporary directories and binds its sockets to the
+ * loopback interface. The ports are the default ports plus an offset to not collide with a broker that runs
+ * on the same machine.
+ * <p>
+ * Besides the broker's own stream processors, a read-only processor is installed on the default log
+ * which counts the appended events, see {@link #getAppendedEvents()}.
+ */
+public class EmbeddedBroker implements AutoCloseable
+{
+    public static final String HOST = "127.0.0.1";
+
+    public static final int CLIENT_API_PORT = 51015;
+    public static final int MANAGEMENT_API_PORT = 51016;
+    public static final int REPLICATION_API_PORT = 51017;
+
+    public static final int LOG_APPEND_COUNTER_PROCESSOR_ID = 1000;
+
+    protected static final ServiceName<BrokerReadyService> BROKER_READY_SERVICE = ServiceName.newServiceName("perftest.broker.ready", BrokerReadyService.class);
+    protected static final ServiceName<StreamProcessorController> LOG_APPEND_COUNTER_SERVICE = ServiceName.newServiceName(String.format("perftest.%s.append.counter", DEFAULT_LOG_NAME), StreamProcessorController.class);
+
+    protected final int portOffset;
+    protected final int numberOfThreads;
+
+    protected final LogAppendCounter logAppendCounter = new LogAppendCounter();
+
+    protected Broker broker;
+    protected BrokerStageCounters stageCounters;
+
+    public EmbeddedBroker(int portOffset, int numberOfThreads)
+    {
+        this.portOffset = portOffset;
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    public void start()
+    {
+        final byte[] config = createConfiguration().getBytes(StandardCharsets.UTF_8);
+
+        broker = new Broker(new ByteArrayInputStream(config));
+
+        final ServiceContainer serviceContainer = broker.getBrokerContext().getServiceContainer();
+        final ServiceName<LogStream> logStreamServiceName = logStreamServiceName(DEFAULT_LOG_NAME);
+
+        final BrokerReadyService readyService = new BrokerReadyService();
+
+        final StreamProcessorService appendCounterService = new StreamProcessorService(
+                LOG_APPEND_COUNTER_SERVICE.getName(),
+                LOG_APPEND_COUNTER_PROCESSOR_ID,
+                logAppendCounter)
+            .readOnly(true);
+
+        try
+        {
+            // block until the default log and the client api are ready
+            serviceContainer.createService(BROKER_READY_SERVICE, readyService)
+                .dependency(COUNTERS_MANAGER_SERVICE, readyService.getCountersInjector())
+                .dependency(TransportServiceNames.serverTransport(TransportServiceNames.CLIENT_API_SERVER_NAME))
+                .dependency(TopicSubscriptionServiceNames.subscriptionManagementServiceName(DEFAULT_LOG_NAME))
+                .dependency(taskQueueInstanceStreamProcessorServiceName(DEFAULT_LOG_NAME))
+                .dependency(workflowInstanceStreamProcessorServiceName(DEFAULT_LOG_NAME))
+                .install()
+                .get(30, TimeUnit.SECONDS);
+
+            serviceContainer.createService(LOG_APPEND_COUNTER_SERVICE, appendCounterService)
+                .dependency(logStreamServiceName, appendCounterService.getSourceStreamInjector())
+                .dependency(logStreamServiceName, appendCounterService.getTargetStreamInjector())
+                .dependency(SNAPSHOT_STORAGE_SERVICE, appendCounterService.getSnapshotStorageInjector())
+                .dependency(ACTOR_SCHEDULER_SERVICE, appendCounterService.getActorSchedulerInjector())
+                .install()
+                .get(30, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException | ExecutionException | TimeoutException e)
+        {
+            close();
+            throw new RuntimeException("Embedded broker not started within 30 seconds.", e);
+        }
+
+        stageCounters = new BrokerStageCounters(readyService.getCountersInjector().getValue(), DEFAULT_LOG_NAME);
+    }
+
+    protected String createConfiguration()
+    {
+        final StringBuilder builder = new StringBuilder();
+
+        builder.append("[global]\n");
+        builder.append("useTempDirectory = true\n");
+
+        builder.append("[network]\n");
+        builder.append("host = \"").append(HOST).append("\"\n");
+
+        builder.append("[network.clientApi]\n");
+        builder.append("port = ").append(CLIENT_API_PORT + portOffset).append("\n");
+
+        builder.append("[network.managementApi]\n");
+        builder.append("host = \"").append(HOST).append("\"\n");
+        builder.append("port = ").append(MANAGEMENT_API_PORT + portOffset).append("\n");
+
+        builder.append("[network.replicationApi]\n");
+        builder.append("host = \"").append(HOST).append("\"\n");
+        builder.append("port = ").append(REPLICATION_API_PORT + portOffset).append("\n");
+
+        builder.append("[threading]\n");
+        builder.append("numberOfThreads = ").append(numberOfThreads).append("\n");
+
+        return builder.toString();
+    }
+
+    public String getContactPoint()
+    {
+        return HOST + ":" + (CLIENT_API_PORT + portOffset);
+    }
+
+    /**
+     * Creates a client which connects to this broker. The contact point of the given properties is overridden.
+     */
+    public ZeebeClient createClient(Properties properties)
+    {
+        final Properties clientProperties = new Properties();
+        clientProperties.putAll(properties);
+        clientProperties.setProperty(ClientProperties.BROKER_CONTACTPOINT, getContactPoint());
+
+        final ZeebeClient client = ZeebeClient.create(clientProperties);
+        client.connect();
+
+        return client;
+    }
+
+    public long getAppendedEvents()
+    {
+        return logAppendCounter.getAppendedEvents();
+    }
+
+    public BrokerStageCounters getStageCounters()
+    {
+        return stageCounters;
+    }
+
+    @Override
+    public void close()
+    {
+        if (broker != null)
+        {
+            broker.close();
+            broker = null;
+        }
+    }
+
+    static class BrokerReadyService implements Service<BrokerReadyService>
+    {
+        protected final Injector<Counters> countersInjector = new Injector<>();
+
+        @Override
+        public void start(ServiceStartContext startContext)
+        {
+        }
+
+        @Override
+        public void stop(ServiceStopContext stopContext)
+        {
+        }
+
+        @Override
+        public BrokerReadyService get()
+        {
+            return this;
+        }
+
+        public Injector<Counters> getCountersInjector()
+        {
+            return countersInjector;
+        }
+    }
+}
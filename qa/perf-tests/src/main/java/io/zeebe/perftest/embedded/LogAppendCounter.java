@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.perftest.embedded;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.zeebe.broker.logstreams.processor.NoopSnapshotSupport;
+import io.zeebe.logstreams.log.LoggedEvent;
+import io.zeebe.logstreams.processor.EventProcessor;
+import io.zeebe.logstreams.processor.StreamProcessor;
+import io.zeebe.logstreams.spi.SnapshotSupport;
+
+/**
+ * Read-only stream processor which counts the committed events of a log stream.
+ */
+public class LogAppendCounter implements StreamProcessor, EventProcessor
+{
+    protected final SnapshotSupport snapshotSupport = new NoopSnapshotSupport();
+
+    protected final AtomicLong appendedEvents = new AtomicLong();
+
+    @Override
+    public SnapshotSupport getStateResource()
+    {
+        return snapshotSupport;
+    }
+
+    @Override
+    public EventProcessor onEvent(LoggedEvent event)
+    {
+        return this;
+    }
+
+    @Override
+    public void processEvent()
+    {
+    }
+
+    @Override
+    public void updateState()
+    {
+        appendedEvents.lazySet(appendedEvents.get() + 1);
+    }
+
+    public long getAppendedEvents()
+    {
+        return appendedEvents.get();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.perftest.load;
+
+import java.io.FileNotFoundException;
+import java.util.List;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+/**
+ * Merges the latencies that the clients recorded in an interval into one histogram and
+ * appends it to an HdrHistogram interval log. The merged intervals are accumulated
+ * into the histogram of the whole test.
+ */
+public class LatencyIntervalMerger
+{
+    protected final List<LoadClient> clients;
+    protected final HistogramLogWriter logWriter;
+
+    protected final Histogram intervalHistogram = new Histogram(3);
+    protected final Histogram accumulatedHistogram = new Histogram(3);
+
+    public LatencyIntervalMerger(List<LoadClient> clients, String logFileName)
+    {
+        this.clients = clients;
+
+        try
+        {
+            this.logWriter = new HistogramLogWriter(logFileName);
+        }
+        catch (FileNotFoundException e)
+        {
+            throw new RuntimeException("Cannot create histogram log " + logFileName, e);
+        }
+
+        final long now = System.currentTimeMillis();
+
+        logWriter.outputLogFormatVersion();
+        logWriter.outputStartTime(now);
+        logWriter.setBaseTime(now);
+        logWriter.outputLegend();
+    }
+
+    public void mergeInterval()
+    {
+        intervalHistogram.reset();
+
+        long startTime = Long.MAX_VALUE;
+        long endTime = 0;
+
+        for (int i = 0; i < clients.size(); i++)
+        {
+            final Histogram clientHistogram = clients.get(i).getIntervalHistogram();
+
+            intervalHistogram.add(clientHistogram);
+            startTime = Math.min(startTime, clientHistogram.getStartTimeStamp());
+            endTime = Math.max(endTime, clientHistogram.getEndTimeStamp());
+        }
+
+        intervalHistogram.setStartTimeStamp(startTime);
+        intervalHistogram.setEndTimeStamp(endTime);
+
+        logWriter.outputIntervalHistogram(intervalHistogram);
+        accumulatedHistogram.add(intervalHistogram);
+    }
+
+    public Histogram getAccumulatedHistogram()
+    {
+        return accumulatedHistogram;
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.perftest.load;
+
+import static io.zeebe.perftest.CommonProperties.DEFAULT_TOPIC_NAME;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import io.zeebe.client.ZeebeClient;
+import io.zeebe.client.event.TopicSubscription;
+import io.zeebe.client.task.TaskSubscription;
+import io.zeebe.perftest.reporter.RateReporter;
+
+/**
+ * Sends requests of a {@link LoadScenario} with one client instance on its own thread.
+ * <p>
+ * The latency of a request is measured from the time at which the request should have been sent
+ * according to the request rate (intended start time), not from the time it was actually sent.
+ * If the client falls behind, e.g. because of backpressure or a full request pool, the waiting time
+ * is part of the latency instead of being omitted (coordinated omission).
+ */
+public class LoadClient implements Runnable
+{
+    public static final String PROCESS_ID = "process";
+    public static final String TASK_TYPE = "foo";
+
+    protected static final int WORKLOAD_CREATE_INSTANCE = 0;
+    protected static final int WORKLOAD_CREATE_TASK = 1;
+
+    protected final int id;
+    protected final ZeebeClient client;
+    protected final LoadScenario scenario;
+    protected final RateReporter requestReporter;
+    protected final RateReporter eventReporter;
+
+    protected final Recorder latencyRecorder = new Recorder(3);
+    protected Histogram intervalHistogram;
+    protected final int[] workloadSequence;
+    protected int workloadIndex = 0;
+
+    protected final LinkedList<InFlightRequest> inFlightRequests = new LinkedList<>();
+    protected final List<TaskSubscription> taskSubscriptions = new ArrayList<>();
+    protected final List<TopicSubscription> topicSubscriptions = new ArrayList<>();
+
+    protected long backpressuredRequests = 0;
+    protected long failedRequests = 0;
+    protected long missedRequests = 0;
+
+    protected volatile boolean recording = false;
+
+    public LoadClient(int id, ZeebeClient client, LoadScenario scenario, RateReporter requestReporter, RateReporter eventReporter)
+    {
+        this.id = id;
+        this.client = client;
+        this.scenario = scenario;
+        this.requestReporter = requestReporter;
+        this.eventReporter = eventReporter;
+        this.workloadSequence = workloadSequence(scenario);
+    }
+
+    /**
+     * @return the workloads of the request mix in the order they are sent, e.g. [0, 0, 0, 1] for a 3:1 mix
+     */
+    protected static int[] workloadSequence(LoadScenario scenario)
+    {
+        final int[] sequence = new int[scenario.getCreateInstanceWeight() + scenario.getCreateTaskWeight()];
+
+        for (int i = 0; i < sequence.length; i++)
+        {
+            sequence[i] = i < scenario.getCreateInstanceWeight() ? WORKLOAD_CREATE_INSTANCE : WORKLOAD_CREATE_TASK;
+        }
+
+        return sequence;
+    }
+
+    public void openConsumers()
+    {
+        for (int i = 0; i < scenario.getTaskWorkers(); i++)
+        {
+            final TaskSubscription subscription = client.tasks().newTaskSubscription(DEFAULT_TOPIC_NAME)
+                .taskType(TASK_TYPE)
+                .lockOwner("load-" + id)
+                .lockTime(10000)
+                .taskFetchSize(32)
+                .handler((controller, task) ->
+                {
+                    controller.completeTaskWithoutPayload();
+                    eventReporter.increment();
+                })
+                .open();
+
+            taskSubscriptions.add(subscription);
+        }
+
+        for (int i = 0; i < scenario.getTopicSubscriptions(); i++)
+        {
+            final TopicSubscription subscription = client.topics().newSubscription(DEFAULT_TOPIC_NAME)
+                .name("load-" + id + "-" + i)
+                .startAtTailOfTopic()
+                .handler((event) -> eventReporter.increment())
+                .open();
+
+            topicSubscriptions.add(subscription);
+        }
+    }
+
+    public void closeConsumers()
+    {
+        taskSubscriptions.forEach(TaskSubscription::close);
+        taskSubscriptions.clear();
+
+        topicSubscriptions.forEach(TopicSubscription::close);
+        topicSubscriptions.clear();
+    }
+
+    @Override
+    public void run()
+    {
+        executeStep(scenario.getWarmup());
+
+        latencyRecorder.reset();
+        recording = true;
+
+        for (LoadStep step : scenario.getSteps())
+        {
+            executeStep(step);
+        }
+
+        awaitInFlightRequests();
+        recording = false;
+    }
+
+    protected void executeStep(LoadStep step)
+    {
+        // each client sends its share of the total rate
+        final double clientRate = (double) step.getRequestRate() / scenario.getClients();
+        final long intervalNs = (long) (TimeUnit.SECONDS.toNanos(1) / clientRate);
+
+        final long startTime = System.nanoTime();
+        final long endTime = startTime + TimeUnit.MILLISECONDS.toNanos(step.getDurationMs());
+
+        long intendedStartTime = startTime;
+        long backpressuredStartTime = -1L;
+        long now;
+
+        while ((now = System.nanoTime()) < endTime)
+        {
+            pollInFlightRequests(now);
+
+            if (now < intendedStartTime)
+            {
+                LockSupport.parkNanos(Math.min(intendedStartTime - now, TimeUnit.MICROSECONDS.toNanos(100)));
+            }
+            else if (inFlightRequests.size() < scenario.getMaxInFlightRequests() && trySendRequest(intendedStartTime))
+            {
+                intendedStartTime += intervalNs;
+            }
+            else if (backpressuredStartTime != intendedStartTime)
+            {
+                // retried with the same intended start time, so the delay counts towards the latency
+                backpressuredStartTime = intendedStartTime;
+                backpressuredRequests++;
+            }
+        }
+
+        // requests which should have been sent in this step but were not
+        if (intendedStartTime < endTime)
+        {
+            missedRequests += (endTime - intendedStartTime) / intervalNs;
+        }
+    }
+
+    protected boolean trySendRequest(long intendedStartTime)
+    {
+        final int workload = workloadSequence[workloadIndex];
+        workloadIndex = (workloadIndex + 1) % workloadSequence.length;
+
+        try
+        {
+            final Future<?> future;
+
+            if (workload == WORKLOAD_CREATE_INSTANCE)
+            {
+                future = client.workflows().create(DEFAULT_TOPIC_NAME)
+                    .bpmnProcessId(PROCESS_ID)
+                    .executeAsync();
+            }
+            else
+            {
+                future = client.tasks().create(DEFAULT_TOPIC_NAME, TASK_TYPE)
+                    .executeAsync();
+            }
+
+            inFlightRequests.add(new InFlightRequest(future, intendedStartTime));
+            return true;
+        }
+        catch (Exception e)
+        {
+            // e.g. no request available in the client's request pool
+            return false;
+        }
+    }
+
+    protected void pollInFlightRequests(long now)
+    {
+        // responses may arrive in any order
+        final Iterator<InFlightRequest> iterator = inFlightRequests.iterator();
+        while (iterator.hasNext())
+        {
+            final InFlightRequest request = iterator.next();
+
+            if (request.future.isDone())
+            {
+                try
+                {
+                    request.future.get();
+                }
+                catch (Exception e)
+                {
+                    failedRequests++;
+                }
+
+                if (recording)
+                {
+                    latencyRecorder.recordValue(now - request.intendedStartTime);
+                    requestReporter.increment();
+                }
+
+                iterator.remove();
+            }
+        }
+    }
+
+    protected void awaitInFlightRequests()
+    {
+        while (!inFlightRequests.isEmpty())
+        {
+            pollInFlightRequests(System.nanoTime());
+        }
+    }
+
+    /**
+     * @return the latencies recorded since the last call. The histogram is reused by the next call.
+     *         Must be called by one thread at a time, which may be different from the client's thread.
+     */
+    public Histogram getIntervalHistogram()
+    {
+        intervalHistogram = latencyRecorder.getIntervalHistogram(intervalHistogram);
+        return intervalHistogram;
+    }
+
+    public int getId()
+    {
+        return id;
+    }
+
+    public long getBackpressuredRequests()
+    {
+        return backpressuredRequests;
+    }
+
+    public long getFailedRequests()
+    {
+        return failedRequests;
+    }
+
+    public long getMissedRequests()
+    {
+        return missedRequests;
+    }
+
+    protected static class InFlightRequest
+    {
+        protected final Future<?> future;
+        protected final long intendedStartTime;
+
+        InFlightRequest(Future<?> future, long intendedStartTime)
+        {
+            this.future = future;
+            this.intendedStartTime = intendedStartTime;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.perftest.load;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Describes a load test: the number of client instances, the mix of requests they send,
+ * the consumers they open and the request rate over time (warmup and ramp-up steps).
+ * <p>
+ * A scenario is read from a properties file, see <code>load-scenario.properties</code>
+ * for an example with all supported keys.
+ */
+public class LoadScenario
+{
+    public static final String CLIENTS = "clients";
+    public static final String MAX_IN_FLIGHT_REQUESTS = "maxInFlightRequests";
+    public static final String MIX_CREATE_INSTANCE = "mix.createInstance";
+    public static final String MIX_CREATE_TASK = "mix.createTask";
+    public static final String TASK_WORKERS = "taskWorkers";
+    public static final String TOPIC_SUBSCRIPTIONS = "topicSubscriptions";
+    public static final String WARMUP_RATE = "warmup.rate";
+    public static final String WARMUP_TIMEMS = "warmup.timems";
+    public static final String STEPS = "steps";
+
+    protected int clients = 1;
+    protected int maxInFlightRequests = 1024;
+    protected int createInstanceWeight = 1;
+    protected int createTaskWeight = 0;
+    protected int taskWorkers = 0;
+    protected int topicSubscriptions = 0;
+    protected LoadStep warmup = new LoadStep(1000, 30_000);
+    protected List<LoadStep> steps = Collections.singletonList(new LoadStep(5000, 30_000));
+
+    public static LoadScenario fromFile(String fileName)
+    {
+        try (InputStream inputStream = new FileInputStream(fileName))
+        {
+            return fromStream(inputStream);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException("Cannot read load scenario " + fileName, e);
+        }
+    }
+
+    public static LoadScenario fromStream(InputStream inputStream) throws IOException
+    {
+        final Properties properties = new Properties();
+        properties.load(inputStream);
+
+        return fromProperties(properties);
+    }
+
+    public static LoadScenario fromProperties(Properties properties)
+    {
+        final LoadScenario scenario = new LoadScenario();
+
+        scenario.clients = getInt(properties, CLIENTS, scenario.clients);
+        scenario.maxInFlightRequests = getInt(properties, MAX_IN_FLIGHT_REQUESTS, scenario.maxInFlightRequests);
+        scenario.createInstanceWeight = getInt(properties, MIX_CREATE_INSTANCE, scenario.createInstanceWeight);
+        scenario.createTaskWeight = getInt(properties, MIX_CREATE_TASK, scenario.createTaskWeight);
+        scenario.taskWorkers = getInt(properties, TASK_WORKERS, scenario.taskWorkers);
+        scenario.topicSubscriptions = getInt(properties, TOPIC_SUBSCRIPTIONS, scenario.topicSubscriptions);
+
+        scenario.warmup = new LoadStep(
+                getInt(properties, WARMUP_RATE, scenario.warmup.getRequestRate()),
+                getInt(properties, WARMUP_TIMEMS, (int) scenario.warmup.getDurationMs()));
+
+        final String steps = properties.getProperty(STEPS);
+        if (steps != null)
+        {
+            scenario.steps = parseSteps(steps);
+        }
+
+        scenario.validate();
+
+        return scenario;
+    }
+
+    /**
+     * @param steps comma-separated list of <code>rate:durationMs</code> pairs, e.g. <code>1000:30000,2000:30000</code>
+     */
+    protected static List<LoadStep> parseSteps(String steps)
+    {
+        final List<LoadStep> result = new ArrayList<>();
+
+        for (String step : steps.split(","))
+        {
+            final String[] parts = step.trim().split(":");
+
+            if (parts.length != 2)
+            {
+                throw new IllegalArgumentException("Invalid load step '" + step + "'. Expected format 'rate:durationMs'");
+            }
+
+            result.add(new LoadStep(Integer.parseInt(parts[0].trim()), Long.parseLong(parts[1].trim())));
+        }
+
+        return result;
+    }
+
+    protected static int getInt(Properties properties, String key, int defaultValue)
+    {
+        final String value = properties.getProperty(key);
+        return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+    }
+
+    protected void validate()
+    {
+        if (clients <= 0)
+        {
+            throw new IllegalArgumentException("At least one client is required");
+        }
+
+        if (createInstanceWeight < 0 || createTaskWeight < 0 || createInstanceWeight + createTaskWeight == 0)
+        {
+            throw new IllegalArgumentException("The request mix must have at least one positive weight");
+        }
+
+        if (steps.isEmpty())
+        {
+            throw new IllegalArgumentException("At least one load step is required");
+        }
+    }
+
+    public int getClients()
+    {
+        return clients;
+    }
+
+    public int getMaxInFlightRequests()
+    {
+        return maxInFlightRequests;
+    }
+
+    public int getCreateInstanceWeight()
+    {
+        return createInstanceWeight;
+    }
+
+    public int getCreateTaskWeight()
+    {
+        return createTaskWeight;
+    }
+
+    public int getTaskWorkers()
+    {
+        return taskWorkers;
+    }
+
+    public int getTopicSubscriptions()
+    {
+        return topicSubscriptions;
+    }
+
+    public LoadStep getWarmup()
+    {
+        return warmup;
+    }
+
+    public List<LoadStep> getSteps()
+    {
+        return steps;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "LoadScenario [clients=" + clients + ", maxInFlightRequests=" + maxInFlightRequests +
+                ", createInstanceWeight=" + createInstanceWeight + ", createTaskWeight=" + createTaskWeight +
+                ", taskWorkers=" + taskWorkers + ", topicSubscriptions=" + topicSubscriptions +
+                ", warmup=" + warmup + ", steps=" + steps + "]";
+    }
+}
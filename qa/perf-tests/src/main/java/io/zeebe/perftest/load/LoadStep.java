@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.perftest.load;
+
+/**
+ * A phase of a load test in which all clients together send requests at a fixed rate.
+ */
+public class LoadStep
+{
+    protected final int requestRate;
+    protected final long durationMs;
+
+    public LoadStep(int requestRate, long durationMs)
+    {
+        if (requestRate <= 0 || durationMs <= 0)
+        {
+            throw new IllegalArgumentException("Request rate and duration of a load step must be positive");
+        }
+
+        this.requestRate = requestRate;
+        this.durationMs = durationMs;
+    }
+
+    /**
+     * @return the rate of all clients together in requests / second
+     */
+    public int getRequestRate()
+    {
+        return requestRate;
+    }
+
+    public long getDurationMs()
+    {
+        return durationMs;
+    }
+
+    @Override
+    public String toString()
+    {
+        return requestRate + "req/s for " + durationMs + "ms";
+    }
+}
@@ -62,6 +62,11 @@ public class RateReporter
         value.incrementAndGet();
     }
 
+    public long getValue()
+    {
+        return value.get();
+    }
+
     public void exit()
     {
         exit = true;
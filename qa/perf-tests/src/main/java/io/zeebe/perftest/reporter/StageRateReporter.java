@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.perftest.reporter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Reports the rates of multiple counters which are sampled in a fixed interval, e.g. the stages of the broker.
+ * In contrast to {@link RateReporter}, the counters are maintained elsewhere and only read by the reporter.
+ */
+public class StageRateReporter
+{
+    protected final List<Stage> stages = new ArrayList<>();
+
+    protected final long reportIntervalInNs;
+
+    protected long startTime = 0;
+
+    protected volatile boolean exit = false;
+
+    public StageRateReporter(int interval, TimeUnit intervalUnit)
+    {
+        this.reportIntervalInNs = intervalUnit.toNanos(interval);
+    }
+
+    public StageRateReporter stage(String name, LongSupplier counter, RateReportFn reportFn)
+    {
+        stages.add(new Stage(name, counter, reportFn));
+        return this;
+    }
+
+    public void doReport()
+    {
+        startTime = System.nanoTime();
+
+        for (Stage stage : stages)
+        {
+            stage.lastReportedValue = stage.counter.getAsLong();
+        }
+
+        final StringBuilder line = new StringBuilder();
+
+        do
+        {
+            LockSupport.parkNanos(reportIntervalInNs);
+
+            final long timestamp = System.nanoTime() - startTime;
+
+            line.setLength(0);
+            line.append(TimeUnit.NANOSECONDS.toSeconds(timestamp)).append("s");
+
+            for (Stage stage : stages)
+            {
+                final long currentValue = stage.counter.getAsLong();
+                final long intervalValue = currentValue - stage.lastReportedValue;
+
+                stage.reportFn.reportRate(timestamp, intervalValue);
+                stage.lastReportedValue = currentValue;
+
+                line.append("\t").append(stage.name).append("=").append(intervalValue);
+            }
+
+            System.out.println(line);
+        }
+        while (!exit);
+    }
+
+    public void exit()
+    {
+        exit = true;
+    }
+
+    static class Stage
+    {
+        protected final String name;
+        protected final LongSupplier counter;
+        protected final RateReportFn reportFn;
+
+        protected long lastReportedValue;
+
+        Stage(String name, LongSupplier counter, RateReportFn reportFn)
+        {
+            this.name = name;
+            this.counter = counter;
+            this.reportFn = reportFn;
+        }
+    }
+}